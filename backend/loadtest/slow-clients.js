@@ -0,0 +1,50 @@
+// k6 scenario for comparing the default (platform thread) model with the virtual-threads profile.
+//
+//   1. start the app:  mvn spring-boot:run
+//                      mvn spring-boot:run -Dspring-boot.run.profiles=virtual-threads
+//   2. run:            k6 run -e BASE_URL=http://localhost:8080 -e VUS=2000 loadtest/slow-clients.js
+//
+// Many concurrent virtual users with think time between calls model a large population of slow clients.
+// Compare http_req_duration p95/p99, http_req_failed and the iterations rate between the two runs;
+// add latency on the database side (e.g. tc netem) to see the platform thread pool saturate first.
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const VUS = parseInt(__ENV.VUS || '2000');
+
+export const options = {
+    scenarios: {
+        slow_clients: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: VUS },
+                { duration: '2m', target: VUS },
+                { duration: '15s', target: 0 },
+            ],
+            gracefulRampDown: '10s',
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+export function setup() {
+    const page = http.get(`${BASE_URL}/api/v1/customers/page?size=500`).json();
+    return { ids: page.customers.map((c) => c.id) };
+}
+
+export default function (data) {
+    const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+
+    const byId = http.get(`${BASE_URL}/api/v1/customers/${id}`);
+    check(byId, { 'find by id is 200': (r) => r.status === 200 });
+
+    const page = http.get(`${BASE_URL}/api/v1/customers/page?size=50`);
+    check(page, { 'page is 200': (r) => r.status === 200 });
+
+    // think time of a slow mobile client between calls
+    sleep(1 + Math.random());
+}
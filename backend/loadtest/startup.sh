@@ -0,0 +1,54 @@
+#!/usr/bin/env bash
+# Time to first request and resident memory of each build variant.
+#
+#   1. build:  mvn -Pprod package                         (fat jar in target/*-exec.jar, CDS layout in target/cds)
+#              mvn -Pprod,native native:compile           (optional, needs GraalVM, binary in target/generic)
+#   2. run:    loadtest/startup.sh                        (the database from docker-compose.yml must be up)
+#
+# Each variant is started RUNS times. Time to first request is measured from the launch of the process to the
+# first successful GET, RSS is read from /proc/<pid>/status right after that request (Linux only).
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS=${RUNS:-5}
+PORT=${PORT:-8080}
+URL=${URL:-http://localhost:${PORT}/api/v1/customers/page?size=1}
+JAR=${JAR:-$(ls target/*-exec.jar)}
+CDS_DIR=${CDS_DIR:-target/cds}
+NATIVE=${NATIVE:-target/generic}
+
+measure() {
+    local name=$1
+    shift
+    local total_ms=0 total_kb=0
+    for _ in $(seq "$RUNS"); do
+        local start pid ms kb
+        start=$(date +%s%N)
+        "$@" --server.port="$PORT" >/dev/null 2>&1 &
+        pid=$!
+        until curl -sf -o /dev/null "$URL"; do
+            kill -0 "$pid" 2>/dev/null || { echo "$name: process exited before the first request" >&2; exit 1; }
+            sleep 0.01
+        done
+        ms=$(( ($(date +%s%N) - start) / 1000000 ))
+        kb=$(awk '/^VmRSS:/ { print $2 }' "/proc/$pid/status")
+        kill "$pid"
+        wait "$pid" 2>/dev/null || true
+        total_ms=$((total_ms + ms))
+        total_kb=$((total_kb + kb))
+    done
+    printf '%-24s first request %6d ms   RSS %5d MB\n' "$name" $((total_ms / RUNS)) $((total_kb / RUNS / 1024))
+}
+
+measure "default"                java -jar "$JAR"
+measure "lean"                   java -Dspring.profiles.active=lean -jar "$JAR"
+measure "lean + AOT"             java -Dspring.aot.enabled=true -Dspring.profiles.active=lean -jar "$JAR"
+if [[ -f "$CDS_DIR/archive/app.jsa" ]]; then
+    # same layout and working directory as the image
+    measure "lean + AOT + AppCDS" env -C "$CDS_DIR" java -XX:SharedArchiveFile=archive/app.jsa \
+        -Dspring.aot.enabled=true -Dspring.profiles.active=lean -cp "$(cat "$CDS_DIR/app.classpath")" com.generic.Main
+fi
+if [[ -x "$NATIVE" ]]; then
+    measure "native"             "$NATIVE" --spring.profiles.active=lean
+fi
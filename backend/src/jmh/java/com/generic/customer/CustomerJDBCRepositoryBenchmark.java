@@ -0,0 +1,61 @@
+package com.generic.customer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link CustomerJDBCRepository} calls against {@link PostgresState}, one round trip per operation
+ * (one batch for {@link #saveAll}). Numbers include the driver and the network, so compare runs on the same host.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerJDBCRepositoryBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int BATCH_SIZE = 100;
+
+    private long inserted;
+
+    @Benchmark
+    public Optional<Customer> findById(final PostgresState postgres) {
+        return postgres.repository.findById(postgres.randomId());
+    }
+
+    @Benchmark
+    public List<Customer> findPage(final PostgresState postgres) {
+        return postgres.repository.findPage(postgres.randomId(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public boolean existsByEmail(final PostgresState postgres) {
+        final int row = ThreadLocalRandom.current().nextInt(PostgresState.ROWS);
+        return postgres.repository.existsByEmail(postgres.emailPrefix + row + "@generic.com");
+    }
+
+    @Benchmark
+    public List<CustomerBatchItemResult> saveAll(final PostgresState postgres) {
+        final String prefix = postgres.emailPrefix + "batch-" + Thread.currentThread().threadId() + "-";
+        final List<Customer> customers = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            customers.add(new Customer("Batch customer", 30, prefix + inserted++ + "@generic.com"));
+        }
+        return postgres.repository.saveAll(customers);
+    }
+}
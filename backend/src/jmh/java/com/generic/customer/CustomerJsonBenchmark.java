@@ -0,0 +1,66 @@
+package com.generic.customer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of customer lists, configured like the Spring Boot mapper the controllers use:
+ * the JSON array of {@code GET /api/v1/customers} versus the per-row NDJSON of {@code GET /api/v1/customers/stream}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerJsonBenchmark {
+
+    @Param({"1", "50", "1000"})
+    private int size;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(1 << 16);
+
+    private List<Customer> customers;
+
+    @Setup
+    public void setUp() {
+        customers = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            customers.add(new Customer((long) i, "Customer " + i, 18 + i % 80, "customer" + i + "@generic.com"));
+        }
+    }
+
+    @Benchmark
+    public byte[] jsonArray() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(customers);
+    }
+
+    @Benchmark
+    public int ndjson() throws IOException {
+        outputStream.reset();
+        for (final Customer customer : customers) {
+            outputStream.write(objectMapper.writeValueAsBytes(customer));
+            outputStream.write('\n');
+        }
+        return outputStream.size();
+    }
+}
@@ -0,0 +1,83 @@
+package com.generic.customer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CustomerRowMapper} over a real pgjdbc result set: label lookup per row ({@link CustomerRowMapper#mapRow})
+ * versus positions resolved once ({@link CustomerRowMapper#rowCallback}). The generated rows are fetched once into
+ * a scrollable result set, so an operation is column lookup plus value decoding for the whole scan, without any I/O.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CustomerRowMapperBenchmark {
+
+    private static final String SQL_GENERATE_ROWS = """
+            SELECT g AS id, 'Customer ' || g AS name, 18 + g %% 80 AS age, 'customer' || g || '@generic.com' AS email
+            FROM generate_series(1, %d) g
+            """;
+
+    @Param({"1000", "1000000"})
+    private int rows;
+
+    private final CustomerRowMapper rowMapper = new CustomerRowMapper();
+
+    private Connection connection;
+    private Statement statement;
+    private ResultSet resultSet;
+
+    @Setup(Level.Trial)
+    public void setUp(final PostgresState postgres) throws SQLException {
+        connection = postgres.jdbcTemplate.getJdbcTemplate().getDataSource().getConnection();
+        statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        resultSet = statement.executeQuery(SQL_GENERATE_ROWS.formatted(rows));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        resultSet.close();
+        statement.close();
+        connection.close();
+    }
+
+    @Benchmark
+    public void byLabel(final Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        int rowNum = 0;
+        while (resultSet.next()) {
+            blackhole.consume(rowMapper.mapRow(resultSet, rowNum++));
+        }
+    }
+
+    @Benchmark
+    public void byResolvedIndex(final Blackhole blackhole) throws SQLException {
+        final RowCallbackHandler handler = rowMapper.rowCallback(blackhole::consume);
+        resultSet.beforeFirst();
+        while (resultSet.next()) {
+            handler.processRow(resultSet);
+        }
+    }
+}
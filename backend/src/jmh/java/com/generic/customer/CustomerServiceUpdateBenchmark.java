@@ -0,0 +1,63 @@
+package com.generic.customer;
+
+import com.generic.exception.RequestValidationException;
+import com.generic.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CustomerService#update} over the JDBC repository. The change detection happens in the update statement
+ * itself, so each outcome is measured separately: a real change, a no-op update (answered with
+ * {@link RequestValidationException}) and a missing id (answered with {@link ResourceNotFoundException}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerServiceUpdateBenchmark {
+
+    @Param({"UPDATED", "UNCHANGED", "NOT_FOUND"})
+    private CustomerUpdateResult outcome;
+
+    private CustomerService customerService;
+    private long version;
+
+    @Setup
+    public void setUp(final PostgresState postgres) {
+        customerService = new CustomerService(postgres.repository, (CustomerBulkImporter) null, CustomerEmailFilter.disabled(new SimpleMeterRegistry()));
+    }
+
+    @Benchmark
+    public CustomerUpdateResult update(final PostgresState postgres) {
+        final int row = ThreadLocalRandom.current().nextInt(PostgresState.ROWS);
+        final CustomerUpdateRequest request = switch (outcome) {
+            case UPDATED -> new CustomerUpdateRequest("Renamed " + version++, null, null);
+            // same values as seeded by PostgresState, each fork seeds its own rows
+            case UNCHANGED, NOT_FOUND -> new CustomerUpdateRequest("Customer " + row, null, null);
+        };
+        final long id = outcome == CustomerUpdateResult.NOT_FOUND ? -1L : postgres.ids.get(row);
+        try {
+            customerService.update(id, request);
+            return CustomerUpdateResult.UPDATED;
+        } catch (RequestValidationException e) {
+            return CustomerUpdateResult.UNCHANGED;
+        } catch (ResourceNotFoundException e) {
+            return CustomerUpdateResult.NOT_FOUND;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.generic.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.Zstd;
+import com.google.protobuf.CodedOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization cost of a {@link CustomerPage} per response format, alone and followed by the gzip / zstd coding
+ * of {@code ResponseCompressionFilter}. Mappers are built like the ones Spring MVC registers for each media type.
+ * Body sizes on the wire are printed once per trial, e.g. {@code bytes CBOR size=1000: identity=... gzip=... zstd=...}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerWireFormatBenchmark {
+
+    private static final int ZSTD_LEVEL = 3;
+
+    public enum Format {
+        JSON(Jackson2ObjectMapperBuilder.json().build()),
+        SMILE(Jackson2ObjectMapperBuilder.smile().build()),
+        CBOR(Jackson2ObjectMapperBuilder.cbor().build()),
+        PROTOBUF(null);
+
+        private final ObjectMapper objectMapper;
+
+        Format(final ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+        }
+
+        byte[] encode(final CustomerPage page) throws IOException {
+            if (objectMapper != null) {
+                return objectMapper.writeValueAsBytes(page);
+            }
+            final byte[] bytes = new byte[CustomerProtobufHttpMessageConverter.sizeOf(page)];
+            final CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+            CustomerProtobufHttpMessageConverter.write(out, page);
+            out.checkNoSpaceLeft();
+            return bytes;
+        }
+    }
+
+    @Param({"JSON", "SMILE", "CBOR", "PROTOBUF"})
+    private Format format;
+
+    @Param({"1", "100", "1000"})
+    private int size;
+
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(1 << 16);
+
+    private CustomerPage page;
+
+    @Setup
+    public void setUp() {
+        final List<Customer> customers = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            customers.add(new Customer((long) i, "Customer " + i, 18 + i % 80, "customer" + i + "@generic.com"));
+        }
+        page = new CustomerPage(customers, "eyJhZnRlcklkIjo5OTl9");
+    }
+
+    @TearDown
+    public void printSizes() throws IOException {
+        final byte[] bytes = format.encode(page);
+        System.out.printf(
+                "%nbytes %s size=%d: identity=%d gzip=%d zstd=%d%n",
+                format, size, bytes.length, gzip(bytes), Zstd.compress(bytes, ZSTD_LEVEL).length
+        );
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return format.encode(page);
+    }
+
+    @Benchmark
+    public int serializeGzip() throws IOException {
+        return gzip(format.encode(page));
+    }
+
+    @Benchmark
+    public byte[] serializeZstd() throws IOException {
+        return Zstd.compress(format.encode(page), ZSTD_LEVEL);
+    }
+
+    private int gzip(final byte[] bytes) throws IOException {
+        outputStream.reset();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(outputStream)) {
+            gzip.write(bytes);
+        }
+        return outputStream.size();
+    }
+}
@@ -0,0 +1,108 @@
+package com.generic.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same operations as {@link CustomerJDBCRepositoryBenchmark} against {@link EmbeddedCustomerDAO} in a temporary
+ * directory, seeded with {@value PostgresState#ROWS} customers. Reads never leave the heap; {@link #saveAll} pays one
+ * fsync per batch, so its numbers depend on the disk (pass {@code -Djmh.embedded.directory=...} to pick one).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmbeddedCustomerDAOBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int BATCH_SIZE = 100;
+
+    private long inserted;
+
+    @State(Scope.Benchmark)
+    public static class Store {
+
+        Path directory;
+        EmbeddedCustomerDAO dao;
+        List<Long> ids;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            final String parent = System.getProperty("jmh.embedded.directory");
+            directory = parent == null
+                    ? Files.createTempDirectory("customer-embedded-")
+                    : Files.createTempDirectory(Files.createDirectories(Path.of(parent)), "customer-embedded-");
+            dao = new EmbeddedCustomerDAO(
+                    new SimpleMeterRegistry(), directory, 64, DataSize.ofMegabytes(64), true, Duration.ofMinutes(5)
+            );
+            final List<Customer> customers = new ArrayList<>(PostgresState.ROWS);
+            for (int i = 0; i < PostgresState.ROWS; i++) {
+                customers.add(new Customer("Customer " + i, 18 + i % 80, "customer-" + i + "@generic.com"));
+            }
+            ids = dao.saveAll(customers).stream()
+                    .map(CustomerBatchItemResult::id)
+                    .toList();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            dao.close();
+            FileSystemUtils.deleteRecursively(directory);
+        }
+
+        long randomId() {
+            return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        }
+    }
+
+    @Benchmark
+    public Optional<Customer> findById(final Store store) {
+        return store.dao.findById(store.randomId());
+    }
+
+    @Benchmark
+    public List<Customer> findPage(final Store store) {
+        return store.dao.findPage(store.randomId(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public boolean existsByEmail(final Store store) {
+        final int row = ThreadLocalRandom.current().nextInt(PostgresState.ROWS);
+        return store.dao.existsByEmail("customer-" + row + "@generic.com");
+    }
+
+    @Benchmark
+    public List<CustomerBatchItemResult> saveAll(final Store store) {
+        final String prefix = "batch-" + Thread.currentThread().threadId() + "-";
+        final List<Customer> customers = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            customers.add(new Customer("Batch customer", 30, prefix + inserted++ + "@generic.com"));
+        }
+        return store.dao.saveAll(customers);
+    }
+}
@@ -0,0 +1,76 @@
+package com.generic.customer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code findById} hits of the two {@link CachingCustomerDAO} stores holding {@link #ENTRIES} customers. Run with
+ * {@code -prof gc} to compare allocations per hit; the heap each store retains is printed after filling it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OffHeapCustomerStoreBenchmark {
+
+    private static final int ENTRIES = 1_000_000;
+    private static final long TTL = Duration.ofHours(1).toNanos();
+
+    @Param({"caffeine", "off-heap"})
+    public String store;
+
+    private Cache<Long, Optional<Customer>> caffeine;
+    private OffHeapCustomerStore offHeap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final long before = usedHeap();
+        if (store.equals("caffeine")) {
+            caffeine = Caffeine.newBuilder().maximumSize(ENTRIES).expireAfterWrite(Duration.ofHours(1)).build();
+        } else {
+            offHeap = new OffHeapCustomerStore(ENTRIES);
+        }
+        for (long id = 1; id <= ENTRIES; id++) {
+            final Optional<Customer> customer = Optional.of(
+                    new Customer(id, "Customer " + id, 18 + (int) (id % 80), "customer-" + id + "@generic.com")
+            );
+            if (caffeine != null) {
+                caffeine.put(id, customer);
+            } else {
+                offHeap.put(id, customer, TTL, 0);
+            }
+        }
+        System.out.printf("%n%s retains %d MB of heap for %d customers%n", store, (usedHeap() - before) >> 20, ENTRIES);
+    }
+
+    @Benchmark
+    public Optional<Customer> findById() {
+        final long id = ThreadLocalRandom.current().nextLong(1, ENTRIES + 1);
+        return caffeine != null ? caffeine.getIfPresent(id) : offHeap.get(id);
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,96 @@
+package com.generic.customer;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Postgres shared by the JDBC benchmarks of one fork: migrated with Flyway and seeded with {@value #ROWS} customers.
+ * <p>
+ * Starts a throwaway container the same way {@code AbstractTestcontainers} does, unless an existing database is passed
+ * with {@code -Djmh.jdbc.url=... -Djmh.jdbc.username=... -Djmh.jdbc.password=...}. Seeded rows carry a per-run email
+ * prefix and are deleted on teardown, so an existing database is left as it was.
+ */
+@State(Scope.Benchmark)
+public class PostgresState {
+
+    static final int ROWS = 10_000;
+
+    private PostgreSQLContainer<?> container;
+    private HikariDataSource dataSource;
+
+    NamedParameterJdbcTemplate jdbcTemplate;
+    CustomerJDBCRepository repository;
+    String emailPrefix;
+    List<Long> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = System.getProperty("jmh.jdbc.url");
+        String username = System.getProperty("jmh.jdbc.username", "user");
+        String password = System.getProperty("jmh.jdbc.password", "password");
+        if (url == null) {
+            container = new PostgreSQLContainer<>("postgres:latest")
+                    .withDatabaseName("generic-benchmark")
+                    .withUsername("bardiniww")
+                    .withPassword("password");
+            container.start();
+            url = container.getJdbcUrl();
+            username = container.getUsername();
+            password = container.getPassword();
+        }
+
+        Flyway.configure()
+                .dataSource(url, username, password)
+                .load()
+                .migrate();
+
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.addDataSourceProperty("reWriteBatchedInserts", "true");
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        repository = new CustomerJDBCRepository(jdbcTemplate, new CustomerRowMapper());
+
+        emailPrefix = "jmh-" + UUID.randomUUID() + "-";
+        final List<Customer> customers = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            customers.add(new Customer("Customer " + i, 18 + i % 80, emailPrefix + i + "@generic.com"));
+        }
+        ids = repository.saveAll(customers).stream()
+                .map(CustomerBatchItemResult::id)
+                .toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        try {
+            jdbcTemplate.update(
+                    "DELETE FROM customer WHERE email LIKE :prefix",
+                    new MapSqlParameterSource("prefix", emailPrefix + "%")
+            );
+        } finally {
+            dataSource.close();
+            if (container != null) {
+                container.stop();
+            }
+        }
+    }
+
+    long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
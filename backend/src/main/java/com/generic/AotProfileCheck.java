@@ -0,0 +1,46 @@
+package com.generic;
+
+import org.springframework.aot.AotDetector;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+
+import java.util.Set;
+
+/**
+ * Refuses to start code generated by Spring AOT under other profiles than it was generated for. The {@code prod}
+ * build fixes the bean definitions of the {@code lean} profile, so activating e.g. {@code replicas} or
+ * {@code virtual-threads} there would be silently ignored instead of taking effect.
+ */
+final class AotProfileCheck implements ApplicationListener<ApplicationEnvironmentPreparedEvent> {
+
+    /**
+     * Keep in line with the process-aot execution of the {@code prod} profile in pom.xml.
+     */
+    static final Set<String> AOT_PROFILES = Set.of("lean");
+
+    private final boolean aot;
+
+    AotProfileCheck() {
+        this(AotDetector.useGeneratedArtifacts());
+    }
+
+    AotProfileCheck(final boolean aot) {
+        this.aot = aot;
+    }
+
+    @Override
+    public void onApplicationEvent(final ApplicationEnvironmentPreparedEvent event) {
+        check(event.getEnvironment());
+    }
+
+    void check(final Environment environment) {
+        final Set<String> active = Set.of(environment.getActiveProfiles());
+        if (aot && !active.equals(AOT_PROFILES)) {
+            throw new IllegalStateException(
+                    "Spring AOT code was generated for profiles %s, but %s are active; run without spring.aot.enabled to use other profiles"
+                            .formatted(AOT_PROFILES, active)
+            );
+        }
+    }
+}
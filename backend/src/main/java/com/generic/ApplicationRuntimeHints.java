@@ -0,0 +1,48 @@
+package com.generic;
+
+import com.generic.customer.CustomerRegistrationRequest;
+import com.generic.customer.CustomerSearchRequest;
+import com.github.luben.zstd.ZstdOutputStreamNoFinalizer;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * What a native image cannot find on its own: the JDBC proxies of {@code FlightRecordingDataSource},
+ * {@code ConcurrencyLimitingDataSource} and {@code DeadlineDataSource}, types bound outside of {@code @RequestBody}, classpath resources
+ * read at runtime and the JNI side of zstd-jni.
+ */
+class ApplicationRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(final RuntimeHints hints, final ClassLoader classLoader) {
+        for (final Class<?> type : new Class<?>[]{
+                Connection.class, Statement.class, PreparedStatement.class, CallableStatement.class, ResultSet.class
+        }) {
+            hints.proxies().registerJdkProxy(type);
+            // the proxies call through to the driver with Method.invoke
+            hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+
+        // query parameter binding of GET /search and the NDJSON lines of POST /import
+        new BindingReflectionHintsRegistrar().registerReflectionHints(
+                hints.reflection(),
+                CustomerSearchRequest.class,
+                CustomerRegistrationRequest.class
+        );
+
+        hints.resources()
+                .registerPattern("jfr/customer.jfc")
+                .registerPattern("proto/customer.proto")
+                .registerPattern("linux/*/libzstd-jni-*.so")
+                .registerPattern("darwin/*/libzstd-jni-*.dylib");
+        hints.jni().registerType(ZstdOutputStreamNoFinalizer.class, MemberCategory.DECLARED_FIELDS);
+    }
+}
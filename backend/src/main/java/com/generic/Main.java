@@ -7,20 +7,28 @@ import com.github.javafaker.Name;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.context.annotation.Profile;
 
 import java.util.Random;
 
 @SpringBootApplication
+@ImportRuntimeHints(ApplicationRuntimeHints.class)
 public class Main {
 
     public static void main(String[] args) {
-        SpringApplication.run(Main.class, args);
+        final SpringApplication application = new SpringApplication(Main.class);
+        application.addListeners(new AotProfileCheck());
+        application.run(args);
 
     }
 
 // use this to debug
     @Bean
+    @Profile("!reactive & !embedded")
+    @ConditionalOnProperty(prefix = "customer", name = "debug-runner", havingValue = "true", matchIfMissing = true)
     CommandLineRunner runner(CustomerJDBCRepository repository) {
         return args -> {
             var faker = new Faker();
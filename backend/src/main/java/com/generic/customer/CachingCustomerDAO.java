@@ -0,0 +1,220 @@
+package com.generic.customer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Read-through cache in front of {@link CustomerJDBCRepository} for {@link #findById(Long)}.
+ * <p>
+ * Entries are kept in a {@link CustomerCache}: Caffeine ({@link CaffeineCustomerCache}) by default, or
+ * {@link OffHeapCustomerCache} with {@code customer.cache.off-heap=true}. Both are single-flight, concurrent misses for
+ * one id wait for a single query. Absent ids are cached too, with a much shorter TTL, because rows inserted outside
+ * of {@link #saveAll(List)} (plain saves, bulk imports) cannot be invalidated by id here unless
+ * {@link CustomerChangeListener} is running. Writes going through this class evict the ids they touch.
+ * <p>
+ * Disable with {@code customer.cache.enabled=false}, the service then talks to the repository directly.
+ * Writes made by other nodes are evicted by {@link CustomerChangeListener}.
+ * <p>
+ * Misses for different ids arriving within {@code customer.cache.coalesce-window} are loaded by one
+ * {@link CustomerDAO#findAllById} query (see {@link FindByIdCoalescer}), {@link #findAllById} loads all its misses at once.
+ * Loads others may wait on run until {@code customer.cache.load-timeout}, not the caller's request deadline.
+ */
+@Repository
+@Primary
+@Profile("!reactive & !embedded")
+@ConditionalOnProperty(prefix = "customer.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CachingCustomerDAO implements CustomerDAO {
+
+    private final CustomerDAO delegate;
+    private final CustomerCache cache;
+
+    @Autowired
+    public CachingCustomerDAO(
+            final CustomerJDBCRepository delegate,
+            final MeterRegistry meterRegistry,
+            @Value("${customer.cache.maximum-size:100000}") final long maximumSize,
+            @Value("${customer.cache.ttl:10m}") final Duration ttl,
+            @Value("${customer.cache.negative-ttl:10s}") final Duration negativeTtl,
+            @Value("${customer.cache.coalesce-window:200us}") final Duration coalesceWindow,
+            @Value("${customer.cache.coalesce-max-batch:128}") final int coalesceMaxBatch,
+            @Value("${customer.cache.load-timeout:5s}") final Duration loadTimeout,
+            @Value("${customer.cache.off-heap:false}") final boolean offHeap
+    ) {
+        this(delegate, cache(
+                delegate,
+                meterRegistry,
+                maximumSize,
+                ttl,
+                negativeTtl,
+                coalesceWindow,
+                coalesceMaxBatch,
+                loadTimeout,
+                offHeap
+        ));
+    }
+
+    CachingCustomerDAO(final CustomerDAO delegate, final CustomerCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public Optional<Customer> findById(final Long id) {
+        return cache.get(id);
+    }
+
+    /**
+     * Found customers in the order of {@code ids}, missing ids are left out.
+     */
+    @Override
+    public List<Customer> findAllById(final Collection<Long> ids) {
+        final Map<Long, Optional<Customer>> cached = cache.getAll(ids);
+        return ids.stream()
+                .map(cached::get)
+                .filter(customer -> customer != null && customer.isPresent())
+                .map(Optional::get)
+                .toList();
+    }
+
+    @Override
+    public boolean existsById(final Long id) {
+        final Optional<Customer> cached = cache.getIfPresentQuietly(id);
+        return cached != null ? cached.isPresent() : delegate.existsById(id);
+    }
+
+    @Override
+    public List<Customer> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Customer> findPage(final long afterId, final int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public List<Customer> search(final CustomerSearchQuery query) {
+        return delegate.search(query);
+    }
+
+    @Override
+    public void streamAll(final Consumer<Customer> consumer) {
+        delegate.streamAll(consumer);
+    }
+
+    @Override
+    public CustomerDelta changedSince(final CustomerWatermark watermark, final int limit) {
+        return delegate.changedSince(watermark, limit);
+    }
+
+    @Override
+    public boolean existsByEmail(final String email) {
+        return delegate.existsByEmail(email);
+    }
+
+    @Override
+    public void save(final Customer customer) {
+        delegate.save(customer);
+    }
+
+    @Override
+    public void deleteById(final Long id) {
+        try {
+            delegate.deleteById(id);
+        } finally {
+            invalidate(List.of(id));
+        }
+    }
+
+    @Override
+    public CustomerUpdateResult update(final Customer customer) {
+        try {
+            return delegate.update(customer);
+        } finally {
+            invalidate(List.of(customer.id()));
+        }
+    }
+
+    @Override
+    public List<CustomerBatchItemResult> saveAll(final List<Customer> customers) {
+        final List<CustomerBatchItemResult> results = delegate.saveAll(customers);
+        invalidate(results.stream()
+                .map(CustomerBatchItemResult::id)
+                .filter(Objects::nonNull)
+                .toList());
+        return results;
+    }
+
+    @Override
+    public List<CustomerBatchItemResult> updateAll(final List<Customer> customers) {
+        try {
+            return delegate.updateAll(customers);
+        } finally {
+            invalidate(customers.stream().map(Customer::id).toList());
+        }
+    }
+
+    @Override
+    public List<CustomerBatchItemResult> deleteAllById(final List<Long> ids) {
+        try {
+            return delegate.deleteAllById(ids);
+        } finally {
+            invalidate(ids);
+        }
+    }
+
+    /**
+     * Drops cached entries for the given ids. Inside a transaction the ids are dropped once more after completion,
+     * otherwise a concurrent miss could reload the pre-commit row and keep it for the whole TTL.
+     */
+    public void invalidate(final Collection<Long> ids) {
+        cache.invalidateAll(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(final int status) {
+                    cache.invalidateAll(ids);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static CustomerCache cache(
+            final CustomerDAO delegate,
+            final MeterRegistry meterRegistry,
+            final long maximumSize,
+            final Duration ttl,
+            final Duration negativeTtl,
+            final Duration coalesceWindow,
+            final int coalesceMaxBatch,
+            final Duration loadTimeout,
+            final boolean offHeap
+    ) {
+        final FindByIdCoalescer coalescer = coalesceWindow.isZero() || coalesceMaxBatch < 2
+                ? null
+                : new FindByIdCoalescer(delegate::findAllById, coalesceWindow, coalesceMaxBatch, meterRegistry);
+        final CustomerCacheLoader loader = new CustomerCacheLoader(delegate, coalescer, loadTimeout);
+        return offHeap
+                ? new OffHeapCustomerCache(loader, Math.toIntExact(maximumSize), ttl, negativeTtl, meterRegistry)
+                : new CaffeineCustomerCache(loader, maximumSize, ttl, negativeTtl, meterRegistry);
+    }
+}
@@ -0,0 +1,127 @@
+package com.generic.customer;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * W-TinyLFU size eviction plus TTL. Caffeine's loading cache is single-flight on its own: concurrent misses for one id
+ * wait for a single load.
+ * <p>
+ * The cache is asynchronous so that a load runs outside of Caffeine's hash bin lock, see {@link CustomerCacheLoader}:
+ * a coalesced load waits out its window without blocking lookups of other ids in the same bin, or pinning the carrier
+ * of a virtual thread.
+ */
+final class CaffeineCustomerCache implements CustomerCache {
+
+    private final AsyncLoadingCache<Long, Optional<Customer>> cache;
+    private final CustomerCacheLoader loader;
+    private final Counter negativeHits;
+
+    CaffeineCustomerCache(
+            final CustomerCacheLoader loader,
+            final long maximumSize,
+            final Duration ttl,
+            final Duration negativeTtl,
+            final MeterRegistry meterRegistry
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new PresenceAwareExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+                .recordStats()
+                .buildAsync(loader);
+        this.loader = loader;
+        this.negativeHits = CustomerCache.negativeHits(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+    }
+
+    @Override
+    public Optional<Customer> get(final long id) {
+        final Optional<Customer> cached = getIfPresentQuietly(id);
+        if (cached != null && cached.isEmpty()) {
+            negativeHits.increment();
+        }
+        final CompletableFuture<Optional<Customer>> customer;
+        try {
+            customer = cache.get(id);
+        } finally {
+            loader.runDeferred();
+        }
+        return join(customer);
+    }
+
+    @Override
+    public Map<Long, Optional<Customer>> getAll(final Collection<Long> ids) {
+        return join(cache.getAll(ids));
+    }
+
+    @Override
+    public Optional<Customer> getIfPresentQuietly(final long id) {
+        return cache.synchronous().policy().getIfPresentQuietly(id);
+    }
+
+    @Override
+    public void invalidateAll(final Collection<Long> ids) {
+        cache.synchronous().invalidateAll(ids);
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    /**
+     * Throws what the load threw, as the synchronous cache would.
+     */
+    private static <T> T join(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record PresenceAwareExpiry(long ttlNanos, long negativeTtlNanos) implements Expiry<Long, Optional<Customer>> {
+
+        @Override
+        public long expireAfterCreate(final Long id, final Optional<Customer> customer, final long currentTime) {
+            return customer.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(
+                final Long id,
+                final Optional<Customer> customer,
+                final long currentTime,
+                final long currentDuration
+        ) {
+            return expireAfterCreate(id, customer, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(
+                final Long id,
+                final Optional<Customer> customer,
+                final long currentTime,
+                final long currentDuration
+        ) {
+            return currentDuration;
+        }
+    }
+}
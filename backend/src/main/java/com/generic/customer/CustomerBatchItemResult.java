@@ -0,0 +1,10 @@
+package com.generic.customer;
+
+/**
+ * Per-item outcome of a batch operation, listed in the same order as the request items.
+ */
+public record CustomerBatchItemResult(
+        Long id,
+        CustomerBatchStatus status
+) {
+}
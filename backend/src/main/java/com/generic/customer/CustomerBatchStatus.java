@@ -0,0 +1,9 @@
+package com.generic.customer;
+
+public enum CustomerBatchStatus {
+    CREATED,
+    UPDATED,
+    DELETED,
+    NOT_FOUND,
+    DUPLICATE_EMAIL
+}
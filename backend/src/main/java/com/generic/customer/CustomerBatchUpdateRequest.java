@@ -0,0 +1,9 @@
+package com.generic.customer;
+
+public record CustomerBatchUpdateRequest(
+        Long id,
+        String name,
+        Integer age,
+        String email
+) {
+}
@@ -0,0 +1,309 @@
+package com.generic.customer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Bulk load path: rows are validated while the request body is read, streamed with COPY FROM STDIN
+ * into a session temp table and merged into {@code customer} with one INSERT ... ON CONFLICT (email), which also
+ * writes the change events of the merged rows to {@code customer_outbox}.
+ * All statements run on a single connection, nothing but the reject report is held in memory.
+ */
+@Repository
+@Profile("!reactive & !embedded")
+public class CustomerBulkImporter {
+
+    static final int MAX_REPORTED_REJECTS = 1_000;
+    private static final int COPY_CHUNK_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "name,age,email";
+
+    private static final String SQL_DROP_STAGING = "DROP TABLE IF EXISTS customer_import";
+    private static final String SQL_CREATE_STAGING =
+            "CREATE TEMP TABLE customer_import(line_no BIGINT NOT NULL, name TEXT NOT NULL, age INT NOT NULL, email TEXT NOT NULL)";
+    private static final String SQL_COPY_STAGING =
+            "COPY customer_import(line_no, name, age, email) FROM STDIN WITH (FORMAT csv)";
+    private static final String SQL_ANALYZE_STAGING = "ANALYZE customer_import";
+    private static final String SQL_DELETE_DUPLICATES = """
+            DELETE FROM customer_import s
+            USING customer_import f
+            WHERE s.email = f.email AND s.line_no > f.line_no
+            RETURNING s.line_no, s.email
+            """;
+    private static final String SQL_MERGE_SKIP = """
+            WITH inserted AS (
+                INSERT INTO customer(name, age, email)
+                SELECT name, age, email FROM customer_import ORDER BY line_no
+                ON CONFLICT (email) DO NOTHING
+                RETURNING id, name, age, email
+            ),
+            changes AS (
+                INSERT INTO customer_outbox(customer_id, type, name, age, email)
+                SELECT id, 'CREATED', name, age, email FROM inserted
+            )
+            SELECT s.line_no, s.email FROM customer_import s
+            WHERE NOT EXISTS (SELECT 1 FROM inserted i WHERE i.email = s.email)
+            ORDER BY s.line_no
+            """;
+    private static final String SQL_MERGE_UPDATE = """
+            WITH merged AS (
+                INSERT INTO customer(name, age, email)
+                SELECT name, age, email FROM customer_import ORDER BY line_no
+                ON CONFLICT (email) DO UPDATE SET name = EXCLUDED.name, age = EXCLUDED.age
+                RETURNING id, name, age, email, (xmax = 0) AS inserted
+            ),
+            changes AS (
+                INSERT INTO customer_outbox(customer_id, type, name, age, email)
+                SELECT id, CASE WHEN inserted THEN 'CREATED' ELSE 'UPDATED' END, name, age, email FROM merged
+            )
+            SELECT count(*) FILTER (WHERE inserted) AS inserted, count(*) FILTER (WHERE NOT inserted) AS updated
+            FROM merged
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public CustomerBulkImporter(final NamedParameterJdbcTemplate jdbcTemplate, final ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public CustomerImportReport importCustomers(
+            final InputStream inputStream,
+            final CustomerImportFormat format,
+            final CustomerImportConflictMode conflictMode
+    ) {
+        return jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<CustomerImportReport>) connection -> {
+            execute(connection, SQL_DROP_STAGING);
+            execute(connection, SQL_CREATE_STAGING);
+            try {
+                final Rejects rejects = new Rejects();
+                final long received = copyToStaging(connection, inputStream, format, rejects);
+                // temp tables are never auto-analyzed, without stats the planner picks nested loops for the joins below
+                execute(connection, SQL_ANALYZE_STAGING);
+
+                try (PreparedStatement statement = connection.prepareStatement(SQL_DELETE_DUPLICATES);
+                     ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        rejects.add(rs.getLong("line_no"), rs.getString("email"), "Duplicate email within import");
+                    }
+                }
+
+                long inserted = 0;
+                long updated = 0;
+                if (conflictMode == CustomerImportConflictMode.UPDATE) {
+                    try (PreparedStatement statement = connection.prepareStatement(SQL_MERGE_UPDATE);
+                         ResultSet rs = statement.executeQuery()) {
+                        rs.next();
+                        inserted = rs.getLong("inserted");
+                        updated = rs.getLong("updated");
+                    }
+                } else {
+                    try (PreparedStatement statement = connection.prepareStatement(SQL_MERGE_SKIP);
+                         ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            rejects.add(rs.getLong("line_no"), rs.getString("email"), "Email already taken");
+                        }
+                    }
+                    inserted = received - rejects.count;
+                }
+
+                return new CustomerImportReport(
+                        received,
+                        inserted,
+                        updated,
+                        rejects.count,
+                        List.copyOf(rejects.reported)
+                );
+            } finally {
+                execute(connection, SQL_DROP_STAGING);
+            }
+        });
+    }
+
+    private long copyToStaging(
+            final Connection connection,
+            final InputStream inputStream,
+            final CustomerImportFormat format,
+            final Rejects rejects
+    ) throws SQLException {
+        final CopyIn copyIn = connection.unwrap(PGConnection.class)
+                .getCopyAPI()
+                .copyIn(SQL_COPY_STAGING);
+        try {
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            final StringBuilder chunk = new StringBuilder(COPY_CHUNK_SIZE + 1024);
+            long received = 0;
+            long lineNo = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()
+                        || (format == CustomerImportFormat.CSV && lineNo == 1 && line.strip().equalsIgnoreCase(CSV_HEADER))) {
+                    continue;
+                }
+                received++;
+
+                final CustomerRegistrationRequest row;
+                try {
+                    row = format == CustomerImportFormat.CSV ? parseCsv(line) : parseJson(line);
+                } catch (IllegalArgumentException e) {
+                    rejects.add(lineNo, null, e.getMessage());
+                    continue;
+                }
+                final String invalid = validate(row);
+                if (Objects.nonNull(invalid)) {
+                    rejects.add(lineNo, row.email(), invalid);
+                    continue;
+                }
+
+                chunk.append(lineNo).append(',');
+                appendQuoted(chunk, row.name()).append(',');
+                chunk.append(row.age()).append(',');
+                appendQuoted(chunk, row.email()).append('\n');
+                if (chunk.length() >= COPY_CHUNK_SIZE) {
+                    writeChunk(copyIn, chunk);
+                }
+            }
+            writeChunk(copyIn, chunk);
+            copyIn.endCopy();
+            return received;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private CustomerRegistrationRequest parseJson(final String line) {
+        try {
+            return objectMapper.readValue(line, CustomerRegistrationRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON");
+        }
+    }
+
+    /**
+     * Minimal RFC 4180 reader for a single physical line: {@code name,age,email} with optional double quotes.
+     */
+    private static CustomerRegistrationRequest parseCsv(final String line) {
+        final List<String> fields = new ArrayList<>(3);
+        final StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        if (fields.size() != 3) {
+            throw new IllegalArgumentException("Expected 3 columns [%s] but got %s".formatted(CSV_HEADER, fields.size()));
+        }
+
+        final String age = fields.get(1).strip();
+        try {
+            return new CustomerRegistrationRequest(
+                    fields.get(0).strip(),
+                    age.isEmpty() ? null : Integer.valueOf(age),
+                    fields.get(2).strip()
+            );
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Age must be an integer");
+        }
+    }
+
+    private static String validate(final CustomerRegistrationRequest row) {
+        if (Objects.isNull(row.name()) || row.name().isBlank()) {
+            return "Name is required";
+        }
+        if (Objects.isNull(row.email()) || row.email().isBlank()) {
+            return "Email is required";
+        }
+        if (Objects.isNull(row.age()) || row.age() < 0) {
+            return "Age must be a non-negative integer";
+        }
+        if (row.name().indexOf('\0') >= 0 || row.email().indexOf('\0') >= 0) {
+            return "NUL characters are not allowed";
+        }
+        return null;
+    }
+
+    static StringBuilder appendQuoted(final StringBuilder sb, final String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        return sb.append('"');
+    }
+
+    private static void writeChunk(final CopyIn copyIn, final StringBuilder chunk) throws SQLException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        final byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        chunk.setLength(0);
+    }
+
+    private static void execute(final Connection connection, final String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static final class Rejects {
+        private final List<CustomerImportReject> reported = new ArrayList<>();
+        private long count;
+
+        void add(final long line, final String email, final String reason) {
+            count++;
+            if (reported.size() < MAX_REPORTED_REJECTS) {
+                reported.add(new CustomerImportReject(line, email, reason));
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.generic.customer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Store behind {@link CachingCustomerDAO}: customers by id, read through a {@link CustomerCacheLoader}, absent ids
+ * cached with a shorter TTL. Concurrent misses for one id run a single load. Implementations register the same
+ * {@code cache.gets}, {@code cache.size} and {@code cache.evictions} meters, so dashboards work with either.
+ */
+interface CustomerCache {
+
+    String NAME = "customers";
+
+    /**
+     * @return the cached customer or its cached absence, loaded on a miss
+     */
+    Optional<Customer> get(long id);
+
+    /**
+     * Misses are loaded together by one {@link CustomerCacheLoader#loadAll} call.
+     *
+     * @return an entry for every id, empty for the missing ones
+     */
+    Map<Long, Optional<Customer>> getAll(Collection<Long> ids);
+
+    /**
+     * Neither loads nor counts as a hit or miss.
+     *
+     * @return the cached customer, an empty optional for a cached absent id, {@code null} if the id is not cached
+     */
+    Optional<Customer> getIfPresentQuietly(long id);
+
+    void invalidateAll(Collection<Long> ids);
+
+    void invalidateAll();
+
+    static Counter negativeHits(final MeterRegistry meterRegistry) {
+        return Counter.builder("customer.cache.negative.hits")
+                .description("findById calls answered from the cache with a not-found entry")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,124 @@
+package com.generic.customer;
+
+import com.generic.datasource.ReplicaRouting;
+import com.generic.datasource.RequestDeadline;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Loads {@link CustomerCache} misses. They go to the primary: a row loaded from a lagging replica would be cached
+ * for the whole TTL.
+ * <p>
+ * A single-id load is shared: callers missing the same id wait for it, and so does a whole coalesced batch. It runs
+ * with its own {@code loadTimeout} instead of the {@link RequestDeadline} of the thread that happens to run it, so one
+ * client sending a tiny {@code X-Request-Timeout} cannot fail everybody else's lookups.
+ * <p>
+ * Caffeine calls {@link #asyncLoad} inside the lock of the id's hash bin, so it only registers the load and returns its
+ * future; the calling thread runs it with {@link #runDeferred()} after the cache call returns. Neither a query nor the
+ * coalescing window is then spent holding the bin lock.
+ */
+final class CustomerCacheLoader implements AsyncCacheLoader<Long, Optional<Customer>> {
+
+    // load registered by the last asyncLoad of the calling thread, until runDeferred runs it
+    private static final ThreadLocal<Runnable> DEFERRED = new ThreadLocal<>();
+
+    private final CustomerDAO delegate;
+    private final FindByIdCoalescer coalescer;
+    private final long loadTimeoutNanos;
+
+    /**
+     * @param coalescer batches single-id loads of concurrent callers, null to load every id on its own
+     */
+    CustomerCacheLoader(final CustomerDAO delegate, final FindByIdCoalescer coalescer, final Duration loadTimeout) {
+        this.delegate = delegate;
+        this.coalescer = coalescer;
+        this.loadTimeoutNanos = loadTimeout.toNanos();
+    }
+
+    /**
+     * Loads right away on the calling thread, for {@link OffHeapCustomerCache}, which loads under its own striped lock.
+     */
+    Optional<Customer> load(final long id) {
+        try (RequestDeadline.Scope ignored = RequestDeadline.detached(System.nanoTime() + loadTimeoutNanos)) {
+            if (coalesces()) {
+                return ReplicaRouting.onPrimary(() -> coalescer.findById(id));
+            }
+            return ReplicaRouting.onPrimary(() -> delegate.findById(id));
+        }
+    }
+
+    /**
+     * The future completes only once the calling thread has called {@link #runDeferred()}.
+     */
+    @Override
+    public CompletableFuture<Optional<Customer>> asyncLoad(final Long id, final Executor executor) {
+        if (coalesces()) {
+            final CompletableFuture<Optional<Customer>> result = coalescer.submit(id);
+            DEFERRED.set(coalescer::runLedBatch);
+            return result;
+        }
+        final CompletableFuture<Optional<Customer>> result = new CompletableFuture<>();
+        DEFERRED.set(() -> {
+            try {
+                result.complete(delegate.findById(id));
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Runs the load {@link #asyncLoad} registered on this thread, if any. Has to follow every cache call that may load,
+     * even a failed one, or callers waiting on that load hang.
+     */
+    void runDeferred() {
+        final Runnable load = DEFERRED.get();
+        if (load == null) {
+            return;
+        }
+        DEFERRED.remove();
+        try (RequestDeadline.Scope ignored = RequestDeadline.detached(System.nanoTime() + loadTimeoutNanos);
+             ReplicaRouting.Scope primary = ReplicaRouting.usePrimary()) {
+            load.run();
+        }
+    }
+
+    /**
+     * Runs right away, Caffeine calls it outside of any lock. Only ever run for its one caller, under that caller's
+     * deadline.
+     */
+    @Override
+    public CompletableFuture<Map<Long, Optional<Customer>>> asyncLoadAll(
+            final Set<? extends Long> ids,
+            final Executor executor
+    ) {
+        try {
+            return CompletableFuture.completedFuture(loadAll(ids));
+        } catch (RuntimeException | Error e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    Map<Long, Optional<Customer>> loadAll(final Set<? extends Long> ids) {
+        final Map<Long, Optional<Customer>> loaded = new HashMap<>();
+        ids.forEach(id -> loaded.put(id, Optional.empty()));
+        ReplicaRouting.onPrimary(() -> delegate.findAllById(List.copyOf(ids)))
+                .forEach(customer -> loaded.put(customer.id(), Optional.of(customer)));
+        return loaded;
+    }
+
+    private boolean coalesces() {
+        // other threads run the coalesced query outside of this transaction and would miss its own writes
+        return coalescer != null && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+}
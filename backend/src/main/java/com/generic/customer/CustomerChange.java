@@ -0,0 +1,15 @@
+package com.generic.customer;
+
+import java.time.Instant;
+
+/**
+ * One entry of the change feed. {@code customer} is the row as written, {@code null} for {@link CustomerChangeType#DELETED}.
+ */
+public record CustomerChange(
+        long position,
+        CustomerChangeType type,
+        long customerId,
+        Customer customer,
+        Instant occurredAt
+) {
+}
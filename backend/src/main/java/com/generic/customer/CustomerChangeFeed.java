@@ -0,0 +1,327 @@
+package com.generic.customer;
+
+import com.generic.exception.RequestValidationException;
+import com.generic.exception.ResourceGoneException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Relay and read side of the customer change feed.
+ * <p>
+ * Every {@code poll-interval} one node (whichever gets the advisory lock) moves committed outbox rows into the feed,
+ * then each node looks up the feed head and wakes its subscribers if it moved. Consumers resume from the last
+ * position they processed; positions are gapless, so a jump past {@code after + 1} means the changes in between
+ * were purged after {@code retention} and the consumer has to start over from a snapshot.
+ * <p>
+ * Each server-sent events subscriber is served by its own virtual thread, a slow client only holds up itself.
+ */
+@Component
+@Profile("!reactive & !embedded")
+public class CustomerChangeFeed implements SmartLifecycle {
+
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1_000;
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerChangeFeed.class);
+    private static final Duration PURGE_INTERVAL = Duration.ofMinutes(1);
+    private static final Duration RECONNECT_DELAY = Duration.ofSeconds(1);
+
+    private final boolean enabled;
+    private final CustomerChangeRepository changeRepository;
+    private final TransactionOperations transaction;
+    private final Duration pollInterval;
+    private final int relayBatchSize;
+    private final Duration retention;
+    private final Duration heartbeat;
+    private final Duration subscriptionTimeout;
+
+    private final ReentrantLock headLock = new ReentrantLock();
+    private final Condition headMoved = headLock.newCondition();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private volatile long head;
+    private volatile Instant lastPurge = Instant.EPOCH;
+    private ScheduledExecutorService scheduler;
+    private ExecutorService subscriberExecutor;
+
+    private final Counter published;
+
+    @Autowired
+    public CustomerChangeFeed(
+            final CustomerChangeRepository changeRepository,
+            final PlatformTransactionManager transactionManager,
+            final MeterRegistry meterRegistry,
+            @Value("${customer.changes.enabled:true}") final boolean enabled,
+            @Value("${customer.changes.poll-interval:200ms}") final Duration pollInterval,
+            @Value("${customer.changes.relay-batch-size:1000}") final int relayBatchSize,
+            @Value("${customer.changes.retention:7d}") final Duration retention,
+            @Value("${customer.changes.heartbeat:15s}") final Duration heartbeat,
+            @Value("${customer.changes.subscription-timeout:30m}") final Duration subscriptionTimeout
+    ) {
+        this(
+                enabled,
+                changeRepository,
+                new TransactionTemplate(transactionManager),
+                meterRegistry,
+                pollInterval,
+                relayBatchSize,
+                retention,
+                heartbeat,
+                subscriptionTimeout
+        );
+    }
+
+    CustomerChangeFeed(
+            final boolean enabled,
+            final CustomerChangeRepository changeRepository,
+            final TransactionOperations transaction,
+            final MeterRegistry meterRegistry,
+            final Duration pollInterval,
+            final int relayBatchSize,
+            final Duration retention,
+            final Duration heartbeat,
+            final Duration subscriptionTimeout
+    ) {
+        this.enabled = enabled;
+        this.changeRepository = changeRepository;
+        this.transaction = transaction;
+        this.pollInterval = pollInterval;
+        this.relayBatchSize = relayBatchSize;
+        this.retention = retention;
+        this.heartbeat = heartbeat;
+        this.subscriptionTimeout = subscriptionTimeout;
+        this.published = Counter.builder("customer.change.feed.published")
+                .description("Outbox rows this node moved to the change feed")
+                .register(meterRegistry);
+        Gauge.builder("customer.change.feed.subscribers", subscribers, AtomicInteger::get)
+                .description("Open server-sent events subscriptions on this node")
+                .register(meterRegistry);
+        Gauge.builder("customer.change.feed.head", this, feed -> feed.head)
+                .description("Position of the latest change seen by this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param after last position the consumer processed, {@code null} for "from now on"
+     */
+    public CustomerChangePage page(final Long after, final Integer size) {
+        final int limit = pageSize(size);
+        if (Objects.isNull(after)) {
+            return new CustomerChangePage(List.of(), changeRepository.head());
+        }
+        final List<CustomerChange> changes = read(after, limit);
+        return new CustomerChangePage(changes, changes.isEmpty() ? after : changes.getLast().position());
+    }
+
+    /**
+     * Streams every change after {@code after} and then new ones as they are published, each event carrying its
+     * position as the id, so that {@code EventSource} resumes with {@code Last-Event-ID} after a reconnect.
+     *
+     * @param after last position the consumer processed, {@code null} for "from now on"
+     */
+    public SseEmitter subscribe(final Long after) {
+        if (!isRunning()) {
+            throw new IllegalStateException("Customer change feed is not running");
+        }
+        final long from = Objects.isNull(after) ? changeRepository.head() : after;
+        // fail with 410 before the stream starts, a gap found later can only end it
+        read(from, 1);
+
+        final SseEmitter emitter = new SseEmitter(subscriptionTimeout.toMillis());
+        final Subscription subscription = new Subscription(emitter, from);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        subscriberExecutor.execute(subscription::run);
+        return emitter;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        head = changeRepository.head();
+        subscriberExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                .name("customer-change-subscriber-", 0)
+                .factory());
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("customer-change-relay")
+                .daemon()
+                .factory());
+        scheduler.scheduleWithFixedDelay(this::poll, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (subscriberExecutor != null) {
+            subscriberExecutor.shutdownNow();
+            subscriberExecutor = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    void poll() {
+        try {
+            relay();
+            purge();
+            final long current = changeRepository.head();
+            if (current != head) {
+                headLock.lock();
+                try {
+                    head = current;
+                    headMoved.signalAll();
+                } finally {
+                    headLock.unlock();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Customer change feed poll failed", e);
+        }
+    }
+
+    /**
+     * Publishes batches until the committed part of the outbox is drained, or another node holds the relay.
+     */
+    void relay() {
+        int count;
+        do {
+            count = Objects.requireNonNull(transaction.execute(status ->
+                    changeRepository.tryLockRelay() ? changeRepository.publish(relayBatchSize) : 0));
+            published.increment(count);
+        } while (count == relayBatchSize);
+    }
+
+    private void purge() {
+        final Instant now = Instant.now();
+        if (now.isBefore(lastPurge.plus(PURGE_INTERVAL))) {
+            return;
+        }
+        lastPurge = now;
+        final int purged = changeRepository.deletePublishedBefore(now.minus(retention));
+        if (purged > 0) {
+            log.info("Purged {} customer changes published before {}", purged, now.minus(retention));
+        }
+    }
+
+    private List<CustomerChange> read(final long after, final int limit) {
+        if (after < 0) {
+            throw new RequestValidationException("Position must not be negative");
+        }
+        final List<CustomerChange> changes = changeRepository.findAfter(after, limit);
+        if (!changes.isEmpty() && changes.getFirst().position() > after + 1) {
+            throw new ResourceGoneException(
+                    "Changes after position [%s] are no longer retained, start over from a snapshot".formatted(after)
+            );
+        }
+        return changes;
+    }
+
+    /**
+     * @return {@code false} if the head did not move past {@code position} within the heartbeat interval
+     */
+    private boolean awaitHead(final long position) throws InterruptedException {
+        headLock.lock();
+        try {
+            long nanos = heartbeat.toNanos();
+            while (head <= position) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = headMoved.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            headLock.unlock();
+        }
+    }
+
+    private static int pageSize(final Integer size) {
+        if (Objects.isNull(size)) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new RequestValidationException("Page size must be between 1 and %s".formatted(MAX_PAGE_SIZE));
+        }
+        return size;
+    }
+
+    private final class Subscription {
+
+        private final SseEmitter emitter;
+        private volatile boolean closed;
+        private long position;
+
+        private Subscription(final SseEmitter emitter, final long position) {
+            this.emitter = emitter;
+            this.position = position;
+        }
+
+        private void close() {
+            closed = true;
+        }
+
+        private void run() {
+            subscribers.incrementAndGet();
+            try {
+                // also commits the response, clients see the stream open before the first change
+                emitter.send(SseEmitter.event().reconnectTime(RECONNECT_DELAY.toMillis()));
+                while (!closed) {
+                    final List<CustomerChange> changes = read(position, DEFAULT_PAGE_SIZE);
+                    for (final CustomerChange change : changes) {
+                        emitter.send(SseEmitter.event()
+                                .id(Long.toString(change.position()))
+                                .data(change, MediaType.APPLICATION_JSON));
+                        position = change.position();
+                    }
+                    if (changes.size() < DEFAULT_PAGE_SIZE && !awaitHead(position)) {
+                        // also finds clients that went away while nothing was published
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // client gone or emitter already completed
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emitter.complete();
+            } catch (RuntimeException e) {
+                emitter.completeWithError(e);
+            } finally {
+                subscribers.decrementAndGet();
+            }
+        }
+    }
+}
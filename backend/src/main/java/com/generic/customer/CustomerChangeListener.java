@@ -0,0 +1,157 @@
+package com.generic.customer;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Keeps the local {@link CachingCustomerDAO} coherent with writes made by other nodes. The {@code customer_changes}
+ * channel is fed by the triggers from {@code V2__Customer_change_notify.sql}.
+ * <p>
+ * Uses its own connection outside of the pool, since a LISTEN session has to stay open for the node lifetime.
+ * Whenever the connection is (re)established the whole cache is dropped, notifications sent while
+ * nobody was listening are lost.
+ */
+@Component
+@Profile("!reactive & !embedded")
+@ConditionalOnProperty(
+        prefix = "customer.cache",
+        name = {"enabled", "notify-invalidation"},
+        havingValue = "true",
+        matchIfMissing = true
+)
+public class CustomerChangeListener implements SmartLifecycle {
+
+    static final String CHANNEL = "customer_changes";
+    static final String INVALIDATE_ALL = "*";
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerChangeListener.class);
+    private static final int POLL_TIMEOUT_MILLIS = 500;
+    private static final long INITIAL_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final CachingCustomerDAO cache;
+    private final String url;
+    private final Properties connectionProperties;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    @Autowired
+    public CustomerChangeListener(final CachingCustomerDAO cache, final DataSourceProperties dataSourceProperties) {
+        this(
+                cache,
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword()
+        );
+    }
+
+    CustomerChangeListener(
+            final CachingCustomerDAO cache,
+            final String url,
+            final String username,
+            final String password
+    ) {
+        this.cache = cache;
+        this.url = url;
+        this.connectionProperties = new Properties();
+        connectionProperties.setProperty("user", username);
+        connectionProperties.setProperty("password", password);
+        // an idle LISTEN connection would otherwise never notice a dead peer
+        connectionProperties.setProperty("tcpKeepAlive", "true");
+        connectionProperties.setProperty("ApplicationName", "customer-change-listener");
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = Thread.ofPlatform()
+                .name("customer-change-listener")
+                .daemon()
+                .start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(POLL_TIMEOUT_MILLIS * 2L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, connectionProperties)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                cache.invalidateAll();
+                backoff = INITIAL_BACKOFF_MILLIS;
+
+                final PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    final PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications != null) {
+                        for (final PGNotification notification : notifications) {
+                            apply(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Customer change listener lost its connection, reconnecting in {} ms", backoff, e);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    void apply(final String payload) {
+        if (INVALIDATE_ALL.equals(payload)) {
+            cache.invalidateAll();
+            return;
+        }
+        try {
+            final List<Long> ids = Arrays.stream(payload.split(","))
+                    .map(Long::valueOf)
+                    .toList();
+            cache.invalidate(ids);
+        } catch (NumberFormatException e) {
+            log.warn("Unexpected payload [{}] on channel {}, dropping the whole cache", payload, CHANNEL);
+            cache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.generic.customer;
+
+import java.util.List;
+
+/**
+ * @param next position to pass as {@code after} for the following page
+ */
+public record CustomerChangePage(
+        List<CustomerChange> changes,
+        long next
+) {
+}
@@ -0,0 +1,139 @@
+package com.generic.customer;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Both ends of the change feed: moves committed rows from {@code customer_outbox} to {@code customer_change}
+ * and reads them back by position (see {@code V5__Customer_outbox.sql}).
+ */
+@Repository
+@Profile("!reactive & !embedded")
+public class CustomerChangeRepository {
+
+    private static final String SQL_TRY_LOCK_RELAY = "SELECT pg_try_advisory_xact_lock(:key)";
+    /**
+     * Appends the oldest outbox rows to the feed, numbered on from the current head in id order. An outbox row is
+     * inserted by the statement that changes its customer, under that customer's row lock, so id order is the order
+     * in which the writes to one customer took effect (txid order is not: an older transaction may write a customer
+     * after a younger one committed). Only the id-ordered prefix up to the first row of a transaction that may still
+     * have been running when the snapshot was taken ({@code txid >= xmin}) is moved, the rest waits for the next run.
+     * Only one relay may run it at a time.
+     */
+    private static final String SQL_PUBLISH = """
+            WITH horizon AS (
+                SELECT min(id) AS id FROM customer_outbox
+                WHERE txid >= pg_snapshot_xmin(pg_current_snapshot())
+            ),
+            batch AS (
+                DELETE FROM customer_outbox
+                WHERE id IN (
+                    SELECT id FROM customer_outbox
+                    WHERE id < COALESCE((SELECT id FROM horizon), 9223372036854775807)
+                    ORDER BY id
+                    LIMIT :limit
+                )
+                RETURNING id, customer_id, type, name, age, email, occurred_at
+            )
+            INSERT INTO customer_change(position, customer_id, type, name, age, email, occurred_at)
+            SELECT (SELECT COALESCE(max(position), 0) FROM customer_change) + row_number() OVER (ORDER BY id),
+                   customer_id, type, name, age, email, occurred_at
+            FROM batch
+            """;
+    private static final String SQL_SELECT_AFTER = """
+            SELECT position, customer_id, type, name, age, email, occurred_at FROM customer_change
+            WHERE position > :after ORDER BY position LIMIT :limit
+            """;
+    private static final String SQL_SELECT_HEAD = "SELECT COALESCE(max(position), 0) FROM customer_change";
+    /**
+     * The head is always kept, positions would otherwise be handed out again.
+     */
+    private static final String SQL_DELETE_PUBLISHED_BEFORE = """
+            DELETE FROM customer_change
+            WHERE published_at < :before AND position < (SELECT max(position) FROM customer_change)
+            """;
+
+    /**
+     * Advisory lock key of the relay, any constant no other code locks on.
+     */
+    static final long RELAY_LOCK_KEY = 0x637573746f6d6572L;
+
+    private static final RowMapper<CustomerChange> CHANGE_MAPPER = (rs, rowNum) -> {
+        final CustomerChangeType type = CustomerChangeType.valueOf(rs.getString("type"));
+        final long customerId = rs.getLong("customer_id");
+        return new CustomerChange(
+                rs.getLong("position"),
+                type,
+                customerId,
+                type == CustomerChangeType.DELETED
+                        ? null
+                        : new Customer(customerId, rs.getString("name"), rs.getInt("age"), rs.getString("email")),
+                rs.getTimestamp("occurred_at").toInstant()
+        );
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public CustomerChangeRepository(final NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Transaction-scoped, has to be called inside the transaction that runs {@link #publish(int)}.
+     *
+     * @return {@code false} if another node is relaying right now
+     */
+    public boolean tryLockRelay() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                SQL_TRY_LOCK_RELAY,
+                new MapSqlParameterSource()
+                        .addValue("key", RELAY_LOCK_KEY),
+                Boolean.class
+        ));
+    }
+
+    /**
+     * @return number of changes appended to the feed
+     */
+    public int publish(final int limit) {
+        return jdbcTemplate.update(
+                SQL_PUBLISH,
+                new MapSqlParameterSource()
+                        .addValue("limit", limit)
+        );
+    }
+
+    public List<CustomerChange> findAfter(final long after, final int limit) {
+        return jdbcTemplate.query(
+                SQL_SELECT_AFTER,
+                new MapSqlParameterSource()
+                        .addValue("after", after)
+                        .addValue("limit", limit),
+                CHANGE_MAPPER
+        );
+    }
+
+    /**
+     * @return position of the latest published change, 0 for an empty feed
+     */
+    public long head() {
+        final Long head = jdbcTemplate.queryForObject(SQL_SELECT_HEAD, new MapSqlParameterSource(), Long.class);
+        return Objects.requireNonNullElse(head, 0L);
+    }
+
+    public int deletePublishedBefore(final Instant before) {
+        return jdbcTemplate.update(
+                SQL_DELETE_PUBLISHED_BEFORE,
+                new MapSqlParameterSource()
+                        .addValue("before", Timestamp.from(before))
+        );
+    }
+}
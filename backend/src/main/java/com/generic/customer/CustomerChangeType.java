@@ -0,0 +1,7 @@
+package com.generic.customer;
+
+public enum CustomerChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -1,17 +1,39 @@
 package com.generic.customer;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.generic.exception.NotImplementedException;
+import com.generic.web.RequestTimeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1/customers")
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final CustomerChangeFeed changeFeed;
+    private final ObjectMapper objectMapper;
 
-    public CustomerController(final CustomerService customerService) {
+    public CustomerController(
+            final CustomerService customerService,
+            final ObjectProvider<CustomerChangeFeed> changeFeed,
+            final ObjectMapper objectMapper
+    ) {
         this.customerService = customerService;
+        // the feed is built on the PostgreSQL outbox, there is none with the embedded store
+        this.changeFeed = changeFeed.getIfAvailable();
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("{customerId}")
@@ -24,11 +46,123 @@ public class CustomerController {
         return customerService.findAll();
     }
 
+    @GetMapping("page")
+    public CustomerPage findPage(
+            @RequestParam(value = "pageToken", required = false) String pageToken,
+            @RequestParam(value = "size", required = false) Integer size
+    ) {
+        return customerService.findPage(pageToken, size);
+    }
+
+    @GetMapping("search")
+    public CustomerPage search(CustomerSearchRequest request) {
+        return customerService.search(request);
+    }
+
+    /**
+     * Same data as {@link #findAll()}, but written row by row as NDJSON straight from the result set.
+     */
+    @GetMapping(value = "stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        // a bare StreamingResponseBody goes out without a Content-Type, which also keeps it from being compressed
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> customerService.streamAll(customer -> {
+                    try {
+                        outputStream.write(objectMapper.writeValueAsBytes(customer));
+                        outputStream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+    }
+
+    /**
+     * Customers created, updated or deleted since {@code watermark}, taken from the previous response.
+     */
+    @GetMapping("delta")
+    public CustomerDeltaPage findChangedSince(
+            @RequestParam(value = "watermark", required = false) String watermark,
+            @RequestParam(value = "size", required = false) Integer size
+    ) {
+        return customerService.findChangedSince(watermark, size);
+    }
+
+    /**
+     * Changes after position {@code after}; without it an empty page whose {@code next} is the current head.
+     */
+    @GetMapping("changes")
+    public CustomerChangePage findChanges(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "size", required = false) Integer size
+    ) {
+        return changeFeed().page(after, size);
+    }
+
+    /**
+     * Same feed as server-sent events that stay open, {@code Last-Event-ID} of a reconnect wins over {@code after}.
+     */
+    @GetMapping(value = "changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToChanges(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId
+    ) {
+        return changeFeed().subscribe(lastEventId != null ? lastEventId : after);
+    }
+
+    private CustomerChangeFeed changeFeed() {
+        if (changeFeed == null) {
+            throw new NotImplementedException("Change feed is not available with the embedded store");
+        }
+        return changeFeed;
+    }
+
     @PostMapping
     public void register(@RequestBody CustomerRegistrationRequest customer) {
         customerService.register(customer);
     }
 
+    @GetMapping("batch")
+    public List<Customer> findAllById(@RequestParam("ids") List<Long> ids) {
+        return customerService.findAllById(ids);
+    }
+
+    @PostMapping("batch")
+    @RequestTimeout("${customer.deadline.batch-timeout:30s}")
+    public List<CustomerBatchItemResult> registerAll(@RequestBody List<CustomerRegistrationRequest> customers) {
+        return customerService.registerAll(customers);
+    }
+
+    @PutMapping("batch")
+    @RequestTimeout("${customer.deadline.batch-timeout:30s}")
+    public List<CustomerBatchItemResult> updateAll(@RequestBody List<CustomerBatchUpdateRequest> updateRequests) {
+        return customerService.updateAll(updateRequests);
+    }
+
+    @DeleteMapping("batch")
+    @RequestTimeout("${customer.deadline.batch-timeout:30s}")
+    public List<CustomerBatchItemResult> deleteAllById(@RequestParam("ids") List<Long> ids) {
+        return customerService.deleteAllById(ids);
+    }
+
+    @PostMapping(value = "import", consumes = "text/csv")
+    @RequestTimeout("${customer.deadline.import-timeout:5m}")
+    public CustomerImportReport importCsv(
+            InputStream body,
+            @RequestParam(value = "onConflict", defaultValue = "SKIP") CustomerImportConflictMode conflictMode
+    ) {
+        return customerService.importCustomers(body, CustomerImportFormat.CSV, conflictMode);
+    }
+
+    @PostMapping(value = "import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @RequestTimeout("${customer.deadline.import-timeout:5m}")
+    public CustomerImportReport importNdjson(
+            InputStream body,
+            @RequestParam(value = "onConflict", defaultValue = "SKIP") CustomerImportConflictMode conflictMode
+    ) {
+        return customerService.importCustomers(body, CustomerImportFormat.NDJSON, conflictMode);
+    }
+
     @DeleteMapping("{customerId}")
     public void deleteById(@PathVariable("customerId") Long id) {
         customerService.deleteById(id);
@@ -1,14 +1,24 @@
 package com.generic.customer;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface CustomerDAO {
     Optional<Customer> findById(final Long id);
+    List<Customer> findAllById(Collection<Long> ids);
     List<Customer> findAll();
+    List<Customer> findPage(long afterId, int limit);
+    List<Customer> search(CustomerSearchQuery query);
+    void streamAll(Consumer<Customer> consumer);
+    CustomerDelta changedSince(CustomerWatermark watermark, int limit);
     boolean existsByEmail(String email);
     void save(Customer customer);
     boolean existsById(Long id);
     void deleteById(Long id);
-    void update(Customer customer);
+    CustomerUpdateResult update(Customer customer);
+    List<CustomerBatchItemResult> saveAll(List<Customer> customers);
+    List<CustomerBatchItemResult> updateAll(List<Customer> customers);
+    List<CustomerBatchItemResult> deleteAllById(List<Long> ids);
 }
@@ -0,0 +1,17 @@
+package com.generic.customer;
+
+import java.util.List;
+
+/**
+ * @param changed    created or updated since the previous watermark, as they are now
+ * @param deletedIds deleted since the previous watermark
+ * @param watermark  where the next call continues from
+ * @param hasMore    the limit was hit, call again right away with {@code watermark}
+ */
+public record CustomerDelta(
+        List<Customer> changed,
+        List<Long> deletedIds,
+        CustomerWatermark watermark,
+        boolean hasMore
+) {
+}
@@ -0,0 +1,11 @@
+package com.generic.customer;
+
+import java.util.List;
+
+public record CustomerDeltaPage(
+        List<Customer> changed,
+        List<Long> deletedIds,
+        String watermark,
+        boolean hasMore
+) {
+}
@@ -0,0 +1,243 @@
+package com.generic.customer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Answers "definitely absent" for emails nobody registered, so sign-ups skip the {@code existsByEmail} query.
+ * <p>
+ * Loaded after startup by a streamed scan, until then every check goes to the database. Emails written through
+ * {@link CustomerService} are added before the write. A Bloom filter cannot forget, so deletes and bulk imports
+ * (which bypass it) only mark it for a rebuild, done in the background when deletes pile up, an import happened
+ * or it got fuller than sized for. Writes made by other nodes are not seen until the next rebuild; a wrong
+ * "absent" then only means the unique constraint rejects the insert instead of the pre-check.
+ * <p>
+ * Observed false-positive rate: {@code false.positives / (false.positives + checks{result=absent})}.
+ */
+@Component
+@Profile("!reactive")
+public class CustomerEmailFilter implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerEmailFilter.class);
+    private static final double MAX_DELETED_FRACTION = 0.1;
+
+    private final boolean enabled;
+    private final CustomerDAO customerDAO;
+    private final TransactionOperations readOnlyTransaction;
+    private final long expectedInsertions;
+    private final double fpp;
+    private final Duration checkInterval;
+
+    private final AtomicLong deletesSinceBuild = new AtomicLong();
+    private volatile EmailBloomFilter current;
+    private volatile EmailBloomFilter building;
+    private volatile boolean stale;
+    private ScheduledExecutorService scheduler;
+
+    private final Counter absent;
+    private final Counter maybe;
+    private final Counter falsePositives;
+    private final Counter rebuilds;
+
+    @Autowired
+    public CustomerEmailFilter(
+            final CustomerDAO customerDAO,
+            final ObjectProvider<PlatformTransactionManager> transactionManager,
+            final MeterRegistry meterRegistry,
+            @Value("${customer.email-filter.enabled:true}") final boolean enabled,
+            @Value("${customer.email-filter.expected-insertions:1000000}") final long expectedInsertions,
+            @Value("${customer.email-filter.fpp:0.01}") final double fpp,
+            @Value("${customer.email-filter.check-interval:1m}") final Duration checkInterval
+    ) {
+        this(enabled, customerDAO, readOnly(transactionManager.getIfAvailable()), meterRegistry, expectedInsertions, fpp, checkInterval);
+    }
+
+    CustomerEmailFilter(
+            final boolean enabled,
+            final CustomerDAO customerDAO,
+            final TransactionOperations readOnlyTransaction,
+            final MeterRegistry meterRegistry,
+            final long expectedInsertions,
+            final double fpp,
+            final Duration checkInterval
+    ) {
+        this.enabled = enabled;
+        this.customerDAO = customerDAO;
+        this.readOnlyTransaction = readOnlyTransaction;
+        this.expectedInsertions = expectedInsertions;
+        this.fpp = fpp;
+        this.checkInterval = checkInterval;
+        this.absent = checks(meterRegistry, "absent");
+        this.maybe = checks(meterRegistry, "maybe");
+        this.falsePositives = Counter.builder("customer.email.filter.false.positives")
+                .description("Emails the filter reported as maybe present that the database did not have")
+                .register(meterRegistry);
+        this.rebuilds = Counter.builder("customer.email.filter.rebuilds")
+                .register(meterRegistry);
+        Gauge.builder("customer.email.filter.memory", this, filter -> bytes(filter.current) + bytes(filter.building))
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("customer.email.filter.elements", this,
+                        filter -> filter.current == null ? Double.NaN : filter.current.approximateElementCount())
+                .description("Distinct emails in the filter, estimated from its fill ratio")
+                .register(meterRegistry);
+        Gauge.builder("customer.email.filter.expected.fpp", this,
+                        filter -> filter.current == null ? Double.NaN : filter.current.expectedFpp())
+                .description("False-positive probability implied by the current fill ratio")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Filter that never answers on its own, every check goes to the database.
+     */
+    static CustomerEmailFilter disabled(final MeterRegistry meterRegistry) {
+        return new CustomerEmailFilter(false, null, null, meterRegistry, 1, 0.5, Duration.ZERO);
+    }
+
+    /**
+     * @param query the authoritative check, only called when the filter cannot rule the email out
+     */
+    public boolean exists(final String email, final Predicate<String> query) {
+        final EmailBloomFilter filter = current;
+        if (filter == null) {
+            return query.test(email);
+        }
+        if (!filter.mightContain(email)) {
+            absent.increment();
+            return false;
+        }
+        maybe.increment();
+        final boolean exists = query.test(email);
+        if (!exists) {
+            falsePositives.increment();
+        }
+        return exists;
+    }
+
+    public void put(final String email) {
+        final EmailBloomFilter filter = current;
+        final EmailBloomFilter next = building;
+        if (filter != null) {
+            filter.put(email);
+        }
+        if (next != null) {
+            next.put(email);
+        }
+    }
+
+    public void putAll(final Collection<String> emails) {
+        emails.forEach(this::put);
+    }
+
+    public void recordDeletes(final long count) {
+        deletesSinceBuild.addAndGet(count);
+    }
+
+    /**
+     * Rows were written around the filter (e.g. a bulk import), rebuild it on the next check.
+     */
+    public void markStale() {
+        stale = true;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("customer-email-filter")
+                .daemon()
+                .factory());
+        scheduler.scheduleWithFixedDelay(this::rebuildIfNeeded, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    void rebuildIfNeeded() {
+        final EmailBloomFilter filter = current;
+        if (filter == null
+                || stale
+                || deletesSinceBuild.get() > filter.approximateElementCount() * MAX_DELETED_FRACTION
+                || filter.expectedFpp() > fpp * 2) {
+            rebuild();
+        }
+    }
+
+    void rebuild() {
+        final EmailBloomFilter previous = current;
+        final long size = previous == null
+                ? expectedInsertions
+                : Math.max(expectedInsertions, previous.approximateElementCount() * 2);
+        final EmailBloomFilter next = EmailBloomFilter.create(size, fpp);
+        // registered before the scan starts: emails written meanwhile land in both filters
+        building = next;
+        stale = false;
+        deletesSinceBuild.set(0);
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> customerDAO.streamAll(customer -> next.put(customer.email())));
+            current = next;
+            rebuilds.increment();
+            log.info("Customer email filter rebuilt: {} emails, {} KiB, {} hash functions",
+                    next.approximateElementCount(), next.bitSize() / 8 / 1024, next.hashFunctions());
+        } catch (RuntimeException e) {
+            stale = true;
+            log.warn("Customer email filter rebuild failed, keeping the previous one", e);
+        } finally {
+            building = null;
+        }
+    }
+
+    private static Counter checks(final MeterRegistry meterRegistry, final String result) {
+        return Counter.builder("customer.email.filter.checks")
+                .description("existsByEmail checks answered by the filter: absent skips the query, maybe runs it")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static double bytes(final EmailBloomFilter filter) {
+        return filter == null ? 0 : filter.bitSize() / 8.0;
+    }
+
+    private static TransactionOperations readOnly(final PlatformTransactionManager transactionManager) {
+        if (transactionManager == null) {
+            // the embedded store has no transactions to stream in
+            return TransactionOperations.withoutTransaction();
+        }
+        // the driver only streams with a cursor inside a transaction, see CustomerJDBCRepository.STREAM_FETCH_SIZE
+        final TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+}
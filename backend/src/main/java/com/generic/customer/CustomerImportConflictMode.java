@@ -0,0 +1,9 @@
+package com.generic.customer;
+
+/**
+ * What to do with an imported row whose email already belongs to an existing customer.
+ */
+public enum CustomerImportConflictMode {
+    SKIP,
+    UPDATE
+}
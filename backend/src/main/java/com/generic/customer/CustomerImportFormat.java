@@ -0,0 +1,6 @@
+package com.generic.customer;
+
+public enum CustomerImportFormat {
+    CSV,
+    NDJSON
+}
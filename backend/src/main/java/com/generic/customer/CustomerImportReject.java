@@ -0,0 +1,8 @@
+package com.generic.customer;
+
+public record CustomerImportReject(
+        long line,
+        String email,
+        String reason
+) {
+}
@@ -0,0 +1,16 @@
+package com.generic.customer;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. {@code rejects} holds at most the first
+ * {@link CustomerBulkImporter#MAX_REPORTED_REJECTS} rejected rows, {@code rejected} is the full count.
+ */
+public record CustomerImportReport(
+        long received,
+        long inserted,
+        long updated,
+        long rejected,
+        List<CustomerImportReject> rejects
+) {
+}
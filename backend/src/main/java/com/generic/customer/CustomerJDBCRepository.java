@@ -1,32 +1,175 @@
 package com.generic.customer;
 
+import com.generic.datasource.ReplicaRouting;
+import com.generic.exception.DuplicateResourceException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
 
 @Repository
+@Profile("!reactive & !embedded")
 public class CustomerJDBCRepository implements CustomerDAO {
 
     private static final String SQL_SELECT_BY_ID = "SELECT id, name, age, email FROM customer WHERE id = :id";
+    private static final String SQL_SELECT_ALL_BY_IDS = "SELECT id, name, age, email FROM customer WHERE id = ANY(:ids)";
     private static final String SQL_SELECT_ALL = "SELECT id, name, age, email FROM customer";
+    private static final String SQL_SELECT_PAGE = "SELECT id, name, age, email FROM customer WHERE id > :afterId ORDER BY id LIMIT :limit";
+    private static final String SQL_SELECT_ALL_ORDERED = "SELECT id, name, age, email FROM customer ORDER BY id";
     private static final String SQL_SELECT_COUNT_BY_ID = "SELECT COUNT(id) FROM customer WHERE id = :id";
     private static final String SQL_SELECT_COUNT_BY_EMAIL = "SELECT COUNT(id) FROM customer WHERE email = :email";
-    private static final String SQL_INSERT = "INSERT INTO customer(name, age, email) VALUES (:name, :age, :email)";
-    private static final String SQL_DELETE_BY_ID = "DELETE FROM customer WHERE id = :id";
-    private static final String SQL_UPDATE_NAME_BY_ID = "UPDATE customer SET name = :name WHERE id = :id";
-    private static final String SQL_UPDATE_AGE_BY_ID = "UPDATE customer SET age = :age WHERE id = :id";
-    private static final String SQL_UPDATE_EMAIL_BY_ID = "UPDATE customer SET email = :email WHERE id = :id";
+    /*
+     * Every write adds its change events to customer_outbox in the same statement, so they commit or roll back
+     * together with the change itself (see V5__Customer_outbox.sql and CustomerChangeFeed).
+     */
+    private static final String SQL_INSERT = """
+            WITH inserted AS (
+                INSERT INTO customer(name, age, email) VALUES (:name, :age, :email)
+                RETURNING id, name, age, email
+            )
+            INSERT INTO customer_outbox(customer_id, type, name, age, email)
+            SELECT id, 'CREATED', name, age, email FROM inserted
+            """;
+    /**
+     * Batched with generated keys, which the driver reads from the outbox row: {@code customer_id} and {@code email}.
+     */
+    private static final String SQL_INSERT_SKIP_TAKEN_EMAIL = """
+            WITH inserted AS (
+                INSERT INTO customer(name, age, email) VALUES (:name, :age, :email)
+                ON CONFLICT (email) DO NOTHING
+                RETURNING id, name, age, email
+            )
+            INSERT INTO customer_outbox(customer_id, type, name, age, email)
+            SELECT id, 'CREATED', name, age, email FROM inserted
+            """;
+    private static final String SQL_DELETE_BY_ID = """
+            WITH deleted AS (DELETE FROM customer WHERE id = :id RETURNING id)
+            INSERT INTO customer_outbox(customer_id, type)
+            SELECT id, 'DELETED' FROM deleted
+            """;
+    private static final String SQL_DELETE_ALL_BY_IDS = """
+            WITH deleted AS (DELETE FROM customer WHERE id = ANY(:ids) RETURNING id),
+                 changes AS (INSERT INTO customer_outbox(customer_id, type) SELECT id, 'DELETED' FROM deleted)
+            SELECT id FROM deleted
+            """;
+    private static final String SQL_UPDATE_NON_NULL_BY_ID = """
+            WITH updated AS (
+                UPDATE customer
+                SET name = COALESCE(:name, name), age = COALESCE(:age, age), email = COALESCE(:email, email)
+                WHERE id = :id
+                RETURNING id, name, age, email
+            )
+            INSERT INTO customer_outbox(customer_id, type, name, age, email)
+            SELECT id, 'UPDATED', name, age, email FROM updated
+            """;
+    /**
+     * Single round-trip partial update: the SET and change-detection lists are filled in for the non-null columns,
+     * all CTEs share one snapshot, so "missing row" and "nothing changed" are told apart without extra queries.
+     */
+    private static final String SQL_UPDATE_CHANGED_BY_ID = """
+            WITH target AS (SELECT id FROM customer WHERE id = :id),
+                 updated AS (UPDATE customer SET %s WHERE id = :id AND (%s) RETURNING id, name, age, email),
+                 changes AS (
+                     INSERT INTO customer_outbox(customer_id, type, name, age, email)
+                     SELECT id, 'UPDATED', name, age, email FROM updated
+                 )
+            SELECT EXISTS (SELECT 1 FROM target) AS found, EXISTS (SELECT 1 FROM updated) AS changed
+            """;
+    /**
+     * Filled in with the AND-ed search conditions and the ORDER BY list, values are always bound as parameters.
+     */
+    private static final String SQL_SEARCH = "SELECT id, name, age, email FROM customer WHERE %s ORDER BY %s LIMIT :limit";
+    /**
+     * Rows and tombstones in (timestamp, id) order after the passed watermark, but only below {@code safe}: the start
+     * of the oldest transaction still running when the snapshot was taken, since its writes are stamped with that time
+     * and show up only after they commit. Both come from the same snapshot, so nothing below {@code safe} can appear
+     * later. A running transaction with an unknown start keeps the watermark where it was: one not listed in
+     * pg_stat_activity (a standby, a prepared transaction) or one whose {@code xact_start} is hidden, which is the case
+     * for other roles' sessions unless the application role is granted {@code pg_read_all_stats}. Without that grant
+     * any open write by ops, migrations or the seeder stalls the watermark until it ends.
+     */
+    private static final String SQL_SELECT_CHANGED_SINCE = """
+            WITH snapshot AS (
+                SELECT CASE
+                           WHEN EXISTS (
+                               SELECT 1 FROM pg_snapshot_xip(pg_current_snapshot()) AS x
+                               WHERE NOT EXISTS (
+                                   SELECT 1 FROM pg_stat_activity a
+                                   WHERE a.backend_xid = xid(x) AND a.xact_start IS NOT NULL
+                               )
+                           ) THEN CAST(:since AS TIMESTAMPTZ)
+                           ELSE LEAST(now(), (
+                               SELECT min(a.xact_start) FROM pg_stat_activity a
+                               JOIN pg_snapshot_xip(pg_current_snapshot()) AS x ON a.backend_xid = xid(x)
+                           ))
+                       END AS safe
+            )
+            SELECT s.safe, d.changed_at, d.id, d.name, d.age, d.email, d.deleted
+            FROM snapshot s
+            LEFT JOIN LATERAL (
+                (SELECT updated_at AS changed_at, id, name, age, email, FALSE AS deleted FROM customer
+                 WHERE (updated_at, id) > (:since, :afterId) AND updated_at < s.safe
+                 ORDER BY updated_at, id LIMIT :limit)
+                UNION ALL
+                (SELECT deleted_at, id, NULL, NULL, NULL, TRUE FROM customer_tombstone
+                 WHERE (deleted_at, id) > (:since, :afterId) AND deleted_at < s.safe
+                   AND deleted_at >= COALESCE(CAST(:deletedFrom AS TIMESTAMPTZ), s.safe)
+                 ORDER BY deleted_at, id LIMIT :limit)
+                ORDER BY changed_at, id LIMIT :limit
+            ) d ON TRUE
+            ORDER BY d.changed_at, d.id
+            """;
+    private static final String EMAIL_UNIQUE_CONSTRAINT = "customer_email_unique";
+
+    /**
+     * Rows pulled per round-trip while streaming. PostgreSQL driver honours it only inside a transaction
+     * (autocommit off), otherwise the whole result set is materialized on the client.
+     */
+    static final int STREAM_FETCH_SIZE = 1_000;
+    static final int DEFAULT_BATCH_SIZE = 500;
 
     private final NamedParameterJdbcTemplate jdbcTemplate;
     private final CustomerRowMapper rowMapper;
+    private final int batchSize;
 
     public CustomerJDBCRepository(final NamedParameterJdbcTemplate jdbcTemplate, final CustomerRowMapper rowMapper) {
+        this(jdbcTemplate, rowMapper, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param batchSize statements sent per JDBC batch; the writes are CTEs that also fill customer_outbox, which
+     *                  {@code reWriteBatchedInserts} leaves as they are, so each batch is one round-trip of statements
+     */
+    @Autowired
+    public CustomerJDBCRepository(
+            final NamedParameterJdbcTemplate jdbcTemplate,
+            final CustomerRowMapper rowMapper,
+            @Value("${customer.jdbc.batch-size:" + DEFAULT_BATCH_SIZE + "}") final int batchSize
+    ) {
         this.jdbcTemplate = jdbcTemplate;
         this.rowMapper = rowMapper;
+        this.batchSize = batchSize;
     }
 
     @Override
@@ -40,14 +183,158 @@ public class CustomerJDBCRepository implements CustomerDAO {
                 .stream().findFirst();
     }
 
+    /**
+     * One round-trip for any number of ids, rows come back in no particular order.
+     */
+    @Override
+    public List<Customer> findAllById(final Collection<Long> ids) {
+        return jdbcTemplate.query(
+                SQL_SELECT_ALL_BY_IDS,
+                new MapSqlParameterSource()
+                        .addValue("ids", ids.toArray(Long[]::new)),
+                rowMapper.listExtractor()
+        );
+    }
+
     @Override
     public List<Customer> findAll() {
         return jdbcTemplate.query(
                         SQL_SELECT_ALL,
-                        rowMapper
+                        rowMapper.listExtractor()
                 );
     }
 
+    @Override
+    public List<Customer> findPage(final long afterId, final int limit) {
+        return jdbcTemplate.query(
+                SQL_SELECT_PAGE,
+                new MapSqlParameterSource()
+                        .addValue("afterId", afterId)
+                        .addValue("limit", limit),
+                rowMapper.listExtractor()
+        );
+    }
+
+    @Override
+    public void streamAll(final Consumer<Customer> consumer) {
+        jdbcTemplate.getJdbcTemplate().query(
+                connection -> {
+                    final var statement = connection.prepareStatement(SQL_SELECT_ALL_ORDERED);
+                    statement.setFetchSize(STREAM_FETCH_SIZE);
+                    return statement;
+                },
+                rowMapper.rowCallback(consumer)
+        );
+    }
+
+    /**
+     * Name and email domain become ILIKE patterns served by the trigram indexes, the age range and the keyset
+     * condition by the btree ones (see {@code V4__Customer_search_indexes.sql}).
+     */
+    @Override
+    public List<Customer> search(final CustomerSearchQuery query) {
+        final List<String> conditions = new ArrayList<>();
+        final MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("limit", query.limit());
+        if (Objects.nonNull(query.name())) {
+            conditions.add("name ILIKE :name");
+            params.addValue("name", "%" + escapeLike(query.name()) + "%");
+        }
+        if (Objects.nonNull(query.emailDomain())) {
+            conditions.add("email ILIKE :emailDomain");
+            params.addValue("emailDomain", "%@" + escapeLike(query.emailDomain()));
+        }
+        if (Objects.nonNull(query.minAge())) {
+            conditions.add("age >= :minAge");
+            params.addValue("minAge", query.minAge());
+        }
+        if (Objects.nonNull(query.maxAge())) {
+            conditions.add("age <= :maxAge");
+            params.addValue("maxAge", query.maxAge());
+        }
+
+        final CustomerSortField sortField = query.sortField();
+        final String direction = query.direction().isDescending() ? "DESC" : "ASC";
+        if (Objects.nonNull(query.after())) {
+            final String comparison = query.direction().isDescending() ? "<" : ">";
+            conditions.add(sortField == CustomerSortField.ID
+                    ? "id %s :afterId".formatted(comparison)
+                    : "(%s, id) %s (:afterValue, :afterId)".formatted(sortField.column(), comparison));
+            params.addValue("afterId", query.after().id());
+            params.addValue("afterValue", query.after().sortValue());
+        }
+        final String orderBy = sortField == CustomerSortField.ID
+                ? "id " + direction
+                : "%s %s, id %s".formatted(sortField.column(), direction, direction);
+
+        return jdbcTemplate.query(
+                SQL_SEARCH.formatted(
+                        conditions.isEmpty() ? "TRUE" : String.join(" AND ", conditions),
+                        orderBy
+                ),
+                params,
+                rowMapper.listExtractor()
+        );
+    }
+
+    /**
+     * Served by the (updated_at, id) and (deleted_at, id) indexes, reads only what changed after the watermark.
+     * The first call, without a watermark, returns every customer and no tombstones.
+     * <p>
+     * Always on the primary, whatever route the caller asked for: a standby does not know when the primary's
+     * running transactions started, so the watermark could not be trusted there.
+     */
+    @Override
+    public CustomerDelta changedSince(final CustomerWatermark watermark, final int limit) {
+        try (ReplicaRouting.Scope primary = ReplicaRouting.usePrimary()) {
+            final CustomerWatermark from = Objects.nonNull(watermark)
+                    ? watermark
+                    : new CustomerWatermark(Instant.EPOCH, 0, null);
+            return jdbcTemplate.query(
+                    SQL_SELECT_CHANGED_SINCE,
+                    new MapSqlParameterSource()
+                            .addValue("since", utc(from.changedAt()), Types.TIMESTAMP_WITH_TIMEZONE)
+                            .addValue("afterId", from.afterId())
+                            .addValue("deletedFrom", utc(from.deletedFrom()), Types.TIMESTAMP_WITH_TIMEZONE)
+                            .addValue("limit", limit),
+                    rs -> {
+                        final List<Customer> changed = new ArrayList<>();
+                        final List<Long> deletedIds = new ArrayList<>();
+                        Instant safe = null;
+                        Instant lastChangedAt = null;
+                        long lastId = 0;
+                        int count = 0;
+                        while (rs.next()) {
+                            safe = rs.getObject("safe", OffsetDateTime.class).toInstant();
+                            final OffsetDateTime changedAt = rs.getObject("changed_at", OffsetDateTime.class);
+                            if (changedAt == null) {
+                                break;
+                            }
+                            lastChangedAt = changedAt.toInstant();
+                            lastId = rs.getLong("id");
+                            count++;
+                            if (rs.getBoolean("deleted")) {
+                                deletedIds.add(lastId);
+                            } else {
+                                changed.add(new Customer(lastId, rs.getString("name"), rs.getInt("age"), rs.getString("email")));
+                            }
+                        }
+                        final Instant deletedFrom = Objects.requireNonNullElse(from.deletedFrom(), safe);
+                        final boolean hasMore = count == limit;
+                        final CustomerWatermark next;
+                        if (hasMore) {
+                            next = new CustomerWatermark(lastChangedAt, lastId, deletedFrom);
+                        } else if (safe.isAfter(from.changedAt())) {
+                            next = new CustomerWatermark(safe, 0, deletedFrom);
+                        } else {
+                            next = new CustomerWatermark(from.changedAt(), from.afterId(), deletedFrom);
+                        }
+                        return new CustomerDelta(List.copyOf(changed), List.copyOf(deletedIds), next, hasMore);
+                    }
+            );
+        }
+    }
+
     @Override
     public boolean existsByEmail(final String email) {
         final Integer count = jdbcTemplate.queryForObject(
@@ -61,13 +348,17 @@ public class CustomerJDBCRepository implements CustomerDAO {
 
     @Override
     public void save(final Customer customer) {
-        jdbcTemplate.update(
-                SQL_INSERT,
-                new MapSqlParameterSource()
-                        .addValue("name", customer.name())
-                        .addValue("age", customer.age())
-                        .addValue("email", customer.email())
-        );
+        try {
+            jdbcTemplate.update(
+                    SQL_INSERT,
+                    new MapSqlParameterSource()
+                            .addValue("name", customer.name())
+                            .addValue("age", customer.age())
+                            .addValue("email", customer.email())
+            );
+        } catch (DuplicateKeyException e) {
+            throw translateDuplicateEmail(e);
+        }
     }
 
     @Override
@@ -90,31 +381,155 @@ public class CustomerJDBCRepository implements CustomerDAO {
         );
     }
 
+    /**
+     * Rows whose email is already taken (or repeated earlier in the list) are skipped and reported
+     * as {@link CustomerBatchStatus#DUPLICATE_EMAIL} instead of failing the whole batch.
+     */
     @Override
-    public void update(final Customer customer) {
-        if (Objects.nonNull(customer.name())) {
-            jdbcTemplate.update(
-                    SQL_UPDATE_NAME_BY_ID,
-                    new MapSqlParameterSource()
+    public List<CustomerBatchItemResult> saveAll(final List<Customer> customers) {
+        final List<CustomerBatchItemResult> results = new ArrayList<>(customers.size());
+        for (final List<Customer> chunk : chunks(customers)) {
+            final SqlParameterSource[] batchArgs = chunk.stream()
+                    .map(customer -> new MapSqlParameterSource()
                             .addValue("name", customer.name())
-                            .addValue("id", customer.id())
+                            .addValue("age", customer.age())
+                            .addValue("email", customer.email()))
+                    .toArray(SqlParameterSource[]::new);
+            final GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(
+                    SQL_INSERT_SKIP_TAKEN_EMAIL,
+                    batchArgs,
+                    keyHolder,
+                    new String[]{"customer_id", "email"}
             );
+
+            // update counts may be SUCCESS_NO_INFO depending on driver settings, the returned keys are not
+            final Map<String, Long> idsByEmail = new HashMap<>();
+            for (final Map<String, Object> keys : keyHolder.getKeyList()) {
+                idsByEmail.put((String) keys.get("email"), ((Number) keys.get("customer_id")).longValue());
+            }
+            for (final Customer customer : chunk) {
+                // the first row with an email took it, repeats later in the chunk were skipped
+                final Long id = idsByEmail.remove(customer.email());
+                results.add(Objects.nonNull(id)
+                        ? new CustomerBatchItemResult(id, CustomerBatchStatus.CREATED)
+                        : new CustomerBatchItemResult(null, CustomerBatchStatus.DUPLICATE_EMAIL));
+            }
         }
-        if (Objects.nonNull(customer.age())) {
-            jdbcTemplate.update(
-                    SQL_UPDATE_AGE_BY_ID,
-                    new MapSqlParameterSource()
-                            .addValue("age", customer.age())
+        return results;
+    }
+
+    /**
+     * Batched counterpart of {@link #update(Customer)}: null fields are left as they are. A taken email fails
+     * the batch with {@link DuplicateResourceException}, so callers should run it inside a transaction.
+     */
+    @Override
+    public List<CustomerBatchItemResult> updateAll(final List<Customer> customers) {
+        final List<CustomerBatchItemResult> results = new ArrayList<>(customers.size());
+        for (final List<Customer> chunk : chunks(customers)) {
+            final SqlParameterSource[] batchArgs = chunk.stream()
+                    .map(customer -> new MapSqlParameterSource()
                             .addValue("id", customer.id())
-            );
+                            .addValue("name", customer.name(), Types.VARCHAR)
+                            .addValue("age", customer.age(), Types.INTEGER)
+                            .addValue("email", customer.email(), Types.VARCHAR))
+                    .toArray(SqlParameterSource[]::new);
+            final int[] counts;
+            try {
+                counts = jdbcTemplate.batchUpdate(SQL_UPDATE_NON_NULL_BY_ID, batchArgs);
+            } catch (DuplicateKeyException e) {
+                throw translateDuplicateEmail(e);
+            }
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(new CustomerBatchItemResult(
+                        chunk.get(i).id(),
+                        counts[i] > 0 ? CustomerBatchStatus.UPDATED : CustomerBatchStatus.NOT_FOUND
+                ));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public List<CustomerBatchItemResult> deleteAllById(final List<Long> ids) {
+        final Set<Long> deleted = new HashSet<>(jdbcTemplate.queryForList(
+                SQL_DELETE_ALL_BY_IDS,
+                new MapSqlParameterSource()
+                        .addValue("ids", ids.toArray(Long[]::new)),
+                Long.class
+        ));
+        return ids.stream()
+                .map(id -> new CustomerBatchItemResult(
+                        id,
+                        deleted.contains(id) ? CustomerBatchStatus.DELETED : CustomerBatchStatus.NOT_FOUND
+                ))
+                .toList();
+    }
+
+    @Override
+    public CustomerUpdateResult update(final Customer customer) {
+        final MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", customer.id());
+        final StringJoiner assignments = new StringJoiner(", ");
+        final StringJoiner changes = new StringJoiner(" OR ");
+        if (Objects.nonNull(customer.name())) {
+            params.addValue("name", customer.name());
+            assignments.add("name = :name");
+            changes.add("name IS DISTINCT FROM :name");
+        }
+        if (Objects.nonNull(customer.age())) {
+            params.addValue("age", customer.age());
+            assignments.add("age = :age");
+            changes.add("age IS DISTINCT FROM :age");
         }
         if (Objects.nonNull(customer.email())) {
-            jdbcTemplate.update(
-                    SQL_UPDATE_EMAIL_BY_ID,
-                    new MapSqlParameterSource()
-                            .addValue("email", customer.email())
-                            .addValue("id", customer.id())
+            params.addValue("email", customer.email());
+            assignments.add("email = :email");
+            changes.add("email IS DISTINCT FROM :email");
+        }
+
+        if (assignments.length() == 0) {
+            return existsById(customer.id()) ? CustomerUpdateResult.UNCHANGED : CustomerUpdateResult.NOT_FOUND;
+        }
+
+        try {
+            return jdbcTemplate.queryForObject(
+                    SQL_UPDATE_CHANGED_BY_ID.formatted(assignments, changes),
+                    params,
+                    (rs, rowNum) -> {
+                        if (!rs.getBoolean("found")) {
+                            return CustomerUpdateResult.NOT_FOUND;
+                        }
+                        return rs.getBoolean("changed") ? CustomerUpdateResult.UPDATED : CustomerUpdateResult.UNCHANGED;
+                    }
             );
+        } catch (DuplicateKeyException e) {
+            throw translateDuplicateEmail(e);
+        }
+    }
+
+    private static RuntimeException translateDuplicateEmail(final DuplicateKeyException e) {
+        if (Objects.nonNull(e.getMessage()) && e.getMessage().contains(EMAIL_UNIQUE_CONSTRAINT)) {
+            return new DuplicateResourceException("Email already taken");
+        }
+        return e;
+    }
+
+    private static OffsetDateTime utc(final Instant instant) {
+        return instant == null ? null : instant.atOffset(ZoneOffset.UTC);
+    }
+
+    private static String escapeLike(final String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+
+    private <T> List<List<T>> chunks(final List<T> items) {
+        final List<List<T>> chunks = new ArrayList<>((items.size() + batchSize - 1) / batchSize);
+        for (int from = 0; from < items.size(); from += batchSize) {
+            chunks.add(items.subList(from, Math.min(from + batchSize, items.size())));
         }
+        return chunks;
     }
 }
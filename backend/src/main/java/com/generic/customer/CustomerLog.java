@@ -0,0 +1,406 @@
+package com.generic.customer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead log of {@link EmbeddedCustomerDAO}, split into fixed-size segment files that are written
+ * through a memory-mapped {@link FileChannel}.
+ * <p>
+ * A record is {@code [int length][int crc32c][entry]}, a zero length marks the end of a segment. Appends only copy
+ * bytes into the mapping, {@link #sync(long)} makes them durable: the first waiter forces everything appended so far
+ * while later ones queue up behind it, so concurrent writers share one {@code msync} (group commit). Positions are
+ * {@code segment * segmentSize + offset} and only grow.
+ */
+final class CustomerLog implements Closeable {
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    private static final String SEGMENT_PREFIX = "customer-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * One logged change. {@code PUT} carries the whole row after the change, so replaying a log over any older
+     * state of the same row ends in the same place; {@code DELETE} carries only the id.
+     */
+    record Entry(byte type, long id, long stamp, String name, int age, String email) {
+
+        static Entry put(final Customer customer, final long stamp) {
+            return new Entry(PUT, customer.id(), stamp, customer.name(), customer.age(), customer.email());
+        }
+
+        static Entry delete(final long id, final long stamp) {
+            return new Entry(DELETE, id, stamp, null, 0, null);
+        }
+
+        Customer customer() {
+            return new Customer(id, name, age, email);
+        }
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean fsync;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private Segment current;
+    private long appended;
+    private long appendedEntries;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition synced = syncLock.newCondition();
+    private boolean syncing;
+    private long durable;
+    private long durableEntries;
+
+    private final IntConsumer groupCommitListener;
+
+    /**
+     * @param fsync           {@code false} leaves flushing to the OS: appends survive a process crash but not a power loss
+     * @param groupCommitListener called with the number of entries each forced flush made durable
+     */
+    CustomerLog(final Path directory, final int segmentSize, final boolean fsync, final IntConsumer groupCommitListener) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        this.groupCommitListener = groupCommitListener;
+    }
+
+    /**
+     * Feeds every intact entry of segments {@code fromSegment} and later to {@code consumer} in log order and opens
+     * the log for appends right after the last one. A torn record at the very end (a crash in the middle of an append)
+     * is cut off, anything broken earlier fails the recovery.
+     */
+    void open(final long fromSegment, final Consumer<Entry> consumer) {
+        try {
+            Files.createDirectories(directory);
+            final List<Long> segments = segments().stream().filter(segment -> segment >= fromSegment).toList();
+            if (segments.isEmpty()) {
+                current = Segment.map(directory, fromSegment, segmentSize);
+            }
+            for (int i = 0; i < segments.size(); i++) {
+                final Segment segment = Segment.map(directory, segments.get(i), segmentSize);
+                final int end = segment.replay(consumer);
+                if (i < segments.size() - 1) {
+                    if (end < segmentSize - HEADER_SIZE && segment.buffer.getInt(end) != 0) {
+                        throw new IllegalStateException(
+                                "Customer log segment [%s] is corrupt at offset [%s]".formatted(segment.path, end)
+                        );
+                    }
+                    segment.close();
+                } else {
+                    segment.clearFrom(end);
+                    current = segment;
+                }
+            }
+            appended = position(current.number, current.offset);
+            durable = appended;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return position right after the entry, pass it to {@link #sync(long)}
+     */
+    long append(final Entry entry) {
+        final byte[] body = encode(entry);
+        final CRC32C crc = new CRC32C();
+        crc.update(body);
+        final int length = HEADER_SIZE + body.length;
+        if (length > segmentSize - HEADER_SIZE) {
+            throw new IllegalArgumentException("Customer log entry of %s bytes does not fit a segment".formatted(length));
+        }
+
+        appendLock.lock();
+        try {
+            if (current.offset + length > segmentSize - HEADER_SIZE) {
+                roll();
+            }
+            final int offset = current.offset;
+            current.buffer.putInt(offset + Integer.BYTES, (int) crc.getValue());
+            current.buffer.put(offset + HEADER_SIZE, body);
+            // the length goes last, a reader never sees a record whose body is not there yet
+            current.buffer.putInt(offset, body.length);
+            current.offset = offset + length;
+            appendedEntries++;
+            appended = position(current.number, current.offset);
+            return appended;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until everything up to {@code position} is on disk.
+     */
+    void sync(final long position) {
+        if (!fsync) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            while (durable < position) {
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+                syncing = true;
+                final Segment segment;
+                final long target;
+                final long entries;
+                appendLock.lock();
+                try {
+                    segment = current;
+                    target = appended;
+                    entries = appendedEntries;
+                } finally {
+                    appendLock.unlock();
+                }
+                syncLock.unlock();
+                boolean forced = false;
+                try {
+                    segment.force((int) (target - position(segment.number, 0)));
+                    forced = true;
+                } finally {
+                    syncLock.lock();
+                    syncing = false;
+                    if (forced && target > durable) {
+                        durable = target;
+                        groupCommitListener.accept((int) (entries - durableEntries));
+                        durableEntries = entries;
+                    }
+                    synced.signalAll();
+                }
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Starts a new segment, appends made before the call stay in the older ones.
+     *
+     * @return number of the new segment, replaying from it skips everything appended so far
+     */
+    long rollOver() {
+        appendLock.lock();
+        try {
+            if (current.offset > 0) {
+                roll();
+                appended = position(current.number, current.offset);
+            }
+            return current.number;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    long appended() {
+        appendLock.lock();
+        try {
+            return appended;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    void deleteSegmentsBefore(final long segment) {
+        try {
+            for (final long number : segments()) {
+                if (number < segment) {
+                    Files.deleteIfExists(segmentPath(directory, number));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        appendLock.lock();
+        try {
+            if (current != null) {
+                current.force(current.offset);
+                current.close();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void roll() {
+        // entries of the old segment are made durable here, sync() only ever forces the current one
+        current.force(current.offset);
+        current.close();
+        current = Segment.map(directory, current.number + 1, segmentSize);
+    }
+
+    private long position(final long segment, final int offset) {
+        return segment * segmentSize + offset;
+    }
+
+    private List<Long> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name, SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length(), 10))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static Path segmentPath(final Path directory, final long number) {
+        return directory.resolve(SEGMENT_PREFIX + "%020d".formatted(number) + SEGMENT_SUFFIX);
+    }
+
+    static byte[] encode(final Entry entry) {
+        if (entry.type() == DELETE) {
+            return ByteBuffer.allocate(1 + Long.BYTES * 2)
+                    .put(entry.type())
+                    .putLong(entry.id())
+                    .putLong(entry.stamp())
+                    .array();
+        }
+        final byte[] name = entry.name().getBytes(StandardCharsets.UTF_8);
+        final byte[] email = entry.email().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + Long.BYTES * 2 + Integer.BYTES * 3 + name.length + email.length)
+                .put(entry.type())
+                .putLong(entry.id())
+                .putLong(entry.stamp())
+                .putInt(entry.age())
+                .putInt(name.length)
+                .put(name)
+                .putInt(email.length)
+                .put(email)
+                .array();
+    }
+
+    static Entry decode(final ByteBuffer body) {
+        final byte type = body.get();
+        final long id = body.getLong();
+        final long stamp = body.getLong();
+        if (type == DELETE) {
+            return Entry.delete(id, stamp);
+        }
+        if (type != PUT) {
+            throw new IllegalArgumentException("Unknown customer log entry type [%s]".formatted(type));
+        }
+        final int age = body.getInt();
+        final String name = string(body);
+        final String email = string(body);
+        return new Entry(PUT, id, stamp, name, age, email);
+    }
+
+    private static String string(final ByteBuffer body) {
+        final byte[] bytes = new byte[body.getInt()];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Segment {
+
+        private final long number;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int offset;
+        private int forced;
+
+        private Segment(final long number, final Path path, final FileChannel channel, final MappedByteBuffer buffer) {
+            this.number = number;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment map(final Path directory, final long number, final int size) {
+            final Path path = segmentPath(directory, number);
+            try {
+                final FileChannel channel = FileChannel.open(
+                        path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+                );
+                // mapping past the end grows the file, new segments are all zeros and so already "end of log"
+                return new Segment(number, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * @return offset right after the last intact record
+         */
+        int replay(final Consumer<Entry> consumer) {
+            final CRC32C crc = new CRC32C();
+            int position = 0;
+            while (position <= buffer.capacity() - HEADER_SIZE) {
+                final int length = buffer.getInt(position);
+                if (length <= 0 || length > buffer.capacity() - position - HEADER_SIZE) {
+                    break;
+                }
+                final ByteBuffer body = buffer.slice(position + HEADER_SIZE, length);
+                crc.reset();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != buffer.getInt(position + Integer.BYTES)) {
+                    break;
+                }
+                consumer.accept(decode(body));
+                position += HEADER_SIZE + length;
+            }
+            offset = position;
+            forced = position;
+            return position;
+        }
+
+        /**
+         * Zeroes whatever a torn append left behind, so it cannot be taken for a record once appends go on from here.
+         */
+        void clearFrom(final int from) {
+            final ByteBuffer zeros = ByteBuffer.allocate(64 * 1024);
+            boolean cleared = false;
+            for (int position = from; position < buffer.capacity(); position += zeros.capacity()) {
+                final int length = Math.min(zeros.capacity(), buffer.capacity() - position);
+                if (buffer.slice(position, length).mismatch(zeros.slice(0, length)) >= 0) {
+                    buffer.put(position, zeros.array(), 0, length);
+                    cleared = true;
+                }
+            }
+            if (cleared) {
+                buffer.force(from, buffer.capacity() - from);
+            }
+        }
+
+        synchronized void force(final int upTo) {
+            if (upTo > forced) {
+                buffer.force(forced, upTo - forced);
+                forced = upTo;
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.generic.customer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers for every {@link CustomerDAO} operation (per implementation, so cache and database show up separately)
+ * and every public {@link CustomerService} method, rows returned per DAO query and error counts by exception type.
+ * <p>
+ * Meters are resolved once per method and kept, so a sample costs two clock reads and a few atomic updates.
+ * Timers publish histogram buckets instead of client-side percentiles: quantiles are computed by Prometheus
+ * ({@code histogram_quantile}) and stay aggregatable across instances.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(prefix = "customer.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CustomerMetricsAspect {
+
+    static final String DAO_TIMER = "customer.dao";
+    static final String SERVICE_TIMER = "customer.service";
+    static final String DAO_ROWS = "customer.dao.rows";
+    static final String ERRORS = "customer.errors";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<MeterKey, Meters> meters = new ConcurrentHashMap<>();
+
+    public CustomerMetricsAspect(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(* com.generic.customer.CustomerDAO.*(..))")
+    public Object aroundDao(final ProceedingJoinPoint joinPoint) throws Throwable {
+        return record(joinPoint, DAO_TIMER);
+    }
+
+    @Around("execution(public * com.generic.customer.CustomerService.*(..))")
+    public Object aroundService(final ProceedingJoinPoint joinPoint) throws Throwable {
+        return record(joinPoint, SERVICE_TIMER);
+    }
+
+    private Object record(final ProceedingJoinPoint joinPoint, final String timerName) throws Throwable {
+        final MeterKey key = new MeterKey(
+                joinPoint.getTarget().getClass(),
+                ((MethodSignature) joinPoint.getSignature()).getMethod()
+        );
+        final Meters methodMeters = meters.computeIfAbsent(key, k -> new Meters(timerName, k));
+        final long start = System.nanoTime();
+        try {
+            final Object result = joinPoint.proceed();
+            methodMeters.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            methodMeters.recordRows(result);
+            return result;
+        } catch (Throwable e) {
+            methodMeters.failure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            methodMeters.errors.computeIfAbsent(e.getClass(), methodMeters::errorCounter).increment();
+            throw e;
+        }
+    }
+
+    // the signature method is declared on the interface, the target class tells the cache and the database apart
+    private record MeterKey(Class<?> targetClass, Method method) {
+    }
+
+    private final class Meters {
+
+        private final String layer;
+        private final String className;
+        private final String methodName;
+        private final Timer success;
+        private final Timer failure;
+        private final DistributionSummary rows;
+        private final Map<Class<?>, Counter> errors = new ConcurrentHashMap<>();
+
+        private Meters(final String timerName, final MeterKey key) {
+            this.layer = timerName.equals(DAO_TIMER) ? "dao" : "service";
+            this.className = key.targetClass().getSimpleName();
+            this.methodName = key.method().getName();
+            this.success = timer(timerName, "success");
+            this.failure = timer(timerName, "error");
+            this.rows = timerName.equals(DAO_TIMER) && returnsRows(key.method())
+                    ? DistributionSummary.builder(DAO_ROWS)
+                    .description("Customers returned per DAO call")
+                    .tags("class", className, "method", methodName)
+                    .publishPercentileHistogram()
+                    .maximumExpectedValue(100_000.0)
+                    .register(meterRegistry)
+                    : null;
+        }
+
+        private Timer timer(final String name, final String outcome) {
+            return Timer.builder(name)
+                    .tags("class", className, "method", methodName, "outcome", outcome)
+                    .publishPercentileHistogram()
+                    // cache hits are well below the default 1 ms lowest bucket
+                    .minimumExpectedValue(Duration.ofNanos(100_000))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(meterRegistry);
+        }
+
+        private Counter errorCounter(final Class<?> exceptionType) {
+            return Counter.builder(ERRORS)
+                    .description("Exceptions thrown by customer DAO and service calls")
+                    .tags("layer", layer, "class", className, "method", methodName,
+                            "exception", exceptionType.getSimpleName())
+                    .register(meterRegistry);
+        }
+
+        private void recordRows(final Object result) {
+            if (rows == null) {
+                return;
+            }
+            if (result instanceof Collection<?> collection) {
+                rows.record(collection.size());
+            } else if (result instanceof Optional<?> optional) {
+                rows.record(optional.isPresent() ? 1 : 0);
+            }
+        }
+
+        private static boolean returnsRows(final Method method) {
+            return Collection.class.isAssignableFrom(method.getReturnType())
+                    || Optional.class.equals(method.getReturnType());
+        }
+    }
+}
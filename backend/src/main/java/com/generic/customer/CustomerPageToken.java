@@ -0,0 +1,36 @@
+package com.generic.customer;
+
+import com.generic.exception.RequestValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor: clients get it from a {@link CustomerPage} and pass it back untouched,
+ * internally it is just the last seen customer id.
+ */
+final class CustomerPageToken {
+
+    private static final String PREFIX = "id:";
+
+    private CustomerPageToken() {
+    }
+
+    static String encode(final long lastId) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static long decode(final String token) {
+        try {
+            final String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new IllegalArgumentException(decoded);
+            }
+            return Long.parseLong(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new RequestValidationException("Passed page token [%s] is invalid".formatted(token));
+        }
+    }
+}
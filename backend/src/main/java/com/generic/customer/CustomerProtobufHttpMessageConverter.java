@@ -0,0 +1,288 @@
+package com.generic.customer;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes customer responses as {@code application/x-protobuf}, the schema is {@code proto/customer.proto}.
+ * <p>
+ * Messages are encoded straight from the records with {@link CodedOutputStream}, there are no protoc-generated
+ * classes to copy every row into. A protobuf body has to be a single message, so top-level lists go out as
+ * {@code CustomerList} or {@code CustomerBatchItemResultList}. Write only, request bodies stay JSON.
+ */
+public class CustomerProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+    private static final Set<Class<?>> MESSAGES = Set.of(Customer.class, CustomerPage.class, CustomerImportReport.class);
+    private static final Set<Class<?>> LIST_ITEMS = Set.of(Customer.class, CustomerBatchItemResult.class);
+
+    public CustomerProtobufHttpMessageConverter() {
+        super(PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(final Class<?> clazz) {
+        return MESSAGES.contains(clazz);
+    }
+
+    @Override
+    public boolean canRead(final Class<?> clazz, @Nullable final MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(final Type type, @Nullable final Class<?> contextClass, @Nullable final MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(@Nullable final Type type, final Class<?> clazz, @Nullable final MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        final ResolvableType resolved = type != null ? ResolvableType.forType(type) : ResolvableType.forClass(clazz);
+        if (List.class.isAssignableFrom(resolved.toClass())) {
+            final Class<?> itemClass = resolved.asCollection().resolveGeneric(0);
+            return itemClass != null && LIST_ITEMS.contains(itemClass);
+        }
+        return MESSAGES.contains(resolved.toClass());
+    }
+
+    /**
+     * Media types are looked up by the raw class of the body, list bodies are only checked by {@link #canWrite(Type, Class, MediaType)}.
+     */
+    @Override
+    public List<MediaType> getSupportedMediaTypes(final Class<?> clazz) {
+        return supports(clazz) || List.class.isAssignableFrom(clazz) ? getSupportedMediaTypes() : List.of();
+    }
+
+    @Override
+    protected void writeInternal(
+            final Object body,
+            @Nullable final Type type,
+            final HttpOutputMessage outputMessage
+    ) throws IOException, HttpMessageNotWritableException {
+        final int size = sizeOf(body);
+        outputMessage.getHeaders().setContentLength(size);
+        final CodedOutputStream out = CodedOutputStream.newInstance(
+                outputMessage.getBody(),
+                Math.max(1, Math.min(size, CodedOutputStream.DEFAULT_BUFFER_SIZE))
+        );
+        write(out, body);
+        out.flush();
+    }
+
+    @Override
+    public Object read(
+            final Type type,
+            @Nullable final Class<?> contextClass,
+            final HttpInputMessage inputMessage
+    ) throws HttpMessageNotReadableException {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(
+            final Class<?> clazz,
+            final HttpInputMessage inputMessage
+    ) throws HttpMessageNotReadableException {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    static int sizeOf(final Object body) {
+        return switch (body) {
+            case Customer customer -> customerSize(customer);
+            case CustomerPage page -> pageSize(page);
+            case CustomerImportReport report -> importReportSize(report);
+            case List<?> items -> {
+                int size = 0;
+                for (final Object item : items) {
+                    size += embeddedSize(1, itemSize(item));
+                }
+                yield size;
+            }
+            default -> throw new HttpMessageNotWritableException(
+                    "Type [%s] has no protobuf message".formatted(body.getClass().getName())
+            );
+        };
+    }
+
+    static void write(final CodedOutputStream out, final Object body) throws IOException {
+        switch (body) {
+            case Customer customer -> writeCustomer(out, customer);
+            case CustomerPage page -> writePage(out, page);
+            case CustomerImportReport report -> writeImportReport(out, report);
+            case List<?> items -> {
+                for (final Object item : items) {
+                    out.writeTag(1, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                    out.writeUInt32NoTag(itemSize(item));
+                    switch (item) {
+                        case Customer customer -> writeCustomer(out, customer);
+                        case CustomerBatchItemResult result -> writeBatchItemResult(out, result);
+                        default -> throw unsupportedItem(item);
+                    }
+                }
+            }
+            default -> throw new HttpMessageNotWritableException(
+                    "Type [%s] has no protobuf message".formatted(body.getClass().getName())
+            );
+        }
+    }
+
+    private static int itemSize(final Object item) {
+        return switch (item) {
+            case Customer customer -> customerSize(customer);
+            case CustomerBatchItemResult result -> batchItemResultSize(result);
+            default -> throw unsupportedItem(item);
+        };
+    }
+
+    private static int customerSize(final Customer customer) {
+        int size = 0;
+        if (customer.id() != null) {
+            size += CodedOutputStream.computeInt64Size(1, customer.id());
+        }
+        if (customer.name() != null) {
+            size += CodedOutputStream.computeStringSize(2, customer.name());
+        }
+        if (customer.age() != null) {
+            size += CodedOutputStream.computeInt32Size(3, customer.age());
+        }
+        if (customer.email() != null) {
+            size += CodedOutputStream.computeStringSize(4, customer.email());
+        }
+        return size;
+    }
+
+    private static void writeCustomer(final CodedOutputStream out, final Customer customer) throws IOException {
+        if (customer.id() != null) {
+            out.writeInt64(1, customer.id());
+        }
+        if (customer.name() != null) {
+            out.writeString(2, customer.name());
+        }
+        if (customer.age() != null) {
+            out.writeInt32(3, customer.age());
+        }
+        if (customer.email() != null) {
+            out.writeString(4, customer.email());
+        }
+    }
+
+    private static int pageSize(final CustomerPage page) {
+        int size = 0;
+        for (final Customer customer : page.customers()) {
+            size += embeddedSize(1, customerSize(customer));
+        }
+        if (page.nextPageToken() != null) {
+            size += CodedOutputStream.computeStringSize(2, page.nextPageToken());
+        }
+        return size;
+    }
+
+    private static void writePage(final CodedOutputStream out, final CustomerPage page) throws IOException {
+        for (final Customer customer : page.customers()) {
+            out.writeTag(1, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            out.writeUInt32NoTag(customerSize(customer));
+            writeCustomer(out, customer);
+        }
+        if (page.nextPageToken() != null) {
+            out.writeString(2, page.nextPageToken());
+        }
+    }
+
+    private static int batchItemResultSize(final CustomerBatchItemResult result) {
+        int size = CodedOutputStream.computeEnumSize(2, statusNumber(result.status()));
+        if (result.id() != null) {
+            size += CodedOutputStream.computeInt64Size(1, result.id());
+        }
+        return size;
+    }
+
+    private static void writeBatchItemResult(
+            final CodedOutputStream out,
+            final CustomerBatchItemResult result
+    ) throws IOException {
+        if (result.id() != null) {
+            out.writeInt64(1, result.id());
+        }
+        out.writeEnum(2, statusNumber(result.status()));
+    }
+
+    private static int importReportSize(final CustomerImportReport report) {
+        int size = CodedOutputStream.computeInt64Size(1, report.received())
+                + CodedOutputStream.computeInt64Size(2, report.inserted())
+                + CodedOutputStream.computeInt64Size(3, report.updated())
+                + CodedOutputStream.computeInt64Size(4, report.rejected());
+        for (final CustomerImportReject reject : report.rejects()) {
+            size += embeddedSize(5, importRejectSize(reject));
+        }
+        return size;
+    }
+
+    private static void writeImportReport(final CodedOutputStream out, final CustomerImportReport report) throws IOException {
+        out.writeInt64(1, report.received());
+        out.writeInt64(2, report.inserted());
+        out.writeInt64(3, report.updated());
+        out.writeInt64(4, report.rejected());
+        for (final CustomerImportReject reject : report.rejects()) {
+            out.writeTag(5, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            out.writeUInt32NoTag(importRejectSize(reject));
+            out.writeInt64(1, reject.line());
+            if (reject.email() != null) {
+                out.writeString(2, reject.email());
+            }
+            if (reject.reason() != null) {
+                out.writeString(3, reject.reason());
+            }
+        }
+    }
+
+    private static int importRejectSize(final CustomerImportReject reject) {
+        int size = CodedOutputStream.computeInt64Size(1, reject.line());
+        if (reject.email() != null) {
+            size += CodedOutputStream.computeStringSize(2, reject.email());
+        }
+        if (reject.reason() != null) {
+            size += CodedOutputStream.computeStringSize(3, reject.reason());
+        }
+        return size;
+    }
+
+    /**
+     * Numbers of the {@code CustomerBatchStatus} proto enum, 0 is reserved for "unspecified".
+     */
+    private static int statusNumber(final CustomerBatchStatus status) {
+        return switch (status) {
+            case CREATED -> 1;
+            case UPDATED -> 2;
+            case DELETED -> 3;
+            case NOT_FOUND -> 4;
+            case DUPLICATE_EMAIL -> 5;
+        };
+    }
+
+    private static int embeddedSize(final int fieldNumber, final int size) {
+        return CodedOutputStream.computeTagSize(fieldNumber) + CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+    }
+
+    private static HttpMessageNotWritableException unsupportedItem(final Object item) {
+        return new HttpMessageNotWritableException(
+                "List item type [%s] has no protobuf message".formatted(item.getClass().getName())
+        );
+    }
+}
@@ -0,0 +1,186 @@
+package com.generic.customer;
+
+import com.generic.exception.DuplicateResourceException;
+import io.r2dbc.spi.Readable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Non-blocking counterpart of {@link CustomerJDBCRepository}, same statements over R2DBC.
+ */
+@Repository
+@Profile("reactive")
+public class CustomerR2DBCRepository implements ReactiveCustomerDAO {
+
+    private static final String SQL_SELECT_BY_ID = "SELECT id, name, age, email FROM customer WHERE id = :id";
+    private static final String SQL_SELECT_ALL_ORDERED = "SELECT id, name, age, email FROM customer ORDER BY id";
+    private static final String SQL_SELECT_PAGE = "SELECT id, name, age, email FROM customer WHERE id > :afterId ORDER BY id LIMIT :limit";
+    private static final String SQL_SELECT_COUNT_BY_ID = "SELECT COUNT(id) FROM customer WHERE id = :id";
+    private static final String SQL_SELECT_COUNT_BY_EMAIL = "SELECT COUNT(id) FROM customer WHERE email = :email";
+    /*
+     * Writes add their change events to customer_outbox in the same statement, exactly like CustomerJDBCRepository:
+     * reactive and blocking nodes share the database and the change feed.
+     */
+    private static final String SQL_INSERT = """
+            WITH inserted AS (
+                INSERT INTO customer(name, age, email) VALUES (:name, :age, :email)
+                RETURNING id, name, age, email
+            )
+            INSERT INTO customer_outbox(customer_id, type, name, age, email)
+            SELECT id, 'CREATED', name, age, email FROM inserted
+            """;
+    private static final String SQL_DELETE_BY_ID = """
+            WITH deleted AS (DELETE FROM customer WHERE id = :id RETURNING id)
+            INSERT INTO customer_outbox(customer_id, type)
+            SELECT id, 'DELETED' FROM deleted
+            """;
+    private static final String SQL_UPDATE_CHANGED_BY_ID = """
+            WITH target AS (SELECT id FROM customer WHERE id = :id),
+                 updated AS (UPDATE customer SET %s WHERE id = :id AND (%s) RETURNING id, name, age, email),
+                 changes AS (
+                     INSERT INTO customer_outbox(customer_id, type, name, age, email)
+                     SELECT id, 'UPDATED', name, age, email FROM updated
+                 )
+            SELECT EXISTS (SELECT 1 FROM target) AS found, EXISTS (SELECT 1 FROM updated) AS changed
+            """;
+    private static final String EMAIL_UNIQUE_CONSTRAINT = "customer_email_unique";
+
+    /**
+     * Rows requested from the server per portal fetch while streaming, demand from the subscriber
+     * drives the following fetches.
+     */
+    static final int STREAM_FETCH_SIZE = 1_000;
+
+    private final DatabaseClient databaseClient;
+
+    public CustomerR2DBCRepository(final DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public Mono<Customer> findById(final long id) {
+        return databaseClient.sql(SQL_SELECT_BY_ID)
+                .bind("id", id)
+                .map(CustomerR2DBCRepository::mapRow)
+                .one();
+    }
+
+    @Override
+    public Flux<Customer> findAll() {
+        return databaseClient.sql(SQL_SELECT_ALL_ORDERED)
+                .filter(statement -> statement.fetchSize(STREAM_FETCH_SIZE))
+                .map(CustomerR2DBCRepository::mapRow)
+                .all();
+    }
+
+    @Override
+    public Flux<Customer> findPage(final long afterId, final int limit) {
+        return databaseClient.sql(SQL_SELECT_PAGE)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(CustomerR2DBCRepository::mapRow)
+                .all();
+    }
+
+    @Override
+    public Mono<Boolean> existsByEmail(final String email) {
+        return databaseClient.sql(SQL_SELECT_COUNT_BY_EMAIL)
+                .bind("email", email)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .map(count -> count > 0);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(final long id) {
+        return databaseClient.sql(SQL_SELECT_COUNT_BY_ID)
+                .bind("id", id)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .map(count -> count > 0);
+    }
+
+    @Override
+    public Mono<Void> save(final Customer customer) {
+        return databaseClient.sql(SQL_INSERT)
+                .bind("name", customer.name())
+                .bind("age", customer.age())
+                .bind("email", customer.email())
+                .then();
+    }
+
+    @Override
+    public Mono<Void> deleteById(final long id) {
+        return databaseClient.sql(SQL_DELETE_BY_ID)
+                .bind("id", id)
+                .then();
+    }
+
+    @Override
+    public Mono<CustomerUpdateResult> update(final Customer customer) {
+        final StringJoiner assignments = new StringJoiner(", ");
+        final StringJoiner changes = new StringJoiner(" OR ");
+        if (Objects.nonNull(customer.name())) {
+            assignments.add("name = :name");
+            changes.add("name IS DISTINCT FROM :name");
+        }
+        if (Objects.nonNull(customer.age())) {
+            assignments.add("age = :age");
+            changes.add("age IS DISTINCT FROM :age");
+        }
+        if (Objects.nonNull(customer.email())) {
+            assignments.add("email = :email");
+            changes.add("email IS DISTINCT FROM :email");
+        }
+
+        if (assignments.length() == 0) {
+            return existsById(customer.id())
+                    .map(exists -> exists ? CustomerUpdateResult.UNCHANGED : CustomerUpdateResult.NOT_FOUND);
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient
+                .sql(SQL_UPDATE_CHANGED_BY_ID.formatted(assignments, changes))
+                .bind("id", customer.id());
+        if (Objects.nonNull(customer.name())) {
+            spec = spec.bind("name", customer.name());
+        }
+        if (Objects.nonNull(customer.age())) {
+            spec = spec.bind("age", customer.age());
+        }
+        if (Objects.nonNull(customer.email())) {
+            spec = spec.bind("email", customer.email());
+        }
+        return spec
+                .map(row -> {
+                    if (!Boolean.TRUE.equals(row.get("found", Boolean.class))) {
+                        return CustomerUpdateResult.NOT_FOUND;
+                    }
+                    return Boolean.TRUE.equals(row.get("changed", Boolean.class))
+                            ? CustomerUpdateResult.UPDATED
+                            : CustomerUpdateResult.UNCHANGED;
+                })
+                .one()
+                .onErrorMap(
+                        e -> e instanceof DuplicateKeyException
+                                && Objects.nonNull(e.getMessage())
+                                && e.getMessage().contains(EMAIL_UNIQUE_CONSTRAINT),
+                        e -> new DuplicateResourceException("Email already taken")
+                );
+    }
+
+    private static Customer mapRow(final Readable row) {
+        return new Customer(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("age", Integer.class),
+                row.get("email", String.class)
+        );
+    }
+}
@@ -1,11 +1,23 @@
 package com.generic.customer;
 
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
 
+/**
+ * {@link #mapRow} looks every column up by label, which is fine for single rows. Scans should use
+ * {@link #listExtractor()} or {@link #rowCallback(Consumer)}: they resolve column positions once per result set
+ * and then read by index.
+ */
 @Component
 public class CustomerRowMapper implements RowMapper<Customer> {
     @Override
@@ -17,4 +29,77 @@ public class CustomerRowMapper implements RowMapper<Customer> {
                 rs.getString("email")
         );
     }
+
+    public ResultSetExtractor<List<Customer>> listExtractor() {
+        return rs -> {
+            final List<Customer> customers = new ArrayList<>();
+            if (rs.next()) {
+                final CustomerColumns columns = CustomerColumns.resolve(rs.getMetaData());
+                do {
+                    customers.add(columns.map(rs));
+                } while (rs.next());
+            }
+            return customers;
+        };
+    }
+
+    /**
+     * The returned handler keeps the positions resolved on its first row, so create one per query.
+     */
+    public RowCallbackHandler rowCallback(final Consumer<Customer> consumer) {
+        return new RowCallbackHandler() {
+            private CustomerColumns columns;
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                if (columns == null) {
+                    columns = CustomerColumns.resolve(rs.getMetaData());
+                }
+                consumer.accept(columns.map(rs));
+            }
+        };
+    }
+
+    /**
+     * 1-based positions of the customer columns, {@link #ABSENT} for columns the query did not select:
+     * those fields stay null, so any projection subset can be mapped.
+     */
+    record CustomerColumns(int id, int name, int age, int email) {
+
+        static final int ABSENT = 0;
+
+        static CustomerColumns resolve(final ResultSetMetaData metaData) throws SQLException {
+            int id = ABSENT, name = ABSENT, age = ABSENT, email = ABSENT;
+            // first match wins for repeated labels, as with ResultSet#findColumn
+            for (int column = metaData.getColumnCount(); column > 0; column--) {
+                switch (metaData.getColumnLabel(column).toLowerCase(Locale.ROOT)) {
+                    case "id" -> id = column;
+                    case "name" -> name = column;
+                    case "age" -> age = column;
+                    case "email" -> email = column;
+                    default -> {
+                    }
+                }
+            }
+            return new CustomerColumns(id, name, age, email);
+        }
+
+        Customer map(final ResultSet rs) throws SQLException {
+            return new Customer(
+                    id == ABSENT ? null : rs.getLong(id),
+                    name == ABSENT ? null : rs.getString(name),
+                    age == ABSENT ? null : readAge(rs),
+                    email == ABSENT ? null : rs.getString(email)
+            );
+        }
+
+        /**
+         * Reads the primitive and boxes through {@link Integer#valueOf(int)}, which is cached for every realistic age,
+         * instead of allocating via {@code getObject}.
+         */
+        private Integer readAge(final ResultSet rs) throws SQLException {
+            final int value = rs.getInt(age);
+            return rs.wasNull() ? null : value;
+        }
+    }
 }
@@ -0,0 +1,24 @@
+package com.generic.customer;
+
+/**
+ * Validated search passed to {@link CustomerDAO#search(CustomerSearchQuery)}, null filters are not applied.
+ *
+ * @param after keyset position to continue from, null for the first page
+ */
+public record CustomerSearchQuery(
+        String name,
+        String emailDomain,
+        Integer minAge,
+        Integer maxAge,
+        CustomerSortField sortField,
+        SortDirection direction,
+        After after,
+        int limit
+) {
+
+    /**
+     * Sort value and id of the last customer of the previous page.
+     */
+    public record After(Object sortValue, long id) {
+    }
+}
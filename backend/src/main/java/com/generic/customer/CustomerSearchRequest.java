@@ -0,0 +1,21 @@
+package com.generic.customer;
+
+/**
+ * Query parameters of {@code GET /api/v1/customers/search}, every one of them optional.
+ *
+ * @param name        case-insensitive substring of the name
+ * @param emailDomain part after the {@code @}, case-insensitive
+ * @param sort        {@code id}, {@code name}, {@code age} or {@code email}
+ * @param direction   {@code asc} or {@code desc}
+ */
+public record CustomerSearchRequest(
+        String name,
+        String emailDomain,
+        Integer minAge,
+        Integer maxAge,
+        String sort,
+        String direction,
+        String pageToken,
+        Integer size
+) {
+}
@@ -0,0 +1,56 @@
+package com.generic.customer;
+
+import com.generic.exception.RequestValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor of the customer search, the {@link CustomerPageToken} counterpart for sorted results.
+ * Carries the ordering it was issued for, so a token is rejected when the client changes the sort between pages.
+ */
+final class CustomerSearchToken {
+
+    private static final String PREFIX = "search:";
+    private static final String SEPARATOR = ":";
+
+    private CustomerSearchToken() {
+    }
+
+    static String encode(final CustomerSortField sortField, final SortDirection direction, final Customer last) {
+        // the sort value goes last since names and emails may contain the separator
+        final String payload = PREFIX + sortField + SEPARATOR + direction + SEPARATOR + last.id()
+                + SEPARATOR + sortField.valueOf(last);
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static CustomerSearchQuery.After decode(
+            final String token,
+            final CustomerSortField sortField,
+            final SortDirection direction
+    ) {
+        try {
+            final String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new IllegalArgumentException(decoded);
+            }
+            final String[] parts = decoded.substring(PREFIX.length()).split(SEPARATOR, 4);
+            if (parts.length != 4
+                    || CustomerSortField.valueOf(parts[0]) != sortField
+                    || SortDirection.valueOf(parts[1]) != direction) {
+                throw new IllegalArgumentException(decoded);
+            }
+            final long id = Long.parseLong(parts[2]);
+            final Object sortValue = switch (sortField) {
+                case ID -> id;
+                case AGE -> Integer.valueOf(parts[3]);
+                case NAME, EMAIL -> parts[3];
+            };
+            return new CustomerSearchQuery.After(sortValue, id);
+        } catch (IllegalArgumentException e) {
+            throw new RequestValidationException("Passed page token [%s] is invalid".formatted(token));
+        }
+    }
+}
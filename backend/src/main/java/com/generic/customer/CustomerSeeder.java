@@ -0,0 +1,303 @@
+package com.generic.customer;
+
+import com.github.javafaker.Faker;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fills {@code customer} with synthetic rows for load tests and capacity planning, run with the {@code seed} profile.
+ * <p>
+ * Rows are generated in fixed chunks of {@value #CHUNK_ROWS}; each chunk reseeds its worker's {@link Faker} from
+ * {@code customer.seed.seed} and the chunk number, so one seed always yields the same rows whatever the number of
+ * workers. Emails are {@code first.last.<row number>@<Faker domain>}, unique without asking the database, so the table
+ * must start empty: without {@code customer.seed.truncate} a non-empty {@code customer} is refused before anything
+ * is dropped or written. Each worker streams its chunks over its own connection with COPY, one chunk per transaction.
+ * <p>
+ * COPY goes straight into {@code customer}: no change events are written to {@code customer_outbox}. Indexes that
+ * do not back a constraint are dropped before the load and rebuilt afterwards, one per worker, which is several times
+ * faster than maintaining the trigram indexes row by row.
+ */
+@Component
+@Profile("seed")
+public class CustomerSeeder implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerSeeder.class);
+
+    static final int CHUNK_ROWS = 50_000;
+    private static final int COPY_CHUNK_SIZE = 64 * 1024;
+
+    private static final String SQL_COPY = "COPY customer(name, age, email) FROM STDIN WITH (FORMAT csv)";
+    private static final String SQL_HAS_ROWS = "SELECT EXISTS (SELECT 1 FROM customer)";
+    private static final String SQL_TRUNCATE = "TRUNCATE customer, customer_tombstone, customer_outbox, customer_change";
+    private static final String SQL_SECONDARY_INDEXES = """
+            SELECT i.indexrelid::regclass::text AS name, pg_get_indexdef(i.indexrelid) AS definition
+            FROM pg_index i
+            WHERE i.indrelid = 'customer'::regclass
+              AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = i.indexrelid)
+            """;
+    private static final String SQL_ANALYZE = "ANALYZE customer";
+
+    private final DataSource dataSource;
+    private final long rows;
+    private final int workers;
+    private final long seed;
+    private final boolean truncate;
+    private final boolean rebuildIndexes;
+    private final Duration progressInterval;
+
+    @Autowired
+    public CustomerSeeder(
+            final DataSource dataSource,
+            @Value("${customer.seed.rows:1000000}") final long rows,
+            @Value("${customer.seed.workers:0}") final int workers,
+            @Value("${customer.seed.seed:42}") final long seed,
+            @Value("${customer.seed.truncate:false}") final boolean truncate,
+            @Value("${customer.seed.rebuild-indexes:true}") final boolean rebuildIndexes,
+            @Value("${customer.seed.progress-interval:5s}") final Duration progressInterval,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") final int poolSize
+    ) {
+        this.dataSource = dataSource;
+        this.rows = rows;
+        // every worker holds a connection for the whole load
+        this.workers = Math.min(workers > 0 ? workers : Runtime.getRuntime().availableProcessors(), poolSize);
+        this.seed = seed;
+        this.truncate = truncate;
+        this.rebuildIndexes = rebuildIndexes;
+        this.progressInterval = progressInterval;
+    }
+
+    @Override
+    public void run(final ApplicationArguments args) throws Exception {
+        seed();
+    }
+
+    /**
+     * @return rows written
+     * @throws IllegalStateException when {@code customer} has rows and {@code truncate} is off, before anything is
+     *                               dropped or written
+     */
+    long seed() throws SQLException, InterruptedException {
+        final long started = System.nanoTime();
+        // name -> definition; the name comes from regclass, already quoted and schema-qualified where needed
+        final Map<String, String> indexes = new LinkedHashMap<>();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            if (truncate) {
+                statement.execute(SQL_TRUNCATE);
+            } else {
+                // generated emails only differ by row number from 0, so existing rows would collide mid-load
+                try (ResultSet rs = statement.executeQuery(SQL_HAS_ROWS)) {
+                    rs.next();
+                    if (rs.getBoolean(1)) {
+                        throw new IllegalStateException(
+                                "customer already has rows; seed with customer.seed.truncate=true to replace them");
+                    }
+                }
+            }
+            if (rebuildIndexes) {
+                try (ResultSet rs = statement.executeQuery(SQL_SECONDARY_INDEXES)) {
+                    while (rs.next()) {
+                        indexes.put(rs.getString("name"), rs.getString("definition"));
+                        log.info("Dropping index {} for the load", rs.getString("name"));
+                    }
+                }
+                for (final String name : indexes.keySet()) {
+                    statement.execute("DROP INDEX " + name);
+                }
+            }
+        }
+
+        final AtomicLong written = new AtomicLong();
+        final ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("customer-seed-progress")
+                .daemon()
+                .factory());
+        final long[] last = {0, started};
+        progress.scheduleAtFixedRate(() -> {
+            final long now = System.nanoTime();
+            final long done = written.get();
+            log.info("Seeded {}/{} customers, {} rows/s", done, rows, rate(done - last[0], now - last[1]));
+            last[0] = done;
+            last[1] = now;
+        }, progressInterval.toMillis(), progressInterval.toMillis(), TimeUnit.MILLISECONDS);
+
+        final ExecutorService pool = Executors.newFixedThreadPool(workers, Thread.ofPlatform()
+                .name("customer-seed-", 0)
+                .factory());
+        try {
+            final long chunks = (rows + CHUNK_ROWS - 1) / CHUNK_ROWS;
+            final AtomicLong nextChunk = new AtomicLong();
+            runAll(pool, () -> {
+                final Random random = new Random();
+                final Faker faker = new Faker(Locale.ENGLISH, random);
+                try (Connection connection = dataSource.getConnection()) {
+                    connection.setAutoCommit(true);
+                    for (long chunk = nextChunk.getAndIncrement(); chunk < chunks; chunk = nextChunk.getAndIncrement()) {
+                        final long first = chunk * CHUNK_ROWS;
+                        final int size = (int) Math.min(CHUNK_ROWS, rows - first);
+                        random.setSeed(seed * 31 + chunk);
+                        copy(connection, faker, random, first, size);
+                        written.addAndGet(size);
+                    }
+                }
+            });
+        } finally {
+            progress.shutdownNow();
+            if (!indexes.isEmpty()) {
+                final long rebuilding = System.nanoTime();
+                log.info("Rebuilding {} indexes", indexes.size());
+                runAll(pool, indexes.values().stream().<Task>map(definition -> () -> {
+                    try (Connection connection = dataSource.getConnection();
+                         Statement statement = connection.createStatement()) {
+                        statement.execute(definition);
+                    }
+                }).toList());
+                log.info("Rebuilt indexes in {} s", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - rebuilding));
+            }
+            pool.shutdownNow();
+        }
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(SQL_ANALYZE);
+        }
+
+        final long took = System.nanoTime() - started;
+        log.info("Seeded {} customers in {} s ({} rows/s) with seed {}",
+                written.get(), TimeUnit.NANOSECONDS.toSeconds(took), rate(written.get(), took), seed);
+        return written.get();
+    }
+
+    /**
+     * Generated rows {@code first .. first + size - 1}, the same for the same state of {@code random}.
+     */
+    static void generate(
+            final Faker faker,
+            final Random random,
+            final long first,
+            final int size,
+            final RowConsumer consumer
+    ) {
+        for (long row = first; row < first + size; row++) {
+            final String firstName = faker.name().firstName();
+            final String lastName = faker.name().lastName();
+            final String localPart = (firstName + "." + lastName).toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9.]", "");
+            consumer.accept(
+                    firstName + " " + lastName,
+                    18 + random.nextInt(72),
+                    localPart + "." + row + "@" + faker.internet().domainName()
+            );
+        }
+    }
+
+    @FunctionalInterface
+    interface RowConsumer {
+        void accept(String name, int age, String email);
+    }
+
+    private static void copy(
+            final Connection connection,
+            final Faker faker,
+            final Random random,
+            final long first,
+            final int size
+    ) throws SQLException {
+        final CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(SQL_COPY);
+        try {
+            final StringBuilder chunk = new StringBuilder(COPY_CHUNK_SIZE + 1024);
+            final SQLException[] failure = {null};
+            generate(faker, random, first, size, (name, age, email) -> {
+                CustomerBulkImporter.appendQuoted(chunk, name).append(',').append(age).append(',');
+                CustomerBulkImporter.appendQuoted(chunk, email).append('\n');
+                if (chunk.length() >= COPY_CHUNK_SIZE && failure[0] == null) {
+                    try {
+                        writeChunk(copyIn, chunk);
+                    } catch (SQLException e) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            writeChunk(copyIn, chunk);
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void writeChunk(final CopyIn copyIn, final StringBuilder chunk) throws SQLException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        final byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        chunk.setLength(0);
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    private void runAll(final ExecutorService pool, final Task task) throws SQLException, InterruptedException {
+        final List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            tasks.add(task);
+        }
+        runAll(pool, tasks);
+    }
+
+    private static void runAll(final ExecutorService pool, final List<Task> tasks) throws SQLException, InterruptedException {
+        final List<Future<?>> futures = tasks.stream()
+                .<Future<?>>map(task -> pool.submit(() -> {
+                    task.run();
+                    return null;
+                }))
+                .toList();
+        try {
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof SQLException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Customer seeding failed", e.getCause());
+        }
+    }
+
+    private static long rate(final long rows, final long nanos) {
+        return nanos == 0 ? 0 : rows * TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+}
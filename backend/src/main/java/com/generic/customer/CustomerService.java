@@ -1,21 +1,55 @@
 package com.generic.customer;
 
 import com.generic.exception.DuplicateResourceException;
+import com.generic.exception.NotImplementedException;
 import com.generic.exception.RequestValidationException;
 import com.generic.exception.ResourceNotFoundException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
+@Profile("!reactive")
 public class CustomerService {
 
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+    static final int MAX_BATCH_SIZE = 1_000;
+
     private final CustomerDAO customerDAO;
+    private final CustomerBulkImporter bulkImporter;
+    private final CustomerEmailFilter emailFilter;
+
+    @Autowired
+    public CustomerService(
+            final CustomerDAO customerDAO,
+            final ObjectProvider<CustomerBulkImporter> bulkImporter,
+            final CustomerEmailFilter emailFilter
+    ) {
+        // COPY is PostgreSQL only, the embedded store has no bulk import
+        this(customerDAO, bulkImporter.getIfAvailable(), emailFilter);
+    }
 
-    public CustomerService(final CustomerDAO customerDAO) {
+    CustomerService(
+            final CustomerDAO customerDAO,
+            final CustomerBulkImporter bulkImporter,
+            final CustomerEmailFilter emailFilter
+    ) {
         this.customerDAO = customerDAO;
+        this.bulkImporter = bulkImporter;
+        this.emailFilter = emailFilter;
     }
 
     public Customer findById(final long id) {
@@ -25,20 +59,178 @@ public class CustomerService {
                 ));
     }
 
+    /**
+     * Found customers in request order, unknown ids are left out. Repeated ids are looked up once.
+     */
+    public List<Customer> findAllById(final List<Long> ids) {
+        validateBatchSize(ids.size());
+        final List<Long> distinctIds = ids.stream().distinct().toList();
+        final Map<Long, Customer> found = customerDAO.findAllById(distinctIds).stream()
+                .collect(Collectors.toMap(Customer::id, Function.identity()));
+        return distinctIds.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     public List<Customer> findAll() {
         return customerDAO.findAll();
     }
 
+    public CustomerPage findPage(final String pageToken, final Integer size) {
+        final int limit = pageSize(size);
+        final long afterId = Objects.nonNull(pageToken) ? CustomerPageToken.decode(pageToken) : 0L;
+
+        // one extra row tells whether there is a next page without a COUNT query
+        final List<Customer> customers = customerDAO.findPage(afterId, limit + 1);
+        if (customers.size() <= limit) {
+            return new CustomerPage(customers, null);
+        }
+        final List<Customer> page = customers.subList(0, limit);
+        return new CustomerPage(
+                List.copyOf(page),
+                CustomerPageToken.encode(page.get(limit - 1).id())
+        );
+    }
+
+    public CustomerPage search(final CustomerSearchRequest request) {
+        final int limit = pageSize(request.size());
+        final CustomerSortField sortField = parseSortField(request.sort());
+        final SortDirection direction = parseDirection(request.direction());
+        if (Objects.nonNull(request.minAge()) && Objects.nonNull(request.maxAge())
+                && request.minAge() > request.maxAge()) {
+            throw new RequestValidationException("Min age must not be greater than max age");
+        }
+        final CustomerSearchQuery.After after = Objects.nonNull(request.pageToken())
+                ? CustomerSearchToken.decode(request.pageToken(), sortField, direction)
+                : null;
+
+        // one extra row tells whether there is a next page, same as in findPage
+        final List<Customer> customers = customerDAO.search(new CustomerSearchQuery(
+                blankToNull(request.name()),
+                blankToNull(request.emailDomain()),
+                request.minAge(),
+                request.maxAge(),
+                sortField,
+                direction,
+                after,
+                limit + 1
+        ));
+        if (customers.size() <= limit) {
+            return new CustomerPage(customers, null);
+        }
+        final List<Customer> page = customers.subList(0, limit);
+        return new CustomerPage(
+                List.copyOf(page),
+                CustomerSearchToken.encode(sortField, direction, page.get(limit - 1))
+        );
+    }
+
+    /**
+     * Delta for a client-side mirror: pass the watermark of the previous response, none on the first call.
+     * Pages are as large as the biggest regular page unless a smaller size is asked for.
+     */
+    public CustomerDeltaPage findChangedSince(final String watermarkToken, final Integer size) {
+        final int limit = pageSize(Objects.nonNull(size) ? size : MAX_PAGE_SIZE);
+        final CustomerWatermark watermark = Objects.nonNull(watermarkToken)
+                ? CustomerWatermarkToken.decode(watermarkToken)
+                : null;
+        final CustomerDelta delta = customerDAO.changedSince(watermark, limit);
+        return new CustomerDeltaPage(
+                delta.changed(),
+                delta.deletedIds(),
+                CustomerWatermarkToken.encode(delta.watermark()),
+                delta.hasMore()
+        );
+    }
+
+    /**
+     * Runs in a read-only transaction so that the driver can use a server-side cursor
+     * and the whole table is never held in memory.
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(final Consumer<Customer> consumer) {
+        customerDAO.streamAll(consumer);
+    }
+
     public void register(final CustomerRegistrationRequest customer) {
         if (existsByEmail(customer.email())) {
             throw new DuplicateResourceException("Passed email already taken");
         }
 
-        customerDAO.save(new Customer(
-                customer.name(),
-                customer.age(),
-                customer.email()
-        ));
+        // added before the insert, so a concurrent check never gets "absent" for a committed row
+        emailFilter.put(customer.email());
+        try {
+            customerDAO.save(new Customer(
+                    customer.name(),
+                    customer.age(),
+                    customer.email()
+            ));
+        } catch (DuplicateResourceException e) {
+            // registered meanwhile, or by another node the filter has not seen yet
+            throw new DuplicateResourceException("Passed email already taken");
+        }
+    }
+
+    @Transactional
+    public List<CustomerBatchItemResult> registerAll(final List<CustomerRegistrationRequest> customers) {
+        validateBatchSize(customers.size());
+        emailFilter.putAll(customers.stream().map(CustomerRegistrationRequest::email).toList());
+        return customerDAO.saveAll(customers.stream()
+                .map(customer -> new Customer(
+                        customer.name(),
+                        customer.age(),
+                        customer.email()
+                ))
+                .toList());
+    }
+
+    /**
+     * Runs in one transaction, a taken email rolls back the whole batch.
+     */
+    @Transactional
+    public List<CustomerBatchItemResult> updateAll(final List<CustomerBatchUpdateRequest> updateRequests) {
+        validateBatchSize(updateRequests.size());
+        if (updateRequests.stream().anyMatch(request -> Objects.isNull(request.id()))) {
+            throw new RequestValidationException("Every batch update item must have an id");
+        }
+        emailFilter.putAll(updateRequests.stream()
+                .map(CustomerBatchUpdateRequest::email)
+                .filter(Objects::nonNull)
+                .toList());
+        return customerDAO.updateAll(updateRequests.stream()
+                .map(request -> new Customer(
+                        request.id(),
+                        request.name(),
+                        request.age(),
+                        request.email()
+                ))
+                .toList());
+    }
+
+    public List<CustomerBatchItemResult> deleteAllById(final List<Long> ids) {
+        validateBatchSize(ids.size());
+        final List<CustomerBatchItemResult> results = customerDAO.deleteAllById(ids);
+        emailFilter.recordDeletes(results.stream()
+                .filter(result -> result.status() == CustomerBatchStatus.DELETED)
+                .count());
+        return results;
+    }
+
+    public CustomerImportReport importCustomers(
+            final InputStream inputStream,
+            final CustomerImportFormat format,
+            final CustomerImportConflictMode conflictMode
+    ) {
+        if (bulkImporter == null) {
+            throw new NotImplementedException("Bulk import is not available with the embedded store");
+        }
+        try {
+            return bulkImporter.importCustomers(inputStream, format, conflictMode);
+        } finally {
+            // COPY writes around the filter, even a failed import may have committed some rows
+            emailFilter.markStale();
+        }
     }
 
     public void deleteById(final Long id) {
@@ -47,54 +239,85 @@ public class CustomerService {
         }
 
         customerDAO.deleteById(id);
+        emailFilter.recordDeletes(1);
     }
 
+    /**
+     * Goes to the database only when {@link CustomerEmailFilter} cannot rule the email out.
+     */
     public boolean existsByEmail(final String email) {
-        return customerDAO.existsByEmail(email);
+        return emailFilter.exists(email, customerDAO::existsByEmail);
     }
 
     public boolean existsById(final Long id) {
         return customerDAO.existsById(id);
     }
 
+    /**
+     * Partial update in a single statement: only non-null request fields are written,
+     * missing rows and email collisions are detected by the write itself.
+     */
     public void update(final Long customerId, final CustomerUpdateRequest updateRequest) {
-        final Customer customer = findById(customerId);
-
-        boolean changes = false;
-
-        String newName = null;
-        String newEmail = null;
-        Integer newAge = null;
+        if (Objects.nonNull(updateRequest.email())) {
+            emailFilter.put(updateRequest.email());
+        }
+        final CustomerUpdateResult result = customerDAO.update(new Customer(
+                customerId,
+                updateRequest.name(),
+                updateRequest.age(),
+                updateRequest.email()
+        ));
 
-        if (updateRequest.name() != null && !updateRequest.name().equals(customer.name())) {
-            newName = updateRequest.name();
-            changes = true;
+        if (result == CustomerUpdateResult.NOT_FOUND) {
+            throw new ResourceNotFoundException(
+                    "Customer with passed id [%s] not found".formatted(customerId)
+            );
+        }
+        if (result == CustomerUpdateResult.UNCHANGED) {
+            throw new RequestValidationException("No data changes found");
         }
+    }
 
-        if (updateRequest.age() != null && !updateRequest.age().equals(customer.age())) {
-            newAge = updateRequest.age();
-            changes = true;
+    private static int pageSize(final Integer size) {
+        final int limit = Objects.nonNull(size) ? size : DEFAULT_PAGE_SIZE;
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new RequestValidationException(
+                    "Page size must be between 1 and %s".formatted(MAX_PAGE_SIZE)
+            );
         }
+        return limit;
+    }
 
-        if (updateRequest.email() != null && !updateRequest.email().equals(customer.email())) {
-            if (customerDAO.existsByEmail(updateRequest.email())) {
-                throw new DuplicateResourceException("Email already taken");
-            }
-            newEmail = updateRequest.email();
-            changes = true;
+    private static CustomerSortField parseSortField(final String sort) {
+        if (Objects.isNull(sort)) {
+            return CustomerSortField.ID;
+        }
+        try {
+            return CustomerSortField.valueOf(sort.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RequestValidationException("Unknown sort field [%s]".formatted(sort));
         }
+    }
 
-        if (!changes) {
-            throw new RequestValidationException("No data changes found");
+    private static SortDirection parseDirection(final String direction) {
+        if (Objects.isNull(direction)) {
+            return SortDirection.ASC;
         }
+        return SortDirection.fromString(direction)
+                .orElseThrow(() -> new RequestValidationException(
+                        "Unknown sort direction [%s]".formatted(direction)
+                ));
+    }
 
-        Customer updated = new Customer(
-                customer.id(),
-                Objects.nonNull(newName) ? newName : customer.name(),
-                Objects.nonNull(newAge) ? newAge : customer.age(),
-                Objects.nonNull(newEmail) ? newEmail : customer.email()
-        );
+    private static String blankToNull(final String value) {
+        return Objects.isNull(value) || value.isBlank() ? null : value.strip();
+    }
 
-        customerDAO.update(updated);
+    private static void validateBatchSize(final int size) {
+        if (size < 1 || size > MAX_BATCH_SIZE) {
+            throw new RequestValidationException(
+                    "Batch size must be between 1 and %s".formatted(MAX_BATCH_SIZE)
+            );
+        }
     }
 }
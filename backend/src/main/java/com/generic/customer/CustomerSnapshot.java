@@ -0,0 +1,143 @@
+package com.generic.customer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Point-in-time copy of the {@link EmbeddedCustomerDAO} state, so recovery replays only the log segments written
+ * after it instead of the whole history.
+ * <p>
+ * The file is {@code lastId, clock} followed by {@link CustomerLog.Entry entries} in the log encoding (one
+ * {@code PUT} per row, one {@code DELETE} per tombstone), a zero length and a CRC32C of everything before it.
+ * It is written to a temporary file, forced and renamed, so a crash leaves either the old or the new snapshot.
+ * The name carries the first log segment to replay on top of it.
+ */
+final class CustomerSnapshot {
+
+    private static final int MAGIC = 0x43534e50;
+    private static final int VERSION = 1;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    /**
+     * @param fromSegment first log segment that is not fully contained in the snapshot
+     */
+    record Header(long fromSegment, long lastId, long clock) {
+    }
+
+    private CustomerSnapshot() {
+    }
+
+    /**
+     * @param entries written in order, the stream is consumed while the file is being written
+     */
+    static void write(final Path directory, final Header header, final Stream<CustomerLog.Entry> entries) {
+        final Path target = directory.resolve(PREFIX + "%020d".formatted(header.fromSegment()) + SUFFIX);
+        final Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try {
+            final CRC32C crc = new CRC32C();
+            try (OutputStream file = Files.newOutputStream(temporary);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(header.lastId());
+                out.writeLong(header.clock());
+                entries.forEach(entry -> {
+                    final byte[] body = CustomerLog.encode(entry);
+                    try {
+                        out.writeInt(body.length);
+                        out.write(body);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                out.writeInt(0);
+                out.flush();
+                // the checksum itself is not part of the checksum
+                file.write(ByteBuffer.allocate(Long.BYTES).putLong(crc.getValue()).array());
+            }
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            for (final Path older : snapshots(directory)) {
+                if (!older.equals(target)) {
+                    Files.delete(older);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Feeds the entries of the latest snapshot to {@code consumer}.
+     *
+     * @return its header, empty if there is no snapshot yet
+     */
+    static Optional<Header> read(final Path directory, final Consumer<CustomerLog.Entry> consumer) {
+        try {
+            if (!Files.isDirectory(directory)) {
+                return Optional.empty();
+            }
+            final Optional<Path> latest = snapshots(directory).stream().max(Comparator.naturalOrder());
+            if (latest.isEmpty()) {
+                return Optional.empty();
+            }
+            final String name = latest.get().getFileName().toString();
+            final long fromSegment = Long.parseLong(name, PREFIX.length(), name.length() - SUFFIX.length(), 10);
+
+            final CRC32C crc = new CRC32C();
+            try (InputStream file = new BufferedInputStream(Files.newInputStream(latest.get()));
+                 DataInputStream in = new DataInputStream(new CheckedInputStream(file, crc))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IllegalStateException("Customer snapshot [%s] has an unknown format".formatted(latest.get()));
+                }
+                final Header header = new Header(fromSegment, in.readLong(), in.readLong());
+                // entries are handed out before the checksum is known, a mismatch fails the whole recovery
+                for (int length = in.readInt(); length > 0; length = in.readInt()) {
+                    final byte[] body = new byte[length];
+                    in.readFully(body);
+                    consumer.accept(CustomerLog.decode(ByteBuffer.wrap(body)));
+                }
+                final long expected = crc.getValue();
+                if (new DataInputStream(file).readLong() != expected) {
+                    throw new IllegalStateException("Customer snapshot [%s] is corrupt".formatted(latest.get()));
+                }
+                return Optional.of(header);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<Path> snapshots(final Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        final String name = path.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .toList();
+        }
+    }
+}
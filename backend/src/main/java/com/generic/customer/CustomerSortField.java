@@ -0,0 +1,30 @@
+package com.generic.customer;
+
+import java.util.function.Function;
+
+/**
+ * Orderings supported by the customer search. Every ordering other than {@link #ID} is tie-broken by id,
+ * so keyset pagination stays stable over duplicate values.
+ */
+public enum CustomerSortField {
+    ID("id", Customer::id),
+    NAME("name", Customer::name),
+    AGE("age", Customer::age),
+    EMAIL("email", Customer::email);
+
+    private final String column;
+    private final Function<Customer, Object> value;
+
+    CustomerSortField(final String column, final Function<Customer, Object> value) {
+        this.column = column;
+        this.value = value;
+    }
+
+    public String column() {
+        return column;
+    }
+
+    public Object valueOf(final Customer customer) {
+        return value.apply(customer);
+    }
+}
@@ -0,0 +1,7 @@
+package com.generic.customer;
+
+public enum CustomerUpdateResult {
+    UPDATED,
+    UNCHANGED,
+    NOT_FOUND
+}
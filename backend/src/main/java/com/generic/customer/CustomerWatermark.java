@@ -0,0 +1,17 @@
+package com.generic.customer;
+
+import java.time.Instant;
+
+/**
+ * Position of a mirror in the (timestamp, id) order of {@link CustomerDAO#changedSince(CustomerWatermark, int)}.
+ *
+ * @param changedAt   rows and tombstones stamped before it are already synced
+ * @param afterId     at exactly {@code changedAt}, ids up to this one are synced too
+ * @param deletedFrom tombstones stamped before the first sync started, the mirror never had those rows
+ */
+public record CustomerWatermark(
+        Instant changedAt,
+        long afterId,
+        Instant deletedFrom
+) {
+}
@@ -0,0 +1,57 @@
+package com.generic.customer;
+
+import com.generic.exception.RequestValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Opaque form of a {@link CustomerWatermark} handed out with a {@link CustomerDeltaPage}. Timestamps are kept
+ * in microseconds, the precision PostgreSQL stores them with.
+ */
+final class CustomerWatermarkToken {
+
+    private static final String PREFIX = "sync:";
+    private static final String SEPARATOR = ":";
+
+    private CustomerWatermarkToken() {
+    }
+
+    static String encode(final CustomerWatermark watermark) {
+        final String payload = PREFIX + micros(watermark.changedAt()) + SEPARATOR + watermark.afterId()
+                + SEPARATOR + micros(watermark.deletedFrom());
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static CustomerWatermark decode(final String token) {
+        try {
+            final String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new IllegalArgumentException(decoded);
+            }
+            final String[] parts = decoded.substring(PREFIX.length()).split(SEPARATOR);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException(decoded);
+            }
+            return new CustomerWatermark(
+                    instant(Long.parseLong(parts[0])),
+                    Long.parseLong(parts[1]),
+                    instant(Long.parseLong(parts[2]))
+            );
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            throw new RequestValidationException("Passed watermark [%s] is invalid".formatted(token));
+        }
+    }
+
+    private static long micros(final Instant instant) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+    }
+
+    private static Instant instant(final long micros) {
+        return Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+    }
+}
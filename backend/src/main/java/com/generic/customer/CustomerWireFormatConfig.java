@@ -0,0 +1,25 @@
+package com.generic.customer;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Compact response formats picked by the {@code Accept} header. CBOR and Smile converters are registered by Spring MVC
+ * itself once the Jackson dataformat modules are on the classpath, protobuf is {@link CustomerProtobufHttpMessageConverter}.
+ * <p>
+ * The protobuf converter is appended rather than exposed as a bean: Boot puts converter beans in front of the defaults,
+ * and for {@code Accept: *}{@code /*} the first converter able to write the value wins, so JSON stays the default.
+ */
+@Configuration
+@Profile("!reactive")
+public class CustomerWireFormatConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(final List<HttpMessageConverter<?>> converters) {
+        converters.add(new CustomerProtobufHttpMessageConverter());
+    }
+}
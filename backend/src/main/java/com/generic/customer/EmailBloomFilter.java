@@ -0,0 +1,177 @@
+package com.generic.customer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size, thread-safe Bloom filter over email strings. Sized for {@code expectedInsertions} at the target
+ * false-positive probability, it keeps answering past that point with a growing error rate, see {@link #expectedFpp()}.
+ * <p>
+ * Bit positions use double hashing ({@code h1 + i * h2}) over one 128-bit MurmurHash3 of the UTF-8 bytes.
+ */
+final class EmailBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashFunctions;
+    private final LongAdder setBits = new LongAdder();
+
+    private EmailBloomFilter(final long bitSize, final int hashFunctions) {
+        this.words = new AtomicLongArray(Math.toIntExact((bitSize + 63) / 64));
+        this.bitSize = bitSize;
+        this.hashFunctions = hashFunctions;
+    }
+
+    static EmailBloomFilter create(final long expectedInsertions, final double fpp) {
+        if (expectedInsertions < 1 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException(
+                    "Expected insertions must be positive and fpp within (0, 1), got %d and %s".formatted(expectedInsertions, fpp)
+            );
+        }
+        final long bitSize = Math.max(64, (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+        final int hashFunctions = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+        return new EmailBloomFilter(bitSize, hashFunctions);
+    }
+
+    void put(final String email) {
+        final long[] hash = murmur3(email.getBytes(StandardCharsets.UTF_8));
+        long combined = hash[0];
+        for (int i = 0; i < hashFunctions; i++) {
+            set(Long.remainderUnsigned(combined, bitSize));
+            combined += hash[1];
+        }
+    }
+
+    boolean mightContain(final String email) {
+        final long[] hash = murmur3(email.getBytes(StandardCharsets.UTF_8));
+        long combined = hash[0];
+        for (int i = 0; i < hashFunctions; i++) {
+            final long bit = Long.remainderUnsigned(combined, bitSize);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+            combined += hash[1];
+        }
+        return true;
+    }
+
+    long bitSize() {
+        return bitSize;
+    }
+
+    int hashFunctions() {
+        return hashFunctions;
+    }
+
+    /**
+     * Chance that an email never put answers "maybe", from the current fill ratio: {@code (setBits / bitSize) ^ k}.
+     */
+    double expectedFpp() {
+        return Math.pow((double) setBits.sum() / bitSize, hashFunctions);
+    }
+
+    /**
+     * Distinct emails put so far, estimated from the fill ratio (Swamidass &amp; Baldi).
+     */
+    long approximateElementCount() {
+        final double fill = (double) setBits.sum() / bitSize;
+        if (fill >= 1) {
+            return Long.MAX_VALUE;
+        }
+        return Math.round(-((double) bitSize / hashFunctions) * Math.log1p(-fill));
+    }
+
+    private void set(final long bit) {
+        final int index = (int) (bit >>> 6);
+        final long mask = 1L << bit;
+        long word;
+        do {
+            word = words.get(index);
+            if ((word & mask) != 0) {
+                return;
+            }
+        } while (!words.compareAndSet(index, word, word | mask));
+        setBits.increment();
+    }
+
+    /**
+     * MurmurHash3 x64 128-bit, seed 0.
+     */
+    private static long[] murmur3(final byte[] data) {
+        final long c1 = 0x87c37b91114253d5L;
+        final long c2 = 0x4cf5ad432745937fL;
+        long h1 = 0;
+        long h2 = 0;
+        final int blocks = data.length / 16;
+        for (int i = 0; i < blocks; i++) {
+            long k1 = littleEndianLong(data, i * 16);
+            long k2 = littleEndianLong(data, i * 16 + 8);
+            k1 *= c1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= c2;
+            h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+            k2 *= c2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= c1;
+            h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        long k1 = 0;
+        long k2 = 0;
+        final int tail = blocks * 16;
+        for (int i = data.length - tail - 1; i >= 0; i--) {
+            final long value = data[tail + i] & 0xffL;
+            if (i >= 8) {
+                k2 ^= value << ((i - 8) * 8);
+            } else {
+                k1 ^= value << (i * 8);
+            }
+        }
+        if (k2 != 0) {
+            k2 *= c2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= c1;
+            h2 ^= k2;
+        }
+        if (k1 != 0) {
+            k1 *= c1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= c2;
+            h1 ^= k1;
+        }
+
+        h1 ^= data.length;
+        h2 ^= data.length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+        return new long[]{h1, h2};
+    }
+
+    private static long littleEndianLong(final byte[] data, final int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (data[offset + i] & 0xffL);
+        }
+        return value;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,656 @@
+package com.generic.customer;
+
+import com.generic.exception.DuplicateResourceException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * {@link CustomerDAO} that keeps every customer in process memory and persists them to a local directory, for
+ * deployments without PostgreSQL (profile {@code embedded}) and as a baseline for {@link CustomerJDBCRepository}.
+ * <p>
+ * Rows sit in a primary index on id split into lock stripes, readers of different stripes never meet and writers only
+ * wait for writers of the same stripe. A concurrent map from email to id is the unique email index. Every write is
+ * appended to a {@link CustomerLog} under its stripe lock and returns once the log has been forced to disk; group commit
+ * lets concurrent writers share one fsync. Readers may see a write a moment before it is durable.
+ * <p>
+ * A {@link CustomerSnapshot} is written every {@code customer.embedded.snapshot-interval} and on shutdown, startup
+ * loads the latest one and replays the log written after it. There are no transactions: a batch failing halfway
+ * keeps the items written before the failure.
+ */
+@Repository
+@Profile("embedded")
+public class EmbeddedCustomerDAO implements CustomerDAO, SmartLifecycle, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedCustomerDAO.class);
+
+    private final Path directory;
+    private final Duration snapshotInterval;
+    private final CustomerLog journal;
+
+    private final Stripe[] stripes;
+    private final ConcurrentSkipListSet<Long> ids = new ConcurrentSkipListSet<>();
+    private final ConcurrentHashMap<String, Long> emails = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> tombstones = new ConcurrentHashMap<>();
+    /**
+     * (stamp, id) of every row and tombstone, the counterpart of the (updated_at, id) and (deleted_at, id) indexes.
+     */
+    private final ConcurrentSkipListSet<Change> changes = new ConcurrentSkipListSet<>();
+    private final AtomicLong lastId = new AtomicLong();
+    private final AtomicLong clock = new AtomicLong();
+    /**
+     * Stamps of writes not durable yet, guarded by itself.
+     */
+    private final TreeSet<Long> running = new TreeSet<>();
+    /**
+     * Held shared by every write from its append to its last index update, exclusively by a snapshot to cut the log.
+     */
+    private final ReentrantReadWriteLock checkpoint = new ReentrantReadWriteLock();
+
+    private final Timer snapshots;
+    private long snapshotPosition;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param stripes   lock stripes of the primary index, rounded up to a power of two
+     * @param fsync     {@code false} skips forcing the log: writes survive a crash of the process, not of the host
+     */
+    public EmbeddedCustomerDAO(
+            final MeterRegistry meterRegistry,
+            @Value("${customer.embedded.directory:data/customers}") final Path directory,
+            @Value("${customer.embedded.stripes:64}") final int stripes,
+            @Value("${customer.embedded.segment-size:64MB}") final DataSize segmentSize,
+            @Value("${customer.embedded.fsync:true}") final boolean fsync,
+            @Value("${customer.embedded.snapshot-interval:5m}") final Duration snapshotInterval
+    ) {
+        this.directory = directory;
+        this.snapshotInterval = snapshotInterval;
+        this.stripes = new Stripe[Integer.highestOneBit(Math.max(1, stripes - 1)) << 1];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        final DistributionSummary groupCommits = DistributionSummary.builder("customer.embedded.group.commit.entries")
+                .description("Log entries made durable by one fsync")
+                .register(meterRegistry);
+        this.snapshots = Timer.builder("customer.embedded.snapshot")
+                .description("Time to write a snapshot of the embedded store")
+                .register(meterRegistry);
+        this.journal = new CustomerLog(directory, Math.toIntExact(segmentSize.toBytes()), fsync, groupCommits::record);
+        recover();
+    }
+
+    @Override
+    public Optional<Customer> findById(final Long id) {
+        return Optional.ofNullable(row(id)).map(Row::customer);
+    }
+
+    /**
+     * Found customers in the order of {@code ids}, missing ids are left out.
+     */
+    @Override
+    public List<Customer> findAllById(final Collection<Long> ids) {
+        return ids.stream()
+                .map(this::row)
+                .filter(Objects::nonNull)
+                .map(Row::customer)
+                .toList();
+    }
+
+    @Override
+    public List<Customer> findAll() {
+        return rows(ids).map(Row::customer).toList();
+    }
+
+    @Override
+    public List<Customer> findPage(final long afterId, final int limit) {
+        return rows(ids.tailSet(afterId, false)).map(Row::customer).limit(limit).toList();
+    }
+
+    /**
+     * A scan over all rows. Name and email domain match case-insensitively like ILIKE, names and emails sort by
+     * their UTF-16 code units rather than by a database collation.
+     */
+    @Override
+    public List<Customer> search(final CustomerSearchQuery query) {
+        final Comparator<Customer> order = order(query.sortField(), query.direction().isDescending());
+        final String name = Objects.isNull(query.name()) ? null : query.name().toLowerCase(Locale.ROOT);
+        final String domain = Objects.isNull(query.emailDomain())
+                ? null
+                : "@" + query.emailDomain().toLowerCase(Locale.ROOT);
+        final Predicate<Customer> matches = customer ->
+                (name == null || customer.name().toLowerCase(Locale.ROOT).contains(name))
+                        && (domain == null || customer.email().toLowerCase(Locale.ROOT).endsWith(domain))
+                        && (query.minAge() == null || customer.age() >= query.minAge())
+                        && (query.maxAge() == null || customer.age() <= query.maxAge())
+                        && (query.after() == null || isAfter(customer, query));
+        return rows(ids)
+                .map(Row::customer)
+                .filter(matches)
+                .sorted(order)
+                .limit(query.limit())
+                .toList();
+    }
+
+    @Override
+    public void streamAll(final Consumer<Customer> consumer) {
+        rows(ids).map(Row::customer).forEach(consumer);
+    }
+
+    /**
+     * Same contract as {@link CustomerJDBCRepository#changedSince}: stamps are microseconds of a clock that never goes
+     * back, and the watermark stops below the oldest write that is not durable yet.
+     */
+    @Override
+    public CustomerDelta changedSince(final CustomerWatermark watermark, final int limit) {
+        final CustomerWatermark from = Objects.nonNull(watermark)
+                ? watermark
+                : new CustomerWatermark(Instant.EPOCH, 0, null);
+        final long safe = safeStamp();
+        final long since = micros(from.changedAt());
+        final long deletedFrom = Objects.nonNull(from.deletedFrom()) ? micros(from.deletedFrom()) : safe;
+
+        final List<Customer> changed = new ArrayList<>();
+        final List<Long> deletedIds = new ArrayList<>();
+        Change last = null;
+        for (final Change change : changes.tailSet(new Change(since, from.afterId()), false)) {
+            if (change.stamp() >= safe || changed.size() + deletedIds.size() == limit) {
+                break;
+            }
+            final Row row = row(change.id());
+            if (row != null && row.stamp() == change.stamp()) {
+                changed.add(row.customer());
+            } else if (change.stamp() >= deletedFrom && Objects.equals(tombstones.get(change.id()), change.stamp())) {
+                deletedIds.add(change.id());
+            } else {
+                // rewritten while iterating, the newer stamp comes up later
+                continue;
+            }
+            last = change;
+        }
+
+        final Instant deletedFromInstant = Objects.requireNonNullElse(from.deletedFrom(), instant(safe));
+        final boolean hasMore = changed.size() + deletedIds.size() == limit;
+        final CustomerWatermark next;
+        if (hasMore) {
+            next = new CustomerWatermark(instant(last.stamp()), last.id(), deletedFromInstant);
+        } else if (safe > since) {
+            next = new CustomerWatermark(instant(safe), 0, deletedFromInstant);
+        } else {
+            next = new CustomerWatermark(from.changedAt(), from.afterId(), deletedFromInstant);
+        }
+        return new CustomerDelta(List.copyOf(changed), List.copyOf(deletedIds), next, hasMore);
+    }
+
+    @Override
+    public boolean existsByEmail(final String email) {
+        return emails.containsKey(email);
+    }
+
+    @Override
+    public void save(final Customer customer) {
+        final Commit commit = new Commit();
+        try {
+            if (insert(customer, commit).status() == CustomerBatchStatus.DUPLICATE_EMAIL) {
+                throw new DuplicateResourceException("Email already taken");
+            }
+        } finally {
+            commit.complete();
+        }
+    }
+
+    @Override
+    public boolean existsById(final Long id) {
+        return row(id) != null;
+    }
+
+    @Override
+    public void deleteById(final Long id) {
+        final Commit commit = new Commit();
+        try {
+            delete(id, commit);
+        } finally {
+            commit.complete();
+        }
+    }
+
+    @Override
+    public CustomerUpdateResult update(final Customer customer) {
+        final Commit commit = new Commit();
+        try {
+            return update(customer, commit);
+        } finally {
+            commit.complete();
+        }
+    }
+
+    /**
+     * Rows whose email is already taken (or repeated earlier in the list) are skipped and reported
+     * as {@link CustomerBatchStatus#DUPLICATE_EMAIL}. All rows share the fsync at the end.
+     */
+    @Override
+    public List<CustomerBatchItemResult> saveAll(final List<Customer> customers) {
+        final Commit commit = new Commit();
+        try {
+            final List<CustomerBatchItemResult> results = new ArrayList<>(customers.size());
+            for (final Customer customer : customers) {
+                results.add(insert(customer, commit));
+            }
+            return results;
+        } finally {
+            commit.complete();
+        }
+    }
+
+    /**
+     * Null fields are left as they are. A taken email fails with {@link DuplicateResourceException}, the updates
+     * before it stay written.
+     */
+    @Override
+    public List<CustomerBatchItemResult> updateAll(final List<Customer> customers) {
+        final Commit commit = new Commit();
+        try {
+            final List<CustomerBatchItemResult> results = new ArrayList<>(customers.size());
+            for (final Customer customer : customers) {
+                // like the JDBC batch, which counts a matched row as updated even if nothing changed
+                results.add(new CustomerBatchItemResult(
+                        customer.id(),
+                        update(customer, commit) == CustomerUpdateResult.NOT_FOUND
+                                ? CustomerBatchStatus.NOT_FOUND
+                                : CustomerBatchStatus.UPDATED
+                ));
+            }
+            return results;
+        } finally {
+            commit.complete();
+        }
+    }
+
+    @Override
+    public List<CustomerBatchItemResult> deleteAllById(final List<Long> ids) {
+        final Commit commit = new Commit();
+        final Set<Long> deleted = new HashSet<>();
+        try {
+            for (final Long id : ids) {
+                if (delete(id, commit)) {
+                    deleted.add(id);
+                }
+            }
+        } finally {
+            commit.complete();
+        }
+        return ids.stream()
+                .map(id -> new CustomerBatchItemResult(
+                        id,
+                        deleted.contains(id) ? CustomerBatchStatus.DELETED : CustomerBatchStatus.NOT_FOUND
+                ))
+                .toList();
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("customer-embedded-snapshot")
+                .daemon()
+                .factory());
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (RuntimeException e) {
+                log.warn("Embedded customer snapshot failed", e);
+            }
+        }, snapshotInterval.toMillis(), snapshotInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes a last snapshot, so the next start has no log to replay.
+     */
+    @Override
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+            snapshot();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    @Override
+    public void close() {
+        journal.close();
+    }
+
+    /**
+     * Cuts the log at a new segment, writes the state next to it and drops the segments it covers. The state is read
+     * while writes go on, whatever it catches from after the cut is replayed once more from the log, which ends
+     * in the same place since every entry carries a whole row.
+     */
+    synchronized void snapshot() {
+        final long started = System.nanoTime();
+        final CustomerSnapshot.Header header;
+        final long position;
+        checkpoint.writeLock().lock();
+        try {
+            position = journal.appended();
+            if (position == snapshotPosition) {
+                return;
+            }
+            header = new CustomerSnapshot.Header(journal.rollOver(), lastId.get(), clock.get());
+        } finally {
+            checkpoint.writeLock().unlock();
+        }
+        CustomerSnapshot.write(directory, header, Stream.concat(
+                rows(ids).map(row -> CustomerLog.Entry.put(row.customer(), row.stamp())),
+                tombstones.entrySet().stream().map(tombstone -> CustomerLog.Entry.delete(tombstone.getKey(), tombstone.getValue()))
+        ));
+        journal.deleteSegmentsBefore(header.fromSegment());
+        snapshotPosition = position;
+        snapshots.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+
+    private void recover() {
+        final long started = System.nanoTime();
+        final Map<Long, CustomerLog.Entry> rows = new HashMap<>();
+        final Map<Long, Long> deleted = new HashMap<>();
+        final Consumer<CustomerLog.Entry> apply = entry -> {
+            if (entry.type() == CustomerLog.PUT) {
+                rows.put(entry.id(), entry);
+                deleted.remove(entry.id());
+            } else {
+                rows.remove(entry.id());
+                deleted.put(entry.id(), entry.stamp());
+            }
+            lastId.accumulateAndGet(entry.id(), Math::max);
+            clock.accumulateAndGet(entry.stamp(), Math::max);
+        };
+        final Optional<CustomerSnapshot.Header> header = CustomerSnapshot.read(directory, apply);
+        header.ifPresent(snapshot -> {
+            lastId.accumulateAndGet(snapshot.lastId(), Math::max);
+            clock.accumulateAndGet(snapshot.clock(), Math::max);
+        });
+        journal.open(header.map(CustomerSnapshot.Header::fromSegment).orElse(0L), apply);
+
+        rows.values().forEach(entry -> {
+            stripe(entry.id()).rows.put(entry.id(), new Row(entry.customer(), entry.stamp()));
+            ids.add(entry.id());
+            emails.put(entry.email(), entry.id());
+            changes.add(new Change(entry.stamp(), entry.id()));
+        });
+        deleted.forEach((id, stamp) -> {
+            tombstones.put(id, stamp);
+            changes.add(new Change(stamp, id));
+        });
+        snapshotPosition = journal.appended();
+        log.info("Recovered {} customers and {} tombstones from {} in {} ms",
+                rows.size(), deleted.size(), directory, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private CustomerBatchItemResult insert(final Customer customer, final Commit commit) {
+        final long id = lastId.incrementAndGet();
+        if (emails.putIfAbsent(customer.email(), id) != null) {
+            return new CustomerBatchItemResult(null, CustomerBatchStatus.DUPLICATE_EMAIL);
+        }
+        final Customer inserted = new Customer(id, customer.name(), customer.age(), customer.email());
+        final Stripe stripe = stripe(id);
+        checkpoint.readLock().lock();
+        stripe.lock.writeLock().lock();
+        try {
+            final long stamp;
+            try {
+                stamp = commit.append(CustomerLog.Entry.put(inserted, begin()));
+            } catch (RuntimeException e) {
+                emails.remove(customer.email(), id);
+                throw e;
+            }
+            stripe.rows.put(id, new Row(inserted, stamp));
+            ids.add(id);
+            changes.add(new Change(stamp, id));
+            return new CustomerBatchItemResult(id, CustomerBatchStatus.CREATED);
+        } finally {
+            stripe.lock.writeLock().unlock();
+            checkpoint.readLock().unlock();
+        }
+    }
+
+    private CustomerUpdateResult update(final Customer customer, final Commit commit) {
+        if (customer.id() == null) {
+            return CustomerUpdateResult.NOT_FOUND;
+        }
+        final long id = customer.id();
+        final Stripe stripe = stripe(id);
+        checkpoint.readLock().lock();
+        stripe.lock.writeLock().lock();
+        try {
+            final Row row = stripe.rows.get(id);
+            if (row == null) {
+                return CustomerUpdateResult.NOT_FOUND;
+            }
+            final Customer current = row.customer();
+            final Customer updated = new Customer(
+                    id,
+                    Objects.requireNonNullElse(customer.name(), current.name()),
+                    Objects.requireNonNullElse(customer.age(), current.age()),
+                    Objects.requireNonNullElse(customer.email(), current.email())
+            );
+            if (updated.equals(current)) {
+                return CustomerUpdateResult.UNCHANGED;
+            }
+            final boolean emailChanged = !updated.email().equals(current.email());
+            if (emailChanged && emails.putIfAbsent(updated.email(), id) != null) {
+                throw new DuplicateResourceException("Email already taken");
+            }
+            final long stamp;
+            try {
+                stamp = commit.append(CustomerLog.Entry.put(updated, begin()));
+            } catch (RuntimeException e) {
+                if (emailChanged) {
+                    emails.remove(updated.email(), id);
+                }
+                throw e;
+            }
+            stripe.rows.put(id, new Row(updated, stamp));
+            changes.remove(new Change(row.stamp(), id));
+            changes.add(new Change(stamp, id));
+            if (emailChanged) {
+                emails.remove(current.email(), id);
+            }
+            return CustomerUpdateResult.UPDATED;
+        } finally {
+            stripe.lock.writeLock().unlock();
+            checkpoint.readLock().unlock();
+        }
+    }
+
+    private boolean delete(final long id, final Commit commit) {
+        final Stripe stripe = stripe(id);
+        checkpoint.readLock().lock();
+        stripe.lock.writeLock().lock();
+        try {
+            final Row row = stripe.rows.get(id);
+            if (row == null) {
+                return false;
+            }
+            final long stamp = commit.append(CustomerLog.Entry.delete(id, begin()));
+            stripe.rows.remove(id);
+            ids.remove(id);
+            tombstones.put(id, stamp);
+            changes.remove(new Change(row.stamp(), id));
+            changes.add(new Change(stamp, id));
+            emails.remove(row.customer().email(), id);
+            return true;
+        } finally {
+            stripe.lock.writeLock().unlock();
+            checkpoint.readLock().unlock();
+        }
+    }
+
+    private Row row(final long id) {
+        final Stripe stripe = stripe(id);
+        stripe.lock.readLock().lock();
+        try {
+            return stripe.rows.get(id);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    private Stream<Row> rows(final Collection<Long> ids) {
+        // ids and rows are updated one after the other, a row deleted in between is skipped
+        return ids.stream()
+                .map(this::row)
+                .filter(Objects::nonNull);
+    }
+
+    private Stripe stripe(final long id) {
+        return stripes[Long.hashCode(id) & (stripes.length - 1)];
+    }
+
+    /**
+     * Next stamp of the clock, at least one microsecond after the previous one even if the wall clock went back.
+     */
+    private long tick() {
+        final long now = micros(Instant.now());
+        return clock.updateAndGet(previous -> Math.max(previous + 1, now));
+    }
+
+    private long begin() {
+        synchronized (running) {
+            final long stamp = tick();
+            running.add(stamp);
+            return stamp;
+        }
+    }
+
+    private void end(final long stamp) {
+        synchronized (running) {
+            running.remove(stamp);
+        }
+    }
+
+    /**
+     * Every change stamped below it is durable and in the indexes, every later one will get a higher stamp.
+     */
+    private long safeStamp() {
+        synchronized (running) {
+            final long now = tick();
+            return running.isEmpty() ? now : running.first();
+        }
+    }
+
+    private static boolean isAfter(final Customer customer, final CustomerSearchQuery query) {
+        final int comparison = compare(query.sortField(), customer, query.after().sortValue(), query.after().id());
+        return query.direction().isDescending() ? comparison < 0 : comparison > 0;
+    }
+
+    private static Comparator<Customer> order(final CustomerSortField sortField, final boolean descending) {
+        final Comparator<Customer> ascending = (left, right) ->
+                compare(sortField, left, sortField.valueOf(right), right.id());
+        return descending ? ascending.reversed() : ascending;
+    }
+
+    /**
+     * By the sort value, then by id, like the ORDER BY of the JDBC search.
+     */
+    @SuppressWarnings("unchecked")
+    private static int compare(
+            final CustomerSortField sortField,
+            final Customer customer,
+            final Object sortValue,
+            final long id
+    ) {
+        final int comparison = ((Comparable<Object>) sortField.valueOf(customer)).compareTo(sortValue);
+        return comparison != 0 ? comparison : Long.compare(customer.id(), id);
+    }
+
+    private static long micros(final Instant instant) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+    }
+
+    private static Instant instant(final long micros) {
+        return Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+    }
+
+    private record Row(Customer customer, long stamp) {
+    }
+
+    private record Change(long stamp, long id) implements Comparable<Change> {
+
+        @Override
+        public int compareTo(final Change other) {
+            final int comparison = Long.compare(stamp, other.stamp);
+            return comparison != 0 ? comparison : Long.compare(id, other.id);
+        }
+    }
+
+    private static final class Stripe {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Long, Row> rows = new HashMap<>();
+    }
+
+    /**
+     * Log position and stamps of the writes of one call: one fsync for all of them, and they count as running
+     * for {@link #changedSince} until it is done.
+     */
+    private final class Commit {
+
+        private final List<Long> stamps = new ArrayList<>();
+        private long position = -1;
+
+        /**
+         * @return stamp of the entry
+         */
+        long append(final CustomerLog.Entry entry) {
+            stamps.add(entry.stamp());
+            position = journal.append(entry);
+            return entry.stamp();
+        }
+
+        void complete() {
+            try {
+                if (position >= 0) {
+                    journal.sync(position);
+                }
+            } finally {
+                stamps.forEach(EmbeddedCustomerDAO.this::end);
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.generic.customer;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * DataLoader-style batching of concurrent single-id lookups. The first caller of a window becomes the leader:
+ * it parks for the window (or until the batch is full), then runs one bulk lookup for every id queued meanwhile
+ * on its own thread and hands the results to the waiting followers. No extra threads are involved, so the
+ * leader's thread-local state (replica routing, deadline) applies to the whole batch; {@link CustomerCacheLoader}
+ * gives it a deadline of its own for that reason. Callers that must not wait while holding a lock, such as a cache
+ * loader, {@link #submit(long)} inside it and {@link #runLedBatch()} once it is released.
+ * <p>
+ * Every caller pays up to one window of added latency, hence the default of a few hundred microseconds.
+ */
+final class FindByIdCoalescer {
+
+    private final Function<List<Long>, List<Customer>> bulkLoader;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final DistributionSummary batchSizes;
+    private final ReentrantLock lock = new ReentrantLock();
+    // batch opened by the calling thread in submit, until runLedBatch runs it
+    private final ThreadLocal<Batch> led = new ThreadLocal<>();
+
+    // guarded by lock
+    private Batch open;
+
+    FindByIdCoalescer(
+            final Function<List<Long>, List<Customer>> bulkLoader,
+            final Duration window,
+            final int maxBatchSize,
+            final MeterRegistry meterRegistry
+    ) {
+        this.bulkLoader = bulkLoader;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.batchSizes = DistributionSummary.builder("customer.coalescer.batch.size")
+                .description("Ids loaded per coalesced findById query")
+                .register(meterRegistry);
+    }
+
+    Optional<Customer> findById(final long id) {
+        final CompletableFuture<Optional<Customer>> result = submit(id);
+        runLedBatch();
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Queues the id without waiting for anything. If this opened a batch, the calling thread leads it and has to call
+     * {@link #runLedBatch()} next, otherwise the returned future is never completed.
+     */
+    CompletableFuture<Optional<Customer>> submit(final long id) {
+        final Batch batch;
+        final CompletableFuture<Optional<Customer>> result;
+        lock.lock();
+        try {
+            if (open == null) {
+                open = new Batch(Thread.currentThread());
+                led.set(open);
+            }
+            batch = open;
+            result = batch.pending.computeIfAbsent(id, ignored -> new CompletableFuture<>());
+            if (batch.pending.size() >= maxBatchSize) {
+                open = null;
+                batch.closed = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (batch.closed && batch.leader != Thread.currentThread()) {
+            // this follower filled the batch, wake the leader up early
+            LockSupport.unpark(batch.leader);
+        }
+        return result;
+    }
+
+    /**
+     * Waits out the window of the batch the calling thread opened in {@link #submit(long)} and runs it, does nothing
+     * if it did not open one.
+     */
+    void runLedBatch() {
+        final Batch batch = led.get();
+        if (batch == null) {
+            return;
+        }
+        led.remove();
+        awaitWindow(batch);
+        batch.run();
+    }
+
+    private void awaitWindow(final Batch batch) {
+        final long deadline = System.nanoTime() + windowNanos;
+        long remaining = windowNanos;
+        while (remaining > 0 && !batch.isClosed()) {
+            LockSupport.parkNanos(this, remaining);
+            remaining = deadline - System.nanoTime();
+        }
+        lock.lock();
+        try {
+            if (open == batch) {
+                open = null;
+            }
+            batch.closed = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private final class Batch {
+
+        private final Thread leader;
+        // guarded by lock until the batch is closed, owned by the leader afterwards
+        private final Map<Long, CompletableFuture<Optional<Customer>>> pending = new LinkedHashMap<>();
+        private volatile boolean closed;
+
+        private Batch(final Thread leader) {
+            this.leader = leader;
+        }
+
+        private boolean isClosed() {
+            return closed;
+        }
+
+        private void run() {
+            batchSizes.record(pending.size());
+            try {
+                final Map<Long, Customer> found = new LinkedHashMap<>();
+                for (final Customer customer : bulkLoader.apply(new ArrayList<>(pending.keySet()))) {
+                    found.put(customer.id(), customer);
+                }
+                pending.forEach((id, future) -> future.complete(Optional.ofNullable(found.get(id))));
+            } catch (RuntimeException | Error e) {
+                pending.values().forEach(future -> future.completeExceptionally(e));
+            }
+        }
+    }
+}
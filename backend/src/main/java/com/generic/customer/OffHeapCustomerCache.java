@@ -0,0 +1,170 @@
+package com.generic.customer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Entries live in an {@link OffHeapCustomerStore}: CLOCK instead of W-TinyLFU eviction, but nothing for the garbage
+ * collector to trace however large the cache is.
+ * <p>
+ * Misses load under a lock striped by id, the way Caffeine loads inside the hash bin's lock: concurrent misses for one
+ * id wait for the first load and then find its row cached. A row loaded while its id was invalidated is returned but
+ * not cached, it may predate that write.
+ */
+final class OffHeapCustomerCache implements CustomerCache {
+
+    private static final int LOAD_STRIPE_SHIFT = 10;
+
+    private final OffHeapCustomerStore store;
+    private final CustomerCacheLoader loader;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final ReentrantLock[] loadLocks = new ReentrantLock[1 << LOAD_STRIPE_SHIFT];
+    private final Counter negativeHits;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    OffHeapCustomerCache(
+            final CustomerCacheLoader loader,
+            final int capacity,
+            final Duration ttl,
+            final Duration negativeTtl,
+            final MeterRegistry meterRegistry
+    ) {
+        this.store = new OffHeapCustomerStore(capacity);
+        this.loader = loader;
+        this.ttlNanos = ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        for (int i = 0; i < loadLocks.length; i++) {
+            loadLocks[i] = new ReentrantLock();
+        }
+        this.negativeHits = CustomerCache.negativeHits(meterRegistry);
+        monitor(meterRegistry);
+    }
+
+    @Override
+    public Optional<Customer> get(final long id) {
+        final Optional<Customer> cached = lookup(id);
+        if (cached != null) {
+            return cached;
+        }
+        final ReentrantLock lock = loadLocks[loadStripe(id)];
+        lock.lock();
+        try {
+            final Optional<Customer> loadedMeanwhile = store.get(id);
+            if (loadedMeanwhile != null) {
+                return loadedMeanwhile;
+            }
+            final long version = store.version(id);
+            final Optional<Customer> customer = loader.load(id);
+            store.put(id, customer, ttl(customer), version);
+            return customer;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Map<Long, Optional<Customer>> getAll(final Collection<Long> ids) {
+        final Map<Long, Optional<Customer>> found = new HashMap<>();
+        final Map<Long, Long> missingVersions = new HashMap<>();
+        for (final Long id : ids) {
+            if (found.containsKey(id) || missingVersions.containsKey(id)) {
+                continue;
+            }
+            final Optional<Customer> cached = lookup(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missingVersions.put(id, store.version(id));
+            }
+        }
+        if (!missingVersions.isEmpty()) {
+            loader.loadAll(missingVersions.keySet()).forEach((id, customer) -> {
+                store.put(id, customer, ttl(customer), missingVersions.get(id));
+                found.put(id, customer);
+            });
+        }
+        return found;
+    }
+
+    @Override
+    public Optional<Customer> getIfPresentQuietly(final long id) {
+        return store.get(id);
+    }
+
+    @Override
+    public void invalidateAll(final Collection<Long> ids) {
+        store.removeAll(ids);
+    }
+
+    @Override
+    public void invalidateAll() {
+        store.clear();
+    }
+
+    /**
+     * Counts the hit or miss.
+     */
+    private Optional<Customer> lookup(final long id) {
+        final Optional<Customer> cached = store.get(id);
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        if (cached.isEmpty()) {
+            negativeHits.increment();
+        }
+        return cached;
+    }
+
+    private long ttl(final Optional<Customer> customer) {
+        return customer.isPresent() ? ttlNanos : negativeTtlNanos;
+    }
+
+    private static int loadStripe(final long id) {
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - LOAD_STRIPE_SHIFT));
+    }
+
+    private void monitor(final MeterRegistry meterRegistry) {
+        // the same gets, size and evictions meters CaffeineCacheMetrics registers, so dashboards work with either store
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tag("cache", NAME).tag("result", "hit").description("Cache hits")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tag("cache", NAME).tag("result", "miss").description("Cache misses")
+                .register(meterRegistry);
+        Gauge.builder("customer.cache.off.heap.memory", store, OffHeapCustomerStore::indexBytes)
+                .tag("area", "index").baseUnit("bytes").description("Direct memory held by the off-heap cache")
+                .register(meterRegistry);
+        Gauge.builder("customer.cache.off.heap.memory", store, OffHeapCustomerStore::slotBytes)
+                .tag("area", "slots").baseUnit("bytes").description("Direct memory held by the off-heap cache")
+                .register(meterRegistry);
+        Gauge.builder("customer.cache.off.heap.memory", store, OffHeapCustomerStore::slabBytes)
+                .tag("area", "slab").baseUnit("bytes").description("Direct memory held by the off-heap cache")
+                .register(meterRegistry);
+        Gauge.builder("customer.cache.off.heap.slab.used", store, OffHeapCustomerStore::chunkBytes)
+                .baseUnit("bytes").description("Slab bytes taken by cached names and emails")
+                .register(meterRegistry);
+        Gauge.builder("cache.size", store, OffHeapCustomerStore::size)
+                .tag("cache", NAME).description("Entries in the off-heap cache")
+                .register(meterRegistry);
+        Gauge.builder("customer.cache.off.heap.occupancy", store, s -> (double) s.size() / s.capacity())
+                .description("Share of the off-heap cache slots in use")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", store, OffHeapCustomerStore::evictions)
+                .tag("cache", NAME).description("Entries evicted from the off-heap cache")
+                .register(meterRegistry);
+    }
+}
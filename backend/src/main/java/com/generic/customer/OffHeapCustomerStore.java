@@ -0,0 +1,407 @@
+package com.generic.customer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Fixed-capacity customer cache kept outside of the Java heap, so millions of cached rows add nothing for the
+ * old-gen collector to trace or copy.
+ * <p>
+ * Three direct buffers hold everything:
+ * <ul>
+ *     <li>an open-addressing index (linear probing, backward-shift deletion) of {@code int} slot references,
+ *     keyed by the primitive {@code long} id stored in the slot itself;</li>
+ *     <li>fixed-layout slots: id, expiry, slab address, age, name and email lengths, flags;</li>
+ *     <li>a slab arena of 1 MB pages carved into power-of-two chunks (32 bytes to 1 KB) that hold the UTF-8
+ *     name followed by the email; freed chunks go to a per-class free list threaded through the chunks.</li>
+ * </ul>
+ * A hit takes the read lock, probes the index and copies the bytes out: the only allocations are the returned
+ * {@link Customer}, its strings and the {@link Optional}. Absent ids are stored as slots without a chunk.
+ * When all slots are taken, a CLOCK hand evicts an expired or not recently read entry. Customers whose name and
+ * email do not fit the largest chunk are not cached.
+ * <p>
+ * Direct buffers count against {@code -XX:MaxDirectMemorySize} (the heap size by default) and are freed only
+ * when the store itself is collected.
+ */
+final class OffHeapCustomerStore {
+
+    private static final int ID = 0;
+    private static final int EXPIRES_AT = 8;
+    private static final int CHUNK = 16;
+    private static final int AGE = 24;
+    private static final int NAME_LENGTH = 28;
+    private static final int EMAIL_LENGTH = 32;
+    private static final int FLAGS = 36;
+    private static final int SLOT_SIZE = 40;
+
+    private static final byte USED = 1;
+    private static final byte PRESENT = 2;
+    private static final byte REFERENCED = 4;
+
+    private static final int PAGE_SHIFT = 20;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int MIN_CHUNK_SHIFT = 5;
+    private static final int MAX_CHUNK_SHIFT = 10;
+    private static final int MAX_CHUNK_SIZE = 1 << MAX_CHUNK_SHIFT;
+    private static final long NO_CHUNK = -1;
+    private static final int VERSION_STRIPE_SHIFT = 10;
+
+    private final int capacity;
+    private final ByteBuffer index;
+    private final int indexMask;
+    private final ByteBuffer slots;
+    private final int[] freeSlots;
+    private int freeSlotCount;
+    private int hand;
+
+    private final List<ByteBuffer> pages = new ArrayList<>();
+    // per chunk size class: head of the free list, and the page being carved with its next free offset
+    private final long[] freeChunks = new long[MAX_CHUNK_SHIFT - MIN_CHUNK_SHIFT + 1];
+    private final int[] carvedPages = new int[freeChunks.length];
+    private final int[] carvedOffsets = new int[freeChunks.length];
+    private long chunkBytes;
+
+    private final StampedLock lock = new StampedLock();
+    private int size;
+    private long evictions;
+    private final long[] versions = new long[1 << VERSION_STRIPE_SHIFT];
+
+    /**
+     * @param capacity entries the store holds before it starts evicting
+     */
+    OffHeapCustomerStore(final int capacity) {
+        if (capacity < 1 || (long) capacity * SLOT_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Off-heap customer store capacity [%s] is out of range".formatted(capacity));
+        }
+        this.capacity = capacity;
+        final int buckets = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        this.index = ByteBuffer.allocateDirect(buckets * Integer.BYTES);
+        this.indexMask = buckets - 1;
+        this.slots = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+        this.freeSlots = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            freeSlots[i] = capacity - 1 - i;
+        }
+        this.freeSlotCount = capacity;
+        Arrays.fill(freeChunks, NO_CHUNK);
+        Arrays.fill(carvedPages, -1);
+    }
+
+    /**
+     * @return the cached customer, an empty optional for a cached absent id, {@code null} if the id is not cached
+     */
+    Optional<Customer> get(final long id) {
+        final long stamp = lock.readLock();
+        try {
+            final int slot = find(id);
+            if (slot < 0) {
+                return null;
+            }
+            final int base = slot * SLOT_SIZE;
+            if (slots.getLong(base + EXPIRES_AT) - System.nanoTime() <= 0) {
+                return null;
+            }
+            final byte flags = slots.get(base + FLAGS);
+            if ((flags & REFERENCED) == 0) {
+                // racing readers all set the same bit, a lost update only costs the entry one CLOCK round
+                slots.put(base + FLAGS, (byte) (flags | REFERENCED));
+            }
+            if ((flags & PRESENT) == 0) {
+                return Optional.empty();
+            }
+            final long chunk = slots.getLong(base + CHUNK);
+            final int nameLength = slots.getInt(base + NAME_LENGTH);
+            final byte[] bytes = new byte[nameLength + slots.getInt(base + EMAIL_LENGTH)];
+            pages.get((int) (chunk >>> PAGE_SHIFT)).get((int) (chunk & (PAGE_SIZE - 1)), bytes);
+            return Optional.of(new Customer(
+                    id,
+                    new String(bytes, 0, nameLength, StandardCharsets.UTF_8),
+                    slots.getInt(base + AGE),
+                    new String(bytes, nameLength, bytes.length - nameLength, StandardCharsets.UTF_8)
+            ));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Version of the id's stripe (one of 1024), bumped by every removal of an id in it. A loader reads it before going
+     * to the database and passes it to {@link #put(long, Optional, long, long)}, which then refuses rows that may have
+     * been changed meanwhile; invalidating other ids rarely gets in the way.
+     */
+    long version(final long id) {
+        final long stamp = lock.readLock();
+        try {
+            return versions[versionStripe(id)];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Caches {@code customer} (or its absence) for {@code ttlNanos}, replacing whatever was cached for the id.
+     *
+     * @return {@code false} if an id of the stripe was removed since {@code version} or the customer is too large
+     * to cache
+     */
+    boolean put(final long id, final Optional<Customer> customer, final long ttlNanos, final long version) {
+        byte[] name = null;
+        byte[] email = null;
+        if (customer.isPresent()) {
+            name = customer.get().name().getBytes(StandardCharsets.UTF_8);
+            email = customer.get().email().getBytes(StandardCharsets.UTF_8);
+            if (name.length + email.length > MAX_CHUNK_SIZE) {
+                return false;
+            }
+        }
+        final long stamp = lock.writeLock();
+        try {
+            if (versions[versionStripe(id)] != version) {
+                return false;
+            }
+            int slot = find(id);
+            if (slot >= 0) {
+                freeChunk(slot);
+            } else {
+                slot = allocateSlot();
+                insert(id, slot);
+            }
+            final int base = slot * SLOT_SIZE;
+            slots.putLong(base + ID, id);
+            slots.putLong(base + EXPIRES_AT, System.nanoTime() + ttlNanos);
+            if (customer.isPresent()) {
+                final long chunk = allocateChunk(chunkSize(name.length + email.length));
+                final ByteBuffer page = pages.get((int) (chunk >>> PAGE_SHIFT));
+                final int offset = (int) (chunk & (PAGE_SIZE - 1));
+                page.put(offset, name);
+                page.put(offset + name.length, email);
+                slots.putLong(base + CHUNK, chunk);
+                slots.putInt(base + AGE, customer.get().age());
+                slots.putInt(base + NAME_LENGTH, name.length);
+                slots.putInt(base + EMAIL_LENGTH, email.length);
+                slots.put(base + FLAGS, (byte) (USED | PRESENT));
+            } else {
+                slots.putLong(base + CHUNK, NO_CHUNK);
+                slots.put(base + FLAGS, USED);
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void removeAll(final Collection<Long> ids) {
+        final long stamp = lock.writeLock();
+        try {
+            for (final Long id : ids) {
+                if (id != null) {
+                    versions[versionStripe(id)]++;
+                    final int slot = find(id);
+                    if (slot >= 0) {
+                        remove(slot);
+                    }
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void clear() {
+        final long stamp = lock.writeLock();
+        try {
+            for (int stripe = 0; stripe < versions.length; stripe++) {
+                versions[stripe]++;
+            }
+            for (int slot = 0; slot < capacity && size > 0; slot++) {
+                if ((slots.get(slot * SLOT_SIZE + FLAGS) & USED) != 0) {
+                    remove(slot);
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    int size() {
+        final long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    long evictions() {
+        final long stamp = lock.readLock();
+        try {
+            return evictions;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    long indexBytes() {
+        return index.capacity();
+    }
+
+    long slotBytes() {
+        return slots.capacity();
+    }
+
+    /**
+     * Reserved by the slab arena, including free chunks and the uncarved rest of its pages.
+     */
+    long slabBytes() {
+        final long stamp = lock.readLock();
+        try {
+            return (long) pages.size() * PAGE_SIZE;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Held by the names and emails of cached customers, rounded up to their chunk sizes.
+     */
+    long chunkBytes() {
+        final long stamp = lock.readLock();
+        try {
+            return chunkBytes;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private int find(final long id) {
+        for (int bucket = bucket(id); ; bucket = (bucket + 1) & indexMask) {
+            final int reference = index.getInt(bucket * Integer.BYTES);
+            if (reference == 0) {
+                return -1;
+            }
+            if (slots.getLong((reference - 1) * SLOT_SIZE + ID) == id) {
+                return reference - 1;
+            }
+        }
+    }
+
+    private void insert(final long id, final int slot) {
+        int bucket = bucket(id);
+        while (index.getInt(bucket * Integer.BYTES) != 0) {
+            bucket = (bucket + 1) & indexMask;
+        }
+        index.putInt(bucket * Integer.BYTES, slot + 1);
+        size++;
+    }
+
+    private void remove(final int slot) {
+        final long id = slots.getLong(slot * SLOT_SIZE + ID);
+        int hole = bucket(id);
+        while (index.getInt(hole * Integer.BYTES) != slot + 1) {
+            hole = (hole + 1) & indexMask;
+        }
+        // shift later entries of the probe run back, so lookups never stop at the hole too early
+        for (int bucket = (hole + 1) & indexMask; ; bucket = (bucket + 1) & indexMask) {
+            final int reference = index.getInt(bucket * Integer.BYTES);
+            if (reference == 0) {
+                break;
+            }
+            final int home = bucket(slots.getLong((reference - 1) * SLOT_SIZE + ID));
+            final boolean reachable = hole <= bucket
+                    ? home > hole && home <= bucket
+                    : home > hole || home <= bucket;
+            if (!reachable) {
+                index.putInt(hole * Integer.BYTES, reference);
+                hole = bucket;
+            }
+        }
+        index.putInt(hole * Integer.BYTES, 0);
+        freeChunk(slot);
+        slots.put(slot * SLOT_SIZE + FLAGS, (byte) 0);
+        freeSlots[freeSlotCount++] = slot;
+        size--;
+    }
+
+    private int allocateSlot() {
+        if (freeSlotCount == 0) {
+            evict();
+        }
+        return freeSlots[--freeSlotCount];
+    }
+
+    /**
+     * CLOCK: expired entries and entries not read since the hand last passed go first. Terminates within two
+     * rounds, the first one clears every reference bit.
+     */
+    private void evict() {
+        final long now = System.nanoTime();
+        while (true) {
+            final int slot = hand;
+            hand = (hand + 1) % capacity;
+            final int base = slot * SLOT_SIZE;
+            final byte flags = slots.get(base + FLAGS);
+            if ((flags & REFERENCED) != 0 && slots.getLong(base + EXPIRES_AT) - now > 0) {
+                slots.put(base + FLAGS, (byte) (flags & ~REFERENCED));
+                continue;
+            }
+            remove(slot);
+            evictions++;
+            return;
+        }
+    }
+
+    private long allocateChunk(final int chunkSize) {
+        final int sizeClass = Integer.numberOfTrailingZeros(chunkSize) - MIN_CHUNK_SHIFT;
+        chunkBytes += chunkSize;
+        final long free = freeChunks[sizeClass];
+        if (free != NO_CHUNK) {
+            freeChunks[sizeClass] = pages.get((int) (free >>> PAGE_SHIFT)).getLong((int) (free & (PAGE_SIZE - 1)));
+            return free;
+        }
+        if (carvedPages[sizeClass] < 0 || carvedOffsets[sizeClass] == PAGE_SIZE) {
+            pages.add(ByteBuffer.allocateDirect(PAGE_SIZE));
+            carvedPages[sizeClass] = pages.size() - 1;
+            carvedOffsets[sizeClass] = 0;
+        }
+        final long chunk = ((long) carvedPages[sizeClass] << PAGE_SHIFT) | carvedOffsets[sizeClass];
+        carvedOffsets[sizeClass] += chunkSize;
+        return chunk;
+    }
+
+    private void freeChunk(final int slot) {
+        final int base = slot * SLOT_SIZE;
+        if ((slots.get(base + FLAGS) & PRESENT) == 0) {
+            return;
+        }
+        final long chunk = slots.getLong(base + CHUNK);
+        final int chunkSize = chunkSize(slots.getInt(base + NAME_LENGTH) + slots.getInt(base + EMAIL_LENGTH));
+        final int sizeClass = Integer.numberOfTrailingZeros(chunkSize) - MIN_CHUNK_SHIFT;
+        pages.get((int) (chunk >>> PAGE_SHIFT)).putLong((int) (chunk & (PAGE_SIZE - 1)), freeChunks[sizeClass]);
+        freeChunks[sizeClass] = chunk;
+        chunkBytes -= chunkSize;
+        slots.put(base + FLAGS, USED);
+    }
+
+    private static int chunkSize(final int length) {
+        return Math.max(1 << MIN_CHUNK_SHIFT, Integer.highestOneBit(Math.max(1, length - 1)) << 1);
+    }
+
+    private static int versionStripe(final long id) {
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - VERSION_STRIPE_SHIFT));
+    }
+
+    private int bucket(final long id) {
+        // Fibonacci hashing: sequential ids spread over the whole index instead of forming one long probe run
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & indexMask;
+    }
+}
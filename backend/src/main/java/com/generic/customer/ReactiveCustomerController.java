@@ -0,0 +1,64 @@
+package com.generic.customer;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux variant of {@link CustomerController}, active with the {@code reactive} profile.
+ * List endpoints are {@link Flux}es, so rows are pulled from R2DBC only as fast as the client reads them.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1/customers")
+public class ReactiveCustomerController {
+
+    private final ReactiveCustomerService customerService;
+
+    public ReactiveCustomerController(final ReactiveCustomerService customerService) {
+        this.customerService = customerService;
+    }
+
+    @GetMapping("{customerId}")
+    public Mono<Customer> findById(@PathVariable("customerId") Long id) {
+        return customerService.findById(id);
+    }
+
+    @GetMapping
+    public Flux<Customer> findAll() {
+        return customerService.findAll();
+    }
+
+    @GetMapping("page")
+    public Mono<CustomerPage> findPage(
+            @RequestParam(value = "pageToken", required = false) String pageToken,
+            @RequestParam(value = "size", required = false) Integer size
+    ) {
+        return customerService.findPage(pageToken, size);
+    }
+
+    @GetMapping(value = "stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Customer> streamAll() {
+        return customerService.findAll();
+    }
+
+    @PostMapping
+    public Mono<Void> register(@RequestBody CustomerRegistrationRequest customer) {
+        return customerService.register(customer);
+    }
+
+    @DeleteMapping("{customerId}")
+    public Mono<Void> deleteById(@PathVariable("customerId") Long id) {
+        return customerService.deleteById(id);
+    }
+
+    @PutMapping("{customerId}")
+    public Mono<Void> update(
+            @PathVariable("customerId") Long customerId,
+            @RequestBody CustomerUpdateRequest customerUpdateRequest
+    ) {
+        return customerService.update(customerId, customerUpdateRequest);
+    }
+}
@@ -0,0 +1,15 @@
+package com.generic.customer;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCustomerDAO {
+    Mono<Customer> findById(long id);
+    Flux<Customer> findAll();
+    Flux<Customer> findPage(long afterId, int limit);
+    Mono<Boolean> existsByEmail(String email);
+    Mono<Boolean> existsById(long id);
+    Mono<Void> save(Customer customer);
+    Mono<Void> deleteById(long id);
+    Mono<CustomerUpdateResult> update(Customer customer);
+}
@@ -0,0 +1,96 @@
+package com.generic.customer;
+
+import com.generic.exception.DuplicateResourceException;
+import com.generic.exception.RequestValidationException;
+import com.generic.exception.ResourceNotFoundException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reactive mirror of {@link CustomerService}, same rules and error messages.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveCustomerService {
+
+    private final ReactiveCustomerDAO customerDAO;
+
+    public ReactiveCustomerService(final ReactiveCustomerDAO customerDAO) {
+        this.customerDAO = customerDAO;
+    }
+
+    public Mono<Customer> findById(final long id) {
+        return customerDAO.findById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(
+                        "Customer with passed id [%s] not found".formatted(id)
+                )));
+    }
+
+    public Flux<Customer> findAll() {
+        return customerDAO.findAll();
+    }
+
+    public Mono<CustomerPage> findPage(final String pageToken, final Integer size) {
+        return Mono.defer(() -> {
+            final int limit = Objects.nonNull(size) ? size : CustomerService.DEFAULT_PAGE_SIZE;
+            if (limit < 1 || limit > CustomerService.MAX_PAGE_SIZE) {
+                return Mono.error(new RequestValidationException(
+                        "Page size must be between 1 and %s".formatted(CustomerService.MAX_PAGE_SIZE)
+                ));
+            }
+            final long afterId = Objects.nonNull(pageToken) ? CustomerPageToken.decode(pageToken) : 0L;
+
+            return customerDAO.findPage(afterId, limit + 1)
+                    .collectList()
+                    .map(customers -> {
+                        if (customers.size() <= limit) {
+                            return new CustomerPage(customers, null);
+                        }
+                        final var page = customers.subList(0, limit);
+                        return new CustomerPage(
+                                List.copyOf(page),
+                                CustomerPageToken.encode(page.get(limit - 1).id())
+                        );
+                    });
+        });
+    }
+
+    public Mono<Void> register(final CustomerRegistrationRequest customer) {
+        return customerDAO.existsByEmail(customer.email())
+                .flatMap(exists -> exists
+                        ? Mono.error(new DuplicateResourceException("Passed email already taken"))
+                        : customerDAO.save(new Customer(
+                                customer.name(),
+                                customer.age(),
+                                customer.email()
+                        )));
+    }
+
+    public Mono<Void> deleteById(final long id) {
+        return customerDAO.existsById(id)
+                .flatMap(exists -> exists
+                        ? customerDAO.deleteById(id)
+                        : Mono.error(new ResourceNotFoundException("Customer with passed id not found")));
+    }
+
+    public Mono<Void> update(final long customerId, final CustomerUpdateRequest updateRequest) {
+        return customerDAO.update(new Customer(
+                        customerId,
+                        updateRequest.name(),
+                        updateRequest.age(),
+                        updateRequest.email()
+                ))
+                .flatMap(result -> switch (result) {
+                    case NOT_FOUND -> Mono.error(new ResourceNotFoundException(
+                            "Customer with passed id [%s] not found".formatted(customerId)
+                    ));
+                    case UNCHANGED -> Mono.error(new RequestValidationException("No data changes found"));
+                    case UPDATED -> Mono.empty();
+                });
+    }
+}
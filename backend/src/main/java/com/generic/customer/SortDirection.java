@@ -0,0 +1,28 @@
+package com.generic.customer;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Direction of the customer search order. Its names end up in search tokens, renaming them invalidates tokens
+ * already handed out.
+ */
+public enum SortDirection {
+    ASC,
+    DESC;
+
+    public boolean isDescending() {
+        return this == DESC;
+    }
+
+    /**
+     * @return the direction named {@code value}, case-insensitive, or empty for any other value
+     */
+    public static Optional<SortDirection> fromString(final String value) {
+        try {
+            return Optional.of(valueOf(value.toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
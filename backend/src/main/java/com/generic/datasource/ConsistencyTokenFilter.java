@@ -0,0 +1,83 @@
+package com.generic.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * Read-your-writes on top of {@link ReplicaRoutingDataSource}.
+ * <p>
+ * GET and HEAD requests are served from replicas. A successful write request gets the primary WAL position
+ * in the {@value #HEADER} response header; a client passing it back on a later read is only served by a replica
+ * that has replayed that position (or by the primary). Write responses are buffered so the header can be set
+ * after the handler has committed.
+ */
+public class ConsistencyTokenFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Consistency-Token";
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD");
+
+    private final ReplicaRoutingDataSource dataSource;
+
+    public ConsistencyTokenFilter(final ReplicaRoutingDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            final HttpServletRequest request,
+            final HttpServletResponse response,
+            final FilterChain filterChain
+    ) throws ServletException, IOException {
+        if (READ_METHODS.contains(request.getMethod())) {
+            read(request, response, filterChain);
+        } else {
+            write(request, response, filterChain);
+        }
+    }
+
+    private void read(
+            final HttpServletRequest request,
+            final HttpServletResponse response,
+            final FilterChain filterChain
+    ) throws ServletException, IOException {
+        final String token = request.getHeader(HEADER);
+        final WalPosition minPosition;
+        try {
+            minPosition = token == null ? null : WalPosition.parse(token);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Passed consistency token [%s] is invalid".formatted(token));
+            return;
+        }
+        try (ReplicaRouting.Scope ignored = ReplicaRouting.useReplica(minPosition)) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    private void write(
+            final HttpServletRequest request,
+            final HttpServletResponse response,
+            final FilterChain filterChain
+    ) throws ServletException, IOException {
+        final ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+            if (wrapper.getStatus() < HttpStatus.BAD_REQUEST.value()) {
+                wrapper.setHeader(HEADER, dataSource.primaryPosition().toString());
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not read the primary WAL position, responding without a consistency token", e);
+        } finally {
+            wrapper.copyBodyToResponse();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.generic.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Wraps the application {@link DataSource} into a {@link ConcurrencyLimitingDataSource}. Meant for the
+ * {@code virtual-threads} profile, where nothing else bounds how many requests wait for the database.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "customer.datasource.concurrency-limit", name = "enabled", havingValue = "true")
+public class DataSourceConcurrencyLimitConfig {
+
+    @Bean
+    static DataSourceWrapperPostProcessor concurrencyLimitingDataSourcePostProcessor(final Environment environment) {
+        return new DataSourceWrapperPostProcessor(
+                DataSourceWrapperPostProcessor.CONCURRENCY_LIMIT,
+                ConcurrencyLimitingDataSource.class,
+                // by default exactly as many permits as pooled connections: waiters park on the semaphore, not in the pool
+                dataSource -> {
+                    // bound, not read with getProperty: the Environment converts "2s" to a Duration only once Boot has
+                    // installed its conversion service, which a post processor may run before
+                    final Binder binder = Binder.get(environment);
+                    return new ConcurrencyLimitingDataSource(
+                            dataSource,
+                            binder.bind("customer.datasource.concurrency-limit.max-concurrency", Integer.class)
+                                    .orElseGet(() -> poolSize(dataSource)),
+                            binder.bind("customer.datasource.concurrency-limit.acquire-timeout", Duration.class)
+                                    .orElse(Duration.ofSeconds(2))
+                    );
+                }
+        );
+    }
+
+    /**
+     * Looks through the inner wrappers, such as {@code FlightRecordingDataSource}.
+     */
+    private static int poolSize(final DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class)
+                    ? dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize()
+                    : 10;
+        } catch (SQLException e) {
+            return 10;
+        }
+    }
+}
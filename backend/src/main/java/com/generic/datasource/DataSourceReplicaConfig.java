@@ -0,0 +1,80 @@
+package com.generic.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured {@link DataSource} with a {@link ReplicaRoutingDataSource}: {@code spring.datasource.*}
+ * stays the primary, {@code customer.datasource.replicas.urls} lists hot standbys using the same credentials.
+ * Every pool is configured from {@code spring.datasource.hikari.*}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "customer.datasource.replicas", name = "enabled", havingValue = "true")
+public class DataSourceReplicaConfig {
+
+    @Bean
+    ReplicaRoutingDataSource dataSource(
+            final DataSourceProperties properties,
+            final Environment environment,
+            final ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        final HikariDataSource primary = pool(properties, properties.determineUrl(), "primary", environment);
+        final List<String> urls = Binder.get(environment)
+                .bind("customer.datasource.replicas.urls", Bindable.listOf(String.class))
+                .orElse(List.of());
+        final List<DataSource> replicas = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            replicas.add(pool(properties, urls.get(i), "replica-" + i, environment));
+        }
+        // these pools are not beans, so Boot does not bind hikaricp.* metrics (pool wait time included) for them
+        meterRegistry.ifAvailable(registry -> {
+            final MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(registry);
+            primary.setMetricsTrackerFactory(metrics);
+            replicas.forEach(replica -> ((HikariDataSource) replica).setMetricsTrackerFactory(metrics));
+        });
+        return new ReplicaRoutingDataSource(
+                primary,
+                replicas,
+                environment.getProperty("customer.datasource.replicas.poll-interval", Duration.class, Duration.ofMillis(50)),
+                environment.getProperty("customer.datasource.replicas.max-wait", Duration.class, Duration.ofMillis(200))
+        );
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    ConsistencyTokenFilter consistencyTokenFilter(final DataSource dataSource) throws SQLException {
+        // the bean may have been wrapped, e.g. by DataSourceConcurrencyLimitConfig
+        return new ConsistencyTokenFilter(dataSource.unwrap(ReplicaRoutingDataSource.class));
+    }
+
+    private static HikariDataSource pool(
+            final DataSourceProperties properties,
+            final String url,
+            final String name,
+            final Environment environment
+    ) {
+        final HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(name);
+        return dataSource;
+    }
+}
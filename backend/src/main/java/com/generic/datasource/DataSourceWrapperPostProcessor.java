@@ -0,0 +1,60 @@
+package com.generic.datasource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.util.function.UnaryOperator;
+
+/**
+ * Wraps the application {@link DataSource} into one layer of JDBC behaviour. Layers are applied by ascending
+ * {@link #getOrder()}, so a lower order ends up closer to the pool. The order constants below are the only place the
+ * nesting is decided:
+ * <pre>
+ * DeadlineDataSource -> ConcurrencyLimitingDataSource -> FlightRecordingDataSource -> pool
+ * </pre>
+ * The {@link #getOrder()} must be visible on the bean type, so configs declare this class, not
+ * {@link BeanPostProcessor}, as the return type of their {@code @Bean} method.
+ */
+public final class DataSourceWrapperPostProcessor implements BeanPostProcessor, Ordered {
+
+    /**
+     * Innermost: recorded times are the driver's, not the wait for a permit.
+     */
+    public static final int FLIGHT_RECORDING = 0;
+    public static final int CONCURRENCY_LIMIT = 100;
+    /**
+     * Outermost: a request past its deadline fails before it parks on the limiter or the pool.
+     */
+    public static final int DEADLINE = 200;
+
+    private final int order;
+    private final Class<? extends DataSource> wrapperType;
+    private final UnaryOperator<DataSource> wrapper;
+
+    /**
+     * @param wrapperType beans already of this type are left as they are
+     */
+    public DataSourceWrapperPostProcessor(
+            final int order,
+            final Class<? extends DataSource> wrapperType,
+            final UnaryOperator<DataSource> wrapper
+    ) {
+        this.order = order;
+        this.wrapperType = wrapperType;
+        this.wrapper = wrapper;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+        if (!(bean instanceof DataSource dataSource) || wrapperType.isInstance(bean)) {
+            return bean;
+        }
+        return wrapper.apply(dataSource);
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+}
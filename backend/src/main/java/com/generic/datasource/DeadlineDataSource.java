@@ -0,0 +1,144 @@
+package com.generic.datasource;
+
+import com.generic.exception.DeadlineExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.postgresql.jdbc.PgStatement;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Holds JDBC work to the {@link RequestDeadline} of the calling thread: a connection is not taken from the pool once
+ * the deadline has passed, and every statement is sent with the time left as its query timeout, so the driver cancels
+ * it on the server instead of letting it hold the connection.
+ * <p>
+ * Connections obtained without a deadline are not proxied, which keeps background work (outbox relay, listeners) at
+ * no cost. Timed-out work fails with {@link DeadlineExceededException} and is counted in
+ * {@code customer.deadline.exceeded} by the stage it was stopped at.
+ */
+public class DeadlineDataSource extends DelegatingDataSource {
+
+    private static final String QUERY_CANCELED = "57014";
+
+    private final Supplier<MeterRegistry> meterRegistry;
+
+    /**
+     * @param meterRegistry looked up on the first timeout, may supply null
+     */
+    public DeadlineDataSource(final DataSource target, final Supplier<MeterRegistry> meterRegistry) {
+        super(target);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final boolean deadline = checkDeadline();
+        final Connection connection = super.getConnection();
+        return deadline ? limited(connection) : connection;
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        final boolean deadline = checkDeadline();
+        final Connection connection = super.getConnection(username, password);
+        return deadline ? limited(connection) : connection;
+    }
+
+    /**
+     * @return whether the calling thread has a deadline
+     */
+    private boolean checkDeadline() {
+        final long remaining = RequestDeadline.remainingNanos();
+        if (remaining <= 0) {
+            throw exceeded("connection", "Request deadline passed before a database connection was taken");
+        }
+        return remaining != Long.MAX_VALUE;
+    }
+
+    private Connection limited(final Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    final Object result = invoke(connection, method, args);
+                    if (result instanceof Statement statement) {
+                        return limited(statement, method.getReturnType());
+                    }
+                    return result;
+                }
+        );
+    }
+
+    private Object limited(final Statement statement, final Class<?> type) {
+        return Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (!method.getName().startsWith("execute")) {
+                        return invoke(statement, method, args);
+                    }
+                    final long remaining = RequestDeadline.remainingNanos();
+                    if (remaining <= 0) {
+                        throw exceeded("statement", "Request deadline passed before the statement was sent");
+                    }
+                    applyTimeout(statement, remaining);
+                    try {
+                        return invoke(statement, method, args);
+                    } catch (SQLException e) {
+                        if (QUERY_CANCELED.equals(e.getSQLState()) && RequestDeadline.remainingNanos() <= 0) {
+                            final DeadlineExceededException exceeded = exceeded("query", "Statement cancelled at the request deadline");
+                            exceeded.initCause(e);
+                            throw exceeded;
+                        }
+                        throw e;
+                    }
+                }
+        );
+    }
+
+    private static void applyTimeout(final Statement statement, final long remainingNanos) throws SQLException {
+        // a shorter timeout already set, e.g. by a @Transactional(timeout), wins
+        if (statement.isWrapperFor(PgStatement.class)) {
+            final PgStatement pgStatement = statement.unwrap(PgStatement.class);
+            final long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(remainingNanos + 999_999));
+            final long current = pgStatement.getQueryTimeoutMs();
+            if (current == 0 || millis < current) {
+                pgStatement.setQueryTimeoutMs(millis);
+            }
+        } else {
+            final int seconds = (int) Math.min(Integer.MAX_VALUE, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remainingNanos + 999_999_999)));
+            final int current = statement.getQueryTimeout();
+            if (current == 0 || seconds < current) {
+                statement.setQueryTimeout(seconds);
+            }
+        }
+    }
+
+    private DeadlineExceededException exceeded(final String stage, final String message) {
+        final MeterRegistry registry = meterRegistry.get();
+        if (registry != null) {
+            Counter.builder("customer.deadline.exceeded")
+                    .tag("stage", stage)
+                    .register(registry)
+                    .increment();
+        }
+        return new DeadlineExceededException(message);
+    }
+
+    private static Object invoke(final Object target, final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.generic.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application {@link DataSource} into a {@link DeadlineDataSource}, so statements run for a request stop at
+ * its {@link RequestDeadline}. The outermost wrapper, see {@link DataSourceWrapperPostProcessor}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "customer.deadline", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DeadlineDataSourceConfig {
+
+    @Bean
+    static DataSourceWrapperPostProcessor deadlineDataSourcePostProcessor(final ObjectProvider<MeterRegistry> meterRegistry) {
+        return new DataSourceWrapperPostProcessor(
+                DataSourceWrapperPostProcessor.DEADLINE,
+                DeadlineDataSource.class,
+                dataSource -> new DeadlineDataSource(dataSource, meterRegistry::getIfAvailable)
+        );
+    }
+}
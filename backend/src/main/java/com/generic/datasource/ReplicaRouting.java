@@ -0,0 +1,57 @@
+package com.generic.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread routing decision for {@link ReplicaRoutingDataSource}. Nothing set means the primary,
+ * so only code that explicitly opts in (see {@link ConsistencyTokenFilter}) ever reads from a replica.
+ */
+public final class ReplicaRouting {
+
+    private static final ThreadLocal<Route> CURRENT = new ThreadLocal<>();
+
+    private ReplicaRouting() {
+    }
+
+    /**
+     * @param minPosition WAL position the replica must have replayed, null to accept any healthy replica
+     */
+    public static Scope useReplica(final WalPosition minPosition) {
+        return open(new Route(true, minPosition));
+    }
+
+    public static Scope usePrimary() {
+        return open(new Route(false, null));
+    }
+
+    public static <T> T onPrimary(final Supplier<T> action) {
+        try (Scope ignored = usePrimary()) {
+            return action.get();
+        }
+    }
+
+    static Route current() {
+        return CURRENT.get();
+    }
+
+    private static Scope open(final Route route) {
+        final Route previous = CURRENT.get();
+        CURRENT.set(route);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    record Route(boolean replica, WalPosition minPosition) {
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
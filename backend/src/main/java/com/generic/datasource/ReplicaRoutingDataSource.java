@@ -0,0 +1,181 @@
+package com.generic.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections to the primary unless the current thread asked for a replica via {@link ReplicaRouting}.
+ * <p>
+ * Replica replay positions are polled in the background. A replica read carrying a minimal {@link WalPosition}
+ * (a consistency token from an earlier write) only goes to a replica that has replayed it, waits up to
+ * {@code maxWait} for one to catch up and falls back to the primary after that. Replicas that fail to connect or
+ * to answer the poll are skipped until the next successful poll.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long pollIntervalMillis;
+    private final long maxWaitNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService poller;
+
+    public ReplicaRoutingDataSource(
+            final DataSource primary,
+            final List<DataSource> replicas,
+            final Duration pollInterval,
+            final Duration maxWait
+    ) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.pollIntervalMillis = Math.max(1, pollInterval.toMillis());
+        this.maxWaitNanos = maxWait.toNanos();
+        refreshPositions();
+        this.poller = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("replica-position-poller")
+                .daemon()
+                .factory());
+        poller.scheduleWithFixedDelay(this::refreshPositions, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    /**
+     * Routed like {@link #getConnection()}, the credentials are passed to whichever pool is picked.
+     */
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    /**
+     * Current WAL insert position of the primary. Taken after a write has committed, it is a position every replica
+     * has to replay before the write becomes visible there.
+     */
+    public WalPosition primaryPosition() throws SQLException {
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT pg_current_wal_lsn()")) {
+            rs.next();
+            return WalPosition.parse(rs.getString(1));
+        }
+    }
+
+    private Connection route(final Connector connector) throws SQLException {
+        final ReplicaRouting.Route route = ReplicaRouting.current();
+        if (route == null || !route.replica() || replicas.isEmpty()) {
+            return connector.connect(primary);
+        }
+        final long deadline = System.nanoTime() + maxWaitNanos;
+        while (true) {
+            final Optional<Connection> connection = replicaConnection(route.minPosition(), connector);
+            if (connection.isPresent()) {
+                return connection.get();
+            }
+            if (route.minPosition() == null || System.nanoTime() >= deadline) {
+                return connector.connect(primary);
+            }
+            try {
+                Thread.sleep(pollIntervalMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return connector.connect(primary);
+            }
+        }
+    }
+
+    void refreshPositions() {
+        for (final Replica replica : replicas) {
+            replica.refresh();
+        }
+    }
+
+    private Optional<Connection> replicaConnection(final WalPosition minPosition, final Connector connector) {
+        final int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            final Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.hasReplayed(minPosition)) {
+                continue;
+            }
+            try {
+                return Optional.of(connector.connect(replica.dataSource));
+            } catch (SQLException e) {
+                log.warn("Replica is unavailable, skipping it until the next successful poll", e);
+                replica.position = null;
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public void close() throws IOException {
+        poller.shutdownNow();
+        close(primary);
+        for (final Replica replica : replicas) {
+            close(replica.dataSource);
+        }
+    }
+
+    private static void close(final DataSource dataSource) throws IOException {
+        if (dataSource instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Connector {
+        Connection connect(DataSource dataSource) throws SQLException;
+    }
+
+    private static final class Replica {
+
+        private final DataSource dataSource;
+        /**
+         * Last polled replay position, null while unknown.
+         */
+        private volatile WalPosition position;
+
+        private Replica(final DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        private boolean hasReplayed(final WalPosition minPosition) {
+            final WalPosition current = position;
+            return current != null && (minPosition == null || current.isAtLeast(minPosition));
+        }
+
+        private void refresh() {
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT pg_last_wal_replay_lsn()")) {
+                rs.next();
+                final String lsn = rs.getString(1);
+                // null when the server is not in recovery, i.e. not a replica at all
+                position = lsn == null ? null : WalPosition.parse(lsn);
+            } catch (SQLException | RuntimeException e) {
+                position = null;
+            }
+        }
+    }
+}
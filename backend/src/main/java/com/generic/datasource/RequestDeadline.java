@@ -0,0 +1,60 @@
+package com.generic.datasource;
+
+/**
+ * Per-thread deadline of the request being served, enforced by {@link DeadlineDataSource}. Nothing set means no
+ * deadline; a nested scope can only bring the deadline closer, except a {@link #detached(long)} one.
+ * <p>
+ * Like {@link ReplicaRouting} it stays on the thread that opened it: work handed to another thread (streaming
+ * responses, SSE) runs without a deadline.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    /**
+     * @param deadlineNanos {@link System#nanoTime()} by which the work should be done
+     */
+    public static Scope until(final long deadlineNanos) {
+        final Long previous = CURRENT.get();
+        return open(previous == null || deadlineNanos - previous < 0 ? deadlineNanos : previous);
+    }
+
+    /**
+     * Replaces the deadline of the calling thread, later or not, for work other requests wait on too (a cache load
+     * they share): it must not fail them because its first caller was short on time.
+     *
+     * @param deadlineNanos {@link System#nanoTime()} by which the shared work should be done
+     */
+    public static Scope detached(final long deadlineNanos) {
+        return open(deadlineNanos);
+    }
+
+    /**
+     * @return nanoseconds left, {@link Long#MAX_VALUE} without a deadline, zero or less once it has passed
+     */
+    public static long remainingNanos() {
+        final Long deadline = CURRENT.get();
+        return deadline == null ? Long.MAX_VALUE : deadline - System.nanoTime();
+    }
+
+    private static Scope open(final long deadlineNanos) {
+        final Long previous = CURRENT.get();
+        CURRENT.set(deadlineNanos);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
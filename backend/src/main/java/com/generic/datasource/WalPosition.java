@@ -0,0 +1,34 @@
+package com.generic.datasource;
+
+/**
+ * PostgreSQL write-ahead log position ({@code pg_lsn}), written the way the server prints it: {@code 16/B374D848}.
+ */
+public record WalPosition(long value) implements Comparable<WalPosition> {
+
+    public static WalPosition parse(final String lsn) {
+        final int separator = lsn.indexOf('/');
+        if (separator < 1 || separator == lsn.length() - 1) {
+            throw new IllegalArgumentException("Invalid WAL position [%s]".formatted(lsn));
+        }
+        final long high = Long.parseLong(lsn, 0, separator, 16);
+        final long low = Long.parseLong(lsn, separator + 1, lsn.length(), 16);
+        if (high > 0xFFFFFFFFL || low > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("Invalid WAL position [%s]".formatted(lsn));
+        }
+        return new WalPosition(high << 32 | low);
+    }
+
+    public boolean isAtLeast(final WalPosition other) {
+        return compareTo(other) >= 0;
+    }
+
+    @Override
+    public int compareTo(final WalPosition other) {
+        return Long.compareUnsigned(value, other.value);
+    }
+
+    @Override
+    public String toString() {
+        return "%X/%X".formatted(value >>> 32, value & 0xFFFFFFFFL);
+    }
+}
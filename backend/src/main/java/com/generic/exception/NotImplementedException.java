@@ -0,0 +1,11 @@
+package com.generic.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.NOT_IMPLEMENTED)
+public class NotImplementedException extends RuntimeException {
+    public NotImplementedException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.generic.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.GONE)
+public class ResourceGoneException extends RuntimeException {
+    public ResourceGoneException(final String message) {
+        super(message);
+    }
+}
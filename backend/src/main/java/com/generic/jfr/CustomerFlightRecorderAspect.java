@@ -0,0 +1,82 @@
+package com.generic.jfr;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Emits {@link CustomerRequestEvent} around {@code CustomerController} handlers and {@link CustomerServiceEvent}
+ * around public {@code CustomerService} methods, and opens the {@link CustomerJdbcEvent} of public
+ * {@code CustomerJDBCRepository} and {@code CustomerChangeRepository} methods. Event fields are only filled in when
+ * the event is going to be committed.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(prefix = "customer.jfr", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CustomerFlightRecorderAspect {
+
+    @Around("execution(public * com.generic.customer.CustomerController.*(..))")
+    public Object aroundController(final ProceedingJoinPoint joinPoint) throws Throwable {
+        final CustomerRequestEvent event = new CustomerRequestEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        event.begin();
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            event.exception = e.getClass().getName();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = joinPoint.getSignature().getName();
+                if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+                    final HttpServletRequest request = attributes.getRequest();
+                    event.httpMethod = request.getMethod();
+                    event.path = request.getRequestURI();
+                }
+                event.commit();
+            }
+        }
+    }
+
+    @Around("execution(public * com.generic.customer.CustomerService.*(..))")
+    public Object aroundService(final ProceedingJoinPoint joinPoint) throws Throwable {
+        final CustomerServiceEvent event = new CustomerServiceEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        event.begin();
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            event.exception = e.getClass().getName();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = joinPoint.getSignature().getName();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Keyed by repository and method, so statements run by one repository method from another, like the
+     * {@code existsById} inside {@code update}, are charged to the outer call.
+     */
+    @Around("execution(public * com.generic.customer.CustomerJDBCRepository.*(..))"
+            + " || execution(public * com.generic.customer.CustomerChangeRepository.*(..))")
+    public Object aroundRepository(final ProceedingJoinPoint joinPoint) throws Throwable {
+        try (JdbcRecording.Scope ignored = JdbcRecording.operation(
+                joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName())) {
+            return joinPoint.proceed();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.generic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Timings are spent inside the driver, measured by {@link FlightRecordingDataSource}: bind is the parameter setters,
+ * execution is the execute calls plus fetching rows ({@code ResultSet.next}), mapping is the rest of the result set
+ * lifetime, i.e. reading columns and whatever the caller does per row. Connection acquisition and Spring overhead
+ * make up the remainder of the event duration.
+ * <p>
+ * Disabled by default so that continuous recordings with the stock settings do not pay for it,
+ * {@code jfr/customer.jfc} switches it on.
+ */
+@Name(CustomerJdbcEvent.NAME)
+@Label("Customer JDBC Statement")
+@Category({"Customer", "JDBC"})
+@Description("One CustomerJDBCRepository or CustomerChangeRepository call, keyed by repository and method")
+@Enabled(false)
+@StackTrace(false)
+public class CustomerJdbcEvent extends Event {
+
+    public static final String NAME = "com.generic.CustomerJdbc";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Rows")
+    @Description("Rows read, or rows affected for updates")
+    long rows;
+
+    @Label("Bind Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long bindTime;
+
+    @Label("Execution Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long executionTime;
+
+    @Label("Mapping Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long mappingTime;
+}
@@ -0,0 +1,152 @@
+package com.generic.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Prints per-operation latency breakdowns from a recording made with {@code jfr/customer.jfc}:
+ * <pre>
+ * java -cp target/classes com.generic.jfr.CustomerRecordingReport customer.jfr
+ * </pre>
+ * JDBC statements are attributed to the request or service call that encloses them on the same thread.
+ * Times are in milliseconds: percentiles of the whole call, means for its parts.
+ */
+public final class CustomerRecordingReport {
+
+    private CustomerRecordingReport() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: CustomerRecordingReport <recording.jfr>");
+            System.exit(2);
+        }
+        print(RecordingFile.readAllEvents(Path.of(args[0])), System.out);
+    }
+
+    static void print(final List<RecordedEvent> events, final PrintStream out) {
+        final List<Call> statements = new ArrayList<>();
+        final List<Call> services = new ArrayList<>();
+        final List<Call> requests = new ArrayList<>();
+        for (final RecordedEvent event : events) {
+            switch (event.getEventType().getName()) {
+                case CustomerJdbcEvent.NAME -> statements.add(new Call(event, event.getString("operation")));
+                case CustomerServiceEvent.NAME -> services.add(new Call(event, event.getString("operation")));
+                case CustomerRequestEvent.NAME -> requests.add(new Call(event, event.getString("operation")));
+                default -> {
+                }
+            }
+        }
+        final Map<Long, List<Call>> statementsByThread = new HashMap<>();
+        for (final Call statement : statements) {
+            statementsByThread.computeIfAbsent(statement.threadId, id -> new ArrayList<>()).add(statement);
+        }
+        statementsByThread.values().forEach(list -> list.sort(Comparator.comparing(call -> call.start)));
+
+        out.println("JDBC statements");
+        table(out, statements, call -> List.of(call));
+        out.println();
+        out.println("Service calls");
+        table(out, services, call -> enclosed(call, statementsByThread));
+        out.println();
+        out.println("Requests");
+        table(out, requests, call -> enclosed(call, statementsByThread));
+    }
+
+    private static void table(final PrintStream out, final List<Call> calls, final StatementLookup statements) {
+        out.printf("%-32s %8s %9s %9s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "p50", "p99", "max", "bind", "execute", "mapping", "other", "rows");
+        final Map<String, List<Call>> byName = new TreeMap<>();
+        for (final Call call : calls) {
+            byName.computeIfAbsent(String.valueOf(call.name), name -> new ArrayList<>()).add(call);
+        }
+        byName.forEach((name, group) -> {
+            final long[] durations = group.stream().mapToLong(call -> call.duration).sorted().toArray();
+            long bind = 0, execute = 0, mapping = 0, rows = 0, total = 0;
+            for (final Call call : group) {
+                total += call.duration;
+                for (final Call statement : statements.of(call)) {
+                    bind += statement.bind;
+                    execute += statement.execute;
+                    mapping += statement.mapping;
+                    rows += statement.rows;
+                }
+            }
+            final int count = group.size();
+            out.printf("%-32s %8d %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f %9.1f%n",
+                    name,
+                    count,
+                    millis(percentile(durations, 0.50)),
+                    millis(percentile(durations, 0.99)),
+                    millis(durations[durations.length - 1]),
+                    millis(bind) / count,
+                    millis(execute) / count,
+                    millis(mapping) / count,
+                    millis(total - bind - execute - mapping) / count,
+                    (double) rows / count);
+        });
+    }
+
+    private static List<Call> enclosed(final Call outer, final Map<Long, List<Call>> statementsByThread) {
+        final List<Call> inside = new ArrayList<>();
+        for (final Call statement : statementsByThread.getOrDefault(outer.threadId, List.of())) {
+            if (statement.start.isAfter(outer.end)) {
+                break;
+            }
+            if (!statement.start.isBefore(outer.start) && !statement.end.isAfter(outer.end)) {
+                inside.add(statement);
+            }
+        }
+        return inside;
+    }
+
+    private static long percentile(final long[] sorted, final double quantile) {
+        return sorted[Math.max(0, (int) Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    private static double millis(final long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    @FunctionalInterface
+    private interface StatementLookup {
+        List<Call> of(Call call);
+    }
+
+    private static final class Call {
+
+        private final String name;
+        private final long threadId;
+        private final Instant start;
+        private final Instant end;
+        private final long duration;
+        private final long bind;
+        private final long execute;
+        private final long mapping;
+        private final long rows;
+
+        private Call(final RecordedEvent event, final String name) {
+            final boolean jdbc = event.hasField("bindTime");
+            this.name = name;
+            this.threadId = event.getThread() != null ? event.getThread().getJavaThreadId() : -1;
+            this.start = event.getStartTime();
+            this.end = event.getEndTime();
+            this.duration = event.getDuration().toNanos();
+            this.bind = jdbc ? event.getDuration("bindTime").toNanos() : 0;
+            this.execute = jdbc ? event.getDuration("executionTime").toNanos() : 0;
+            this.mapping = jdbc ? event.getDuration("mappingTime").toNanos() : 0;
+            this.rows = jdbc ? event.getLong("rows") : 0;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.generic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(CustomerRequestEvent.NAME)
+@Label("Customer Request")
+@Category({"Customer", "HTTP"})
+@Description("A CustomerController handler method; JDBC statements recorded on the same thread inside it belong to it")
+@Enabled(false)
+@StackTrace(false)
+public class CustomerRequestEvent extends Event {
+
+    public static final String NAME = "com.generic.CustomerRequest";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("HTTP Method")
+    String httpMethod;
+
+    @Label("Path")
+    String path;
+
+    @Label("Exception")
+    String exception;
+}
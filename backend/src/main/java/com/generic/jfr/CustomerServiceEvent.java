@@ -0,0 +1,26 @@
+package com.generic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(CustomerServiceEvent.NAME)
+@Label("Customer Service Call")
+@Category({"Customer", "Service"})
+@Description("A public CustomerService method")
+@Enabled(false)
+@StackTrace(false)
+public class CustomerServiceEvent extends Event {
+
+    public static final String NAME = "com.generic.CustomerService";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Exception")
+    String exception;
+}
@@ -0,0 +1,26 @@
+package com.generic.jfr;
+
+import com.generic.datasource.DataSourceWrapperPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application {@link DataSource} into a {@link FlightRecordingDataSource}, so {@link CustomerJdbcEvent}
+ * carries bind, execution and mapping times. Events cost nothing until a recording enables them.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "customer.jfr", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class FlightRecorderConfig {
+
+    @Bean
+    static DataSourceWrapperPostProcessor flightRecordingDataSourcePostProcessor() {
+        return new DataSourceWrapperPostProcessor(
+                DataSourceWrapperPostProcessor.FLIGHT_RECORDING,
+                FlightRecordingDataSource.class,
+                FlightRecordingDataSource::new
+        );
+    }
+}
@@ -0,0 +1,143 @@
+package com.generic.jfr;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Splits the driver time of statements run inside a {@link JdbcRecording#operation(String)} scope into bind,
+ * execution and mapping time of its {@link CustomerJdbcEvent}.
+ * <p>
+ * Connections are proxied only if a recording has the event enabled when they are taken from the pool, so with no
+ * recording running JDBC calls are not intercepted at all. A transaction that took its connection before a recording
+ * started is not recorded. Statements and result sets are proxied only while an event is being recorded.
+ */
+public class FlightRecordingDataSource extends DelegatingDataSource {
+
+    public FlightRecordingDataSource(final DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final Connection connection = super.getConnection();
+        return new CustomerJdbcEvent().isEnabled() ? recording(connection) : connection;
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        final Connection connection = super.getConnection(username, password);
+        return new CustomerJdbcEvent().isEnabled() ? recording(connection) : connection;
+    }
+
+    private static Connection recording(final Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    final Object result = invoke(connection, method, args);
+                    final CustomerJdbcEvent event = JdbcRecording.current();
+                    if (event != null && result instanceof Statement statement) {
+                        return recording(statement, method.getReturnType(), event);
+                    }
+                    return result;
+                }
+        );
+    }
+
+    private static Object recording(final Statement statement, final Class<?> type, final CustomerJdbcEvent event) {
+        return Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    final String name = method.getName();
+                    final long start = System.nanoTime();
+                    final Object result = invoke(statement, method, args);
+                    final long elapsed = System.nanoTime() - start;
+
+                    if (isBind(name, args)) {
+                        event.bindTime += elapsed;
+                    } else if (name.startsWith("execute")) {
+                        event.executionTime += elapsed;
+                        event.rows += affectedRows(result);
+                    }
+                    if (result instanceof ResultSet resultSet) {
+                        // generated keys echo inserted rows, which executeBatch/executeUpdate have already counted
+                        return recording(resultSet, event, !"getGeneratedKeys".equals(name));
+                    }
+                    return result;
+                }
+        );
+    }
+
+    private static ResultSet recording(final ResultSet resultSet, final CustomerJdbcEvent event, final boolean countRows) {
+        final long opened = System.nanoTime();
+        final long[] fetchTime = new long[1];
+        final boolean[] closed = new boolean[1];
+        return (ResultSet) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    final String name = method.getName();
+                    if ("next".equals(name)) {
+                        final long start = System.nanoTime();
+                        final Object hasRow = invoke(resultSet, method, args);
+                        final long elapsed = System.nanoTime() - start;
+                        fetchTime[0] += elapsed;
+                        event.executionTime += elapsed;
+                        if (countRows && Boolean.TRUE.equals(hasRow)) {
+                            event.rows++;
+                        }
+                        return hasRow;
+                    }
+                    if ("close".equals(name) && !closed[0]) {
+                        closed[0] = true;
+                        event.mappingTime += System.nanoTime() - opened - fetchTime[0];
+                    }
+                    return invoke(resultSet, method, args);
+                }
+        );
+    }
+
+    private static boolean isBind(final String name, final Object[] args) {
+        // setXxx(parameterIndex, value...), not statement options such as setFetchSize(rows)
+        return name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer
+                || "addBatch".equals(name)
+                || "clearParameters".equals(name);
+    }
+
+    private static long affectedRows(final Object result) {
+        if (result instanceof Integer count) {
+            return Math.max(count, 0);
+        }
+        if (result instanceof Long count) {
+            return Math.max(count, 0);
+        }
+        long rows = 0;
+        if (result instanceof int[] counts) {
+            for (final int count : counts) {
+                rows += Math.max(count, 0);
+            }
+        } else if (result instanceof long[] counts) {
+            for (final long count : counts) {
+                rows += Math.max(count, 0);
+            }
+        }
+        return rows;
+    }
+
+    private static Object invoke(final Object target, final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
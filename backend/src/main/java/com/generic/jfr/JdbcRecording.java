@@ -0,0 +1,50 @@
+package com.generic.jfr;
+
+/**
+ * Names the repository operation the current thread is running, so that {@link FlightRecordingDataSource} knows which
+ * {@link CustomerJdbcEvent} to charge. Nothing is tracked unless a recording has the event enabled.
+ */
+final class JdbcRecording {
+
+    private static final ThreadLocal<CustomerJdbcEvent> CURRENT = new ThreadLocal<>();
+    private static final Scope NOOP = () -> {
+    };
+
+    private JdbcRecording() {
+    }
+
+    /**
+     * @param operation repository and method, e.g. {@code CustomerJDBCRepository.findById}
+     */
+    static Scope operation(final String operation) {
+        final CustomerJdbcEvent event = new CustomerJdbcEvent();
+        if (!event.isEnabled()) {
+            return NOOP;
+        }
+        event.operation = operation;
+        final CustomerJdbcEvent previous = CURRENT.get();
+        CURRENT.set(event);
+        event.begin();
+        return () -> {
+            event.end();
+            if (event.shouldCommit()) {
+                event.commit();
+            }
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    static CustomerJdbcEvent current() {
+        return CURRENT.get();
+    }
+
+    @FunctionalInterface
+    interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,128 @@
+package com.generic.web;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrency limit that follows latency, after Netflix's Gradient2: the average latency of each short window is
+ * compared with a long-term average, a window slower than {@code tolerance} times the long average shrinks the limit
+ * proportionally (by at most half, at once), otherwise it grows by a smoothed share of its square root. Requests beyond the limit are not
+ * queued, the caller rejects them right away.
+ * <p>
+ * The long average drifts with the load, so a lasting slowdown is eventually accepted as the new normal; it is pulled
+ * down faster once latency recovers. The limit is not raised while less than half of it is in use, so quiet periods do
+ * not inflate it.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    // long-term average over about 600 windows' worth of smoothing
+    private static final double LONG_RTT_ALPHA = 2.0 / (600 + 1);
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final long windowNanos;
+    private final LongSupplier nanoTime;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    // guarded by this
+    private double estimatedLimit;
+    private double longRtt;
+    private long windowStart;
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+
+    AdaptiveConcurrencyLimit(
+            final int initialLimit,
+            final int minLimit,
+            final int maxLimit,
+            final double tolerance,
+            final double smoothing,
+            final long windowNanos,
+            final LongSupplier nanoTime
+    ) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.windowNanos = windowNanos;
+        this.nanoTime = nanoTime;
+        this.estimatedLimit = Math.clamp(initialLimit, minLimit, maxLimit);
+        this.limit = (int) estimatedLimit;
+        this.windowStart = nanoTime.getAsLong();
+    }
+
+    /**
+     * @return in-flight count including this request, {@code 0} if the limit is reached and the request must be rejected
+     */
+    int tryAcquire() {
+        while (true) {
+            final int current = inFlight.get();
+            if (current >= limit) {
+                return 0;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * @param rttNanos     time the request held its permit, negative to release without a sample (e.g. async requests)
+     * @param inFlightSeen what {@link #tryAcquire()} returned for it
+     */
+    void release(final long rttNanos, final int inFlightSeen) {
+        inFlight.decrementAndGet();
+        if (rttNanos >= 0) {
+            sample(rttNanos, inFlightSeen);
+        }
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void sample(final long rttNanos, final int inFlightSeen) {
+        windowRttSum += rttNanos;
+        windowSamples++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightSeen);
+        final long now = nanoTime.getAsLong();
+        if (windowSamples < MIN_WINDOW_SAMPLES || now - windowStart < windowNanos) {
+            return;
+        }
+        final double shortRtt = (double) windowRttSum / windowSamples;
+        final int maxInFlight = windowMaxInFlight;
+        windowStart = now;
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+        } else {
+            longRtt += (shortRtt - longRtt) * LONG_RTT_ALPHA;
+        }
+        // latency is back well below the long average: let the average catch up instead of allowing a burst
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        if (maxInFlight < estimatedLimit / 2) {
+            return;
+        }
+        final double gradient = Math.clamp(tolerance * longRtt / shortRtt, 0.5, 1.0);
+        final double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        // growth is smoothed, a drop is taken at once: the limit may have grown well past the current load
+        final double next = target < estimatedLimit ? target : estimatedLimit * (1 - smoothing) + target * smoothing;
+        estimatedLimit = Math.clamp(next, minLimit, maxLimit);
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,306 @@
+package com.generic.web;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.List;
+
+/**
+ * Holds back the first {@code minResponseSize} bytes of the body. Once more arrive, the body is compressed
+ * if its content type is one of {@code mimeTypes}, otherwise it is passed through; a body that ends within the
+ * threshold goes out as it is. {@code Content-Length} set by the handler is kept back until that decision is made.
+ */
+class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+    private enum State {
+        BUFFERING,
+        COMPRESSING,
+        IDENTITY
+    }
+
+    private final ContentCoding coding;
+    private final byte[] buffer;
+    private final List<MimeType> mimeTypes;
+    private final int zstdLevel;
+
+    private State state = State.BUFFERING;
+    private int count;
+    private long contentLength = -1;
+    private OutputStream compressor;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+    private boolean finished;
+
+    CompressingResponseWrapper(
+            final HttpServletResponse response,
+            final ContentCoding coding,
+            final int minResponseSize,
+            final List<MimeType> mimeTypes,
+            final int zstdLevel
+    ) {
+        super(response);
+        this.coding = coding;
+        this.buffer = new byte[minResponseSize];
+        this.mimeTypes = mimeTypes;
+        this.zstdLevel = zstdLevel;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() has already been called for this response");
+        }
+        if (outputStream == null) {
+            outputStream = new CompressingOutputStream();
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            if (outputStream != null) {
+                throw new IllegalStateException("getOutputStream() has already been called for this response");
+            }
+            outputStream = new CompressingOutputStream();
+            writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(final int length) {
+        setContentLengthLong(length);
+    }
+
+    @Override
+    public void setContentLengthLong(final long length) {
+        if (state == State.IDENTITY) {
+            super.setContentLengthLong(length);
+        } else {
+            contentLength = length;
+        }
+    }
+
+    @Override
+    public void setHeader(final String name, final String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value == null ? -1 : Long.parseLong(value));
+        } else {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(final String name, final String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+        } else {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(final String name, final int value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.setIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addIntHeader(final String name, final int value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.addIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        passThroughIfNotCompressible();
+        if (state == State.COMPRESSING) {
+            compressor.flush();
+        } else if (state == State.IDENTITY) {
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        if (state == State.BUFFERING) {
+            count = 0;
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        if (state == State.BUFFERING) {
+            count = 0;
+            contentLength = -1;
+        }
+    }
+
+    /**
+     * Writes out whatever is still held back and ends the compressed stream.
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        if (writer != null) {
+            writer.flush();
+        }
+        finished = true;
+        switch (state) {
+            case BUFFERING -> {
+                state = State.IDENTITY;
+                if (contentLength >= 0) {
+                    super.setContentLengthLong(contentLength);
+                }
+                if (count > 0) {
+                    getResponse().getOutputStream().write(buffer, 0, count);
+                }
+            }
+            case COMPRESSING -> compressor.close();
+            case IDENTITY -> {
+            }
+        }
+    }
+
+    /**
+     * Releases the compressor after a failed request without writing held back bytes, the error response replaces them.
+     */
+    void abort() {
+        finished = true;
+        if (compressor != null) {
+            try {
+                compressor.close();
+            } catch (IOException ignored) {
+                // the client is most likely gone, nothing left to tell it
+            }
+        }
+    }
+
+    private void write(final byte[] bytes, final int offset, final int length) throws IOException {
+        if (finished) {
+            throw new IOException("Response has already been completed");
+        }
+        if (state == State.BUFFERING) {
+            if (count + length <= buffer.length) {
+                System.arraycopy(bytes, offset, buffer, count, length);
+                count += length;
+                return;
+            }
+            startBody();
+        }
+        if (state == State.COMPRESSING) {
+            compressor.write(bytes, offset, length);
+        } else {
+            getResponse().getOutputStream().write(bytes, offset, length);
+        }
+    }
+
+    private void startBody() throws IOException {
+        if (isCompressible()) {
+            state = State.COMPRESSING;
+            super.setHeader(HttpHeaders.CONTENT_ENCODING, coding.token());
+            compressor = coding.wrap(getResponse().getOutputStream(), zstdLevel);
+            compressor.write(buffer, 0, count);
+        } else {
+            state = State.IDENTITY;
+            if (contentLength >= 0) {
+                super.setContentLengthLong(contentLength);
+            }
+            getResponse().getOutputStream().write(buffer, 0, count);
+        }
+        count = 0;
+    }
+
+    /**
+     * A body that will not be compressed anyway goes out from the first flush on, so streams that are not
+     * in {@code mimeTypes} (e.g. server-sent events) are not held back until the threshold.
+     */
+    private void passThroughIfNotCompressible() throws IOException {
+        if (state == State.BUFFERING && getContentType() != null && !isCompressible()) {
+            startBody();
+        }
+    }
+
+    private boolean isCompressible() {
+        final String contentType = getContentType();
+        if (contentType == null || getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+            return false;
+        }
+        final MimeType mimeType = MimeTypeUtils.parseMimeType(contentType);
+        return mimeTypes.stream().anyMatch(candidate -> candidate.isCompatibleWith(mimeType));
+    }
+
+    private final class CompressingOutputStream extends ServletOutputStream {
+
+        private final byte[] single = new byte[1];
+
+        @Override
+        public void write(final int b) throws IOException {
+            single[0] = (byte) b;
+            CompressingResponseWrapper.this.write(single, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+            CompressingResponseWrapper.this.write(bytes, offset, length);
+        }
+
+        /**
+         * Held back bytes of a compressible body stay held back, flushing them would decide the encoding too early.
+         */
+        @Override
+        public void flush() throws IOException {
+            passThroughIfNotCompressible();
+            if (state == State.COMPRESSING) {
+                compressor.flush();
+            } else if (state == State.IDENTITY) {
+                getResponse().getOutputStream().flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        @Override
+        public boolean isReady() {
+            try {
+                return getResponse().getOutputStream().isReady();
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener writeListener) {
+            try {
+                getResponse().getOutputStream().setWriteListener(writeListener);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
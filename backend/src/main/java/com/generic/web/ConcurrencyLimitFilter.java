@@ -0,0 +1,127 @@
+package com.generic.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Sheds load on {@code /api/v1/customers} before it reaches {@code CustomerService}: reads ({@code GET}, {@code HEAD})
+ * and writes each get an {@link AdaptiveConcurrencyLimit}, requests over it are answered right away with
+ * {@code customer.concurrency-limit.rejection-status} and {@code Retry-After} instead of waiting for a pool connection.
+ * <p>
+ * Async requests ({@code GET /api/v1/customers/stream}) give their permit back once the handler has started them and
+ * are not sampled, their duration says nothing about the database.
+ */
+@Component
+@Profile("!reactive")
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+@ConditionalOnProperty(prefix = "customer.concurrency-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String PATH = "/api/v1/customers";
+
+    private final AdaptiveConcurrencyLimit reads;
+    private final AdaptiveConcurrencyLimit writes;
+    private final int rejectionStatus;
+    private final String retryAfter;
+    private final Counter readsRejected;
+    private final Counter writesRejected;
+
+    @Autowired
+    public ConcurrencyLimitFilter(
+            @Value("${customer.concurrency-limit.initial-limit:20}") final int initialLimit,
+            @Value("${customer.concurrency-limit.min-limit:4}") final int minLimit,
+            @Value("${customer.concurrency-limit.max-limit:200}") final int maxLimit,
+            @Value("${customer.concurrency-limit.tolerance:1.5}") final double tolerance,
+            @Value("${customer.concurrency-limit.smoothing:0.2}") final double smoothing,
+            @Value("${customer.concurrency-limit.window:100ms}") final Duration window,
+            @Value("${customer.concurrency-limit.rejection-status:503}") final int rejectionStatus,
+            @Value("${customer.concurrency-limit.retry-after:1s}") final Duration retryAfter,
+            final MeterRegistry meterRegistry
+    ) {
+        this(
+                new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, tolerance, smoothing, window.toNanos(), System::nanoTime),
+                new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, tolerance, smoothing, window.toNanos(), System::nanoTime),
+                rejectionStatus,
+                retryAfter,
+                meterRegistry
+        );
+    }
+
+    ConcurrencyLimitFilter(
+            final AdaptiveConcurrencyLimit reads,
+            final AdaptiveConcurrencyLimit writes,
+            final int rejectionStatus,
+            final Duration retryAfter,
+            final MeterRegistry meterRegistry
+    ) {
+        this.reads = reads;
+        this.writes = writes;
+        this.rejectionStatus = rejectionStatus;
+        // Retry-After takes whole seconds
+        this.retryAfter = Long.toString(Math.max(1, retryAfter.toSeconds()));
+        this.readsRejected = register(meterRegistry, "read", reads);
+        this.writesRejected = register(meterRegistry, "write", writes);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        final String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.equals(PATH) && !path.startsWith(PATH + "/");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            final HttpServletRequest request,
+            final HttpServletResponse response,
+            final FilterChain filterChain
+    ) throws ServletException, IOException {
+        final boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+        final AdaptiveConcurrencyLimit limit = read ? reads : writes;
+        final int inFlight = limit.tryAcquire();
+        if (inFlight == 0) {
+            (read ? readsRejected : writesRejected).increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            response.sendError(rejectionStatus, "Too many concurrent requests, retry later");
+            return;
+        }
+        final long started = System.nanoTime();
+        boolean sampled = false;
+        try {
+            filterChain.doFilter(request, response);
+            sampled = !request.isAsyncStarted();
+        } finally {
+            // requests that throw are released without a sample, they are often faster than the work they skipped
+            limit.release(sampled ? System.nanoTime() - started : -1, inFlight);
+        }
+    }
+
+    private static Counter register(final MeterRegistry meterRegistry, final String kind, final AdaptiveConcurrencyLimit limit) {
+        Gauge.builder("customer.concurrency.limit", limit, AdaptiveConcurrencyLimit::limit)
+                .tag("kind", kind)
+                .register(meterRegistry);
+        Gauge.builder("customer.concurrency.inflight", limit, AdaptiveConcurrencyLimit::inFlight)
+                .tag("kind", kind)
+                .register(meterRegistry);
+        return Counter.builder("customer.concurrency.rejected")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,108 @@
+package com.generic.web;
+
+import com.github.luben.zstd.ZstdOutputStreamNoFinalizer;
+import com.github.luben.zstd.util.Native;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Enumeration;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Response codings of {@link ResponseCompressionFilter}, in order of preference when a client accepts several
+ * with the same quality.
+ */
+enum ContentCoding {
+
+    ZSTD("zstd") {
+        @Override
+        OutputStream wrap(final OutputStream out, final int zstdLevel) throws IOException {
+            return new ZstdOutputStreamNoFinalizer(out, zstdLevel);
+        }
+
+        @Override
+        boolean isAvailable() {
+            return ZSTD_LOADED;
+        }
+    },
+    GZIP("gzip") {
+        @Override
+        OutputStream wrap(final OutputStream out, final int zstdLevel) throws IOException {
+            // sync flush, so that rows flushed by streaming endpoints reach the client
+            return new GZIPOutputStream(out, 8192, true);
+        }
+    };
+
+    /**
+     * zstd-jni ships its library for the common platforms only, on any other one responses fall back to gzip.
+     */
+    private static final boolean ZSTD_LOADED = loadZstd();
+
+    private final String token;
+
+    ContentCoding(final String token) {
+        this.token = token;
+    }
+
+    String token() {
+        return token;
+    }
+
+    abstract OutputStream wrap(OutputStream out, int zstdLevel) throws IOException;
+
+    boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * The coding with the highest {@code Accept-Encoding} quality, {@code null} if the client accepts none of them.
+     * A bare {@code *} is not taken as zstd support, many clients sending it only decode gzip.
+     */
+    static ContentCoding negotiate(final HttpServletRequest request) {
+        final double[] qualities = new double[values().length];
+        final Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (headers.hasMoreElements()) {
+            for (final String element : headers.nextElement().split(",")) {
+                final String[] parts = element.split(";");
+                final String name = parts[0].strip();
+                final double quality = parts.length > 1 ? quality(parts[1].strip()) : 1;
+                for (final ContentCoding coding : values()) {
+                    if (coding.token.equalsIgnoreCase(name)) {
+                        qualities[coding.ordinal()] = quality;
+                    }
+                }
+            }
+        }
+        ContentCoding best = null;
+        for (final ContentCoding coding : values()) {
+            if (coding.isAvailable()
+                    && qualities[coding.ordinal()] > 0
+                    && (best == null || qualities[coding.ordinal()] > qualities[best.ordinal()])) {
+                best = coding;
+            }
+        }
+        return best;
+    }
+
+    private static boolean loadZstd() {
+        try {
+            Native.load();
+            return true;
+        } catch (UnsatisfiedLinkError e) {
+            return false;
+        }
+    }
+
+    private static double quality(final String parameter) {
+        if (!parameter.startsWith("q=")) {
+            return 1;
+        }
+        try {
+            return Double.parseDouble(parameter.substring(2));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.generic.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Registers {@link RequestDeadlineInterceptor} for {@code /api/v1/customers}.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "customer.deadline", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RequestDeadlineConfig implements WebMvcConfigurer {
+
+    private final RequestDeadlineInterceptor interceptor;
+
+    public RequestDeadlineConfig(
+            @Value("${customer.deadline.default-timeout:5s}") final Duration defaultTimeout,
+            final Environment environment,
+            final MeterRegistry meterRegistry
+    ) {
+        this.interceptor = new RequestDeadlineInterceptor(defaultTimeout, environment::resolveRequiredPlaceholders, meterRegistry);
+    }
+
+    @Override
+    public void addInterceptors(final InterceptorRegistry registry) {
+        registry.addInterceptor(interceptor).addPathPatterns("/api/v1/customers", "/api/v1/customers/**");
+    }
+}
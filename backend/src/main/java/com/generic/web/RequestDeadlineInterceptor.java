@@ -0,0 +1,115 @@
+package com.generic.web;
+
+import com.generic.datasource.RequestDeadline;
+import com.generic.exception.DeadlineExceededException;
+import com.generic.exception.RequestValidationException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.util.StringValueResolver;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opens a {@link RequestDeadline} around each handler call, enforced on the JDBC side by
+ * {@code DeadlineDataSource}. The timeout is the handler's {@link RequestTimeout} or
+ * {@code customer.deadline.default-timeout}; a client may shorten it with the {@value #HEADER} header
+ * ({@code 1500ms}, {@code 2s}, plain numbers are milliseconds), never extend it. A request with no time left is
+ * rejected with {@code 504} before the handler runs.
+ * <p>
+ * The deadline counts from the moment the handler is picked and only covers the request thread: the bodies of
+ * streaming and SSE responses are written later by other threads and run without one.
+ */
+public class RequestDeadlineInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String HEADER = "X-Request-Timeout";
+
+    private static final String SCOPE_ATTRIBUTE = RequestDeadlineInterceptor.class.getName() + ".SCOPE";
+
+    private final long defaultTimeoutNanos;
+    private final StringValueResolver placeholders;
+    private final Map<Method, Long> timeouts = new ConcurrentHashMap<>();
+    private final Counter expired;
+
+    /**
+     * @param placeholders resolves {@code ${...}} in {@link RequestTimeout} values
+     */
+    public RequestDeadlineInterceptor(
+            final Duration defaultTimeout,
+            final StringValueResolver placeholders,
+            final MeterRegistry meterRegistry
+    ) {
+        this.defaultTimeoutNanos = defaultTimeout.toNanos();
+        this.placeholders = placeholders;
+        this.expired = Counter.builder("customer.deadline.exceeded")
+                .tag("stage", "request")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(
+            final HttpServletRequest request,
+            final HttpServletResponse response,
+            final Object handler
+    ) {
+        final long started = System.nanoTime();
+        long timeout = handler instanceof HandlerMethod handlerMethod ? timeout(handlerMethod) : defaultTimeoutNanos;
+        final String header = request.getHeader(HEADER);
+        if (header != null) {
+            try {
+                timeout = Math.min(timeout, DurationStyle.detectAndParse(header.strip()).toNanos());
+            } catch (IllegalArgumentException e) {
+                throw new RequestValidationException("Passed %s [%s] is invalid".formatted(HEADER, header));
+            }
+        }
+        if (timeout <= 0) {
+            expired.increment();
+            throw new DeadlineExceededException("Request deadline passed before it was handled");
+        }
+        request.setAttribute(SCOPE_ATTRIBUTE, RequestDeadline.until(started + timeout));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(
+            final HttpServletRequest request,
+            final HttpServletResponse response,
+            final Object handler
+    ) {
+        close(request);
+    }
+
+    @Override
+    public void afterCompletion(
+            final HttpServletRequest request,
+            final HttpServletResponse response,
+            final Object handler,
+            final Exception ex
+    ) {
+        close(request);
+    }
+
+    private long timeout(final HandlerMethod handlerMethod) {
+        return timeouts.computeIfAbsent(handlerMethod.getMethod(), method -> {
+            final RequestTimeout annotation = handlerMethod.getMethodAnnotation(RequestTimeout.class);
+            if (annotation == null) {
+                return defaultTimeoutNanos;
+            }
+            return DurationStyle.detectAndParse(placeholders.resolveStringValue(annotation.value())).toNanos();
+        });
+    }
+
+    private static void close(final HttpServletRequest request) {
+        if (request.getAttribute(SCOPE_ATTRIBUTE) instanceof RequestDeadline.Scope scope) {
+            request.removeAttribute(SCOPE_ATTRIBUTE);
+            scope.close();
+        }
+    }
+}
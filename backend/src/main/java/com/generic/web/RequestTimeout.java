@@ -0,0 +1,22 @@
+package com.generic.web;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Deadline of a handler method in place of {@code customer.deadline.default-timeout}, see
+ * {@link RequestDeadlineInterceptor}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequestTimeout {
+
+    /**
+     * Duration such as {@code 30s} or {@code 500ms}, may be a {@code ${...}} placeholder with a default.
+     */
+    String value();
+}
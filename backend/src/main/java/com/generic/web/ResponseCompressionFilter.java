@@ -0,0 +1,100 @@
+package com.generic.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * zstd or gzip response bodies, whichever the client's {@code Accept-Encoding} prefers (zstd on a tie).
+ * Bodies shorter than {@code customer.compression.min-response-size} and types outside of
+ * {@code customer.compression.mime-types} are sent as they are.
+ * <p>
+ * Used instead of Tomcat's {@code server.compression}: Tomcat only knows gzip, gzips bodies that are already
+ * zstd-encoded, and cannot apply its threshold to Jackson responses, which are flushed before their length is known.
+ * Async requests ({@code GET /api/v1/customers/stream}) keep one {@link CompressingResponseWrapper} across dispatches,
+ * the compressed stream is closed when the last dispatch completes.
+ */
+@Component
+@Profile("!reactive")
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(prefix = "customer.compression", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCompressionFilter extends OncePerRequestFilter {
+
+    private static final String WRAPPER_ATTRIBUTE = ResponseCompressionFilter.class.getName() + ".WRAPPER";
+
+    private final int minResponseSize;
+    private final List<MimeType> mimeTypes;
+    private final int zstdLevel;
+
+    @Autowired
+    public ResponseCompressionFilter(
+            @Value("${customer.compression.min-response-size:2KB}") final DataSize minResponseSize,
+            @Value("${customer.compression.mime-types:application/json,application/x-ndjson}") final String[] mimeTypes,
+            @Value("${customer.compression.zstd-level:3}") final int zstdLevel
+    ) {
+        this(
+                (int) minResponseSize.toBytes(),
+                Arrays.stream(mimeTypes).map(String::strip).map(MimeTypeUtils::parseMimeType).toList(),
+                zstdLevel
+        );
+    }
+
+    ResponseCompressionFilter(final int minResponseSize, final List<MimeType> mimeTypes, final int zstdLevel) {
+        this.minResponseSize = minResponseSize;
+        this.mimeTypes = mimeTypes;
+        this.zstdLevel = zstdLevel;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            final HttpServletRequest request,
+            final HttpServletResponse response,
+            final FilterChain filterChain
+    ) throws ServletException, IOException {
+        CompressingResponseWrapper wrapper = (CompressingResponseWrapper) request.getAttribute(WRAPPER_ATTRIBUTE);
+        if (wrapper == null) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            final ContentCoding coding = ContentCoding.negotiate(request);
+            if (coding == null) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            wrapper = new CompressingResponseWrapper(response, coding, minResponseSize, mimeTypes, zstdLevel);
+        }
+        try {
+            filterChain.doFilter(request, wrapper);
+        } catch (IOException | ServletException | RuntimeException e) {
+            request.removeAttribute(WRAPPER_ATTRIBUTE);
+            wrapper.abort();
+            throw e;
+        }
+        if (request.isAsyncStarted()) {
+            request.setAttribute(WRAPPER_ATTRIBUTE, wrapper);
+        } else {
+            request.removeAttribute(WRAPPER_ATTRIBUTE);
+            wrapper.finish();
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+}
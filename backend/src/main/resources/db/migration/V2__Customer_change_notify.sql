@@ -0,0 +1,50 @@
+-- Publishes ids of changed customers on the customer_changes channel so every node can evict its local cache.
+-- Statement-level triggers keep bulk writes to one notification; large statements send '*' (evict everything)
+-- instead of a payload that would not fit into the 8000 byte NOTIFY limit.
+CREATE FUNCTION notify_customer_change() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    changed_count BIGINT;
+    changed_ids   TEXT;
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        SELECT count(*) INTO changed_count FROM old_rows;
+    ELSE
+        SELECT count(*) INTO changed_count FROM new_rows;
+    END IF;
+
+    IF changed_count = 0 THEN
+        RETURN NULL;
+    END IF;
+
+    IF changed_count > 256 THEN
+        PERFORM pg_notify('customer_changes', '*');
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP = 'DELETE' THEN
+        SELECT string_agg(id::TEXT, ',') INTO changed_ids FROM old_rows;
+    ELSE
+        SELECT string_agg(id::TEXT, ',') INTO changed_ids FROM new_rows;
+    END IF;
+
+    PERFORM pg_notify('customer_changes', changed_ids);
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER customer_insert_notify
+    AFTER INSERT ON customer
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_customer_change();
+
+CREATE TRIGGER customer_update_notify
+    AFTER UPDATE ON customer
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_customer_change();
+
+CREATE TRIGGER customer_delete_notify
+    AFTER DELETE ON customer
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_customer_change();
@@ -0,0 +1,2 @@
+-- Trigram operator classes for the substring filters of the customer search (name, email domain).
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
@@ -0,0 +1,11 @@
+-- Indexes behind GET /api/v1/customers/search.
+-- Built in the migration transaction, which blocks writes to customer while it runs; on a large live table
+-- create them beforehand with CREATE INDEX CONCURRENTLY under the same names, IF NOT EXISTS makes this a no-op then.
+
+-- age range filters plus keyset pagination ordered by (age, id)
+CREATE INDEX IF NOT EXISTS customer_age_id_idx ON customer (age, id);
+-- keyset pagination ordered by (name, id), email ordering is served by customer_email_unique
+CREATE INDEX IF NOT EXISTS customer_name_id_idx ON customer (name, id);
+-- ILIKE '%...%' on name and ILIKE '%@domain' on email
+CREATE INDEX IF NOT EXISTS customer_name_trgm_idx ON customer USING gin (name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS customer_email_trgm_idx ON customer USING gin (email gin_trgm_ops);
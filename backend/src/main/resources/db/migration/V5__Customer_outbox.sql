@@ -0,0 +1,31 @@
+-- Transactional outbox behind GET /api/v1/customers/changes.
+-- CustomerJDBCRepository and CustomerR2DBCRepository write a row here in the same statement as every customer change,
+-- under the customer's row lock, so ids of one customer's rows follow the order its writes took effect.
+-- CustomerChangeFeed moves rows to customer_change in id order, stopping before the first row of a transaction at or
+-- above the snapshot xmin, and numbers them there.
+CREATE TABLE customer_outbox(
+  id BIGSERIAL PRIMARY KEY,
+  txid XID8 NOT NULL DEFAULT pg_current_xact_id(),
+  customer_id BIGINT NOT NULL,
+  type TEXT NOT NULL,
+  name TEXT,
+  age INT,
+  email TEXT,
+  occurred_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- the published feed, positions are gapless and follow the order of writes to each customer, which is what makes
+-- offsets resumable
+CREATE TABLE customer_change(
+  position BIGINT PRIMARY KEY,
+  customer_id BIGINT NOT NULL,
+  type TEXT NOT NULL,
+  name TEXT,
+  age INT,
+  email TEXT,
+  occurred_at TIMESTAMPTZ NOT NULL,
+  published_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- retention purge
+CREATE INDEX customer_change_published_at_idx ON customer_change (published_at);
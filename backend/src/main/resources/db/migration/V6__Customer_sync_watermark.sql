@@ -0,0 +1,50 @@
+-- Delta sync behind GET /api/v1/customers/delta: rows and tombstones stamped with the start time of the
+-- transaction that wrote them, read in (timestamp, id) order up to a watermark (see CustomerJDBCRepository.changedSince).
+-- now() is stable, so existing rows get the migration time without a table rewrite.
+ALTER TABLE customer
+  ADD COLUMN created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  ADD COLUMN updated_at TIMESTAMPTZ NOT NULL DEFAULT now();
+
+CREATE FUNCTION touch_customer() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    NEW.created_at := OLD.created_at;
+    -- updates that write the same values (e.g. PUT /batch) leave the row out of the next delta
+    IF (NEW.name, NEW.age, NEW.email) IS DISTINCT FROM (OLD.name, OLD.age, OLD.email) THEN
+        NEW.updated_at := now();
+    ELSE
+        NEW.updated_at := OLD.updated_at;
+    END IF;
+    RETURN NEW;
+END;
+$$;
+
+CREATE TRIGGER customer_touch
+    BEFORE UPDATE ON customer
+    FOR EACH ROW EXECUTE FUNCTION touch_customer();
+
+-- ids are never reused, one tombstone per deleted customer is kept for good
+CREATE TABLE customer_tombstone(
+  id BIGINT PRIMARY KEY,
+  deleted_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE FUNCTION bury_customers() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    INSERT INTO customer_tombstone(id, deleted_at)
+    SELECT id, now() FROM old_rows
+    ON CONFLICT (id) DO UPDATE SET deleted_at = EXCLUDED.deleted_at;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER customer_delete_tombstone
+    AFTER DELETE ON customer
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bury_customers();
+
+CREATE INDEX customer_updated_at_id_idx ON customer (updated_at, id);
+CREATE INDEX customer_tombstone_deleted_at_id_idx ON customer_tombstone (deleted_at, id);
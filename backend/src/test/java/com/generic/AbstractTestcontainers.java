@@ -63,10 +63,13 @@ public abstract class AbstractTestcontainers {
         flyway.migrate();
     }
 
+    /**
+     * Driver settings as in application.yml, so repository code sees the same update counts as in production
+     */
     private static DataSource dataSource() {
         return DataSourceBuilder.create()
                 .driverClassName(postgreSQLContainer.getDriverClassName())
-                .url(postgreSQLContainer.getJdbcUrl())
+                .url(postgreSQLContainer.getJdbcUrl() + "&reWriteBatchedInserts=true")
                 .username(postgreSQLContainer.getUsername())
                 .password(postgreSQLContainer.getPassword())
                 .build();
@@ -0,0 +1,44 @@
+package com.generic;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AotProfileCheckTest {
+
+    @Test
+    void acceptsTheProfilesAotCodeWasGeneratedFor() {
+        // Given
+        final MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("lean");
+
+        // Then
+        assertThatNoException().isThrownBy(() -> new AotProfileCheck(true).check(environment));
+    }
+
+    @Test
+    void rejectsOtherProfilesUnderAot() {
+        // Given
+        final MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("lean", "replicas");
+
+        // Then
+        assertThatThrownBy(() -> new AotProfileCheck(true).check(environment))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("replicas");
+        assertThatThrownBy(() -> new AotProfileCheck(true).check(new MockEnvironment()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void ignoresProfilesWithoutAot() {
+        // Given
+        final MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("replicas", "virtual-threads");
+
+        // Then
+        assertThatNoException().isThrownBy(() -> new AotProfileCheck(false).check(environment));
+    }
+}
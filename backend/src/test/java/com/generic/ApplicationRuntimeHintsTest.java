@@ -0,0 +1,30 @@
+package com.generic;
+
+import com.generic.customer.CustomerRegistrationRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ApplicationRuntimeHintsTest {
+
+    @Test
+    void registersHints() {
+        // Given
+        final RuntimeHints hints = new RuntimeHints();
+
+        // When
+        new ApplicationRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        // Then
+        assertThat(RuntimeHintsPredicates.proxies().forInterfaces(Connection.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(PreparedStatement.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(CustomerRegistrationRequest.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("jfr/customer.jfc")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("linux/amd64/libzstd-jni-1.5.5-11.so")).accepts(hints);
+    }
+}
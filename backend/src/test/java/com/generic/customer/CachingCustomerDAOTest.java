@@ -0,0 +1,345 @@
+package com.generic.customer;
+
+import com.generic.datasource.RequestDeadline;
+import com.generic.exception.DeadlineExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingCustomerDAOTest {
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+    private static final Duration NEGATIVE_TTL = Duration.ofMinutes(1);
+
+    private CachingCustomerDAO underTest;
+    private SimpleMeterRegistry meterRegistry;
+    @Mock
+    private CustomerDAO customerDAO;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new CachingCustomerDAO(
+                customerDAO,
+                new CaffeineCustomerCache(loader(null), 1_000, TTL, NEGATIVE_TTL, meterRegistry)
+        );
+    }
+
+    @Test
+    void findByIdReadsThroughOnce() {
+        // Given
+        Customer customer = new Customer(1L, "Alex", 19, "alex@gmail.com");
+        when(customerDAO.findById(1L)).thenReturn(Optional.of(customer));
+
+        // When
+        underTest.findById(1L);
+        Optional<Customer> actual = underTest.findById(1L);
+
+        // Then
+        assertThat(actual).contains(customer);
+        verify(customerDAO, times(1)).findById(1L);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void missingCustomersAreCachedToo() {
+        // Given
+        when(customerDAO.findById(1L)).thenReturn(Optional.empty());
+
+        // When
+        underTest.findById(1L);
+        Optional<Customer> actual = underTest.findById(1L);
+
+        // Then
+        assertThat(actual).isEmpty();
+        assertThat(underTest.existsById(1L)).isFalse();
+        verify(customerDAO, times(1)).findById(1L);
+        verify(customerDAO, never()).existsById(any());
+        assertThat(meterRegistry.get("customer.cache.negative.hits").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentMissesForSameIdRunOneQuery() throws Exception {
+        // Given
+        CountDownLatch loading = new CountDownLatch(1);
+        when(customerDAO.findById(1L)).thenAnswer(invocation -> {
+            loading.await(5, TimeUnit.SECONDS);
+            return Optional.of(new Customer(1L, "Alex", 19, "alex@gmail.com"));
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        try {
+            List<CompletableFuture<Optional<Customer>>> futures = IntStream.range(0, 8)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> underTest.findById(1L), executor))
+                    .toList();
+            Thread.sleep(100);
+            loading.countDown();
+
+            // Then
+            for (CompletableFuture<Optional<Customer>> future : futures) {
+                assertThat(future.get(5, TimeUnit.SECONDS)).isPresent();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(customerDAO, times(1)).findById(1L);
+    }
+
+    @Test
+    void loadRunsOutsideOfTheCacheLock() {
+        // Given
+        Customer customer = new Customer(1L, "Alex", 19, "alex@gmail.com");
+        // a write evicting the id while it loads: inside the hash bin lock of the id this is a recursive update
+        when(customerDAO.findById(1L)).thenAnswer(invocation -> {
+            underTest.invalidate(List.of(1L));
+            return Optional.of(customer);
+        });
+
+        // When
+        Optional<Customer> actual = underTest.findById(1L);
+
+        // Then
+        assertThat(actual).contains(customer);
+    }
+
+    @Test
+    void concurrentOffHeapMissesForSameIdRunOneQuery() throws Exception {
+        // Given
+        underTest = new CachingCustomerDAO(
+                customerDAO,
+                new OffHeapCustomerCache(loader(null), 1_000, TTL, NEGATIVE_TTL, meterRegistry)
+        );
+        CountDownLatch loading = new CountDownLatch(1);
+        when(customerDAO.findById(1L)).thenAnswer(invocation -> {
+            loading.await(5, TimeUnit.SECONDS);
+            return Optional.of(new Customer(1L, "Alex", 19, "alex@gmail.com"));
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        try {
+            List<CompletableFuture<Optional<Customer>>> futures = IntStream.range(0, 8)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> underTest.findById(1L), executor))
+                    .toList();
+            Thread.sleep(100);
+            loading.countDown();
+
+            // Then
+            for (CompletableFuture<Optional<Customer>> future : futures) {
+                assertThat(future.get(5, TimeUnit.SECONDS)).isPresent();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(customerDAO, times(1)).findById(1L);
+    }
+
+    @Test
+    void writesInvalidateCachedEntries() {
+        // Given
+        Customer customer = new Customer(1L, "Alex", 19, "alex@gmail.com");
+        when(customerDAO.findById(1L)).thenReturn(Optional.of(customer));
+        underTest.findById(1L);
+
+        // When
+        underTest.update(new Customer(1L, "Alexandro", null, null));
+        underTest.findById(1L);
+        underTest.deleteById(1L);
+        underTest.findById(1L);
+
+        // Then
+        verify(customerDAO, times(3)).findById(1L);
+    }
+
+    @Test
+    void saveAllInvalidatesCreatedIds() {
+        // Given
+        when(customerDAO.findById(2L)).thenReturn(Optional.empty());
+        underTest.findById(2L);
+        List<Customer> customers = List.of(new Customer("Alex", 19, "alex@gmail.com"));
+        when(customerDAO.saveAll(customers))
+                .thenReturn(List.of(new CustomerBatchItemResult(2L, CustomerBatchStatus.CREATED)));
+
+        // When
+        underTest.saveAll(customers);
+        underTest.findById(2L);
+
+        // Then
+        verify(customerDAO, times(2)).findById(2L);
+    }
+
+    @Test
+    void findAllByIdLoadsOnlyMissesInOneQuery() {
+        // Given
+        Customer alex = new Customer(1L, "Alex", 19, "alex@gmail.com");
+        Customer jamila = new Customer(2L, "Jamila", 20, "jamila@gmail.com");
+        when(customerDAO.findById(1L)).thenReturn(Optional.of(alex));
+        underTest.findById(1L);
+        when(customerDAO.findAllById(anyCollection())).thenReturn(List.of(jamila));
+
+        // When
+        List<Customer> actual = underTest.findAllById(List.of(2L, 1L, 3L));
+
+        // Then
+        assertThat(actual).containsExactly(jamila, alex);
+        verify(customerDAO).findAllById(argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(2L, 3L))));
+        assertThat(underTest.findById(3L)).isEmpty();
+        verify(customerDAO, never()).findById(3L);
+    }
+
+    @Test
+    void concurrentMissesForDifferentIdsAreCoalesced() throws Exception {
+        // Given
+        underTest = new CachingCustomerDAO(
+                customerDAO,
+                new CaffeineCustomerCache(
+                        loader(new FindByIdCoalescer(customerDAO::findAllById, Duration.ofMillis(200), 100, meterRegistry)),
+                        1_000,
+                        TTL,
+                        NEGATIVE_TTL,
+                        meterRegistry
+                )
+        );
+        when(customerDAO.findAllById(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream()
+                    .map(id -> new Customer(id, "Customer " + id, 20, id + "@gmail.com"))
+                    .toList();
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When
+        try {
+            List<CompletableFuture<Optional<Customer>>> futures = LongStream.rangeClosed(1, 8)
+                    .mapToObj(id -> CompletableFuture.supplyAsync(() -> {
+                        await(start);
+                        return underTest.findById(id);
+                    }, executor))
+                    .toList();
+            start.countDown();
+
+            // Then
+            for (int i = 0; i < futures.size(); i++) {
+                assertThat(futures.get(i).get(5, TimeUnit.SECONDS))
+                        .hasValueSatisfying(customer -> assertThat(customer.email()).endsWith("@gmail.com"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(customerDAO, never()).findById(any());
+        verify(customerDAO, atMost(2)).findAllById(anyCollection());
+        assertThat(meterRegistry.get("customer.coalescer.batch.size").summary().totalAmount()).isEqualTo(8);
+    }
+
+    @Test
+    void coalescedLoadIgnoresDeadlineOfItsLeader() throws Exception {
+        // Given
+        underTest = new CachingCustomerDAO(
+                customerDAO,
+                new CaffeineCustomerCache(
+                        loader(new FindByIdCoalescer(customerDAO::findAllById, Duration.ofMillis(200), 100, meterRegistry)),
+                        1_000,
+                        TTL,
+                        NEGATIVE_TTL,
+                        meterRegistry
+                )
+        );
+        // what DeadlineDataSource does once the deadline of the calling thread has passed
+        when(customerDAO.findAllById(anyCollection())).thenAnswer(invocation -> {
+            if (RequestDeadline.remainingNanos() <= 0) {
+                throw new DeadlineExceededException("Request deadline passed before a database connection was taken");
+            }
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream()
+                    .map(id -> new Customer(id, "Customer " + id, 20, id + "@gmail.com"))
+                    .toList();
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // When
+        try {
+            CompletableFuture<Optional<Customer>> leader = CompletableFuture.supplyAsync(() -> {
+                try (RequestDeadline.Scope ignored = RequestDeadline.until(System.nanoTime() - 1)) {
+                    return underTest.findById(1L);
+                }
+            }, executor);
+            Thread.sleep(50);
+            CompletableFuture<Optional<Customer>> follower = CompletableFuture.supplyAsync(() -> {
+                try (RequestDeadline.Scope ignored = RequestDeadline.until(System.nanoTime() + TimeUnit.SECONDS.toNanos(30))) {
+                    return underTest.findById(2L);
+                }
+            }, executor);
+
+            // Then
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isPresent();
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isPresent();
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(customerDAO, times(1)).findAllById(anyCollection());
+    }
+
+    @Test
+    void offHeapStoreReadsThroughAndInvalidates() {
+        // Given
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new CachingCustomerDAO(
+                customerDAO,
+                new OffHeapCustomerCache(loader(null), 1_000, TTL, NEGATIVE_TTL, meterRegistry)
+        );
+        Customer customer = new Customer(1L, "Alex", 19, "alex@gmail.com");
+        when(customerDAO.findById(1L)).thenReturn(Optional.of(customer));
+        when(customerDAO.findById(2L)).thenReturn(Optional.empty());
+
+        // When
+        underTest.findById(1L);
+        underTest.findById(2L);
+        Optional<Customer> actual = underTest.findById(1L);
+        underTest.findById(2L);
+        underTest.deleteById(1L);
+        underTest.findById(1L);
+
+        // Then
+        assertThat(actual).contains(customer);
+        verify(customerDAO, times(2)).findById(1L);
+        verify(customerDAO, times(1)).findById(2L);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("customer.cache.negative.hits").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("customer.cache.off.heap.occupancy").gauge().value()).isEqualTo(0.002);
+        assertThat(meterRegistry.get("customer.cache.off.heap.memory").tag("area", "slots").gauge().value()).isPositive();
+    }
+
+    private CustomerCacheLoader loader(final FindByIdCoalescer coalescer) {
+        return new CustomerCacheLoader(customerDAO, coalescer, Duration.ofSeconds(5));
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
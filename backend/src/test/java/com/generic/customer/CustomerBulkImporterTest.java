@@ -0,0 +1,109 @@
+package com.generic.customer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.generic.AbstractTestcontainers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerBulkImporterTest extends AbstractTestcontainers {
+
+    private CustomerBulkImporter underTest;
+    private CustomerJDBCRepository customerRepository;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerBulkImporter(
+                jdbcTemplate(),
+                new ObjectMapper()
+        );
+        customerRepository = new CustomerJDBCRepository(
+                jdbcTemplate(),
+                new CustomerRowMapper()
+        );
+    }
+
+    @Test
+    void importCsv() {
+        // Given
+        final String taken = uniqueEmail();
+        customerRepository.save(new Customer(FAKER.name().fullName(), 30, taken));
+
+        final String first = uniqueEmail();
+        final String second = uniqueEmail();
+        final String csv = """
+                name,age,email
+                "Doe, John",25,%s
+                Jane,abc,%s
+                Ivan,40,%s
+                Ivan Again,41,%s
+                Nick,33,%s
+                """.formatted(first, uniqueEmail(), second, second, taken);
+
+        // When
+        final CustomerImportReport actual = underTest.importCustomers(
+                stream(csv), CustomerImportFormat.CSV, CustomerImportConflictMode.SKIP
+        );
+
+        // Then
+        assertThat(actual.received()).isEqualTo(5);
+        assertThat(actual.inserted()).isEqualTo(2);
+        assertThat(actual.updated()).isZero();
+        assertThat(actual.rejected()).isEqualTo(3);
+        assertThat(actual.rejects()).containsExactlyInAnyOrder(
+                new CustomerImportReject(3, null, "Age must be an integer"),
+                new CustomerImportReject(5, second, "Duplicate email within import"),
+                new CustomerImportReject(6, taken, "Email already taken")
+        );
+        assertThat(customerRepository.existsByEmail(first)).isTrue();
+        assertThat(customerRepository.existsByEmail(second)).isTrue();
+    }
+
+    @Test
+    void importNdjsonUpdatingExistingCustomers() {
+        // Given
+        final String existing = uniqueEmail();
+        customerRepository.save(new Customer("Old Name", 30, existing));
+
+        final String created = uniqueEmail();
+        final String ndjson = """
+                {"name":"New Name","age":31,"email":"%s"}
+                {"name":"Jamila","age":22,"email":"%s"}
+                {"name":"Broken",
+                """.formatted(existing, created);
+
+        // When
+        final CustomerImportReport actual = underTest.importCustomers(
+                stream(ndjson), CustomerImportFormat.NDJSON, CustomerImportConflictMode.UPDATE
+        );
+
+        // Then
+        assertThat(actual.received()).isEqualTo(3);
+        assertThat(actual.inserted()).isEqualTo(1);
+        assertThat(actual.updated()).isEqualTo(1);
+        assertThat(actual.rejects()).containsExactly(
+                new CustomerImportReject(3, null, "Malformed JSON")
+        );
+        assertThat(customerRepository.findAll())
+                .filteredOn(c -> c.email().equals(existing))
+                .singleElement()
+                .satisfies(c -> {
+                    assertThat(c.name()).isEqualTo("New Name");
+                    assertThat(c.age()).isEqualTo(31);
+                });
+    }
+
+    private static String uniqueEmail() {
+        return FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+    }
+
+    private static InputStream stream(final String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
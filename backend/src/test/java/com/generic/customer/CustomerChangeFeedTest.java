@@ -0,0 +1,191 @@
+package com.generic.customer;
+
+import com.generic.AbstractTestcontainers;
+import com.generic.exception.ResourceGoneException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerChangeFeedTest extends AbstractTestcontainers {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate = jdbcTemplate();
+    private final CustomerJDBCRepository customerRepository =
+            new CustomerJDBCRepository(jdbcTemplate, new CustomerRowMapper());
+    private final CustomerChangeRepository changeRepository = new CustomerChangeRepository(jdbcTemplate);
+    private final TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(
+            Objects.requireNonNull(jdbcTemplate.getJdbcTemplate().getDataSource())
+    ));
+
+    private CustomerChangeFeed underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerChangeFeed(
+                true,
+                changeRepository,
+                transaction,
+                new SimpleMeterRegistry(),
+                Duration.ofMillis(200),
+                2,
+                Duration.ofDays(7),
+                Duration.ofSeconds(15),
+                Duration.ofMinutes(30)
+        );
+    }
+
+    @Test
+    void relayPublishesChangesInOrder() {
+        // Given
+        final long head = underTest.page(null, null).next();
+        final long id = save("Alex", 25);
+        customerRepository.update(new Customer(id, null, 26, null));
+        customerRepository.deleteById(id);
+
+        // When
+        underTest.relay();
+
+        // Then
+        final List<CustomerChange> changes = changesOf(id, head);
+        assertThat(changes)
+                .extracting(CustomerChange::type)
+                .containsExactly(CustomerChangeType.CREATED, CustomerChangeType.UPDATED, CustomerChangeType.DELETED);
+        assertThat(changes.get(0).customer()).isEqualTo(new Customer(id, "Alex", 25, changes.get(0).customer().email()));
+        assertThat(changes.get(1).customer().age()).isEqualTo(26);
+        assertThat(changes.get(2).customer()).isNull();
+        assertThat(changes.get(0).position()).isLessThan(changes.get(1).position());
+        assertThat(changes.get(1).position()).isLessThan(changes.get(2).position());
+    }
+
+    @Test
+    void relayWaitsForTransactionsThatStartedEarlier() throws Exception {
+        // Given
+        final long head = underTest.page(null, null).next();
+        final long inFlightCustomerId = -Math.abs(UUID.randomUUID().getMostSignificantBits() % 1_000_000_000L) - 1;
+        try (Connection connection = Objects.requireNonNull(jdbcTemplate.getJdbcTemplate().getDataSource()).getConnection();
+             Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            statement.execute("INSERT INTO customer_outbox(customer_id, type) VALUES (%d, 'DELETED')".formatted(inFlightCustomerId));
+            final long id = save("Jamila", 30);
+
+            // When
+            underTest.relay();
+
+            // Then
+            assertThat(changesOf(id, head)).isEmpty();
+
+            // When
+            connection.commit();
+            underTest.relay();
+
+            // Then
+            final long inFlightPosition = changesOf(inFlightCustomerId, head).getFirst().position();
+            assertThat(changesOf(id, head).getFirst().position()).isGreaterThan(inFlightPosition);
+        }
+    }
+
+    @Test
+    void relayKeepsWriteOrderOfCustomerAcrossInterleavedTransactions() throws Exception {
+        // Given
+        final long otherId = save("Alex", 25);
+        final long id = save("Jamila", 30);
+        underTest.relay();
+        final long head = changeRepository.head();
+        final CountDownLatch olderStarted = new CountDownLatch(1);
+        final CountDownLatch youngerCommitted = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            // When
+            final Future<?> older = executor.submit(() -> transaction.executeWithoutResult(status -> {
+                customerRepository.update(new Customer(otherId, null, 40, null));
+                olderStarted.countDown();
+                try {
+                    assertThat(youngerCommitted.await(10, TimeUnit.SECONDS)).isTrue();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                customerRepository.update(new Customer(id, null, 41, null));
+            }));
+            assertThat(olderStarted.await(10, TimeUnit.SECONDS)).isTrue();
+            customerRepository.update(new Customer(id, null, 50, null));
+            youngerCommitted.countDown();
+            older.get(10, TimeUnit.SECONDS);
+            underTest.relay();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        assertThat(changesOf(id, head))
+                .extracting(change -> change.customer().age())
+                .containsExactly(50, 41);
+        assertThat(customerRepository.findById(id))
+                .map(Customer::age)
+                .contains(41);
+    }
+
+    @Test
+    void pageWithoutPositionStartsAtHead() {
+        // Given
+        save("Alex", 25);
+        underTest.relay();
+
+        // When
+        final CustomerChangePage actual = underTest.page(null, null);
+
+        // Then
+        assertThat(actual.changes()).isEmpty();
+        assertThat(actual.next()).isEqualTo(changeRepository.head());
+        assertThat(underTest.page(actual.next(), null).changes()).isEmpty();
+    }
+
+    @Test
+    void pageAfterPurgedPositionIsGone() {
+        // Given
+        save("Alex", 25);
+        save("Jamila", 30);
+        underTest.relay();
+        changeRepository.deletePublishedBefore(Instant.now().plusSeconds(60));
+        final long head = changeRepository.head();
+
+        // When / Then
+        assertThatThrownBy(() -> underTest.page(0L, null))
+                .isInstanceOf(ResourceGoneException.class);
+        assertThat(underTest.page(head - 1, null).changes())
+                .extracting(CustomerChange::position)
+                .containsExactly(head);
+    }
+
+    private long save(final String name, final int age) {
+        return customerRepository.saveAll(List.of(
+                        new Customer(name, age, FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID())
+                ))
+                .getFirst()
+                .id();
+    }
+
+    private List<CustomerChange> changesOf(final long customerId, final long after) {
+        return changeRepository.findAfter(after, Integer.MAX_VALUE).stream()
+                .filter(change -> change.customerId() == customerId)
+                .toList();
+    }
+}
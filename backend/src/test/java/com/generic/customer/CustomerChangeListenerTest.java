@@ -0,0 +1,73 @@
+package com.generic.customer;
+
+import com.generic.AbstractTestcontainers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+
+class CustomerChangeListenerTest extends AbstractTestcontainers {
+
+    private static final long TIMEOUT_MILLIS = 5_000;
+
+    private CustomerChangeListener underTest;
+    private CachingCustomerDAO cache;
+    private CustomerJDBCRepository customerRepository;
+
+    @BeforeEach
+    void setUp() {
+        cache = mock(CachingCustomerDAO.class);
+        underTest = new CustomerChangeListener(
+                cache,
+                postgreSQLContainer.getJdbcUrl(),
+                postgreSQLContainer.getUsername(),
+                postgreSQLContainer.getPassword()
+        );
+        customerRepository = new CustomerJDBCRepository(
+                jdbcTemplate(),
+                new CustomerRowMapper()
+        );
+        underTest.start();
+        // the first LISTEN round drops everything
+        verify(cache, timeout(TIMEOUT_MILLIS)).invalidateAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.stop();
+    }
+
+    @Test
+    void evictsIdsWrittenByAnyConnection() {
+        // Given
+        final long id = customerRepository.saveAll(List.of(new Customer(
+                        FAKER.name().fullName(),
+                        25,
+                        FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID()
+                )))
+                .get(0)
+                .id();
+        verify(cache, timeout(TIMEOUT_MILLIS)).invalidate(List.of(id));
+
+        // When
+        customerRepository.update(new Customer(id, "foo", null, null));
+        customerRepository.deleteById(id);
+
+        // Then
+        verify(cache, timeout(TIMEOUT_MILLIS).times(3)).invalidate(List.of(id));
+    }
+
+    @Test
+    void applyFallsBackToFullEviction() {
+        // When
+        underTest.apply(CustomerChangeListener.INVALIDATE_ALL);
+        underTest.apply("not-an-id");
+
+        // Then
+        verify(cache, times(3)).invalidateAll();
+    }
+}
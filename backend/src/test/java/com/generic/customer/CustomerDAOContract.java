@@ -0,0 +1,674 @@
+package com.generic.customer;
+
+import com.generic.exception.DuplicateResourceException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Behaviour every {@link CustomerDAO} store has to share, whatever keeps the rows. Implementations may run against
+ * a store other tests write to as well, so every test makes its own customers with unique emails.
+ */
+interface CustomerDAOContract {
+
+    CustomerDAO underTest();
+
+    @Test
+    default void findAll() {
+        // Given
+        Customer customer = new Customer(
+                null,
+                fullName(),
+                25,
+                uniqueEmail()
+        );
+        underTest().save(customer);
+
+        // When
+        final List<Customer> actual = underTest().findAll();
+
+        // Then
+        assertThat(actual).isNotEmpty();
+    }
+
+    @Test
+    default void findPage() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            underTest().save(new Customer(
+                    fullName(),
+                    25,
+                    uniqueEmail()
+            ));
+        }
+
+        // When
+        final List<Customer> firstPage = underTest().findPage(0, 2);
+        final List<Customer> secondPage = underTest().findPage(firstPage.get(1).id(), 2);
+
+        // Then
+        assertThat(firstPage).hasSize(2);
+        assertThat(firstPage.get(0).id()).isLessThan(firstPage.get(1).id());
+        assertThat(secondPage).isNotEmpty();
+        assertThat(secondPage.get(0).id()).isGreaterThan(firstPage.get(1).id());
+    }
+
+    @Test
+    default void searchFiltersAndSortsWithKeysetPagination() {
+        // Given
+        final String domain = UUID.randomUUID() + ".com";
+        underTest().save(new Customer("Anna Smith", 30, "anna@" + domain));
+        underTest().save(new Customer("Hanna Lee", 22, "hanna@" + domain));
+        underTest().save(new Customer("Joanna 100%_", 41, "joanna@" + domain));
+        underTest().save(new Customer("Ivan", 30, "ivan@" + domain));
+        underTest().save(new Customer("Anna Other", 30, "anna@other-" + domain));
+
+        // When
+        final List<Customer> firstPage = underTest().search(new CustomerSearchQuery(
+                "ANNA", domain, 20, 40, CustomerSortField.AGE, SortDirection.DESC, null, 1
+        ));
+        final Customer last = firstPage.get(0);
+        final List<Customer> secondPage = underTest().search(new CustomerSearchQuery(
+                "ANNA", domain, 20, 40, CustomerSortField.AGE, SortDirection.DESC,
+                new CustomerSearchQuery.After(last.age(), last.id()), 10
+        ));
+        final List<Customer> escaped = underTest().search(new CustomerSearchQuery(
+                "0%_", null, null, null, CustomerSortField.ID, SortDirection.ASC, null, 10
+        ));
+        final List<Customer> noMatch = underTest().search(new CustomerSearchQuery(
+                "n%a", domain, null, null, CustomerSortField.NAME, SortDirection.ASC, null, 10
+        ));
+
+        // Then
+        assertThat(firstPage)
+                .extracting(Customer::name)
+                .containsExactly("Anna Smith");
+        assertThat(secondPage)
+                .extracting(Customer::name)
+                .containsExactly("Hanna Lee");
+        assertThat(escaped)
+                .extracting(Customer::email)
+                .containsExactly("joanna@" + domain);
+        assertThat(noMatch).isEmpty();
+    }
+
+    @Test
+    default void streamAll() {
+        // Given
+        final String email = uniqueEmail();
+        underTest().save(new Customer(
+                fullName(),
+                25,
+                email
+        ));
+
+        // When
+        final List<Customer> actual = new ArrayList<>();
+        underTest().streamAll(actual::add);
+
+        // Then
+        assertThat(actual)
+                .extracting(Customer::email)
+                .contains(email);
+        assertThat(actual)
+                .extracting(Customer::id)
+                .isSorted();
+    }
+
+    @Test
+    default void findById() {
+        // Given
+        final String email = uniqueEmail();
+        Customer customer = new Customer(
+                fullName(),
+                25,
+                email
+        );
+        underTest().save(customer);
+        final long id = underTest().findAll()
+                .stream()
+                .filter(c -> c.email().equals(email))
+                .findFirst()
+                .map(Customer::id)
+                .orElseThrow();
+
+        // When
+        final Optional<Customer> actual = underTest().findById(id);
+
+        // Then
+        assertThat(actual).isPresent().hasValueSatisfying(c -> {
+           assertThat(c.id()).isEqualTo(id);
+           assertThat(c.name()).isEqualTo(customer.name());
+           assertThat(c.age()).isEqualTo(customer.age());
+           assertThat(c.email()).isEqualTo(customer.email());
+        });
+
+    }
+
+    @Test
+    default void willReturnEmptyWhenFindById() {
+        // Given
+        long id = 0;
+
+        // When
+        var actual = underTest().findById(id);
+
+        // Then
+        assertThat(actual).isEmpty();
+    }
+
+
+
+    @Test
+    default void existsByEmail() {
+        // Given
+        final String email = uniqueEmail();
+        Customer customer = new Customer(
+                fullName(),
+                25,
+                email
+        );
+
+        underTest().save(customer);
+
+        // When
+        boolean actual = underTest().existsByEmail(email);
+
+        // Then
+        assertThat(actual).isTrue();
+    }
+
+    @Test
+    default void existsPersonWithEmailReturnsFalseWhenDoesNotExists() {
+        // Given
+        String email = uniqueEmail();
+
+        // When
+        boolean actual = underTest().existsByEmail(email);
+
+        // Then
+        assertThat(actual).isFalse();
+    }
+
+    @Test
+    default void findAllById() {
+        // Given
+        final List<Long> ids = underTest().saveAll(List.of(
+                        new Customer(fullName(), 20, uniqueEmail()),
+                        new Customer(fullName(), 21, uniqueEmail())
+                ))
+                .stream()
+                .map(CustomerBatchItemResult::id)
+                .toList();
+
+        // When
+        final List<Customer> actual = underTest().findAllById(List.of(ids.get(1), -1L, ids.get(0)));
+
+        // Then
+        assertThat(actual)
+                .extracting(Customer::id)
+                .containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    @Test
+    default void saveThrowsWhenEmailTaken() {
+        // Given
+        final String email = uniqueEmail();
+        underTest().save(new Customer(fullName(), 25, email));
+
+        // When / Then
+        assertThatThrownBy(() -> underTest().save(new Customer(fullName(), 30, email)))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("Email already taken");
+    }
+
+    @Test
+    default void existsById() {
+        // Given
+        final String email = uniqueEmail();
+        Customer customer = new Customer(
+                fullName(),
+                25,
+                email
+        );
+
+        underTest().save(customer);
+
+        long id = underTest().findAll()
+                .stream()
+                .filter(c -> c.email().equals(email))
+                .map(Customer::id)
+                .findFirst()
+                .orElseThrow();
+
+        // When
+        var actual = underTest().existsById(id);
+
+        // Then
+        assertThat(actual).isTrue();
+    }
+
+    @Test
+    default void existsPersonWithIdWillReturnFalseWhenIdNotPresent() {
+        // Given
+        long id = -1;
+
+        // When
+        var actual = underTest().existsById(id);
+
+        // Then
+        assertThat(actual).isFalse();
+    }
+
+    @Test
+    default void deleteById() {
+        // Given
+        final String email = uniqueEmail();
+        Customer customer = new Customer(
+                fullName(),
+                25,
+                email
+        );
+
+        underTest().save(customer);
+
+        long id = underTest().findAll()
+                .stream()
+                .filter(c -> c.email().equals(email))
+                .map(Customer::id)
+                .findFirst()
+                .orElseThrow();
+
+        // When
+        underTest().deleteById(id);
+
+        // Then
+        Optional<Customer> actual = underTest().findById(id);
+        assertThat(actual).isNotPresent();
+    }
+
+    @Test
+    default void updateCustomerName() {
+        // Given
+        final String email = uniqueEmail();
+        Customer customer = new Customer(
+                fullName(),
+                25,
+                email
+        );
+
+        underTest().save(customer);
+
+        long id = underTest().findAll()
+                .stream()
+                .filter(c -> c.email().equals(email))
+                .map(Customer::id)
+                .findFirst()
+                .orElseThrow();
+
+        var newName = "foo";
+
+        // When name changed
+        Customer update = new Customer(
+                id,
+                newName,
+                customer.age(),
+                customer.email()
+        );
+
+        underTest().update(update);
+
+        // Then
+        Optional<Customer> actual = underTest().findById(id);
+
+        assertThat(actual).isPresent().hasValueSatisfying(c -> {
+            assertThat(c.id()).isEqualTo(id);
+            assertThat(c.name()).isEqualTo(newName); // change
+            assertThat(c.email()).isEqualTo(customer.email());
+            assertThat(c.age()).isEqualTo(customer.age());
+        });
+    }
+
+    @Test
+    default void updateCustomerEmail() {
+        // Given
+        final String email = uniqueEmail();
+        Customer customer = new Customer(
+                fullName(),
+                25,
+                email
+        );
+
+        underTest().save(customer);
+
+        long id = underTest().findAll()
+                .stream()
+                .filter(c -> c.email().equals(email))
+                .map(Customer::id)
+                .findFirst()
+                .orElseThrow();
+
+        var newEmail = uniqueEmail();
+
+        // When name changed
+        Customer update = new Customer(
+                id,
+                customer.name(),
+                customer.age(),
+                newEmail
+        );
+
+        underTest().update(update);
+
+        // Then
+        Optional<Customer> actual = underTest().findById(id);
+
+        assertThat(actual).isPresent().hasValueSatisfying(c -> {
+            assertThat(c.id()).isEqualTo(id);
+            assertThat(c.name()).isEqualTo(customer.name());
+            assertThat(c.email()).isEqualTo(newEmail); // change
+            assertThat(c.age()).isEqualTo(customer.age());
+        });
+    }
+
+    @Test
+    default void updateCustomerAge() {
+        // Given
+        final String email = uniqueEmail();
+        Customer customer = new Customer(
+                fullName(),
+                25,
+                email
+        );
+
+        underTest().save(customer);
+
+        long id = underTest().findAll()
+                .stream()
+                .filter(c -> c.email().equals(email))
+                .map(Customer::id)
+                .findFirst()
+                .orElseThrow();
+
+        var newAge = 100;
+
+        // When age changed
+        Customer update = new Customer(
+                id,
+                customer.name(),
+                newAge,
+                customer.email()
+        );
+
+        underTest().update(update);
+
+        // Then
+        Optional<Customer> actual = underTest().findById(id);
+
+        assertThat(actual).isPresent().hasValueSatisfying(c -> {
+            assertThat(c.id()).isEqualTo(id);
+            assertThat(c.name()).isEqualTo(customer.name());
+            assertThat(c.email()).isEqualTo(customer.email());
+            assertThat(c.age()).isEqualTo(newAge); // change
+        });
+    }
+
+    @Test
+    default void willUpdateAllPropertyCustomer() {
+        // Given
+        final String email = uniqueEmail();
+        Customer customer = new Customer(
+                fullName(),
+                25,
+                email
+        );
+
+        underTest().save(customer);
+
+        long id = underTest().findAll()
+                .stream()
+                .filter(c -> c.email().equals(email))
+                .map(Customer::id)
+                .findFirst()
+                .orElseThrow();
+
+        String newEmail = "newemail@newemail.com";
+
+        // When update with new name, age and email
+        Customer update = new Customer(
+                id,
+                "foo",
+                22,
+                newEmail
+        );
+
+        underTest().update(update);
+
+        // Then
+        Optional<Customer> actual = underTest().findById(id);
+
+        assertThat(actual).isPresent().hasValueSatisfying(updated -> {
+            assertThat(updated.id()).isEqualTo(id);
+            assertThat(updated.name()).isEqualTo("foo");
+            assertThat(updated.email()).isEqualTo(newEmail);
+            assertThat(updated.age()).isEqualTo(22);
+        });
+    }
+
+    @Test
+    default void willNotUpdateWhenNothingToUpdate() {
+        // Given
+        final String email = uniqueEmail();
+        Customer customer = new Customer(
+                fullName(),
+                25,
+                email
+        );
+
+        underTest().save(customer);
+
+        long id = underTest().findAll()
+                .stream()
+                .filter(c -> c.email().equals(email))
+                .map(Customer::id)
+                .findFirst()
+                .orElseThrow();
+
+        // When update without no changes
+        underTest().update(customer);
+
+        // Then
+        Optional<Customer> actual = underTest().findById(id);
+
+        assertThat(actual).isPresent().hasValueSatisfying(c -> {
+            assertThat(c.id()).isEqualTo(id);
+            assertThat(c.age()).isEqualTo(customer.age());
+            assertThat(c.name()).isEqualTo(customer.name());
+            assertThat(c.email()).isEqualTo(customer.email());
+        });
+    }
+
+    @Test
+    default void updateReportsResult() {
+        // Given
+        final String email = uniqueEmail();
+        Customer customer = new Customer(
+                fullName(),
+                25,
+                email
+        );
+
+        underTest().save(customer);
+
+        long id = underTest().findAll()
+                .stream()
+                .filter(c -> c.email().equals(email))
+                .map(Customer::id)
+                .findFirst()
+                .orElseThrow();
+
+        // When / Then
+        assertThat(underTest().update(new Customer(id, null, 26, null)))
+                .isEqualTo(CustomerUpdateResult.UPDATED);
+        assertThat(underTest().update(new Customer(id, customer.name(), 26, email)))
+                .isEqualTo(CustomerUpdateResult.UNCHANGED);
+        assertThat(underTest().update(new Customer(id, null, null, null)))
+                .isEqualTo(CustomerUpdateResult.UNCHANGED);
+        assertThat(underTest().update(new Customer(-1L, "foo", null, null)))
+                .isEqualTo(CustomerUpdateResult.NOT_FOUND);
+    }
+
+    @Test
+    default void updateWithTakenEmailThrows() {
+        // Given
+        final String email = uniqueEmail();
+        final String takenEmail = uniqueEmail();
+        underTest().save(new Customer(fullName(), 25, email));
+        underTest().save(new Customer(fullName(), 25, takenEmail));
+
+        long id = underTest().findAll()
+                .stream()
+                .filter(c -> c.email().equals(email))
+                .map(Customer::id)
+                .findFirst()
+                .orElseThrow();
+
+        // When / Then
+        assertThatThrownBy(() -> underTest().update(new Customer(id, null, null, takenEmail)))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("Email already taken");
+    }
+
+    @Test
+    default void updateAll() {
+        // Given
+        final List<Long> ids = underTest().saveAll(List.of(
+                        new Customer(fullName(), 20, uniqueEmail()),
+                        new Customer(fullName(), 21, uniqueEmail())
+                ))
+                .stream()
+                .map(CustomerBatchItemResult::id)
+                .toList();
+
+        // When
+        final List<CustomerBatchItemResult> actual = underTest().updateAll(List.of(
+                new Customer(ids.get(0), "foo", null, null),
+                new Customer(ids.get(1), null, 99, null),
+                new Customer(-1L, "bar", null, null)
+        ));
+
+        // Then
+        assertThat(actual)
+                .extracting(CustomerBatchItemResult::status)
+                .containsExactly(
+                        CustomerBatchStatus.UPDATED,
+                        CustomerBatchStatus.UPDATED,
+                        CustomerBatchStatus.NOT_FOUND
+                );
+        assertThat(underTest().findById(ids.get(0)))
+                .hasValueSatisfying(c -> assertThat(c.name()).isEqualTo("foo"));
+        assertThat(underTest().findById(ids.get(1)))
+                .hasValueSatisfying(c -> assertThat(c.age()).isEqualTo(99));
+    }
+
+    @Test
+    default void deleteAllById() {
+        // Given
+        final long id = underTest().saveAll(List.of(
+                        new Customer(fullName(), 20, uniqueEmail())
+                ))
+                .get(0)
+                .id();
+
+        // When
+        final List<CustomerBatchItemResult> actual = underTest().deleteAllById(List.of(id, -1L));
+
+        // Then
+        assertThat(actual).containsExactly(
+                new CustomerBatchItemResult(id, CustomerBatchStatus.DELETED),
+                new CustomerBatchItemResult(-1L, CustomerBatchStatus.NOT_FOUND)
+        );
+        assertThat(underTest().existsById(id)).isFalse();
+    }
+
+    @Test
+    default void changedSinceReturnsOnlyWhatChangedAfterWatermark() {
+        // Given
+        final CustomerWatermark watermark = syncAll(null).watermark();
+        final long updated = underTest().saveAll(List.of(
+                new Customer("Alex", 25, uniqueEmail())
+        )).getFirst().id();
+        final long deleted = underTest().saveAll(List.of(
+                new Customer("Jamila", 30, uniqueEmail())
+        )).getFirst().id();
+        underTest().update(new Customer(updated, "Alexander", null, null));
+        underTest().deleteById(deleted);
+
+        // When
+        final CustomerDelta actual = syncAll(watermark);
+
+        // Then
+        assertThat(actual.changed())
+                .filteredOn(customer -> customer.id() == updated || customer.id() == deleted)
+                .extracting(Customer::name)
+                .containsExactly("Alexander");
+        assertThat(actual.deletedIds()).contains(deleted);
+        assertThat(actual.watermark().changedAt()).isAfter(watermark.changedAt());
+        assertThat(syncAll(actual.watermark()).changed())
+                .extracting(Customer::id)
+                .doesNotContain(updated);
+    }
+
+    @Test
+    default void changedSincePagesInTimestampOrder() {
+        // Given
+        final CustomerWatermark watermark = syncAll(null).watermark();
+        final List<Long> ids = underTest().saveAll(List.of(
+                        new Customer("Alex", 25, uniqueEmail()),
+                        new Customer("Jamila", 30, uniqueEmail())
+                ))
+                .stream()
+                .map(CustomerBatchItemResult::id)
+                .toList();
+
+        // When
+        final CustomerDelta first = underTest().changedSince(watermark, 1);
+        final CustomerDelta second = underTest().changedSince(first.watermark(), 1);
+
+        // Then
+        assertThat(first.hasMore()).isTrue();
+        assertThat(first.watermark().afterId()).isEqualTo(first.changed().getFirst().id());
+        assertThat(List.of(first.changed().getFirst().id(), second.changed().getFirst().id())).isEqualTo(ids);
+    }
+
+    /**
+     * Follows the watermark until the delta is complete, like a mirror catching up.
+     */
+    default CustomerDelta syncAll(final CustomerWatermark watermark) {
+        final List<Customer> changed = new ArrayList<>();
+        final List<Long> deletedIds = new ArrayList<>();
+        CustomerDelta delta = underTest().changedSince(watermark, 500);
+        changed.addAll(delta.changed());
+        deletedIds.addAll(delta.deletedIds());
+        while (delta.hasMore()) {
+            delta = underTest().changedSince(delta.watermark(), 500);
+            changed.addAll(delta.changed());
+            deletedIds.addAll(delta.deletedIds());
+        }
+        return new CustomerDelta(changed, deletedIds, delta.watermark(), false);
+    }
+
+    private static String fullName() {
+        return "Customer " + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private static String uniqueEmail() {
+        return "customer-" + UUID.randomUUID() + "@example.com";
+    }
+}
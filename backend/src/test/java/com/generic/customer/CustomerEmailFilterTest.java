@@ -0,0 +1,117 @@
+package com.generic.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerEmailFilterTest {
+
+    @Mock
+    private CustomerDAO customerDAO;
+    private SimpleMeterRegistry meterRegistry;
+    private CustomerEmailFilter underTest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new CustomerEmailFilter(
+                true,
+                customerDAO,
+                TransactionOperations.withoutTransaction(),
+                meterRegistry,
+                1_000,
+                0.01,
+                Duration.ofMinutes(1)
+        );
+    }
+
+    @Test
+    void queriesDatabaseUntilLoaded() {
+        // Given
+        @SuppressWarnings("unchecked")
+        final Predicate<String> query = mock(Predicate.class);
+        when(query.test("alex@gmail.com")).thenReturn(true);
+
+        // When
+        final boolean actual = underTest.exists("alex@gmail.com", query);
+
+        // Then
+        assertThat(actual).isTrue();
+        verify(query).test("alex@gmail.com");
+    }
+
+    @Test
+    void answersAbsentWithoutQueryAndCountsFalsePositives() {
+        // Given
+        streams(List.of("alex@gmail.com", "jamila@gmail.com"));
+        underTest.rebuild();
+        @SuppressWarnings("unchecked")
+        final Predicate<String> query = mock(Predicate.class);
+
+        // When
+        final boolean unknown = underTest.exists("nobody@gmail.com", query);
+        final boolean known = underTest.exists("alex@gmail.com", query);
+
+        // Then
+        assertThat(unknown).isFalse();
+        assertThat(known).isFalse();
+        verify(query, never()).test("nobody@gmail.com");
+        verify(query).test("alex@gmail.com");
+        assertThat(meterRegistry.get("customer.email.filter.checks").tag("result", "absent").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("customer.email.filter.false.positives").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("customer.email.filter.memory").gauge().value()).isPositive();
+    }
+
+    @Test
+    void keepsUpWithWritesAndRebuildsAfterDeletesOrImports() {
+        // Given
+        streams(List.of("alex@gmail.com"));
+        underTest.rebuild();
+
+        // When
+        underTest.put("jamila@gmail.com");
+        underTest.rebuildIfNeeded();
+
+        // Then
+        assertThat(underTest.exists("jamila@gmail.com", email -> true)).isTrue();
+        verify(customerDAO, times(1)).streamAll(any());
+
+        // And a delete of a tenth of the emails or an import triggers a rebuild
+        underTest.recordDeletes(1);
+        underTest.rebuildIfNeeded();
+        verify(customerDAO, times(2)).streamAll(any());
+
+        underTest.markStale();
+        underTest.rebuildIfNeeded();
+        verify(customerDAO, times(3)).streamAll(any());
+        assertThat(meterRegistry.get("customer.email.filter.rebuilds").counter().count()).isEqualTo(3);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void streams(final List<String> emails) {
+        doAnswer(invocation -> {
+            final Consumer<Customer> consumer = invocation.getArgument(0);
+            emails.forEach(email -> consumer.accept(new Customer("Customer", 20, email)));
+            return null;
+        }).when(customerDAO).streamAll(any());
+    }
+}
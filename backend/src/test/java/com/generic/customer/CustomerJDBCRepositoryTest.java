@@ -3,14 +3,19 @@ package com.generic.customer;
 import com.generic.AbstractTestcontainers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
+import java.sql.Connection;
+import java.sql.Statement;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-class CustomerJDBCRepositoryTest extends AbstractTestcontainers {
+class CustomerJDBCRepositoryTest extends AbstractTestcontainers implements CustomerDAOContract {
 
     private CustomerJDBCRepository underTest;
     private final CustomerRowMapper customerRowMapper = new CustomerRowMapper();
@@ -23,97 +28,9 @@ class CustomerJDBCRepositoryTest extends AbstractTestcontainers {
         );
     }
 
-    @Test
-    void findAll() {
-        // Given
-        Customer customer = new Customer(
-                null,
-                FAKER.name().fullName(),
-                25,
-                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID()
-        );
-        underTest.save(customer);
-
-        // When
-        final List<Customer> actual = underTest.findAll();
-
-        // Then
-        assertThat(actual).isNotEmpty();
-    }
-
-    @Test
-    void findById() {
-        // Given
-        final String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
-        Customer customer = new Customer(
-                FAKER.name().fullName(),
-                25,
-                email
-        );
-        underTest.save(customer);
-        final long id = underTest.findAll()
-                .stream()
-                .filter(c -> c.email().equals(email))
-                .findFirst()
-                .map(Customer::id)
-                .orElseThrow();
-
-        // When
-        final Optional<Customer> actual = underTest.findById(id);
-
-        // Then
-        assertThat(actual).isPresent().hasValueSatisfying(c -> {
-           assertThat(c.id()).isEqualTo(id);
-           assertThat(c.name()).isEqualTo(customer.name());
-           assertThat(c.age()).isEqualTo(customer.age());
-           assertThat(c.email()).isEqualTo(customer.email());
-        });
-
-    }
-
-    @Test
-    void willReturnEmptyWhenFindById() {
-        // Given
-        long id = 0;
-
-        // When
-        var actual = underTest.findById(id);
-
-        // Then
-        assertThat(actual).isEmpty();
-    }
-
-
-
-    @Test
-    void existsByEmail() {
-        // Given
-        final String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
-        Customer customer = new Customer(
-                FAKER.name().fullName(),
-                25,
-                email
-        );
-
-        underTest.save(customer);
-
-        // When
-        boolean actual = underTest.existsByEmail(email);
-
-        // Then
-        assertThat(actual).isTrue();
-    }
-
-    @Test
-    void existsPersonWithEmailReturnsFalseWhenDoesNotExists() {
-        // Given
-        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
-
-        // When
-        boolean actual = underTest.existsByEmail(email);
-
-        // Then
-        assertThat(actual).isFalse();
+    @Override
+    public CustomerDAO underTest() {
+        return underTest;
     }
 
     @Test
@@ -126,268 +43,177 @@ class CustomerJDBCRepositoryTest extends AbstractTestcontainers {
     }
 
     @Test
-    void existsById() {
+    void saveAll() {
         // Given
-        final String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
-        Customer customer = new Customer(
-                FAKER.name().fullName(),
-                25,
-                email
+        final CustomerJDBCRepository smallBatches = new CustomerJDBCRepository(jdbcTemplate(), customerRowMapper, 2);
+        final String taken = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.save(new Customer(FAKER.name().fullName(), 25, taken));
+
+        final String first = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        final String second = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        final List<Customer> customers = List.of(
+                new Customer(FAKER.name().fullName(), 20, first),
+                new Customer(FAKER.name().fullName(), 21, taken),
+                new Customer(FAKER.name().fullName(), 22, second),
+                new Customer(FAKER.name().fullName(), 23, second)
         );
 
-        underTest.save(customer);
-
-        long id = underTest.findAll()
-                .stream()
-                .filter(c -> c.email().equals(email))
-                .map(Customer::id)
-                .findFirst()
-                .orElseThrow();
-
         // When
-        var actual = underTest.existsById(id);
+        final List<CustomerBatchItemResult> actual = smallBatches.saveAll(customers);
 
         // Then
-        assertThat(actual).isTrue();
+        assertThat(actual)
+                .extracting(CustomerBatchItemResult::status)
+                .containsExactly(
+                        CustomerBatchStatus.CREATED,
+                        CustomerBatchStatus.DUPLICATE_EMAIL,
+                        CustomerBatchStatus.CREATED,
+                        CustomerBatchStatus.DUPLICATE_EMAIL
+                );
+        assertThat(underTest.findById(actual.get(0).id()))
+                .hasValueSatisfying(c -> assertThat(c.email()).isEqualTo(first));
+        assertThat(underTest.findById(actual.get(2).id()))
+                .hasValueSatisfying(c -> assertThat(c.email()).isEqualTo(second));
     }
 
     @Test
-    void existsPersonWithIdWillReturnFalseWhenIdNotPresent() {
-        // Given
-        long id = -1;
-
-        // When
-        var actual = underTest.existsById(id);
-
-        // Then
-        assertThat(actual).isFalse();
-    }
-
-    @Test
-    void deleteById() {
+    void writesChangeEventsWithEveryWrite() {
         // Given
         final String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
-        Customer customer = new Customer(
-                FAKER.name().fullName(),
-                25,
-                email
-        );
-
-        underTest.save(customer);
-
-        long id = underTest.findAll()
-                .stream()
+        underTest.save(new Customer("Alex", 25, email));
+        final long id = underTest.findAll().stream()
                 .filter(c -> c.email().equals(email))
                 .map(Customer::id)
                 .findFirst()
                 .orElseThrow();
 
         // When
+        underTest.update(new Customer(id, "Alexander", null, null));
+        underTest.update(new Customer(id, "Alexander", null, null));
+        underTest.deleteById(id);
         underTest.deleteById(id);
 
         // Then
-        Optional<Customer> actual = underTest.findById(id);
-        assertThat(actual).isNotPresent();
-    }
-
-    @Test
-    void updateCustomerName() {
-        // Given
-        final String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
-        Customer customer = new Customer(
-                FAKER.name().fullName(),
-                25,
-                email
+        assertThat(changeTypes(id)).containsExactly(
+                CustomerChangeType.CREATED,
+                CustomerChangeType.UPDATED,
+                CustomerChangeType.DELETED
         );
-
-        underTest.save(customer);
-
-        long id = underTest.findAll()
-                .stream()
-                .filter(c -> c.email().equals(email))
-                .map(Customer::id)
-                .findFirst()
-                .orElseThrow();
-
-        var newName = "foo";
-
-        // When name changed
-        Customer update = new Customer(
-                id,
-                newName,
-                customer.age(),
-                customer.email()
-        );
-
-        underTest.update(update);
-
-        // Then
-        Optional<Customer> actual = underTest.findById(id);
-
-        assertThat(actual).isPresent().hasValueSatisfying(c -> {
-            assertThat(c.id()).isEqualTo(id);
-            assertThat(c.name()).isEqualTo(newName); // change
-            assertThat(c.email()).isEqualTo(customer.email());
-            assertThat(c.age()).isEqualTo(customer.age());
-        });
     }
 
     @Test
-    void updateCustomerEmail() {
+    void batchWritesAddChangeEvents() {
         // Given
         final String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
-        Customer customer = new Customer(
-                FAKER.name().fullName(),
-                25,
-                email
-        );
-
-        underTest.save(customer);
-
-        long id = underTest.findAll()
-                .stream()
-                .filter(c -> c.email().equals(email))
-                .map(Customer::id)
-                .findFirst()
-                .orElseThrow();
+        final List<CustomerBatchItemResult> saved = underTest.saveAll(List.of(
+                new Customer(FAKER.name().fullName(), 20, email),
+                new Customer(FAKER.name().fullName(), 21, email)
+        ));
+        final long id = saved.get(0).id();
 
-        var newEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
-
-        // When name changed
-        Customer update = new Customer(
-                id,
-                customer.name(),
-                customer.age(),
-                newEmail
-        );
-
-        underTest.update(update);
+        // When
+        underTest.updateAll(List.of(new Customer(id, null, 30, null)));
+        underTest.deleteAllById(List.of(id));
 
         // Then
-        Optional<Customer> actual = underTest.findById(id);
-
-        assertThat(actual).isPresent().hasValueSatisfying(c -> {
-            assertThat(c.id()).isEqualTo(id);
-            assertThat(c.name()).isEqualTo(customer.name());
-            assertThat(c.email()).isEqualTo(newEmail); // change
-            assertThat(c.age()).isEqualTo(customer.age());
-        });
-    }
-
-    @Test
-    void updateCustomerAge() {
-        // Given
-        final String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
-        Customer customer = new Customer(
-                FAKER.name().fullName(),
-                25,
-                email
-        );
-
-        underTest.save(customer);
-
-        long id = underTest.findAll()
-                .stream()
-                .filter(c -> c.email().equals(email))
-                .map(Customer::id)
-                .findFirst()
-                .orElseThrow();
-
-        var newAge = 100;
-
-        // When age changed
-        Customer update = new Customer(
-                id,
-                customer.name(),
-                newAge,
-                customer.email()
+        assertThat(saved.get(1).status()).isEqualTo(CustomerBatchStatus.DUPLICATE_EMAIL);
+        assertThat(changeTypes(id)).containsExactly(
+                CustomerChangeType.CREATED,
+                CustomerChangeType.UPDATED,
+                CustomerChangeType.DELETED
         );
-
-        underTest.update(update);
-
-        // Then
-        Optional<Customer> actual = underTest.findById(id);
-
-        assertThat(actual).isPresent().hasValueSatisfying(c -> {
-            assertThat(c.id()).isEqualTo(id);
-            assertThat(c.name()).isEqualTo(customer.name());
-            assertThat(c.email()).isEqualTo(customer.email());
-            assertThat(c.age()).isEqualTo(newAge); // change
-        });
     }
 
     @Test
-    void willUpdateAllPropertyCustomer() {
+    void changedSinceHoldsWatermarkBackForRunningTransactions() throws Exception {
         // Given
-        final String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
-        Customer customer = new Customer(
-                FAKER.name().fullName(),
-                25,
-                email
-        );
-
-        underTest.save(customer);
-
-        long id = underTest.findAll()
-                .stream()
-                .filter(c -> c.email().equals(email))
-                .map(Customer::id)
-                .findFirst()
-                .orElseThrow();
-
-        String newEmail = "newemail@newemail.com";
-
-        // When update with new name, age and email
-        Customer update = new Customer(
-                id,
-                "foo",
-                22,
-                newEmail
-        );
-
-        underTest.update(update);
-
-        // Then
-        Optional<Customer> actual = underTest.findById(id);
-
-        assertThat(actual).isPresent().hasValueSatisfying(updated -> {
-            assertThat(updated.id()).isEqualTo(id);
-            assertThat(updated.name()).isEqualTo("foo");
-            assertThat(updated.email()).isEqualTo(newEmail);
-            assertThat(updated.age()).isEqualTo(22);
-        });
+        final CustomerWatermark watermark = syncAll(null).watermark();
+        final String lateEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        try (Connection connection = Objects.requireNonNull(jdbcTemplate().getJdbcTemplate().getDataSource()).getConnection();
+             Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            statement.execute("INSERT INTO customer(name, age, email) VALUES ('Late', 40, '%s')".formatted(lateEmail));
+            final long early = underTest.saveAll(List.of(
+                    new Customer("Early", 20, FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID())
+            )).getFirst().id();
+
+            // When
+            final CustomerDelta whileRunning = syncAll(watermark);
+            connection.commit();
+            final CustomerDelta afterCommit = syncAll(whileRunning.watermark());
+
+            // Then
+            assertThat(whileRunning.changed()).extracting(Customer::id).doesNotContain(early);
+            assertThat(afterCommit.changed()).extracting(Customer::email).contains(lateEmail);
+            assertThat(afterCommit.changed()).extracting(Customer::id).contains(early);
+        }
     }
 
     @Test
-    void willNotUpdateWhenNothingToUpdate() {
+    void changedSinceHoldsWatermarkBackForTransactionsOfOtherRoles() throws Exception {
         // Given
-        final String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
-        Customer customer = new Customer(
-                FAKER.name().fullName(),
-                25,
-                email
-        );
-
-        underTest.save(customer);
+        final CustomerJDBCRepository writer = underTest;
+        underTest = new CustomerJDBCRepository(unprivilegedJdbcTemplate(), customerRowMapper);
+        final CustomerWatermark watermark = syncAll(null).watermark();
+        final String lateEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        try (Connection connection = Objects.requireNonNull(jdbcTemplate().getJdbcTemplate().getDataSource()).getConnection();
+             Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            statement.execute("INSERT INTO customer(name, age, email) VALUES ('Late', 40, '%s')".formatted(lateEmail));
+            writer.saveAll(List.of(
+                    new Customer("Early", 20, FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID())
+            ));
+
+            // When
+            final CustomerDelta whileRunning = syncAll(watermark);
+            connection.commit();
+            final CustomerDelta afterCommit = syncAll(whileRunning.watermark());
+
+            // Then
+            assertThat(whileRunning.watermark().changedAt()).isEqualTo(watermark.changedAt());
+            assertThat(afterCommit.changed()).extracting(Customer::email).contains(lateEmail);
+        }
+    }
 
-        long id = underTest.findAll()
+    /**
+     * Events of one customer, wherever they are: a relay of a running application context may move them on.
+     */
+    private static List<CustomerChangeType> changeTypes(final long customerId) {
+        return jdbcTemplate().queryForList(
+                        """
+                        SELECT type FROM (
+                            SELECT 0 AS source, position AS seq, type FROM customer_change WHERE customer_id = :id
+                            UNION ALL
+                            SELECT 1, id, type FROM customer_outbox WHERE customer_id = :id
+                        ) events ORDER BY source, seq
+                        """,
+                        Map.of("id", customerId),
+                        String.class
+                )
                 .stream()
-                .filter(c -> c.email().equals(email))
-                .map(Customer::id)
-                .findFirst()
-                .orElseThrow();
-
-        // When update without no changes
-        underTest.update(customer);
-
-        // Then
-        Optional<Customer> actual = underTest.findById(id);
+                .map(CustomerChangeType::valueOf)
+                .toList();
+    }
 
-        assertThat(actual).isPresent().hasValueSatisfying(c -> {
-            assertThat(c.id()).isEqualTo(id);
-            assertThat(c.age()).isEqualTo(customer.age());
-            assertThat(c.name()).isEqualTo(customer.name());
-            assertThat(c.email()).isEqualTo(customer.email());
-        });
+    /**
+     * A role without pg_read_all_stats, it sees the test user's sessions in pg_stat_activity without xact_start.
+     */
+    private static NamedParameterJdbcTemplate unprivilegedJdbcTemplate() {
+        jdbcTemplate().getJdbcTemplate().execute("""
+                DO $$
+                BEGIN
+                    IF NOT EXISTS (SELECT 1 FROM pg_roles WHERE rolname = 'delta_reader') THEN
+                        CREATE ROLE delta_reader LOGIN PASSWORD 'password';
+                    END IF;
+                END
+                $$;
+                GRANT SELECT ON customer, customer_tombstone TO delta_reader;
+                """);
+        return new NamedParameterJdbcTemplate(DataSourceBuilder.create()
+                .driverClassName(postgreSQLContainer.getDriverClassName())
+                .url(postgreSQLContainer.getJdbcUrl())
+                .username("delta_reader")
+                .password("password")
+                .build());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package com.generic.customer;
+
+import com.generic.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CustomerMetricsAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CustomerDAO customerDAO;
+    private CustomerDAO underTest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        customerDAO = mock(CustomerDAO.class);
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(customerDAO);
+        proxyFactory.addAspect(new CustomerMetricsAspect(meterRegistry));
+        underTest = proxyFactory.getProxy();
+    }
+
+    @Test
+    void recordsTimerAndRowsPerDaoMethod() {
+        // Given
+        when(customerDAO.findPage(0L, 3)).thenReturn(List.of(
+                new Customer(1L, "Alex", 19, "alex@gmail.com"),
+                new Customer(2L, "Jamila", 20, "jamila@gmail.com")
+        ));
+        when(customerDAO.findById(1L)).thenReturn(Optional.empty());
+
+        // When
+        underTest.findPage(0L, 3);
+        underTest.findPage(0L, 3);
+        underTest.findById(1L);
+
+        // Then
+        assertThat(meterRegistry.get(CustomerMetricsAspect.DAO_TIMER)
+                .tags("method", "findPage", "outcome", "success")
+                .timer()
+                .count()).isEqualTo(2);
+        assertThat(meterRegistry.get(CustomerMetricsAspect.DAO_ROWS)
+                .tags("method", "findPage")
+                .summary()
+                .totalAmount()).isEqualTo(4);
+        assertThat(meterRegistry.get(CustomerMetricsAspect.DAO_ROWS)
+                .tags("method", "findById")
+                .summary()
+                .totalAmount()).isZero();
+    }
+
+    @Test
+    void countsErrorsByExceptionType() {
+        // Given
+        when(customerDAO.update(null)).thenThrow(new ResourceNotFoundException("missing"));
+
+        // When
+        assertThatThrownBy(() -> underTest.update(null))
+                .isInstanceOf(ResourceNotFoundException.class);
+
+        // Then
+        assertThat(meterRegistry.get(CustomerMetricsAspect.ERRORS)
+                .tags("layer", "dao", "method", "update", "exception", "ResourceNotFoundException")
+                .counter()
+                .count()).isEqualTo(1);
+        assertThat(meterRegistry.get(CustomerMetricsAspect.DAO_TIMER)
+                .tags("method", "update", "outcome", "error")
+                .timer()
+                .count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,156 @@
+package com.generic.customer;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnknownFieldSet;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerProtobufHttpMessageConverterTest {
+
+    private static final Type CUSTOMER_LIST = new ParameterizedTypeReference<List<Customer>>() {}.getType();
+    private static final Type RESULT_LIST = new ParameterizedTypeReference<List<CustomerBatchItemResult>>() {}.getType();
+
+    private final CustomerProtobufHttpMessageConverter underTest = new CustomerProtobufHttpMessageConverter();
+
+    @Test
+    void canWriteCustomerResponses() {
+        // When / Then
+        assertThat(underTest.canWrite(Customer.class, Customer.class, CustomerProtobufHttpMessageConverter.PROTOBUF)).isTrue();
+        assertThat(underTest.canWrite(CustomerPage.class, CustomerPage.class, null)).isTrue();
+        assertThat(underTest.canWrite(CUSTOMER_LIST, List.class, CustomerProtobufHttpMessageConverter.PROTOBUF)).isTrue();
+        assertThat(underTest.canWrite(RESULT_LIST, List.class, CustomerProtobufHttpMessageConverter.PROTOBUF)).isTrue();
+        assertThat(underTest.getSupportedMediaTypes(ArrayList.class)).containsExactly(CustomerProtobufHttpMessageConverter.PROTOBUF);
+    }
+
+    @Test
+    void cannotWriteOtherTypesOrMediaTypes() {
+        // When / Then
+        assertThat(underTest.canWrite(Customer.class, Customer.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(underTest.canWrite(String.class, String.class, CustomerProtobufHttpMessageConverter.PROTOBUF)).isFalse();
+        assertThat(underTest.canWrite(List.class, List.class, CustomerProtobufHttpMessageConverter.PROTOBUF)).isFalse();
+        assertThat(underTest.canRead(Customer.class, CustomerProtobufHttpMessageConverter.PROTOBUF)).isFalse();
+    }
+
+    @Test
+    void writeCustomer() throws IOException {
+        // Given
+        final Customer customer = new Customer(7L, "Alex", 19, "alex@gmail.com");
+
+        // When
+        final UnknownFieldSet message = UnknownFieldSet.parseFrom(write(customer, Customer.class));
+
+        // Then
+        assertCustomer(message, customer);
+    }
+
+    @Test
+    void writeCustomerSkipsNullFields() throws IOException {
+        // Given
+        final Customer customer = new Customer(7L, null, null, "alex@gmail.com");
+
+        // When
+        final UnknownFieldSet message = UnknownFieldSet.parseFrom(write(customer, Customer.class));
+
+        // Then
+        assertThat(message.hasField(2)).isFalse();
+        assertThat(message.hasField(3)).isFalse();
+        assertThat(message.getField(4).getLengthDelimitedList()).containsExactly(ByteString.copyFromUtf8("alex@gmail.com"));
+    }
+
+    @Test
+    void writePage() throws IOException {
+        // Given
+        final CustomerPage page = new CustomerPage(
+                List.of(new Customer(1L, "Alex", 19, "alex@gmail.com"), new Customer(2L, "Jamila", 20, "jamila@gmail.com")),
+                "next"
+        );
+
+        // When
+        final UnknownFieldSet message = UnknownFieldSet.parseFrom(write(page, CustomerPage.class));
+
+        // Then
+        final List<ByteString> customers = message.getField(1).getLengthDelimitedList();
+        assertThat(customers).hasSize(2);
+        assertCustomer(UnknownFieldSet.parseFrom(customers.get(0)), page.customers().get(0));
+        assertCustomer(UnknownFieldSet.parseFrom(customers.get(1)), page.customers().get(1));
+        assertThat(message.getField(2).getLengthDelimitedList()).containsExactly(ByteString.copyFromUtf8("next"));
+    }
+
+    @Test
+    void writeCustomerList() throws IOException {
+        // Given
+        final List<Customer> customers = List.of(
+                new Customer(1L, "Alex", 19, "alex@gmail.com"),
+                new Customer(2L, "Jamila", 20, "jamila@gmail.com")
+        );
+
+        // When
+        final UnknownFieldSet message = UnknownFieldSet.parseFrom(write(customers, CUSTOMER_LIST));
+
+        // Then
+        final List<ByteString> items = message.getField(1).getLengthDelimitedList();
+        assertThat(items).hasSize(2);
+        assertCustomer(UnknownFieldSet.parseFrom(items.get(1)), customers.get(1));
+    }
+
+    @Test
+    void writeBatchItemResults() throws IOException {
+        // Given
+        final List<CustomerBatchItemResult> results = List.of(
+                new CustomerBatchItemResult(1L, CustomerBatchStatus.CREATED),
+                new CustomerBatchItemResult(null, CustomerBatchStatus.DUPLICATE_EMAIL)
+        );
+
+        // When
+        final UnknownFieldSet message = UnknownFieldSet.parseFrom(write(results, RESULT_LIST));
+
+        // Then
+        final List<ByteString> items = message.getField(1).getLengthDelimitedList();
+        final UnknownFieldSet created = UnknownFieldSet.parseFrom(items.get(0));
+        assertThat(created.getField(1).getVarintList()).containsExactly(1L);
+        assertThat(created.getField(2).getVarintList()).containsExactly(1L);
+        final UnknownFieldSet duplicate = UnknownFieldSet.parseFrom(items.get(1));
+        assertThat(duplicate.hasField(1)).isFalse();
+        assertThat(duplicate.getField(2).getVarintList()).containsExactly(5L);
+    }
+
+    @Test
+    void writeSetsContentLength() throws IOException {
+        // Given
+        final MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+
+        // When
+        underTest.write(
+                new Customer(7L, "Alex", 19, "alex@gmail.com"),
+                Customer.class,
+                CustomerProtobufHttpMessageConverter.PROTOBUF,
+                outputMessage
+        );
+
+        // Then
+        assertThat(outputMessage.getHeaders().getContentLength()).isEqualTo(outputMessage.getBodyAsBytes().length);
+        assertThat(outputMessage.getHeaders().getContentType()).isEqualTo(CustomerProtobufHttpMessageConverter.PROTOBUF);
+    }
+
+    private byte[] write(final Object body, final Type type) throws IOException {
+        final MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+        underTest.write(body, type, CustomerProtobufHttpMessageConverter.PROTOBUF, outputMessage);
+        return outputMessage.getBodyAsBytes();
+    }
+
+    private static void assertCustomer(final UnknownFieldSet message, final Customer expected) {
+        assertThat(message.getField(1).getVarintList()).containsExactly(expected.id());
+        assertThat(message.getField(2).getLengthDelimitedList()).containsExactly(ByteString.copyFromUtf8(expected.name()));
+        assertThat(message.getField(3).getVarintList()).containsExactly((long) expected.age());
+        assertThat(message.getField(4).getLengthDelimitedList()).containsExactly(ByteString.copyFromUtf8(expected.email()));
+    }
+}
@@ -0,0 +1,161 @@
+package com.generic.customer;
+
+import com.generic.AbstractTestcontainers;
+import com.generic.exception.DuplicateResourceException;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerR2DBCRepositoryTest extends AbstractTestcontainers {
+
+    private CustomerR2DBCRepository underTest;
+
+    @BeforeEach
+    void setUp() {
+        final ConnectionFactoryOptions options = ConnectionFactoryOptions
+                .parse(postgreSQLContainer.getJdbcUrl().replaceFirst("^jdbc:", "r2dbc:"))
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, postgreSQLContainer.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, postgreSQLContainer.getPassword())
+                .build();
+        underTest = new CustomerR2DBCRepository(
+                DatabaseClient.create(ConnectionFactories.get(options))
+        );
+    }
+
+    @Test
+    void saveAndFindById() {
+        // Given
+        final String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        final Customer customer = new Customer(FAKER.name().fullName(), 25, email);
+        underTest.save(customer).block();
+
+        final long id = idOf(email);
+
+        // When
+        final Customer actual = underTest.findById(id).block();
+
+        // Then
+        assertThat(actual).isEqualTo(new Customer(id, customer.name(), 25, email));
+        assertThat(underTest.existsByEmail(email).block()).isTrue();
+        assertThat(underTest.existsById(id).block()).isTrue();
+    }
+
+    @Test
+    void willReturnEmptyWhenFindById() {
+        assertThat(underTest.findById(-1).block()).isNull();
+        assertThat(underTest.existsById(-1).block()).isFalse();
+    }
+
+    @Test
+    void findPage() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            underTest.save(new Customer(
+                    FAKER.name().fullName(),
+                    25,
+                    FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID()
+            )).block();
+        }
+
+        // When
+        final List<Customer> firstPage = underTest.findPage(0, 2).collectList().block();
+        final List<Customer> secondPage = underTest.findPage(firstPage.get(1).id(), 2).collectList().block();
+
+        // Then
+        assertThat(firstPage).hasSize(2);
+        assertThat(secondPage).isNotEmpty();
+        assertThat(secondPage.get(0).id()).isGreaterThan(firstPage.get(1).id());
+    }
+
+    @Test
+    void update() {
+        // Given
+        final String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        final String takenEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.save(new Customer(FAKER.name().fullName(), 25, email)).block();
+        underTest.save(new Customer(FAKER.name().fullName(), 25, takenEmail)).block();
+        final long id = idOf(email);
+
+        // When / Then
+        assertThat(underTest.update(new Customer(id, "foo", 26, null)).block())
+                .isEqualTo(CustomerUpdateResult.UPDATED);
+        assertThat(underTest.update(new Customer(id, "foo", null, null)).block())
+                .isEqualTo(CustomerUpdateResult.UNCHANGED);
+        assertThat(underTest.update(new Customer(-1L, "foo", null, null)).block())
+                .isEqualTo(CustomerUpdateResult.NOT_FOUND);
+        assertThatThrownBy(() -> underTest.update(new Customer(id, null, null, takenEmail)).block())
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("Email already taken");
+        assertThat(underTest.findById(id).block())
+                .isEqualTo(new Customer(id, "foo", 26, email));
+    }
+
+    @Test
+    void deleteById() {
+        // Given
+        final String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.save(new Customer(FAKER.name().fullName(), 25, email)).block();
+        final long id = idOf(email);
+
+        // When
+        underTest.deleteById(id).block();
+
+        // Then
+        assertThat(underTest.findById(id).block()).isNull();
+    }
+
+    @Test
+    void writesEveryChangeToTheOutbox() {
+        // Given
+        final String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.save(new Customer(FAKER.name().fullName(), 25, email)).block();
+        final long id = idOf(email);
+
+        // When
+        underTest.update(new Customer(id, "foo", null, null)).block();
+        underTest.update(new Customer(id, "foo", null, null)).block();
+        underTest.deleteById(id).block();
+
+        // Then
+        assertThat(changeTypes(id)).containsExactly(
+                CustomerChangeType.CREATED, CustomerChangeType.UPDATED, CustomerChangeType.DELETED
+        );
+    }
+
+    /**
+     * Events of one customer, wherever they are: a relay of a running application context may move them on.
+     */
+    private static List<CustomerChangeType> changeTypes(final long customerId) {
+        return jdbcTemplate().queryForList(
+                        """
+                        SELECT type FROM (
+                            SELECT 0 AS source, position AS seq, type FROM customer_change WHERE customer_id = :id
+                            UNION ALL
+                            SELECT 1, id, type FROM customer_outbox WHERE customer_id = :id
+                        ) events ORDER BY source, seq
+                        """,
+                        Map.of("id", customerId),
+                        String.class
+                )
+                .stream()
+                .map(CustomerChangeType::valueOf)
+                .toList();
+    }
+
+    private long idOf(final String email) {
+        return underTest.findAll()
+                .filter(c -> c.email().equals(email))
+                .map(Customer::id)
+                .blockFirst();
+    }
+}
@@ -3,10 +3,16 @@ package com.generic.customer;
 import org.junit.jupiter.api.Test;
 
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class CustomerRowMapperTest {
@@ -31,4 +37,61 @@ class CustomerRowMapperTest {
         );
         assertThat(actual).isEqualTo(expected);
     }
-}
\ No newline at end of file
+
+    @Test
+    void listExtractorResolvesColumnsOnce() throws SQLException {
+        // Given
+        CustomerRowMapper customerRowMapper = new CustomerRowMapper();
+
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(4);
+        when(metaData.getColumnLabel(1)).thenReturn("email");
+        when(metaData.getColumnLabel(2)).thenReturn("ID");
+        when(metaData.getColumnLabel(3)).thenReturn("age");
+        when(metaData.getColumnLabel(4)).thenReturn("name");
+
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getString(1)).thenReturn("ivan@gmail.com", "anna@gmail.com");
+        when(resultSet.getLong(2)).thenReturn(1L, 2L);
+        when(resultSet.getInt(3)).thenReturn(19, 20);
+        when(resultSet.getString(4)).thenReturn("Ivan", "Anna");
+
+        // When
+        List<Customer> actual = customerRowMapper.listExtractor().extractData(resultSet);
+
+        // Then
+        assertThat(actual).containsExactly(
+                new Customer(1L, "Ivan", 19, "ivan@gmail.com"),
+                new Customer(2L, "Anna", 20, "anna@gmail.com")
+        );
+        verify(resultSet).getMetaData();
+        verify(resultSet, never()).findColumn(anyString());
+    }
+
+    @Test
+    void rowCallbackMapsProjectionSubset() throws SQLException {
+        // Given
+        CustomerRowMapper customerRowMapper = new CustomerRowMapper();
+
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(2);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(metaData.getColumnLabel(2)).thenReturn("age");
+
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(resultSet.getLong(1)).thenReturn(1L);
+        when(resultSet.getInt(2)).thenReturn(0);
+        when(resultSet.wasNull()).thenReturn(true);
+
+        List<Customer> actual = new ArrayList<>();
+
+        // When
+        customerRowMapper.rowCallback(actual::add).processRow(resultSet);
+
+        // Then
+        assertThat(actual).containsExactly(new Customer(1L, null, null, null));
+    }
+}
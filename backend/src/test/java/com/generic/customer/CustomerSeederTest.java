@@ -0,0 +1,86 @@
+package com.generic.customer;
+
+import com.generic.AbstractTestcontainers;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerSeederTest extends AbstractTestcontainers {
+
+    private static final long ROWS = CustomerSeeder.CHUNK_ROWS + 10_000;
+
+    @Test
+    void seedsUniqueCustomersTheSameWayWhateverTheWorkers() throws Exception {
+        // Given
+        final List<String> indexes = indexes();
+
+        // When
+        final long written = seeder(3, true).seed();
+        final Map<String, Object> first = digest();
+        seeder(1, true).seed();
+        final Map<String, Object> second = digest();
+
+        // Then
+        assertThat(written).isEqualTo(ROWS);
+        assertThat(first.get("rows")).isEqualTo(ROWS);
+        assertThat(first.get("emails")).isEqualTo(ROWS);
+        assertThat(second.get("digest")).isEqualTo(first.get("digest"));
+        assertThat(indexes()).containsExactlyInAnyOrderElementsOf(indexes);
+    }
+
+    @Test
+    void refusesANonEmptyTableWithoutTruncate() {
+        // Given
+        final List<String> indexes = indexes();
+        jdbcTemplate().update(
+                "INSERT INTO customer(name, age, email) VALUES (:name, 30, :email)",
+                Map.of("name", FAKER.name().fullName(), "email", FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID())
+        );
+        final long before = count();
+
+        // When / Then
+        assertThatThrownBy(() -> seeder(1, false).seed())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("customer.seed.truncate=true");
+        assertThat(count()).isEqualTo(before);
+        assertThat(indexes()).containsExactlyInAnyOrderElementsOf(indexes);
+    }
+
+    private static CustomerSeeder seeder(final int workers, final boolean truncate) {
+        final DataSource dataSource = DataSourceBuilder.create()
+                .url(postgreSQLContainer.getJdbcUrl())
+                .username(postgreSQLContainer.getUsername())
+                .password(postgreSQLContainer.getPassword())
+                .build();
+        return new CustomerSeeder(dataSource, ROWS, workers, 7, truncate, true, Duration.ofMinutes(1), 10);
+    }
+
+    private static Map<String, Object> digest() {
+        return jdbcTemplate().queryForMap(
+                """
+                SELECT count(*) AS rows, count(DISTINCT email) AS emails,
+                       md5(string_agg(name || '|' || age || '|' || email, ',' ORDER BY email)) AS digest
+                FROM customer
+                """,
+                Map.of()
+        );
+    }
+
+    private static long count() {
+        return jdbcTemplate().queryForObject("SELECT count(*) FROM customer", Map.of(), Long.class);
+    }
+
+    private static List<String> indexes() {
+        return jdbcTemplate().queryForList(
+                "SELECT indexdef FROM pg_indexes WHERE tablename = 'customer'", Map.of(), String.class
+        );
+    }
+}
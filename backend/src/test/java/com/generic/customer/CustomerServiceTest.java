@@ -3,14 +3,23 @@ package com.generic.customer;
 import com.generic.exception.DuplicateResourceException;
 import com.generic.exception.RequestValidationException;
 import com.generic.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
@@ -22,11 +31,13 @@ class CustomerServiceTest {
     private CustomerService underTest;
     @Mock
     private CustomerDAO customerDAO;
+    @Mock
+    private CustomerBulkImporter bulkImporter;
 
 
     @BeforeEach
     void setUp() {
-        underTest = new CustomerService(customerDAO);
+        underTest = new CustomerService(customerDAO, bulkImporter, CustomerEmailFilter.disabled(new SimpleMeterRegistry()));
     }
 
     @Test
@@ -60,6 +71,20 @@ class CustomerServiceTest {
                 .hasMessage("Customer with passed id [%s] not found".formatted(id));
     }
 
+    @Test
+    void findAllByIdKeepsRequestOrderAndDropsRepeatedIds() {
+        // Given
+        Customer alex = new Customer(1L, "Alex", 19, "alex@gmail.com");
+        Customer jamila = new Customer(2L, "Jamila", 20, "jamila@gmail.com");
+        when(customerDAO.findAllById(List.of(2L, 3L, 1L))).thenReturn(List.of(alex, jamila));
+
+        // When
+        List<Customer> actual = underTest.findAllById(List.of(2L, 3L, 2L, 1L));
+
+        // Then
+        assertThat(actual).isEqualTo(List.of(jamila, alex));
+    }
+
     @Test
     void findAll() {
         // When
@@ -69,6 +94,154 @@ class CustomerServiceTest {
         verify(customerDAO).findAll();
     }
 
+    @Test
+    void findPageReturnsNextPageTokenWhenMoreRowsExist() {
+        // Given
+        List<Customer> customers = List.of(
+                new Customer(1L, "Alex", 19, "alex@gmail.com"),
+                new Customer(2L, "Jamila", 20, "jamila@gmail.com"),
+                new Customer(3L, "Nick", 21, "nick@gmail.com")
+        );
+        when(customerDAO.findPage(0L, 3)).thenReturn(customers);
+
+        // When
+        CustomerPage actual = underTest.findPage(null, 2);
+
+        // Then
+        assertThat(actual.customers()).isEqualTo(customers.subList(0, 2));
+        assertThat(actual.nextPageToken()).isNotNull();
+
+        // And the token points right after the last returned customer
+        when(customerDAO.findPage(2L, 3)).thenReturn(List.of(customers.get(2)));
+        CustomerPage next = underTest.findPage(actual.nextPageToken(), 2);
+        assertThat(next.customers()).isEqualTo(List.of(customers.get(2)));
+        assertThat(next.nextPageToken()).isNull();
+    }
+
+    @Test
+    void findPageUsesDefaultPageSize() {
+        // When
+        underTest.findPage(null, null);
+
+        // Then
+        verify(customerDAO).findPage(0L, CustomerService.DEFAULT_PAGE_SIZE + 1);
+    }
+
+    @Test
+    void throwsExceptionWhenPageSizeIsOutOfBounds() {
+        assertThatThrownBy(() -> underTest.findPage(null, CustomerService.MAX_PAGE_SIZE + 1))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("Page size must be between 1 and %s".formatted(CustomerService.MAX_PAGE_SIZE));
+
+        verify(customerDAO, never()).findPage(anyLong(), anyInt());
+    }
+
+    @Test
+    void searchReturnsNextPageTokenForSortedResults() {
+        // Given
+        List<Customer> customers = List.of(
+                new Customer(7L, "Alex", 30, "alex@gmail.com"),
+                new Customer(3L, "Jamila", 25, "jamila@gmail.com"),
+                new Customer(9L, "Nick", 19, "nick@gmail.com")
+        );
+        when(customerDAO.search(any())).thenReturn(customers).thenReturn(List.of(customers.get(2)));
+
+        // When
+        CustomerPage actual = underTest.search(new CustomerSearchRequest(
+                " a ", "gmail.com", 18, null, "age", "desc", null, 2
+        ));
+        CustomerPage next = underTest.search(new CustomerSearchRequest(
+                " a ", "gmail.com", 18, null, "age", "desc", actual.nextPageToken(), 2
+        ));
+
+        // Then
+        assertThat(actual.customers()).isEqualTo(customers.subList(0, 2));
+        assertThat(next.customers()).isEqualTo(List.of(customers.get(2)));
+        assertThat(next.nextPageToken()).isNull();
+
+        ArgumentCaptor<CustomerSearchQuery> queryCaptor = ArgumentCaptor.forClass(CustomerSearchQuery.class);
+        verify(customerDAO, times(2)).search(queryCaptor.capture());
+        assertThat(queryCaptor.getAllValues().get(0)).isEqualTo(new CustomerSearchQuery(
+                "a", "gmail.com", 18, null, CustomerSortField.AGE, SortDirection.DESC, null, 3
+        ));
+        assertThat(queryCaptor.getAllValues().get(1).after())
+                .isEqualTo(new CustomerSearchQuery.After(25, 3L));
+    }
+
+    @Test
+    void throwsExceptionWhenSearchSortIsUnknown() {
+        assertThatThrownBy(() -> underTest.search(new CustomerSearchRequest(
+                null, null, null, null, "password", null, null, null
+        )))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("Unknown sort field [password]");
+
+        verify(customerDAO, never()).search(any());
+    }
+
+    @Test
+    void throwsExceptionWhenSearchAgeRangeIsInverted() {
+        assertThatThrownBy(() -> underTest.search(new CustomerSearchRequest(
+                null, null, 40, 20, null, null, null, null
+        )))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("Min age must not be greater than max age");
+
+        verify(customerDAO, never()).search(any());
+    }
+
+    @Test
+    void throwsExceptionWhenSearchTokenWasIssuedForAnotherSort() {
+        // Given
+        String token = CustomerSearchToken.encode(
+                CustomerSortField.AGE, SortDirection.ASC, new Customer(1L, "Alex", 19, "alex@gmail.com")
+        );
+
+        // Then
+        assertThatThrownBy(() -> underTest.search(new CustomerSearchRequest(
+                null, null, null, null, "name", null, token, null
+        )))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("Passed page token [%s] is invalid".formatted(token));
+    }
+
+    @Test
+    void findChangedSincePassesWatermarkBackAndForth() {
+        // Given
+        CustomerWatermark watermark = new CustomerWatermark(
+                Instant.parse("2024-02-01T10:15:30.123456Z"), 42L, Instant.parse("2024-01-01T00:00:00Z")
+        );
+        CustomerWatermark next = new CustomerWatermark(watermark.changedAt().plusSeconds(5), 0L, watermark.deletedFrom());
+        Customer customer = new Customer(7L, "Alex", 19, "alex@gmail.com");
+        when(customerDAO.changedSince(watermark, 500)).thenReturn(new CustomerDelta(List.of(customer), List.of(8L), next, false));
+
+        // When
+        CustomerDeltaPage actual = underTest.findChangedSince(CustomerWatermarkToken.encode(watermark), null);
+
+        // Then
+        assertThat(actual.changed()).isEqualTo(List.of(customer));
+        assertThat(actual.deletedIds()).isEqualTo(List.of(8L));
+        assertThat(CustomerWatermarkToken.decode(actual.watermark())).isEqualTo(next);
+    }
+
+    @Test
+    void throwsExceptionWhenWatermarkIsInvalid() {
+        assertThatThrownBy(() -> underTest.findChangedSince("not-a-watermark", null))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("Passed watermark [not-a-watermark] is invalid");
+
+        verify(customerDAO, never()).changedSince(any(), anyInt());
+    }
+
+    @Test
+    void throwsExceptionWhenPageTokenIsInvalid() {
+        assertThatThrownBy(() -> underTest.findPage("not-a-token", 10))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("Passed page token [not-a-token] is invalid");
+
+        verify(customerDAO, never()).findPage(anyLong(), anyInt());
+    }
+
     @Test
     void register() {
         // Given
@@ -114,6 +287,101 @@ class CustomerServiceTest {
         verify(customerDAO, never()).save(any());
     }
 
+    @Test
+    void registerTranslatesEmailTakenByConcurrentInsert() {
+        // Given
+        final String email = "foo@email.com";
+        when(customerDAO.existsByEmail(email)).thenReturn(Boolean.FALSE);
+        doThrow(new DuplicateResourceException("Email already taken")).when(customerDAO).save(any());
+
+        // When
+        assertThatThrownBy(() -> underTest.register(new CustomerRegistrationRequest("Nick Tschernikow", 20, email)))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("Passed email already taken");
+    }
+
+    @Test
+    void registerSkipsEmailQueryWhenFilterRulesEmailOut() {
+        // Given
+        final CustomerEmailFilter emailFilter = new CustomerEmailFilter(
+                true, customerDAO, TransactionOperations.withoutTransaction(), new SimpleMeterRegistry(), 1_000, 0.01, Duration.ofMinutes(1)
+        );
+        emailFilter.rebuild();
+        underTest = new CustomerService(customerDAO, bulkImporter, emailFilter);
+
+        // When
+        underTest.register(new CustomerRegistrationRequest("Nick Tschernikow", 20, "foo@email.com"));
+
+        // Then
+        verify(customerDAO, never()).existsByEmail(any());
+        verify(customerDAO).save(any());
+        assertThat(underTest.existsByEmail("foo@email.com")).isFalse();
+        verify(customerDAO).existsByEmail("foo@email.com");
+    }
+
+    @Test
+    void registerAll() {
+        // Given
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("Alex", 19, "alex@gmail.com"),
+                new CustomerRegistrationRequest("Jamila", 20, "jamila@gmail.com")
+        );
+
+        // When
+        underTest.registerAll(requests);
+
+        // Then
+        verify(customerDAO).saveAll(List.of(
+                new Customer("Alex", 19, "alex@gmail.com"),
+                new Customer("Jamila", 20, "jamila@gmail.com")
+        ));
+    }
+
+    @Test
+    void throwsExceptionWhenBatchIsTooLarge() {
+        // Given
+        List<Long> ids = LongStream.rangeClosed(1, CustomerService.MAX_BATCH_SIZE + 1)
+                .boxed()
+                .toList();
+
+        // When
+        assertThatThrownBy(() -> underTest.deleteAllById(ids))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("Batch size must be between 1 and %s".formatted(CustomerService.MAX_BATCH_SIZE));
+
+        // Then
+        verify(customerDAO, never()).deleteAllById(any());
+    }
+
+    @Test
+    void throwsExceptionWhenBatchUpdateItemHasNoId() {
+        // Given
+        List<CustomerBatchUpdateRequest> requests = List.of(
+                new CustomerBatchUpdateRequest(1L, "Alex", null, null),
+                new CustomerBatchUpdateRequest(null, "Jamila", null, null)
+        );
+
+        // When
+        assertThatThrownBy(() -> underTest.updateAll(requests))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("Every batch update item must have an id");
+
+        // Then
+        verify(customerDAO, never()).updateAll(any());
+    }
+
+    @Test
+    void importCustomers() {
+        // Given
+        InputStream inputStream = new ByteArrayInputStream("name,age,email".getBytes(StandardCharsets.UTF_8));
+
+        // When
+        underTest.importCustomers(inputStream, CustomerImportFormat.CSV, CustomerImportConflictMode.SKIP);
+
+        // Then
+        verify(bulkImporter).importCustomers(inputStream, CustomerImportFormat.CSV, CustomerImportConflictMode.SKIP);
+    }
+
     @Test
     void deleteById() {
         // Given
@@ -172,17 +440,12 @@ class CustomerServiceTest {
     void canUpdateAllCustomersProperties() {
         // Given
         long id = 10;
-        Customer customer = new Customer(
-                id, "Alex", 19, "alex@gmail.com"
-        );
-        when(customerDAO.findById(id)).thenReturn(Optional.of(customer));
-
         String newEmail = "alexandro@amigoscode.com";
 
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
                 "Alexandro", 23, newEmail);
 
-        when(customerDAO.existsByEmail(newEmail)).thenReturn(false);
+        when(customerDAO.update(any())).thenReturn(CustomerUpdateResult.UPDATED);
 
         // When
         underTest.update(id, updateRequest);
@@ -194,23 +457,23 @@ class CustomerServiceTest {
         verify(customerDAO).update(customerArgumentCaptor.capture());
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
+        assertThat(capturedCustomer.id()).isEqualTo(id);
         assertThat(capturedCustomer.name()).isEqualTo(updateRequest.name());
         assertThat(capturedCustomer.email()).isEqualTo(updateRequest.email());
         assertThat(capturedCustomer.age()).isEqualTo(updateRequest.age());
+        verify(customerDAO, never()).findById(any());
+        verify(customerDAO, never()).existsByEmail(any());
     }
 
     @Test
     void canUpdateOnlyCustomerName() {
         // Given
         long id = 10;
-        Customer customer = new Customer(
-                id, "Alex", 19, "alex@gmail.com"
-        );
-        when(customerDAO.findById(id)).thenReturn(Optional.of(customer));
-
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
                 "Alexandro", null, null);
 
+        when(customerDAO.update(any())).thenReturn(CustomerUpdateResult.UPDATED);
+
         // When
         underTest.update(id, updateRequest);
 
@@ -222,25 +485,20 @@ class CustomerServiceTest {
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
         assertThat(capturedCustomer.name()).isEqualTo(updateRequest.name());
-        assertThat(capturedCustomer.age()).isEqualTo(customer.age());
-        assertThat(capturedCustomer.email()).isEqualTo(customer.email());
+        assertThat(capturedCustomer.age()).isNull();
+        assertThat(capturedCustomer.email()).isNull();
     }
 
     @Test
     void canUpdateOnlyCustomerEmail() {
         // Given
         long id = 10;
-        Customer customer = new Customer(
-                id, "Alex", 19, "alex@gmail.com"
-        );
-        when(customerDAO.findById(id)).thenReturn(Optional.of(customer));
-
         String newEmail = "alexandro@amigoscode.com";
 
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
                 null, null, newEmail);
 
-        when(customerDAO.existsByEmail(newEmail)).thenReturn(false);
+        when(customerDAO.update(any())).thenReturn(CustomerUpdateResult.UPDATED);
 
         // When
         underTest.update(id, updateRequest);
@@ -252,8 +510,8 @@ class CustomerServiceTest {
         verify(customerDAO).update(customerArgumentCaptor.capture());
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
-        assertThat(capturedCustomer.name()).isEqualTo(customer.name());
-        assertThat(capturedCustomer.age()).isEqualTo(customer.age());
+        assertThat(capturedCustomer.name()).isNull();
+        assertThat(capturedCustomer.age()).isNull();
         assertThat(capturedCustomer.email()).isEqualTo(newEmail);
     }
 
@@ -261,14 +519,11 @@ class CustomerServiceTest {
     void canUpdateOnlyCustomerAge() {
         // Given
         long id = 10;
-        Customer customer = new Customer(
-                id, "Alex", 19, "alex@gmail.com"
-        );
-        when(customerDAO.findById(id)).thenReturn(Optional.of(customer));
-
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
                 null, 22, null);
 
+        when(customerDAO.update(any())).thenReturn(CustomerUpdateResult.UPDATED);
+
         // When
         underTest.update(id, updateRequest);
 
@@ -279,26 +534,21 @@ class CustomerServiceTest {
         verify(customerDAO).update(customerArgumentCaptor.capture());
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
-        assertThat(capturedCustomer.name()).isEqualTo(customer.name());
+        assertThat(capturedCustomer.name()).isNull();
         assertThat(capturedCustomer.age()).isEqualTo(updateRequest.age());
-        assertThat(capturedCustomer.email()).isEqualTo(customer.email());
+        assertThat(capturedCustomer.email()).isNull();
     }
 
     @Test
     void throwsExceptionWhenTryingToUpdateCustomerEmailWhenAlreadyTaken() {
         // Given
         long id = 10;
-        Customer customer = new Customer(
-                id, "Alex", 19, "alex@gmail.com"
-        );
-        when(customerDAO.findById(id)).thenReturn(Optional.of(customer));
-
         String newEmail = "alexandro@amigoscode.com";
 
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
                 null, null, newEmail);
 
-        when(customerDAO.existsByEmail(newEmail)).thenReturn(true);
+        when(customerDAO.update(any())).thenThrow(new DuplicateResourceException("Email already taken"));
 
         // When
         assertThatThrownBy(() -> underTest.update(id, updateRequest))
@@ -306,7 +556,22 @@ class CustomerServiceTest {
                 .hasMessage("Email already taken");
 
         // Then
-        verify(customerDAO, never()).update(any());
+        verify(customerDAO, never()).existsByEmail(any());
+    }
+
+    @Test
+    void throwsExceptionWhenUpdatingMissingCustomer() {
+        // Given
+        long id = 10;
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
+                "Alexandro", null, null);
+
+        when(customerDAO.update(any())).thenReturn(CustomerUpdateResult.NOT_FOUND);
+
+        // Then
+        assertThatThrownBy(() -> underTest.update(id, updateRequest))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Customer with passed id [%s] not found".formatted(id));
     }
 
     @Test
@@ -316,17 +581,14 @@ class CustomerServiceTest {
         Customer customer = new Customer(
                 id, "Alex", 19, "alex@gmail.com"
         );
-        when(customerDAO.findById(id)).thenReturn(Optional.of(customer));
-
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
                 customer.name(), customer.age(), customer.email());
 
-        // When
+        when(customerDAO.update(customer)).thenReturn(CustomerUpdateResult.UNCHANGED);
+
+        // Then
         assertThatThrownBy(() -> underTest.update(id, updateRequest))
                 .isInstanceOf(RequestValidationException.class)
                 .hasMessage("No data changes found");
-
-        // Then
-        verify(customerDAO, never()).update(any());
     }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.generic.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class EmailBloomFilterTest {
+
+    @Test
+    void neverRulesOutAnAddedEmail() {
+        // Given
+        final EmailBloomFilter underTest = EmailBloomFilter.create(10_000, 0.01);
+
+        // When
+        IntStream.range(0, 10_000).forEach(i -> underTest.put("customer-" + i + "@gmail.com"));
+
+        // Then
+        assertThat(IntStream.range(0, 10_000))
+                .allMatch(i -> underTest.mightContain("customer-" + i + "@gmail.com"));
+    }
+
+    @Test
+    void keepsFalsePositiveRateNearTargetWhenFilledAsSized() {
+        // Given
+        final EmailBloomFilter underTest = EmailBloomFilter.create(100_000, 0.01);
+        IntStream.range(0, 100_000).forEach(i -> underTest.put("customer-" + i + "@gmail.com"));
+
+        // When
+        final long falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> underTest.mightContain("someone-else-" + i + "@yahoo.com"))
+                .count();
+
+        // Then
+        assertThat(falsePositives / 100_000.0).isLessThan(0.015);
+        assertThat(underTest.expectedFpp()).isCloseTo(0.01, within(0.002));
+        assertThat(underTest.approximateElementCount()).isCloseTo(100_000L, within(2_000L));
+        // ~9.6 bits per email at 1%
+        assertThat(underTest.bitSize() / 8).isLessThan(125_000);
+    }
+}
@@ -0,0 +1,163 @@
+package com.generic.customer;
+
+import com.generic.exception.DuplicateResourceException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmbeddedCustomerDAOTest implements CustomerDAOContract {
+
+    @TempDir
+    Path directory;
+
+    private SimpleMeterRegistry meterRegistry;
+    private EmbeddedCustomerDAO underTest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.close();
+    }
+
+    @Override
+    public CustomerDAO underTest() {
+        return underTest;
+    }
+
+    @Test
+    void recoversByReplayingTheLog() {
+        // Given
+        underTest.save(new Customer("Alex", 20, "alex@example.com"));
+        underTest.save(new Customer("Jamila", 30, "jamila@example.com"));
+        final long alex = underTest.findAll().get(0).id();
+        final long jamila = underTest.findAll().get(1).id();
+        underTest.update(new Customer(alex, null, 21, null));
+        underTest.deleteById(jamila);
+
+        // When
+        reopen();
+
+        // Then
+        assertThat(underTest.findAll()).containsExactly(new Customer(alex, "Alex", 21, "alex@example.com"));
+        assertThat(underTest.existsByEmail("jamila@example.com")).isFalse();
+        assertThatThrownBy(() -> underTest.save(new Customer("Other", 40, "alex@example.com")))
+                .isInstanceOf(DuplicateResourceException.class);
+        underTest.save(new Customer("Jamila", 30, "jamila@example.com"));
+        assertThat(underTest.findAll()).extracting(Customer::id).last().matches(id -> id > jamila);
+    }
+
+    @Test
+    void snapshotReplacesTheSegmentsItCovers() throws IOException {
+        // Given
+        underTest.save(new Customer("Alex", 20, "alex@example.com"));
+        underTest.snapshot();
+        underTest.save(new Customer("Jamila", 30, "jamila@example.com"));
+
+        // When
+        reopen();
+
+        // Then
+        assertThat(files("snapshot-")).hasSize(1);
+        assertThat(files("customer-")).hasSize(1);
+        assertThat(underTest.findAll()).extracting(Customer::email)
+                .containsExactly("alex@example.com", "jamila@example.com");
+    }
+
+    @Test
+    void cutsOffTornAppendAtTheEndOfTheLog() throws IOException {
+        // Given
+        underTest.save(new Customer("Alex", 20, "alex@example.com"));
+        underTest.close();
+        final Path segment = files("customer-").getFirst();
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            long end = file.length();
+            do {
+                file.seek(--end);
+            } while (file.read() == 0);
+            // a length and half a body whose checksum does not match, as left by a crash in the middle of an append
+            file.seek(end + 1);
+            file.writeInt(64);
+            file.writeInt(0xBADC0DE);
+            file.write("garbage".getBytes());
+        }
+
+        // When
+        underTest = open();
+        underTest.save(new Customer("Jamila", 30, "jamila@example.com"));
+        reopen();
+
+        // Then
+        assertThat(underTest.findAll()).extracting(Customer::email)
+                .containsExactly("alex@example.com", "jamila@example.com");
+    }
+
+    @Test
+    void writesOfOneCallShareOneFsync() {
+        // When
+        underTest.saveAll(List.of(
+                new Customer("Alex", 20, "alex@example.com"),
+                new Customer("Jamila", 30, "jamila@example.com"),
+                new Customer("Ivan", 40, "ivan@example.com")
+        ));
+
+        // Then
+        final DistributionSummary groupCommits = meterRegistry.get("customer.embedded.group.commit.entries").summary();
+        assertThat(groupCommits.count()).isEqualTo(1);
+        assertThat(groupCommits.totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void deletionsSurviveRestartForDeltaSync() {
+        // Given
+        underTest.save(new Customer("Alex", 20, "alex@example.com"));
+        final long id = underTest.findAll().getFirst().id();
+        final CustomerWatermark watermark = syncAll(null).watermark();
+        underTest.deleteById(id);
+        underTest.snapshot();
+
+        // When
+        reopen();
+        final CustomerDelta actual = syncAll(watermark);
+
+        // Then
+        assertThat(actual.changed()).isEmpty();
+        assertThat(actual.deletedIds()).containsExactly(id);
+    }
+
+    private EmbeddedCustomerDAO open() {
+        return new EmbeddedCustomerDAO(
+                meterRegistry, directory, 4, DataSize.ofKilobytes(64), true, Duration.ofMinutes(5)
+        );
+    }
+
+    private void reopen() {
+        underTest.close();
+        underTest = open();
+    }
+
+    private List<Path> files(final String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(prefix)).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.generic.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FindByIdCoalescerTest {
+
+    @Test
+    void fullBatchRunsWithoutWaitingForTheWindow() throws Exception {
+        // Given
+        final AtomicInteger queries = new AtomicInteger();
+        final FindByIdCoalescer underTest = new FindByIdCoalescer(
+                ids -> {
+                    queries.incrementAndGet();
+                    return ids.stream().map(id -> new Customer(id, "Alex", 19, id + "@gmail.com")).toList();
+                },
+                Duration.ofSeconds(30),
+                2,
+                new SimpleMeterRegistry()
+        );
+
+        // When
+        final CompletableFuture<Optional<Customer>> first = CompletableFuture.supplyAsync(() -> underTest.findById(1L));
+        final CompletableFuture<Optional<Customer>> second = CompletableFuture.supplyAsync(() -> underTest.findById(2L));
+
+        // Then
+        assertThat(first.get(5, TimeUnit.SECONDS)).hasValueSatisfying(c -> assertThat(c.id()).isEqualTo(1L));
+        assertThat(second.get(5, TimeUnit.SECONDS)).hasValueSatisfying(c -> assertThat(c.id()).isEqualTo(2L));
+        assertThat(queries).hasValue(1);
+    }
+
+    @Test
+    void missingIdsAndFailuresReachEveryCaller() {
+        // Given
+        final FindByIdCoalescer empty = new FindByIdCoalescer(
+                ids -> List.of(), Duration.ofNanos(1_000), 8, new SimpleMeterRegistry()
+        );
+        final FindByIdCoalescer failing = new FindByIdCoalescer(
+                ids -> {
+                    throw new IllegalStateException("database is down");
+                },
+                Duration.ofNanos(1_000),
+                8,
+                new SimpleMeterRegistry()
+        );
+
+        // When / Then
+        assertThat(empty.findById(1L)).isEmpty();
+        assertThatThrownBy(() -> failing.findById(1L))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("database is down");
+    }
+}
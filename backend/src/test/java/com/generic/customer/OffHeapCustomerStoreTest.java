@@ -0,0 +1,144 @@
+package com.generic.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapCustomerStoreTest {
+
+    private static final long TTL = Duration.ofMinutes(10).toNanos();
+
+    @Test
+    void returnsWhatWasPut() {
+        // Given
+        OffHeapCustomerStore underTest = new OffHeapCustomerStore(16);
+        Customer customer = new Customer(1L, "Jamila Ахмедова", 30, "jamila@gmail.com");
+
+        // When
+        underTest.put(1L, Optional.of(customer), TTL, underTest.version(1L));
+        underTest.put(2L, Optional.empty(), TTL, underTest.version(2L));
+
+        // Then
+        assertThat(underTest.get(1L)).contains(customer);
+        assertThat(underTest.get(2L)).isEmpty();
+        assertThat(underTest.get(3L)).isNull();
+        assertThat(underTest.size()).isEqualTo(2);
+    }
+
+    @Test
+    void expiredEntriesAreMisses() {
+        // Given
+        OffHeapCustomerStore underTest = new OffHeapCustomerStore(16);
+
+        // When
+        underTest.put(1L, Optional.of(new Customer(1L, "Alex", 19, "alex@gmail.com")), 0, underTest.version(1L));
+
+        // Then
+        assertThat(underTest.get(1L)).isNull();
+    }
+
+    @Test
+    void removalKeepsCollidingIdsReachable() {
+        // Given
+        OffHeapCustomerStore underTest = new OffHeapCustomerStore(1_000);
+        LongStream.rangeClosed(1, 1_000).forEach(id -> underTest.put(id, customer(id), TTL, underTest.version(id)));
+
+        // When
+        underTest.removeAll(LongStream.rangeClosed(1, 1_000).filter(id -> id % 3 == 0).boxed().toList());
+
+        // Then
+        assertThat(underTest.size()).isEqualTo(667);
+        LongStream.rangeClosed(1, 1_000).forEach(id -> assertThat(underTest.get(id))
+                .isEqualTo(id % 3 == 0 ? null : customer(id)));
+    }
+
+    @Test
+    void evictsEntriesNotReadSinceLastRound() {
+        // Given
+        OffHeapCustomerStore underTest = new OffHeapCustomerStore(3);
+        LongStream.rangeClosed(1, 3).forEach(id -> underTest.put(id, customer(id), TTL, underTest.version(id)));
+        underTest.get(1L);
+        underTest.get(3L);
+
+        // When
+        underTest.put(4L, customer(4L), TTL, underTest.version(4L));
+
+        // Then
+        assertThat(underTest.get(2L)).isNull();
+        assertThat(underTest.get(1L)).isEqualTo(customer(1L));
+        assertThat(underTest.get(3L)).isEqualTo(customer(3L));
+        assertThat(underTest.get(4L)).isEqualTo(customer(4L));
+        assertThat(underTest.evictions()).isEqualTo(1);
+    }
+
+    @Test
+    void reusesFreedSlabChunks() {
+        // Given
+        OffHeapCustomerStore underTest = new OffHeapCustomerStore(100);
+        LongStream.rangeClosed(1, 100).forEach(id -> underTest.put(id, customer(id), TTL, underTest.version(id)));
+        long slab = underTest.slabBytes();
+
+        // When
+        underTest.clear();
+        LongStream.rangeClosed(101, 200).forEach(id -> underTest.put(id, customer(id), TTL, underTest.version(id)));
+
+        // Then
+        assertThat(underTest.slabBytes()).isEqualTo(slab);
+        assertThat(underTest.chunkBytes()).isEqualTo(100 * 64);
+        underTest.removeAll(LongStream.rangeClosed(101, 200).boxed().toList());
+        assertThat(underTest.chunkBytes()).isZero();
+    }
+
+    @Test
+    void refusesRowsLoadedBeforeAnInvalidation() {
+        // Given
+        OffHeapCustomerStore underTest = new OffHeapCustomerStore(16);
+        long version = underTest.version(1L);
+
+        // When
+        underTest.removeAll(List.of(1L));
+        boolean actual = underTest.put(1L, customer(1L), TTL, version);
+
+        // Then
+        assertThat(actual).isFalse();
+        assertThat(underTest.get(1L)).isNull();
+    }
+
+    @Test
+    void acceptsRowsLoadedBeforeInvalidatingOtherIds() {
+        // Given
+        OffHeapCustomerStore underTest = new OffHeapCustomerStore(16);
+        long version = underTest.version(1L);
+
+        // When
+        underTest.removeAll(List.of(2L));
+        boolean actual = underTest.put(1L, customer(1L), TTL, version);
+
+        // Then
+        assertThat(actual).isTrue();
+        assertThat(underTest.get(1L)).isEqualTo(customer(1L));
+    }
+
+    @Test
+    void doesNotCacheCustomersLargerThanAChunk() {
+        // Given
+        OffHeapCustomerStore underTest = new OffHeapCustomerStore(16);
+        Customer customer = new Customer(1L, "A".repeat(2_000), 19, "alex@gmail.com");
+
+        // When
+        boolean actual = underTest.put(1L, Optional.of(customer), TTL, underTest.version(1L));
+
+        // Then
+        assertThat(actual).isFalse();
+        assertThat(underTest.get(1L)).isNull();
+    }
+
+    private static Optional<Customer> customer(final long id) {
+        return Optional.of(new Customer(id, "Customer " + id, 20, "customer-" + id + "@gmail.com"));
+    }
+}
@@ -0,0 +1,97 @@
+package com.generic.customer;
+
+import com.generic.exception.DuplicateResourceException;
+import com.generic.exception.RequestValidationException;
+import com.generic.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCustomerServiceTest {
+
+    private ReactiveCustomerService underTest;
+    @Mock
+    private ReactiveCustomerDAO customerDAO;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ReactiveCustomerService(customerDAO);
+    }
+
+    @Test
+    void throwsExceptionWhenFindByIdReturnsEmpty() {
+        // Given
+        long id = 1L;
+        when(customerDAO.findById(id)).thenReturn(Mono.empty());
+
+        // Then
+        assertThatThrownBy(() -> underTest.findById(id).block())
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Customer with passed id [%s] not found".formatted(id));
+    }
+
+    @Test
+    void findPageReturnsNextPageToken() {
+        // Given
+        when(customerDAO.findPage(0L, 2)).thenReturn(Flux.just(
+                new Customer(1L, "Alex", 19, "alex@gmail.com"),
+                new Customer(2L, "Jamila", 20, "jamila@gmail.com")
+        ));
+
+        // When
+        CustomerPage actual = underTest.findPage(null, 1).block();
+
+        // Then
+        assertThat(actual.customers()).containsExactly(new Customer(1L, "Alex", 19, "alex@gmail.com"));
+        assertThat(actual.nextPageToken()).isEqualTo(CustomerPageToken.encode(1L));
+    }
+
+    @Test
+    void throwsExceptionWhenRegisterWithBusyEmail() {
+        // Given
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest("Alex", 19, "alex@gmail.com");
+        when(customerDAO.existsByEmail(request.email())).thenReturn(Mono.just(true));
+
+        // When
+        assertThatThrownBy(() -> underTest.register(request).block())
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("Passed email already taken");
+
+        // Then
+        verify(customerDAO, never()).save(any());
+    }
+
+    @Test
+    void throwsExceptionWhenDeleteByIdEntityNotFound() {
+        // Given
+        when(customerDAO.existsById(1L)).thenReturn(Mono.just(false));
+
+        // When
+        assertThatThrownBy(() -> underTest.deleteById(1L).block())
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Customer with passed id not found");
+
+        // Then
+        verify(customerDAO, never()).deleteById(anyLong());
+    }
+
+    @Test
+    void willThrowWhenCustomerUpdateHasNoChanges() {
+        // Given
+        when(customerDAO.update(any())).thenReturn(Mono.just(CustomerUpdateResult.UNCHANGED));
+
+        // Then
+        assertThatThrownBy(() -> underTest.update(1L, new CustomerUpdateRequest("Alex", null, null)).block())
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("No data changes found");
+    }
+}
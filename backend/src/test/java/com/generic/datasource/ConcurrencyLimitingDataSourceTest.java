@@ -0,0 +1,64 @@
+package com.generic.datasource;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class ConcurrencyLimitingDataSourceTest {
+
+    @Test
+    void failsFastWhenNoPermitIsAvailable() throws SQLException {
+        // Given
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenReturn(mock(Connection.class));
+        ConcurrencyLimitingDataSource underTest = new ConcurrencyLimitingDataSource(target, 1, Duration.ofMillis(10));
+        underTest.getConnection();
+
+        // Then
+        assertThatThrownBy(underTest::getConnection)
+                .isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessage("No database permit available within 10 ms");
+        verify(target, times(1)).getConnection();
+    }
+
+    @Test
+    void closingConnectionReleasesPermitOnce() throws SQLException {
+        // Given
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+        ConcurrencyLimitingDataSource underTest = new ConcurrencyLimitingDataSource(target, 2, Duration.ofMillis(10));
+
+        // When
+        Connection actual = underTest.getConnection();
+        assertThat(underTest.availablePermits()).isEqualTo(1);
+        actual.close();
+        actual.close();
+
+        // Then
+        assertThat(underTest.availablePermits()).isEqualTo(2);
+        verify(connection, times(2)).close();
+    }
+
+    @Test
+    void failedConnectionAttemptReleasesPermit() throws SQLException {
+        // Given
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenThrow(new SQLException("boom"));
+        ConcurrencyLimitingDataSource underTest = new ConcurrencyLimitingDataSource(target, 1, Duration.ofMillis(10));
+
+        // When
+        assertThatThrownBy(underTest::getConnection).hasMessage("boom");
+
+        // Then
+        assertThat(underTest.availablePermits()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,67 @@
+package com.generic.datasource;
+
+import com.generic.exception.DeadlineExceededException;
+import com.generic.jfr.FlightRecorderConfig;
+import com.generic.jfr.FlightRecordingDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DataSourceWrapperPostProcessorTest {
+
+    private final DataSource pool = mock(DataSource.class);
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(FlightRecorderConfig.class, DataSourceConcurrencyLimitConfig.class, DeadlineDataSourceConfig.class)
+            .withPropertyValues(
+                    "customer.datasource.concurrency-limit.enabled=true",
+                    "customer.datasource.concurrency-limit.max-concurrency=1",
+                    "customer.datasource.concurrency-limit.acquire-timeout=5s"
+            )
+            .withBean(DataSource.class, () -> pool);
+
+    @Test
+    void nestsWrappersInTheirDeclaredOrder() {
+        contextRunner.run(context -> {
+            // When
+            final DataSource dataSource = context.getBean(DataSource.class);
+
+            // Then
+            assertThat(dataSource).isInstanceOf(DeadlineDataSource.class);
+            final DataSource limiter = ((DeadlineDataSource) dataSource).getTargetDataSource();
+            assertThat(limiter).isInstanceOf(ConcurrencyLimitingDataSource.class);
+            final DataSource recorder = ((ConcurrencyLimitingDataSource) limiter).getTargetDataSource();
+            assertThat(recorder).isInstanceOf(FlightRecordingDataSource.class);
+            assertThat(((FlightRecordingDataSource) recorder).getTargetDataSource()).isSameAs(pool);
+        });
+    }
+
+    @Test
+    void rejectsExpiredRequestsBeforeWaitingForAPermit() {
+        contextRunner.run(context -> {
+            // Given
+            when(pool.getConnection()).thenReturn(mock(Connection.class));
+            final DataSource dataSource = context.getBean(DataSource.class);
+            final Connection holdingTheOnlyPermit = dataSource.getConnection();
+            final long started = System.nanoTime();
+
+            // When
+            try (RequestDeadline.Scope ignored = RequestDeadline.until(started - 1)) {
+                assertThatThrownBy(dataSource::getConnection)
+                        .isInstanceOf(DeadlineExceededException.class)
+                        .hasMessage("Request deadline passed before a database connection was taken");
+            }
+
+            // Then
+            assertThat(System.nanoTime() - started).isLessThan(TimeUnit.SECONDS.toNanos(1));
+            holdingTheOnlyPermit.close();
+        });
+    }
+}
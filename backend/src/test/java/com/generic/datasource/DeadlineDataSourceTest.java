@@ -0,0 +1,113 @@
+package com.generic.datasource;
+
+import com.generic.AbstractTestcontainers;
+import com.generic.exception.DeadlineExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.postgresql.jdbc.PgStatement;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class DeadlineDataSourceTest extends AbstractTestcontainers {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DeadlineDataSource underTest = new DeadlineDataSource(
+            jdbcTemplate().getJdbcTemplate().getDataSource(), () -> meterRegistry
+    );
+
+    @Test
+    void cancelsStatementsRunningPastTheDeadline() {
+        // Given
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(underTest);
+        final long started = System.nanoTime();
+
+        // When
+        try (RequestDeadline.Scope ignored = RequestDeadline.until(started + TimeUnit.MILLISECONDS.toNanos(300))) {
+            assertThatThrownBy(() -> jdbcTemplate.execute("SELECT pg_sleep(5)"))
+                    .isInstanceOf(DeadlineExceededException.class)
+                    .hasMessage("Statement cancelled at the request deadline");
+        }
+
+        // Then
+        assertThat(System.nanoTime() - started).isLessThan(TimeUnit.SECONDS.toNanos(2));
+        assertThat(exceeded("query")).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT 1", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void setsTheTimeLeftAsQueryTimeout() throws Exception {
+        // Given
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+
+        // When
+        final long timeoutMillis;
+        try (RequestDeadline.Scope ignored = RequestDeadline.until(deadline);
+             Connection connection = underTest.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+            statement.executeQuery().close();
+            timeoutMillis = statement.unwrap(PgStatement.class).getQueryTimeoutMs();
+        }
+
+        // Then
+        assertThat(timeoutMillis).isBetween(1L, 2_000L);
+    }
+
+    @Test
+    void rejectsExpiredRequestsBeforeTakingAConnection() {
+        // Given
+        final DataSource target = mock(DataSource.class);
+        final DeadlineDataSource underTest = new DeadlineDataSource(target, () -> meterRegistry);
+
+        // When
+        try (RequestDeadline.Scope ignored = RequestDeadline.until(System.nanoTime() - 1)) {
+            assertThatThrownBy(underTest::getConnection).isInstanceOf(DeadlineExceededException.class);
+        }
+
+        // Then
+        verifyNoInteractions(target);
+        assertThat(exceeded("connection")).isEqualTo(1);
+    }
+
+    @Test
+    void nestedScopesOnlyBringTheDeadlineCloser() {
+        // Given
+        final long now = System.nanoTime();
+
+        // When
+        try (RequestDeadline.Scope outer = RequestDeadline.until(now + TimeUnit.SECONDS.toNanos(1));
+             RequestDeadline.Scope inner = RequestDeadline.until(now + TimeUnit.SECONDS.toNanos(10))) {
+
+            // Then
+            assertThat(RequestDeadline.remainingNanos()).isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+        }
+        assertThat(RequestDeadline.remainingNanos()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void leavesWorkWithoutADeadlineAlone() throws Exception {
+        // When
+        try (Connection connection = underTest.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT pg_sleep(0.1)")) {
+            statement.executeQuery().close();
+
+            // Then
+            assertThat(Proxy.isProxyClass(connection.getClass())).isFalse();
+            assertThat(statement.getQueryTimeout()).isZero();
+        }
+    }
+
+    private double exceeded(final String stage) {
+        return meterRegistry.get("customer.deadline.exceeded").tag("stage", stage).counter().count();
+    }
+}
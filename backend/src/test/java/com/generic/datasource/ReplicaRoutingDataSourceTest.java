@@ -0,0 +1,226 @@
+package com.generic.datasource;
+
+import com.generic.customer.Customer;
+import com.generic.customer.CustomerDelta;
+import com.generic.customer.CustomerJDBCRepository;
+import com.generic.customer.CustomerRowMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.Transferable;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs against a primary and a hot standby streaming from it, the standby is cloned with pg_basebackup.
+ */
+@Testcontainers
+class ReplicaRoutingDataSourceTest {
+
+    private static final Network NETWORK = Network.newNetwork();
+
+    @Container
+    private static final PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:latest")
+            .withNetwork(NETWORK)
+            .withNetworkAliases("primary")
+            .withUsername("bardiniww")
+            .withPassword("password")
+            .withCopyToContainer(
+                    Transferable.of("echo 'host replication all all trust' >> \"$PGDATA/pg_hba.conf\""),
+                    "/docker-entrypoint-initdb.d/replication.sh"
+            );
+
+    @Container
+    private static final GenericContainer<?> replica = new GenericContainer<>("postgres:latest")
+            .withNetwork(NETWORK)
+            .dependsOn(primary)
+            .withExposedPorts(PostgreSQLContainer.POSTGRESQL_PORT)
+            .withCreateContainerCmdModifier(cmd -> cmd.withUser("postgres"))
+            .withCommand("bash", "-c", "pg_basebackup -h primary -U bardiniww -D /tmp/standby -R -X stream"
+                    + " && chmod 0700 /tmp/standby && exec postgres -D /tmp/standby")
+            .waitingFor(Wait.forLogMessage(".*ready to accept read-only connections.*", 1));
+
+    private ReplicaRoutingDataSource underTest;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void beforeAll() {
+        Flyway.configure()
+                .dataSource(primary.getJdbcUrl(), primary.getUsername(), primary.getPassword())
+                .load()
+                .migrate();
+    }
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ReplicaRoutingDataSource(
+                pool(primary.getJdbcUrl()),
+                List.of(pool(replicaUrl())),
+                Duration.ofMillis(10),
+                Duration.ofMillis(300)
+        );
+        jdbcTemplate = new JdbcTemplate(underTest);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        underTest.close();
+    }
+
+    @Test
+    void routesToPrimaryUnlessReplicaIsRequested() {
+        assertThat(inRecovery()).isFalse();
+
+        try (ReplicaRouting.Scope ignored = ReplicaRouting.useReplica(null)) {
+            assertThat(inRecovery()).isTrue();
+            assertThat(ReplicaRouting.onPrimary(this::inRecovery)).isFalse();
+        }
+        assertThat(inRecovery()).isFalse();
+    }
+
+    @Test
+    void readsOwnWriteFromReplicaWithConsistencyToken() throws Exception {
+        // Given
+        final String email = UUID.randomUUID() + "@replica.com";
+        jdbcTemplate.update("INSERT INTO customer(name, age, email) VALUES ('Replica', 30, ?)", email);
+        final WalPosition token = underTest.primaryPosition();
+
+        // When
+        try (ReplicaRouting.Scope ignored = ReplicaRouting.useReplica(token)) {
+            // Then
+            assertThat(inRecovery()).isTrue();
+            assertThat(countByEmail(email)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void fallsBackToPrimaryWhenReplicaLagsBehindToken() throws Exception {
+        // Given
+        try (ReplicaRouting.Scope ignored = ReplicaRouting.useReplica(null)) {
+            jdbcTemplate.execute("SELECT pg_wal_replay_pause()");
+        }
+        try {
+            final String email = UUID.randomUUID() + "@replica.com";
+            jdbcTemplate.update("INSERT INTO customer(name, age, email) VALUES ('Lagging', 30, ?)", email);
+            final WalPosition token = underTest.primaryPosition();
+
+            // When
+            try (ReplicaRouting.Scope ignored = ReplicaRouting.useReplica(token)) {
+                // Then
+                assertThat(inRecovery()).isFalse();
+                assertThat(countByEmail(email)).isEqualTo(1);
+            }
+        } finally {
+            try (ReplicaRouting.Scope ignored = ReplicaRouting.useReplica(null)) {
+                jdbcTemplate.execute("SELECT pg_wal_replay_resume()");
+            }
+        }
+    }
+
+    @Test
+    void changedSinceReadsFromPrimaryWhenReplicaIsRequested() {
+        // Given
+        final CustomerJDBCRepository repository = new CustomerJDBCRepository(
+                new NamedParameterJdbcTemplate(underTest),
+                new CustomerRowMapper()
+        );
+        try (ReplicaRouting.Scope ignored = ReplicaRouting.useReplica(null)) {
+            jdbcTemplate.execute("SELECT pg_wal_replay_pause()");
+        }
+        try {
+            final String email = UUID.randomUUID() + "@replica.com";
+            jdbcTemplate.update("INSERT INTO customer(name, age, email) VALUES ('Delta', 30, ?)", email);
+
+            // When
+            final CustomerDelta actual;
+            try (ReplicaRouting.Scope ignored = ReplicaRouting.useReplica(null)) {
+                actual = repository.changedSince(null, Integer.MAX_VALUE);
+            }
+
+            // Then
+            assertThat(actual.changed()).extracting(Customer::email).contains(email);
+        } finally {
+            try (ReplicaRouting.Scope ignored = ReplicaRouting.useReplica(null)) {
+                jdbcTemplate.execute("SELECT pg_wal_replay_resume()");
+            }
+        }
+    }
+
+    @Test
+    void routesConnectionsWithExplicitCredentials() throws Exception {
+        // Given
+        final ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(
+                new DriverManagerDataSource(primary.getJdbcUrl(), primary.getUsername(), primary.getPassword()),
+                List.of(new DriverManagerDataSource(replicaUrl(), primary.getUsername(), primary.getPassword())),
+                Duration.ofMillis(10),
+                Duration.ofMillis(300)
+        );
+
+        // When
+        try (dataSource;
+             ReplicaRouting.Scope ignored = ReplicaRouting.useReplica(null);
+             Connection connection = dataSource.getConnection(primary.getUsername(), primary.getPassword());
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT pg_is_in_recovery()")) {
+
+            // Then
+            assertThat(rs.next()).isTrue();
+            assertThat(rs.getBoolean(1)).isTrue();
+        }
+    }
+
+    @Test
+    void parsesAndPrintsWalPositions() {
+        assertThat(WalPosition.parse("16/B374D848").toString()).isEqualTo("16/B374D848");
+        assertThat(WalPosition.parse("0/3000148")).isEqualTo(new WalPosition(0x3000148L));
+        assertThat(WalPosition.parse("1/0").isAtLeast(WalPosition.parse("0/FFFFFFFF"))).isTrue();
+        assertThatThrownBy(() -> WalPosition.parse("not-a-token"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private boolean inRecovery() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_is_in_recovery()", Boolean.class));
+    }
+
+    private Integer countByEmail(final String email) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customer WHERE email = ?", Integer.class, email);
+    }
+
+    private static String replicaUrl() {
+        return "jdbc:postgresql://%s:%d/%s".formatted(
+                replica.getHost(),
+                replica.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT),
+                primary.getDatabaseName()
+        );
+    }
+
+    private static HikariDataSource pool(final String url) {
+        final HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(primary.getUsername());
+        dataSource.setPassword(primary.getPassword());
+        dataSource.setMaximumPoolSize(2);
+        return dataSource;
+    }
+}
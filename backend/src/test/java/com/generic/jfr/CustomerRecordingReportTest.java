@@ -0,0 +1,60 @@
+package com.generic.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerRecordingReportTest {
+
+    @Test
+    void attributesStatementsToEnclosingCalls() throws IOException {
+        // Given
+        final Path file = Files.createTempFile("customer-report", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(CustomerServiceEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(CustomerJdbcEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            for (int i = 0; i < 2; i++) {
+                final CustomerServiceEvent service = new CustomerServiceEvent();
+                service.begin();
+                final CustomerJdbcEvent statement = new CustomerJdbcEvent();
+                statement.begin();
+                statement.operation = "CustomerJDBCRepository.findById";
+                statement.rows = 1;
+                statement.bindTime = 1_000;
+                statement.executionTime = 2_000_000;
+                statement.mappingTime = 3_000;
+                statement.commit();
+                service.operation = "findById";
+                service.commit();
+            }
+            recording.stop();
+            recording.dump(file);
+
+            // When
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            CustomerRecordingReport.print(RecordingFile.readAllEvents(file), new PrintStream(out, true, StandardCharsets.UTF_8));
+
+            // Then
+            final String report = out.toString(StandardCharsets.UTF_8);
+            assertThat(report).containsSubsequence("JDBC statements", "CustomerJDBCRepository.findById", "Service calls", "findById");
+            assertThat(report.lines().filter(line -> line.startsWith("findById")))
+                    .singleElement()
+                    .satisfies(line -> assertThat(line.split("\\s+"))
+                            // operation, count, p50, p99, max, bind, execute, mapping, other, rows
+                            .contains("2", "0.001", "2.000", "0.003", "1.0"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.generic.jfr;
+
+import com.generic.AbstractTestcontainers;
+import com.generic.customer.Customer;
+import com.generic.customer.CustomerJDBCRepository;
+import com.generic.customer.CustomerRowMapper;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlightRecordingDataSourceTest extends AbstractTestcontainers {
+
+    private CustomerJDBCRepository underTest;
+
+    @BeforeEach
+    void setUp() {
+        final AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new CustomerJDBCRepository(
+                new NamedParameterJdbcTemplate(new FlightRecordingDataSource(jdbcTemplate().getJdbcTemplate().getDataSource())),
+                new CustomerRowMapper()
+        ));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new CustomerFlightRecorderAspect());
+        underTest = proxyFactory.getProxy();
+    }
+
+    @Test
+    void recordsOperationRowsAndTimings() throws IOException {
+        // Given
+        final String emailPrefix = UUID.randomUUID().toString();
+        for (int i = 0; i < 3; i++) {
+            underTest.save(new Customer(FAKER.name().fullName(), 20 + i, emailPrefix + "-" + i + "@gmail.com"));
+        }
+
+        // When
+        final List<RecordedEvent> events = record(() -> underTest.findPage(0, 3));
+
+        // Then
+        assertThat(events).singleElement().satisfies(event -> {
+            assertThat(event.getString("operation")).isEqualTo("CustomerJDBCRepository.findPage");
+            assertThat(event.getLong("rows")).isEqualTo(3);
+            assertThat(event.getDuration("bindTime")).isPositive();
+            assertThat(event.getDuration("executionTime")).isPositive();
+            assertThat(event.getDuration("mappingTime")).isPositive();
+            assertThat(event.getDuration("bindTime")
+                    .plus(event.getDuration("executionTime"))
+                    .plus(event.getDuration("mappingTime")))
+                    .isLessThanOrEqualTo(event.getDuration());
+        });
+    }
+
+    @Test
+    void countsAffectedRowsOfBatchesOnce() throws IOException {
+        // Given
+        final String emailPrefix = UUID.randomUUID().toString();
+        final List<Customer> customers = List.of(
+                new Customer(FAKER.name().fullName(), 20, emailPrefix + "-a@gmail.com"),
+                new Customer(FAKER.name().fullName(), 21, emailPrefix + "-b@gmail.com")
+        );
+
+        // When
+        final List<RecordedEvent> events = record(() -> underTest.saveAll(customers));
+
+        // Then
+        assertThat(events).singleElement().satisfies(event -> {
+            assertThat(event.getString("operation")).isEqualTo("CustomerJDBCRepository.saveAll");
+            assertThat(event.getLong("rows")).isEqualTo(2);
+        });
+    }
+
+    @Test
+    void leavesConnectionsAloneWithoutARecording() throws SQLException {
+        // When
+        try (Connection connection = new FlightRecordingDataSource(jdbcTemplate().getJdbcTemplate().getDataSource()).getConnection()) {
+
+            // Then
+            assertThat(Proxy.isProxyClass(connection.getClass())).isFalse();
+        }
+    }
+
+    private static List<RecordedEvent> record(final Runnable action) throws IOException {
+        final Path file = Files.createTempFile("customer-jdbc", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(CustomerJdbcEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals(CustomerJdbcEvent.NAME))
+                    .toList();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
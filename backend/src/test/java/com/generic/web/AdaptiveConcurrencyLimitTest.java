@@ -0,0 +1,100 @@
+package com.generic.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long WINDOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final long[] clock = {0};
+
+    @Test
+    void rejectsBeyondTheLimit() {
+        // Given
+        final AdaptiveConcurrencyLimit underTest = limit(2, 2, 2);
+
+        // When
+        final int first = underTest.tryAcquire();
+        final int second = underTest.tryAcquire();
+        final int rejected = underTest.tryAcquire();
+        underTest.release(-1, second);
+
+        // Then
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isEqualTo(2);
+        assertThat(rejected).isZero();
+        assertThat(underTest.tryAcquire()).isEqualTo(2);
+    }
+
+    @Test
+    void growsWhileLatencyHolds() {
+        // Given
+        final AdaptiveConcurrencyLimit underTest = limit(10, 1, 100);
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            window(underTest, underTest.limit(), 10);
+        }
+
+        // Then
+        assertThat(underTest.limit()).isGreaterThan(20);
+    }
+
+    @Test
+    void shrinksWhenLatencyRises() {
+        // Given
+        final AdaptiveConcurrencyLimit underTest = limit(20, 4, 100);
+        for (int i = 0; i < 20; i++) {
+            window(underTest, 20, 10);
+        }
+        final int before = underTest.limit();
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            window(underTest, underTest.limit(), 50);
+        }
+
+        // Then
+        assertThat(underTest.limit()).isLessThan(before / 2);
+    }
+
+    @Test
+    void doesNotGrowWhileMostlyIdle() {
+        // Given
+        final AdaptiveConcurrencyLimit underTest = limit(10, 1, 100);
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            window(underTest, 1, 10);
+        }
+
+        // Then
+        assertThat(underTest.limit()).isEqualTo(10);
+    }
+
+    private AdaptiveConcurrencyLimit limit(final int initial, final int min, final int max) {
+        return new AdaptiveConcurrencyLimit(initial, min, max, 1.5, 0.2, WINDOW, () -> clock[0]);
+    }
+
+    /**
+     * One latency window of at least 10 requests, {@code concurrency} of them in flight at a time.
+     */
+    private void window(final AdaptiveConcurrencyLimit limit, final int concurrency, final long rttMillis) {
+        clock[0] += WINDOW;
+        final int[] inFlight = new int[concurrency];
+        for (int done = 0; done < 10; done += concurrency) {
+            for (int i = 0; i < concurrency; i++) {
+                inFlight[i] = limit.tryAcquire();
+            }
+            for (int i = 0; i < concurrency; i++) {
+                if (inFlight[i] > 0) {
+                    limit.release(TimeUnit.MILLISECONDS.toNanos(rttMillis), inFlight[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.generic.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void rejectsRequestsOverTheLimitWithRetryAfter() throws Exception {
+        // Given
+        final ConcurrencyLimitFilter underTest = filter(1, 1);
+        final MockHttpServletResponse rejected = new MockHttpServletResponse();
+
+        // When
+        underTest.doFilter(request("GET", "/api/v1/customers/1"), new MockHttpServletResponse(), (request, response) ->
+                underTest.doFilter(request("GET", "/api/v1/customers/2"), rejected, (nested, nestedResponse) -> {})
+        );
+
+        // Then
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(meterRegistry.get("customer.concurrency.rejected").tag("kind", "read").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("customer.concurrency.inflight").tag("kind", "read").gauge().value()).isZero();
+    }
+
+    @Test
+    void readsAndWritesHaveSeparateLimits() throws Exception {
+        // Given
+        final ConcurrencyLimitFilter underTest = filter(1, 1);
+        final MockHttpServletResponse write = new MockHttpServletResponse();
+
+        // When
+        underTest.doFilter(request("GET", "/api/v1/customers"), new MockHttpServletResponse(), (request, response) ->
+                underTest.doFilter(request("POST", "/api/v1/customers"), write, (nested, nestedResponse) -> {})
+        );
+
+        // Then
+        assertThat(write.getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get("customer.concurrency.limit").tag("kind", "write").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void leavesOtherPathsAlone() throws Exception {
+        // Given
+        final ConcurrencyLimitFilter underTest = filter(1, 1);
+        final MockHttpServletResponse health = new MockHttpServletResponse();
+
+        // When
+        underTest.doFilter(request("GET", "/api/v1/customers/1"), new MockHttpServletResponse(), (request, response) ->
+                underTest.doFilter(request("GET", "/actuator/health"), health, (nested, nestedResponse) -> {})
+        );
+
+        // Then
+        assertThat(health.getStatus()).isEqualTo(200);
+    }
+
+    /**
+     * Clients keep hammering a database of 4 connections that slows down from 5 ms to 50 ms per query. Without a
+     * limit every request queues behind all the others for a connection; with one, most of the queue is turned away.
+     */
+    @Test
+    void keepsTailLatencyBoundedWhenTheDatabaseSlowsDown() throws Exception {
+        // Given
+        final ConcurrencyLimitFilter unlimited = filter(1_000, 1_000, new SimpleMeterRegistry());
+        final ConcurrencyLimitFilter underTest = filter(20, 200);
+
+        // When
+        final Load withoutLimit = slowDown(unlimited);
+        final Load withLimit = slowDown(underTest);
+
+        // Then
+        assertThat(withoutLimit.rejected()).isZero();
+        assertThat(withLimit.rejected()).isPositive();
+        assertThat(withLimit.p99()).isLessThan(withoutLimit.p99() / 2);
+        assertThat(withLimit.p99()).isLessThan(TimeUnit.MILLISECONDS.toNanos(250));
+        assertThat(meterRegistry.get("customer.concurrency.limit").tag("kind", "read").gauge().value()).isLessThan(20);
+    }
+
+    private record Load(long p99, long rejected) {
+    }
+
+    private static Load slowDown(final ConcurrencyLimitFilter filter) throws InterruptedException {
+        final int clients = 32;
+        final Semaphore connections = new Semaphore(4, true);
+        final AtomicLong latencyMillis = new AtomicLong(5);
+        final FilterChain database = (request, response) -> {
+            connections.acquireUninterruptibly();
+            try {
+                Thread.sleep(latencyMillis.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                connections.release();
+            }
+        };
+        final long started = System.nanoTime();
+        final long slowFrom = started + TimeUnit.SECONDS.toNanos(1);
+        // the first second of the slowdown is the limit's to react, measured are requests sent after it
+        final long measureFrom = slowFrom + TimeUnit.SECONDS.toNanos(1);
+        final long until = measureFrom + TimeUnit.SECONDS.toNanos(1);
+        final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        final AtomicLong rejected = new AtomicLong();
+
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (long now = System.nanoTime(); now < until; now = System.nanoTime()) {
+                    if (now >= slowFrom) {
+                        latencyMillis.set(50);
+                    }
+                    final MockHttpServletResponse response = new MockHttpServletResponse();
+                    try {
+                        filter.doFilter(request("GET", "/api/v1/customers/1"), response, database);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    if (now < measureFrom) {
+                        continue;
+                    }
+                    if (response.getStatus() == 200) {
+                        latencies.add(System.nanoTime() - now);
+                    } else {
+                        rejected.incrementAndGet();
+                        // a client honouring Retry-After would wait longer, this keeps the pressure on
+                        sleep(10);
+                    }
+                }
+            }));
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        final long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new Load(sorted[(int) (sorted.length * 0.99)], rejected.get());
+    }
+
+    private ConcurrencyLimitFilter filter(final int initialLimit, final int maxLimit) {
+        return filter(initialLimit, maxLimit, meterRegistry);
+    }
+
+    private static ConcurrencyLimitFilter filter(final int initialLimit, final int maxLimit, final MeterRegistry meterRegistry) {
+        return new ConcurrencyLimitFilter(
+                limit(initialLimit, maxLimit),
+                limit(initialLimit, maxLimit),
+                503,
+                Duration.ofSeconds(2),
+                meterRegistry
+        );
+    }
+
+    private static AdaptiveConcurrencyLimit limit(final int initialLimit, final int maxLimit) {
+        return new AdaptiveConcurrencyLimit(
+                initialLimit, Math.min(4, initialLimit), maxLimit, 1.5, 0.2, TimeUnit.MILLISECONDS.toNanos(100), System::nanoTime
+        );
+    }
+
+    private static MockHttpServletRequest request(final String method, final String uri) {
+        final MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRequestURI(uri);
+        return request;
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
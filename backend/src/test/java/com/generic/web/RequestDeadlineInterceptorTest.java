@@ -0,0 +1,117 @@
+package com.generic.web;
+
+import com.generic.datasource.RequestDeadline;
+import com.generic.exception.DeadlineExceededException;
+import com.generic.exception.RequestValidationException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestDeadlineInterceptorTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestDeadlineInterceptor underTest = new RequestDeadlineInterceptor(
+            Duration.ofSeconds(5),
+            new MockEnvironment().withProperty("test.import-timeout", "1m")::resolveRequiredPlaceholders,
+            meterRegistry
+    );
+
+    @Test
+    void opensTheDefaultDeadlineUntilCompletion() throws Exception {
+        // Given
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/customers/1");
+
+        // When
+        underTest.preHandle(request, new MockHttpServletResponse(), handler("findById"));
+        final long remaining = RequestDeadline.remainingNanos();
+        underTest.afterCompletion(request, new MockHttpServletResponse(), handler("findById"), null);
+
+        // Then
+        assertThat(remaining).isBetween(TimeUnit.SECONDS.toNanos(4), TimeUnit.SECONDS.toNanos(5));
+        assertThat(RequestDeadline.remainingNanos()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void usesTheTimeoutOfTheEndpoint() throws Exception {
+        // Given
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/customers/import");
+
+        // When
+        underTest.preHandle(request, new MockHttpServletResponse(), handler("importCustomers"));
+        final long remaining = RequestDeadline.remainingNanos();
+        underTest.afterCompletion(request, new MockHttpServletResponse(), handler("importCustomers"), null);
+
+        // Then
+        assertThat(remaining).isBetween(TimeUnit.SECONDS.toNanos(59), TimeUnit.MINUTES.toNanos(1));
+    }
+
+    @Test
+    void clientsMayOnlyShortenTheDeadline() throws Exception {
+        // Given
+        final MockHttpServletRequest shorter = new MockHttpServletRequest("GET", "/api/v1/customers/1");
+        shorter.addHeader(RequestDeadlineInterceptor.HEADER, "250");
+        final MockHttpServletRequest longer = new MockHttpServletRequest("GET", "/api/v1/customers/1");
+        longer.addHeader(RequestDeadlineInterceptor.HEADER, "1h");
+
+        // When
+        underTest.preHandle(shorter, new MockHttpServletResponse(), handler("findById"));
+        final long shortened = RequestDeadline.remainingNanos();
+        underTest.afterCompletion(shorter, new MockHttpServletResponse(), handler("findById"), null);
+        underTest.preHandle(longer, new MockHttpServletResponse(), handler("findById"));
+        final long kept = RequestDeadline.remainingNanos();
+        underTest.afterCompletion(longer, new MockHttpServletResponse(), handler("findById"), null);
+
+        // Then
+        assertThat(shortened).isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(250));
+        assertThat(kept).isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    void rejectsRequestsWithNoTimeLeft() {
+        // Given
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/customers/1");
+        request.addHeader(RequestDeadlineInterceptor.HEADER, "0ms");
+
+        // Then
+        assertThatThrownBy(() -> underTest.preHandle(request, new MockHttpServletResponse(), handler("findById")))
+                .isInstanceOf(DeadlineExceededException.class);
+        assertThat(meterRegistry.get("customer.deadline.exceeded").tag("stage", "request").counter().count()).isEqualTo(1);
+        assertThat(RequestDeadline.remainingNanos()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void rejectsInvalidTimeouts() {
+        // Given
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/customers/1");
+        request.addHeader(RequestDeadlineInterceptor.HEADER, "soon");
+
+        // Then
+        assertThatThrownBy(() -> underTest.preHandle(request, new MockHttpServletResponse(), handler("findById")))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("Passed X-Request-Timeout [soon] is invalid");
+    }
+
+    private static HandlerMethod handler(final String name) throws NoSuchMethodException {
+        return new HandlerMethod(new Handlers(), Handlers.class.getDeclaredMethod(name));
+    }
+
+    static class Handlers {
+
+        void findById() {
+        }
+
+        @RequestTimeout("${test.import-timeout}")
+        void importCustomers() {
+        }
+    }
+}
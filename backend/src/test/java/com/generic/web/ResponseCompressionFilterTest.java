@@ -0,0 +1,153 @@
+package com.generic.web;
+
+import com.github.luben.zstd.Zstd;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCompressionFilterTest {
+
+    private static final int MIN_RESPONSE_SIZE = 64;
+    private static final byte[] LARGE_BODY = "{\"name\":\"Alex\",\"age\":19}\n".repeat(100).getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SMALL_BODY = "{\"name\":\"Alex\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final ResponseCompressionFilter underTest = new ResponseCompressionFilter(
+            MIN_RESPONSE_SIZE,
+            List.of(MimeTypeUtils.APPLICATION_JSON),
+            3
+    );
+
+    @Test
+    void compressesWithZstdWhenAccepted() throws Exception {
+        // Given
+        final MockHttpServletRequest request = request("gzip, deflate, br, zstd");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        underTest.doFilter(request, response, writing(MediaType.APPLICATION_JSON_VALUE, LARGE_BODY));
+
+        // Then
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("zstd");
+        assertThat(response.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_LENGTH)).isNull();
+        assertThat(Zstd.decompress(response.getContentAsByteArray(), LARGE_BODY.length)).isEqualTo(LARGE_BODY);
+    }
+
+    @Test
+    void compressesWithGzipWhenPreferred() throws Exception {
+        // Given
+        final MockHttpServletRequest request = request("zstd;q=0.5, gzip");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        underTest.doFilter(request, response, writing(MediaType.APPLICATION_JSON_VALUE, LARGE_BODY));
+
+        // Then
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gunzip(response.getContentAsByteArray())).isEqualTo(LARGE_BODY);
+    }
+
+    @Test
+    void leavesBodiesBelowThresholdAsTheyAre() throws Exception {
+        // Given
+        final MockHttpServletRequest request = request("zstd");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        underTest.doFilter(request, response, writing(MediaType.APPLICATION_JSON_VALUE, SMALL_BODY));
+
+        // Then
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getContentLength()).isEqualTo(SMALL_BODY.length);
+        assertThat(response.getContentAsByteArray()).isEqualTo(SMALL_BODY);
+    }
+
+    @Test
+    void leavesOtherContentTypesAsTheyAre() throws Exception {
+        // Given
+        final MockHttpServletRequest request = request("zstd");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        underTest.doFilter(request, response, writing(MediaType.IMAGE_PNG_VALUE, LARGE_BODY));
+
+        // Then
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getContentLength()).isEqualTo(LARGE_BODY.length);
+        assertThat(response.getContentAsByteArray()).isEqualTo(LARGE_BODY);
+    }
+
+    @Test
+    void streamsOtherContentTypesFromTheFirstFlush() throws Exception {
+        // Given
+        final MockHttpServletRequest request = request("zstd");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        underTest.doFilter(request, response, (req, res) -> {
+            res.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+            res.getOutputStream().write(SMALL_BODY);
+            res.getOutputStream().flush();
+            // Then
+            assertThat(response.getContentAsByteArray()).isEqualTo(SMALL_BODY);
+        });
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getContentAsByteArray()).isEqualTo(SMALL_BODY);
+    }
+
+    @Test
+    void leavesResponseAsItIsWhenNoCodingIsAccepted() throws Exception {
+        // Given
+        final MockHttpServletRequest request = request("zstd;q=0, br");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        underTest.doFilter(request, response, writing(MediaType.APPLICATION_JSON_VALUE, LARGE_BODY));
+
+        // Then
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(response.getContentAsByteArray()).isEqualTo(LARGE_BODY);
+    }
+
+    private static MockHttpServletRequest request(final String acceptEncoding) {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/customers");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        return request;
+    }
+
+    /**
+     * Writes the body in small pieces with the length announced upfront, the way message converters do.
+     */
+    private static FilterChain writing(final String contentType, final byte[] body) {
+        return (request, response) -> {
+            final HttpServletResponse httpResponse = (HttpServletResponse) response;
+            httpResponse.setContentType(contentType);
+            httpResponse.setContentLength(body.length);
+            for (int offset = 0; offset < body.length; offset += 16) {
+                httpResponse.getOutputStream().write(body, offset, Math.min(16, body.length - offset));
+            }
+            httpResponse.getOutputStream().flush();
+        };
+    }
+
+    private static byte[] gunzip(final byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readAllBytes();
+        }
+    }
+}